@@ -5,6 +5,10 @@ import com.thoughtworks.xstream.annotations.XStreamImplicit;
 
 import javax.persistence.*;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 import org.openmrs.BaseOpenmrsData;
 import org.openmrs.Location;
 import org.openmrs.Patient;
@@ -15,6 +19,8 @@ import java.util.Date;
 @XStreamAlias("child")
 @Entity
 @Table(name = "ptme_child")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@NaturalIdCache
 public class Child extends BaseOpenmrsData {
 
     private static final long serialVersionUID = 1L;
@@ -26,6 +32,7 @@ public class Child extends BaseOpenmrsData {
     @ManyToOne
     @JoinColumn(name = "mother")
     private Patient mother;
+    @NaturalId(mutable = true)
     @Column(nullable = false, length = 15, unique = true, name = "child_followup_number")
     private String childFollowupNumber;
     @Column(nullable = false, name = "birth_date")
@@ -12,6 +12,9 @@ import java.util.Date;
 @XStreamAlias("motherFollowup")
 @Entity
 @Table(name = "ptme_mother_followup")
+@NamedQuery(name = "MotherFollowup.currentByPregnantPatient",
+        query = "FROM MotherFollowup m WHERE m.pregnancyOutcome IS NULL AND m.voided = false " +
+                "AND m.pregnantPatient.pregnantPatientId = :pregnantPatientId")
 public class MotherFollowup extends BaseOpenmrsData {
 
     private static final long serialVersionUID = 1L;
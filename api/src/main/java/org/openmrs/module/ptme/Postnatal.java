@@ -10,6 +10,8 @@ import javax.persistence.*;
 @Entity
 //@DiscriminatorValue("Postnatal")
 @Table(name = "ptme_postnatal")
+@NamedQuery(name = "Postnatal.byPregnantNumber",
+        query = "FROM Postnatal p WHERE p.pregnantPatient.pregnantNumber = :pregnantNumber")
 public class Postnatal extends Consultation {
 
     private static final long serialVersionUID = 1L;
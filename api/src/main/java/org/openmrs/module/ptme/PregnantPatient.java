@@ -2,6 +2,10 @@ package org.openmrs.module.ptme;
 
 import com.thoughtworks.xstream.annotations.XStreamAlias;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 import org.openmrs.BaseOpenmrsData;
 import org.openmrs.Location;
 import org.openmrs.Patient;
@@ -11,6 +15,12 @@ import javax.persistence.*;
 @XStreamAlias("pregnantPatient")
 @Entity(name = "PregnantPatient")
 @Table(name = "ptme_pregnant_patient")
+// Identifier of the OpenMRS patient matching a pregnant woman
+@NamedQuery(name = "PregnantPatient.preferredPatientIdentifier",
+        query = "FROM PatientIdentifier p WHERE p.identifier = :identifier AND p.voided = false " +
+                "AND p.patient.voided = false AND p.preferred = true")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@NaturalIdCache
 public class PregnantPatient extends BaseOpenmrsData {
 
     private static final long serialVersionUID = 1L;
@@ -23,6 +33,7 @@ public class PregnantPatient extends BaseOpenmrsData {
     private String familyName;
     @Column(name = "given_name")
     private String givenName;
+    @NaturalId(mutable = true)
     @Column(unique = true, nullable = false, name = "pregnant_number")
     private String pregnantNumber;
     @Column(name = "hiv_care_number")
@@ -9,6 +9,8 @@ import java.util.Date;
 @Entity
 //@DiscriminatorValue("Prenatal")
 @Table(name = "ptme_prenatal")
+@NamedQuery(name = "Prenatal.byPregnantNumber",
+        query = "FROM Prenatal p WHERE p.pregnantPatient.pregnantNumber = :pregnantNumber")
 public class Prenatal extends Consultation {
 
     private static final long serialVersionUID = 1L;
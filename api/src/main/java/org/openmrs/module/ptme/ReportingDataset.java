@@ -1,5 +1,7 @@
 package org.openmrs.module.ptme;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.openmrs.BaseOpenmrsData;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -9,6 +11,7 @@ import java.util.Set;
 
 @Entity(name = "ReportingDataset")
 @Table(name = "ptme_reporting_dataset")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class ReportingDataset extends BaseOpenmrsData {
 
     public static final long serialVersionUID = 1L;
@@ -35,6 +38,7 @@ public class ReportingDataset extends BaseOpenmrsData {
 //    private Set<ReportingDatasetIndicator> reportingDatasetIndicators;
 
     @ManyToMany
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     @JoinTable(name = "ptme_reporting_dataset_indicator",
             joinColumns = @JoinColumn(name = "dataset_id"),
             inverseJoinColumns = @JoinColumn(name = "indicator_id"))
@@ -1,5 +1,7 @@
 package org.openmrs.module.ptme;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.openmrs.BaseOpenmrsData;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -8,6 +10,7 @@ import javax.persistence.*;
 
 @Entity
 @Table(name = "ptme_reporting_indicator")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class ReportingIndicator extends BaseOpenmrsData {
 
     public static final long serialVersionUID = 1L;
@@ -1,5 +1,7 @@
 package org.openmrs.module.ptme;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.openmrs.BaseOpenmrsData;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -9,6 +11,7 @@ import java.util.Set;
 
 @Entity
 @Table(name = "ptme_reporting_report")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class ReportingReport extends BaseOpenmrsData {
 
     public static final long serialVersionUID = 1L;
@@ -29,6 +32,7 @@ public class ReportingReport extends BaseOpenmrsData {
     private ReportingTemplate template;
 
     @ManyToMany
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     @JoinTable(name = "ptme_reporting_report_dataset",
             joinColumns = @JoinColumn(name = "report_id"),
             inverseJoinColumns = @JoinColumn(name = "dataset_id"))
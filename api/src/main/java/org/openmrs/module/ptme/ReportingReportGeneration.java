@@ -33,8 +33,9 @@ public class ReportingReportGeneration extends BaseOpenmrsData {
     @ManyToOne
     @JoinColumn(nullable = false, name = "report_id")
     private ReportingReport report;
-    @Column(name = "content_generated", nullable = false)
-    private byte[] contentGenerated;
+    @OneToOne(fetch = FetchType.LAZY, optional = false, cascade = CascadeType.ALL, orphanRemoval = true)
+    @JoinColumn(name = "content_id", nullable = false, unique = true)
+    private ReportingReportGenerationContent content;
     @Column(name = "saved", nullable = false)
     private Boolean saved = false;
 
@@ -108,11 +109,22 @@ public class ReportingReportGeneration extends BaseOpenmrsData {
     }
 
     public byte[] getContentGenerated() {
-        return contentGenerated;
+        return content != null ? content.getContent() : null;
     }
 
+    /**
+     * A new content row replaces the previous one, which is deleted, so that the generation is
+     * changed as well
+     */
     public void setContentGenerated(byte[] contentGenerated) {
-        this.contentGenerated = contentGenerated;
+        this.content = contentGenerated != null ? new ReportingReportGenerationContent(contentGenerated) : null;
+    }
+
+    /**
+     * @return the id of the content, read without loading it
+     */
+    public Integer getContentId() {
+        return content != null ? content.getContentId() : null;
     }
 
     public Boolean getSaved() {
@@ -0,0 +1,44 @@
+package org.openmrs.module.ptme;
+
+import javax.persistence.*;
+import java.io.Serializable;
+
+/**
+ * Content of a generated report, in its own table so that the generations are read without it. The
+ * mapping is on the getters : the id of a proxy is then read without loading the content.
+ */
+@Entity(name = "ReportingReportGenerationContent")
+@Table(name = "ptme_reporting_report_generation_content")
+public class ReportingReportGenerationContent implements Serializable {
+    public static final long serialVersionUID = 1L;
+
+    private Integer contentId;
+    private byte[] content;
+
+    public ReportingReportGenerationContent() {
+    }
+
+    public ReportingReportGenerationContent(byte[] content) {
+        this.content = content;
+    }
+
+    @Id
+    @GeneratedValue
+    @Column(name = "content_id")
+    public Integer getContentId() {
+        return contentId;
+    }
+
+    public void setContentId(Integer contentId) {
+        this.contentId = contentId;
+    }
+
+    @Column(name = "content", nullable = false)
+    public byte[] getContent() {
+        return content;
+    }
+
+    public void setContent(byte[] content) {
+        this.content = content;
+    }
+}
@@ -14,15 +14,19 @@
 package org.openmrs.module.ptme.api;
 
 import org.openmrs.Location;
+import org.openmrs.Obs;
 import org.openmrs.Patient;
 import org.openmrs.Relationship;
 import org.openmrs.api.OpenmrsService;
 import org.openmrs.module.ptme.*;
+import org.openmrs.module.ptme.forms.RunReportForm;
 import org.openmrs.module.ptme.utils.*;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 
 /**
  * This service exposes module's core functionality. It is a Spring managed bean which is configured in moduleApplicationContext.xml.
@@ -83,6 +87,23 @@ public interface PreventTransmissionService extends OpenmrsService {
 	List<Birth> getBirthConsultationsByDate(Date sDate, Date dateConsultation);
 	List<Prenatal> getPrenatalConsultationsByDate(Date startDate, Date endDate);
 	List<Postnatal> getPostnatalConsultationsByDate(Date sDate, Date eDate);
+
+	/**
+	 * One page of a register, most recent consultations first. When the date and id of the last row
+	 * of the previous page are given the page is read by keyset on (consultation_date, consultation_id),
+	 * otherwise firstResult rows are skipped.
+	 *
+	 * @param register Prenatal, Birth or Postnatal
+	 * @param search beginning of the pregnant number, optional
+	 * @param afterDate consultation date of the last row of the previous page, optional
+	 * @param afterConsultationId consultation id of the last row of the previous page, optional
+	 */
+	List<RegisterConsultationRow> getRegisterConsultations(String register, Date startDate, Date endDate, String search,
+	                                                       Date afterDate, Integer afterConsultationId,
+	                                                       Integer firstResult, Integer maxResults);
+
+	Long getRegisterConsultationCount(String register, Date startDate, Date endDate, String search);
+
 	Birth getBirthConsultation(Integer id);
 	Prenatal getPrenatalConsultation (Integer id);
 	Postnatal getPostnatalConsultation (Integer id);
@@ -99,6 +120,14 @@ public interface PreventTransmissionService extends OpenmrsService {
 	MotherFollowupVisit getMotherFollowUpVisitById(Integer id);
 	MotherFollowup saveMotherFollowup(MotherFollowup motherFollowup);
 	MotherFollowupVisit saveMotherFollowupVisit(MotherFollowupVisit motherFollowupVisit);
+
+	/**
+	 * Voids in one statement every visit of the follow-up, then refreshes its summary
+	 *
+	 * @return the number of visits voided
+	 */
+	Integer voidMotherFollowupVisits(MotherFollowup motherFollowup, String reason);
+	Integer unvoidMotherFollowupVisits(MotherFollowup motherFollowup);
 	MotherFollowupVisit getPregnantPatientFollowupByDate(Integer pregnantPatientId, Date visitDate);
 	MotherFollowupVisit getEarlierPregnantPatientFollowupVisitForFollowup(Integer motherFollowupId);
 
@@ -126,13 +155,43 @@ public interface PreventTransmissionService extends OpenmrsService {
 	ChildFollowupVisit getChildFollowupVisitById(Integer childFollowupVisitId);
 	ChildFollowup saveChildFollowup(ChildFollowup childFollowup);
 	ChildFollowupVisit saveChildFollowupVisit(ChildFollowupVisit childFollowupVisit);
+
+	/**
+	 * Voids in one statement every visit of the child, then refreshes the summary of its follow-up
+	 *
+	 * @return the number of visits voided
+	 */
+	Integer voidChildFollowupVisits(Child child, String reason);
+	Integer unvoidChildFollowupVisits(Child child);
 	ChildFollowupVisit getChildFollowupVisitByChildAndDate(Integer childId, Date visitDate);
 	List<ChildFollowupVisit> getChildFollowupVisitByChild(Integer childId);
+
+	/**
+	 * Visits of the child displayed in the follow-up form, read as rows instead of entities
+	 */
+	List<ChildFollowupVisitRow> getChildFollowupVisitRows(Integer childId);
+
 	void deleteChildFollowupVisit(ChildFollowupVisit childFollowupVisit);
 	List<ChildFollowupTransformer> getChildFollowupList(String status, Date startDate, Date endDate);
 
+	/**
+	 * Recomputes the status, visit count, last visit and next appointment of every follow-up.
+	 * The summaries are otherwise kept up to date by the save and remove methods of the follow-ups
+	 * and of their visits, this is only needed after changes made outside of this service.
+	 *
+	 * @return the number of summaries written
+	 */
+	Integer rebuildFollowupSummaries();
+
     List<MotherFollowupVisit> getMotherFollowupVisitByPatientAndFollowup(MotherFollowup motherFollowup);
 
+	/**
+	 * Visits of the follow-up displayed in the follow-up form, read as rows instead of entities
+	 *
+	 * @param latestFirst true to sort the visits by visit date, latest first, false to keep the order in which they were recorded
+	 */
+	List<MotherFollowupVisitRow> getMotherFollowupVisitRows(Integer motherFollowupId, Boolean latestFirst);
+
     Relationship getChildRelationship(Patient mother, Patient patient);
 
     Consultation getPatientConsultationByDate(Integer pregnantPatientId, Date consultationDate);
@@ -148,6 +207,33 @@ public interface PreventTransmissionService extends OpenmrsService {
 	Boolean isTransferred(Patient patient);
 	Boolean isDeclaredNegative(Patient patient);
 
+	/**
+	 * Status of each patient, resolved with one query per status for the whole set instead of
+	 * calling {@link #isDead}, {@link #isTransferred} and {@link #isDeclaredNegative} per patient
+	 *
+	 * @param patientIds ids of the patients, null ids are ignored
+	 * @return the status by patient id, every given patient is present
+	 */
+	Map<Integer, PatientVitalStatus> getPatientVitalStatuses(Collection<Integer> patientIds);
+
+	/**
+	 * Phone numbers (concepts 164501 and 164500) of a set of persons, read in one query for the
+	 * whole set
+	 *
+	 * @param personIds ids of the persons, null ids are ignored
+	 * @return the numbers by person id, as "mobile / phone", persons without number are absent
+	 */
+	Map<Integer, String> getPersonContacts(Collection<Integer> personIds);
+
+	/**
+	 * Latest non voided observation of each concept for a set of persons, read in one query
+	 *
+	 * @param personIds ids of the persons, null ids are ignored
+	 * @param conceptIds ids of the concepts observed
+	 * @return the observations by person id then by concept id, concepts never observed are absent
+	 */
+	Map<Integer, Map<Integer, Obs>> getLatestObs(Collection<Integer> personIds, Collection<Integer> conceptIds);
+
 	/**
 	 * Report service
 	 */
@@ -200,21 +286,81 @@ public interface PreventTransmissionService extends OpenmrsService {
 
 	ReportingReportGeneration getGeneratedReportById(Integer generatedReportId);
 	String getGeneratedReportXmlString(Date startDate, Date endDate, Integer reportId, String location);
+	String getGeneratedReportXmlString(Date startDate, Date endDate, Integer reportId, String location, IndicatorProgressListener listener);
+
+	/**
+	 * Generates the report and returns its values in the compact format stored in the content of
+	 * the generated report, see {@link org.openmrs.module.ptme.utils.ReportIndicatorValuesCodec}
+	 */
+	byte[] getGeneratedReportContent(Date startDate, Date endDate, Integer reportId, String location, IndicatorProgressListener listener);
+
+	/**
+	 * Queues the generation of a report, the generated report is saved when the job is over
+	 */
+	ReportGenerationJob submitReportGeneration(RunReportForm runReportForm);
+	ReportGenerationJob getReportGenerationJob(String jobId);
 
     ReportingReportGeneration saveGenerationReport(ReportingReportGeneration reportingReportGeneration);
 
     List<ReportingReportGeneration> getAllGeneratedReport(Boolean includeVoided);
 
+	/**
+	 * Page of the generated reports list, most recent first, without loading the generated content
+	 *
+	 * @param firstResult index of the first row, null to start at the first one
+	 * @param maxResults size of the page, null for every row
+	 */
+	List<ReportGenerationSummary> getGeneratedReportSummaries(Boolean includeVoided, Integer firstResult, Integer maxResults);
+	Long getGeneratedReportCount(Boolean includeVoided);
+
     ReportingDataset getDatasetByUuid(String uuid);
 
+	/**
+	 * Names of the datasets and indicators of a generated report, by uuid
+	 */
+	Map<String, String> getReportMetadataNames(ReportIndicatorValues reportIndicatorValues);
+
     Boolean removeGeneratedReport(Integer delId);
 
+	/**
+	 * Deletes the unsaved generated reports older than the retention days of the global property
+	 * ptme.generatedReportRetentionDays
+	 *
+	 * @return the number of deleted reports
+	 */
+	Integer purgeUnsavedGeneratedReports();
+
+	/**
+	 * Reports deleted and duration of the last sweep of the unsaved generated reports, with the totals
+	 * since the start of the module
+	 */
+	ReportRetentionStatistics getGeneratedReportRetentionStatistics();
+
+	/**
+	 * Runs the background import of the legacy follow-up encounters again, from its last checkpoint
+	 *
+	 * @return false if the import is already running
+	 */
+	Boolean restartLegacyEncounterImport();
+
+	/**
+	 * Rows imported, encounters left and throughput of the import of the legacy follow-up encounters
+	 */
+	LegacyImportProgress getLegacyEncounterImportProgress();
+
     /**
 	 * End Serialized Data
 	 */
 
 	Location getLocationByName(String name);
 
+	/**
+	 * Hits and misses of the second level and query caches holding the reporting definitions and the
+	 * locations. The counts are only collected when the statistics of Hibernate are enabled, with the
+	 * runtime property hibernate.generate_statistics=true.
+	 */
+	MetadataCacheStatistics getMetadataCacheStatistics();
+
     ReportingIndicator getIndicatorByName(String name);
 	ReportingIndicator getIndicatorByCode(String code);
 
@@ -14,14 +14,18 @@
 package org.openmrs.module.ptme.api.db;
 
 import org.openmrs.Location;
+import org.openmrs.Obs;
 import org.openmrs.Patient;
 import org.openmrs.Relationship;
+import org.openmrs.User;
 import org.openmrs.module.ptme.*;
 import org.openmrs.module.ptme.api.PreventTransmissionService;
 import org.openmrs.module.ptme.utils.*;
 
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 
 /**
  *  Database methods for {@link PreventTransmissionService}.
@@ -72,6 +76,10 @@ public interface PreventTransmissionDAO {
     List<Birth> getBirthConsultationsByDate(Date sDate, Date eDate);
     List<Prenatal> getPrenatalConsultationsByDate(Date startDate, Date endDate);
     List<Postnatal> getPostnatalConsultationsByDate(Date sDate, Date eDate);
+    List<RegisterConsultationRow> getRegisterConsultations(String register, Date startDate, Date endDate, String search,
+                                                           Date afterDate, Integer afterConsultationId,
+                                                           Integer firstResult, Integer maxResults);
+    Long getRegisterConsultationCount(String register, Date startDate, Date endDate, String search);
     Birth getBirthConsultation(Integer id);
     Prenatal getPrenatalConsultation (Integer id);
     Postnatal getPostnatalConsultation (Integer id);
@@ -87,6 +95,7 @@ public interface PreventTransmissionDAO {
     void removeMotherFollowupVisit(MotherFollowupVisit motherFollowupVisit);
     void removeMotherFollowup(MotherFollowup motherFollowup);
     MotherFollowupVisit saveMotherFollowupVisit(MotherFollowupVisit motherFollowupVisit);
+    Integer voidMotherFollowupVisits(MotherFollowup motherFollowup, Boolean voided, User user, Date date, String reason);
     MotherFollowupVisit getPregnantPatientFollowupByDate(Integer pregnantPatientId, Date visitDate);
     MotherFollowupVisit getEarlierPregnantPatientFollowupVisitForFollowup(Integer motherFollowupId);
 
@@ -112,17 +121,24 @@ public interface PreventTransmissionDAO {
 
     ChildFollowupVisit saveChildFollowupVisit(ChildFollowupVisit childFollowupVisit);
 
+    Integer voidChildFollowupVisits(Child child, Boolean voided, User user, Date date, String reason);
+
     ChildFollowupVisit getChildFollowupVisitByChildAndDate(Integer childId, Date visitDate);
 
     List<ChildFollowupVisit> getChildFollowupVisitByChild(Integer childId);
+    List<ChildFollowupVisitRow> getChildFollowupVisitRows(Integer childId);
 
     void deleteChildFollowupVisit(ChildFollowupVisit childFollowupVisit);
 
     List<ChildFollowupTransformer> getChildFollowupList(String status, Date startDate, Date endDate);
+    void refreshMotherFollowupSummary(Integer motherFollowupId);
+    void refreshChildFollowupSummary(Integer childFollowupId);
+    Integer rebuildFollowupSummaries();
 
     void deleteChildFollowup(ChildFollowup childFollowup);
 
     List<MotherFollowupVisit> getMotherFollowupVisitByPatientAndFollowup(MotherFollowup motherFollowup);
+    List<MotherFollowupVisitRow> getMotherFollowupVisitRows(Integer motherFollowupId, Boolean latestFirst);
 
     Relationship getChildRelationship(Patient mother, Patient patient);
 
@@ -148,6 +164,9 @@ public interface PreventTransmissionDAO {
     Boolean isDead(Patient patient);
     Boolean isTransferred(Patient patient);
     Boolean isDeclaredNegative(Patient patient);
+    Map<Integer, PatientVitalStatus> getPatientVitalStatuses(Collection<Integer> patientIds);
+    Map<Integer, String> getPersonContacts(Collection<Integer> personIds);
+    Map<Integer, Map<Integer, Obs>> getLatestObs(Collection<Integer> personIds, Collection<Integer> conceptIds);
 
 
     /****
@@ -203,11 +222,22 @@ public interface PreventTransmissionDAO {
 
     ReportingReportGeneration getGeneratedReport(Integer generatedReportId);
     String getGeneratedReportXmlString(Date startDate, Date endDate, Integer reportId, String location);
+    String getGeneratedReportXmlString(Date startDate, Date endDate, Integer reportId, String location, Integer parallelism);
+    String getGeneratedReportXmlString(Date startDate, Date endDate, Integer reportId, String location, Integer parallelism,
+                                       IndicatorProgressListener listener);
+    ReportIndicatorValues getGeneratedReportValues(Date startDate, Date endDate, Integer reportId, String location,
+                                                   Integer parallelism, IndicatorProgressListener listener);
     ReportingReportGeneration saveGenerationReport(ReportingReportGeneration reportingReportGeneration);
     List<ReportingReportGeneration> getAllGeneratedReport(Boolean includeVoided);
+    List<ReportGenerationSummary> getGeneratedReportSummaries(Boolean includeVoided, Integer firstResult, Integer maxResults);
+    Long getGeneratedReportCount(Boolean includeVoided);
     ReportingDataset getDatasetByUuid(String uuid);
+    Map<String, String> getDatasetNamesByUuids(Collection<String> uuids);
+    Map<String, String> getIndicatorNamesByUuids(Collection<String> uuids);
     Boolean removeGeneratedReport(Integer delId);
+    Integer purgeUnsavedGeneratedReports(Date generatedBefore);
     Location getLocationByName(String name);
+    MetadataCacheStatistics getMetadataCacheStatistics();
     ReportingIndicator getIndicatorByName(String name);
     ReportingIndicator getIndicatorByCode(String code);
     ReportingReportGeneration getGeneratedReportByName(String name);
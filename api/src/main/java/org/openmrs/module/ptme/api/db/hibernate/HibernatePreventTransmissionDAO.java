@@ -18,14 +18,20 @@ import com.thoughtworks.xstream.io.xml.DomDriver;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.hibernate.Criteria;
+import org.hibernate.Hibernate;
 import org.hibernate.Query;
 import org.hibernate.criterion.Restrictions;
+import org.hibernate.stat.SecondLevelCacheStatistics;
+import org.hibernate.stat.Statistics;
 import org.hibernate.transform.AliasToBeanResultTransformer;
 import org.hibernate.type.StandardBasicTypes;
+import org.openmrs.BaseOpenmrsData;
 import org.openmrs.Location;
+import org.openmrs.Obs;
 import org.openmrs.Patient;
 import org.openmrs.PatientIdentifier;
 import org.openmrs.Relationship;
+import org.openmrs.User;
 import org.openmrs.api.db.hibernate.DbSessionFactory;
 import org.openmrs.module.ptme.*;
 import org.openmrs.module.ptme.api.db.PreventTransmissionDAO;
@@ -35,8 +41,14 @@ import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collection;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * It is a default implementation of  {@link PreventTransmissionDAO}.
@@ -45,8 +57,27 @@ import java.util.List;
 public class HibernatePreventTransmissionDAO implements PreventTransmissionDAO {
 	protected final Log log = LogFactory.getLog(this.getClass());
 
+	/**
+	 * Maximum number of values bound to a single IN clause
+	 */
+	private static final int MAX_IN_PARAMETERS = 1000;
+
+	/**
+	 * Query cache region of the lookups of reporting definitions and locations
+	 */
+	private static final String METADATA_QUERY_CACHE_REGION = "org.openmrs.module.ptme.metadataQueries";
+
+	/**
+	 * Query cache region of the lookups of patients by a number which is not their natural id
+	 */
+	private static final String PATIENT_QUERY_CACHE_REGION = "org.openmrs.module.ptme.patientQueries";
+
 	private DbSessionFactory sessionFactory;
 
+	private IndicatorExecutionEngine indicatorExecutionEngine;
+
+	private boolean metadataQueryCacheEnabled = true;
+
 	/**
 	 * @param sessionFactory the sessionFactory to set
 	 */
@@ -61,6 +92,32 @@ public class HibernatePreventTransmissionDAO implements PreventTransmissionDAO {
 		return sessionFactory;
 	}
 
+	/**
+	 * @param indicatorExecutionEngine the engine running report indicators
+	 */
+	public void setIndicatorExecutionEngine(IndicatorExecutionEngine indicatorExecutionEngine) {
+		this.indicatorExecutionEngine = indicatorExecutionEngine;
+	}
+
+	/**
+	 * @param metadataQueryCacheEnabled whether the lookups of reporting definitions and locations are
+	 * kept in the query cache, effective only when the query cache of OpenMRS is enabled
+	 */
+	public void setMetadataQueryCacheEnabled(boolean metadataQueryCacheEnabled) {
+		this.metadataQueryCacheEnabled = metadataQueryCacheEnabled;
+	}
+
+	/**
+	 * Reporting definitions and locations change rarely, their lookups are answered from the query cache.
+	 * The cached results are dropped by Hibernate whenever one of the queried tables is written.
+	 */
+	private Criteria cacheMetadataQuery(Criteria criteria) {
+		if (metadataQueryCacheEnabled) {
+			criteria.setCacheable(true).setCacheRegion(METADATA_QUERY_CACHE_REGION);
+		}
+		return criteria;
+	}
+
 	/**
 	 * Pregnant Patient DAO
 	 * @return
@@ -111,13 +168,19 @@ public class HibernatePreventTransmissionDAO implements PreventTransmissionDAO {
 
 	@Override
 	public PregnantPatient getPregnantPatientByPregnantNumber(String pregnantNumber) {
-		Criteria criteria = sessionFactory.getCurrentSession().createCriteria(PregnantPatient.class);
-		return (PregnantPatient) criteria.add(Restrictions.eq("pregnantNumber", pregnantNumber)).uniqueResult();
+		if (pregnantNumber == null) {
+			return null;
+		}
+		// Natural id, resolved from the cache when the number was already looked up
+		return (PregnantPatient) sessionFactory.getCurrentSession().bySimpleNaturalId(PregnantPatient.class).load(pregnantNumber);
 	}
 
 	@Override
 	public PregnantPatient getPregnantPatientByHivCareNumber(String hivCareNumber) {
-		Criteria criteria = sessionFactory.getCurrentSession().createCriteria(PregnantPatient.class);
+		// The HIV care number may be missing, it cannot be a natural id : the id found is kept in the query cache
+		Criteria criteria = sessionFactory.getCurrentSession().createCriteria(PregnantPatient.class)
+				.setCacheable(true)
+				.setCacheRegion(PATIENT_QUERY_CACHE_REGION);
 		return (PregnantPatient) criteria.add(Restrictions.eq("hivCareNumber", hivCareNumber)).uniqueResult();
 	}
 
@@ -209,7 +272,7 @@ public class HibernatePreventTransmissionDAO implements PreventTransmissionDAO {
 
 		Query query = sessionFactory.getCurrentSession().createQuery(sQuery);
 
-		query.setParameter("dateCreated", UsefullFunction.formatDateToyyyyMMdd(currentDate));
+		query.setParameter("dateCreated", PtmeDateUtils.startOfDay(currentDate));
 		query.setParameter("voided", voided);
 		return (List<Consultation>) query.list();
 	}
@@ -217,49 +280,33 @@ public class HibernatePreventTransmissionDAO implements PreventTransmissionDAO {
 	@SuppressWarnings("unchecked")
 	@Override
 	public List<ConsultationWithType> getConsultationsByDate(Date currentDate, Boolean voided) {
+		// One pass over ptme_consultation, the register is given by the subclass table the row is found in.
+		// The creation and change dates are compared to the bounds of the day so that their indexes are used.
 		String sqlQuery =
-				"select pr.rank as RegisterType, " +
-						"pr.consultation_id as consultationId, " +
-						"c1.consultation_date as consultationDate, " +
-						"pp1.pregnant_number as pregnantNumber, "+
-						"pp1.age as age, "+
-						"h1.hiv_status_at_reception as hivStatusAtReception, " +
-						"h1.test_proposal as testProposal, " +
-						"h1.test_result as testResult, " +
-						"h1.result_announcement as resultAnnouncement, " +
-						"h1.arv_discount as arvDiscount " +
-						"from ptme_prenatal pr, ptme_consultation c1, ptme_hiv_service h1, ptme_pregnant_patient pp1 " +
-						"where pr.consultation_id = c1.consultation_id and h1.hiv_service_id = pr.consultation_id  AND " +
-						"pp1.pregnant_patient_id = c1.pregnant_patient_id AND c1.voided = :voided AND (DATE(c1.date_created) = :currentDate OR DATE(c1.date_changed) = :currentDate) " +
-						"union " +
-						"select 'Accouchement' as RegisterType, " +
-						"b.consultation_id as consultationId, " +
-						"c2.consultation_date as consultationDate, " +
-						"pp2.pregnant_number as pregnantNumber, "+
-						"pp2.age as age, "+
-						"h2.hiv_status_at_reception as hivStatusAtReception, " +
-						"h2.test_proposal as testProposal, " +
-						"h2.test_result as testResult, " +
-						"h2.result_announcement as resultAnnouncement, " +
-						"h2.arv_discount as arvDiscount " +
-						"from ptme_birth b, ptme_consultation c2, ptme_hiv_service h2, ptme_pregnant_patient pp2 " +
-						"where b.consultation_id = c2.consultation_id and h2.hiv_service_id = b.consultation_id AND " +
-						"pp2.pregnant_patient_id = c2.pregnant_patient_id AND c2.voided = :voided AND (DATE(c2.date_created) = :currentDate OR DATE(c2.date_changed) = :currentDate) " +
-						"union " +
-						"select 'CPoN' as RegisterType, " +
-						"po.consultation_id as consultationId, " +
-						"c3.consultation_date as consultationDate, " +
-						"pp3.pregnant_number as pregnantNumber, " +
-						"pp3.age as age, "+
-						"h3.hiv_status_at_reception as hivStatusAtReception, " +
-						"h3.test_proposal as testProposal, " +
-						"h3.test_result as testResult, " +
-						"h3.result_announcement as resultAnnouncement, " +
-						"h3.arv_discount as arvDiscount " +
-						"from ptme_postnatal po, ptme_consultation c3, ptme_hiv_service h3, ptme_pregnant_patient pp3 " +
-						"where po.consultation_id = c3.consultation_id and h3.hiv_service_id = po.consultation_id AND " +
-						"pp3.pregnant_patient_id = c3.pregnant_patient_id AND c3.voided = :voided AND (DATE(c3.date_created) = :currentDate OR DATE(c3.date_changed) = :currentDate) " +
-						"ORDER BY consultationId DESC ";
+				"SELECT " +
+						"  CASE WHEN pr.consultation_id IS NOT NULL THEN pr.rank " +
+						"       WHEN b.consultation_id IS NOT NULL THEN 'Accouchement' " +
+						"       WHEN po.consultation_id IS NOT NULL THEN 'CPoN' END AS registerType, " +
+						"  c.consultation_id AS consultationId, " +
+						"  c.consultation_date AS consultationDate, " +
+						"  pp.pregnant_number AS pregnantNumber, " +
+						"  pp.age AS age, " +
+						"  h.hiv_status_at_reception AS hivStatusAtReception, " +
+						"  h.test_proposal AS testProposal, " +
+						"  h.test_result AS testResult, " +
+						"  h.result_announcement AS resultAnnouncement, " +
+						"  h.arv_discount AS arvDiscount " +
+						"FROM ptme_consultation c " +
+						"  INNER JOIN ptme_hiv_service h ON h.hiv_service_id = c.consultation_id " +
+						"  INNER JOIN ptme_pregnant_patient pp ON pp.pregnant_patient_id = c.pregnant_patient_id " +
+						"  LEFT JOIN ptme_prenatal pr ON pr.consultation_id = c.consultation_id " +
+						"  LEFT JOIN ptme_birth b ON b.consultation_id = c.consultation_id " +
+						"  LEFT JOIN ptme_postnatal po ON po.consultation_id = c.consultation_id " +
+						"WHERE c.voided = :voided AND " +
+						"  ((c.date_created >= :dayStart AND c.date_created < :nextDayStart) OR " +
+						"   (c.date_changed >= :dayStart AND c.date_changed < :nextDayStart)) AND " +
+						"  (pr.consultation_id IS NOT NULL OR b.consultation_id IS NOT NULL OR po.consultation_id IS NOT NULL) " +
+						"ORDER BY c.consultation_id DESC";
 
 		Query query = sessionFactory.getCurrentSession().createSQLQuery(sqlQuery)
 				.addScalar("registerType", StandardBasicTypes.STRING)
@@ -273,12 +320,10 @@ public class HibernatePreventTransmissionDAO implements PreventTransmissionDAO {
 				.addScalar("resultAnnouncement", StandardBasicTypes.INTEGER)
 				.addScalar("arvDiscount", StandardBasicTypes.INTEGER)
 				.setParameter("voided", voided)
-				.setResultTransformer(new AliasToBeanResultTransformer(ConsultationWithType.class))
-				.setParameter("currentDate", UsefullFunction.formatDateToyyyyMMdd(currentDate))
-				;
+				.setParameter("dayStart", PtmeDateUtils.startOfDay(currentDate, 0))
+				.setParameter("nextDayStart", PtmeDateUtils.startOfDay(currentDate, 1))
+				.setResultTransformer(new AliasToBeanResultTransformer(ConsultationWithType.class));
 
-//		query.setParameter("currentDate", UsefullFunction.formatDateToyyyyMMdd(currentDate));
-//		query.setParameter("voided", voided);
 		return (List<ConsultationWithType>) query.list();
 	}
 
@@ -326,6 +371,92 @@ public class HibernatePreventTransmissionDAO implements PreventTransmissionDAO {
 				.setParameter("eDate", endDate).list();
 	}
 
+	/**
+	 * Register listings
+	 */
+
+	private static String getRegisterEntityName(String register) {
+		if ("Prenatal".equals(register) || "Birth".equals(register) || "Postnatal".equals(register)) {
+			return register;
+		}
+		throw new IllegalArgumentException("Unknown register : " + register);
+	}
+
+	private static String getRegisterConsultationFilter(String search) {
+		return "WHERE c.consultationDate BETWEEN :startDate AND :endDate AND c.voided = false " +
+				(search != null && !search.isEmpty() ? "AND pp.pregnantNumber LIKE :search " : "");
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public List<RegisterConsultationRow> getRegisterConsultations(String register, Date startDate, Date endDate, String search,
+	                                                              Date afterDate, Integer afterConsultationId,
+	                                                              Integer firstResult, Integer maxResults) {
+		String entityName = getRegisterEntityName(register);
+		boolean keyset = afterDate != null && afterConsultationId != null;
+
+		String hql = "SELECT " +
+				"c.consultationId AS consultationId, " +
+				"c.consultationDate AS consultationDate, " +
+				"pp.pregnantNumber AS pregnantNumber, " +
+				"pp.hivCareNumber AS hivCareNumber, " +
+				("Prenatal".equals(entityName) ?
+						"c.rank AS rank, " +
+						"c.weekOfAmenorrhea AS weekOfAmenorrhea, " +
+						"c.spousalScreening AS spousalScreening, " +
+						"c.spousalScreeningResult AS spousalScreeningResult, " : "") +
+				("Birth".equals(entityName) ?
+						"c.deliveryDate AS deliveryDate, " +
+						"c.homeBirth AS homeBirth, " +
+						"c.pregnancyIssue AS pregnancyIssue, " +
+						"c.childState AS childState, " : "") +
+				"h.hivStatusAtReception AS hivStatusAtReception, " +
+				"h.testProposal AS testProposal, " +
+				"h.testResult AS testResult, " +
+				"h.resultAnnouncement AS resultAnnouncement, " +
+				"h.arvDiscount AS arvDiscount, " +
+				"h.childArvProphylaxis AS childArvProphylaxis " +
+				"FROM " + entityName + " c " +
+				"INNER JOIN c.pregnantPatient pp " +
+				"LEFT JOIN c.hivService h " +
+				getRegisterConsultationFilter(search) +
+				// Keyset : the rows following the last row of the previous page, in the index order
+				(keyset ? "AND (c.consultationDate < :afterDate OR (c.consultationDate = :afterDate AND c.consultationId < :afterConsultationId)) " : "") +
+				"ORDER BY c.consultationDate DESC, c.consultationId DESC";
+
+		Query query = sessionFactory.getCurrentSession().createQuery(hql)
+				.setParameter("startDate", startDate)
+				.setParameter("endDate", endDate);
+		if (search != null && !search.isEmpty()) {
+			query.setParameter("search", search + "%");
+		}
+		if (keyset) {
+			query.setParameter("afterDate", afterDate);
+			query.setParameter("afterConsultationId", afterConsultationId);
+		} else if (firstResult != null) {
+			query.setFirstResult(firstResult);
+		}
+		if (maxResults != null) {
+			query.setMaxResults(maxResults);
+		}
+		query.setResultTransformer(new AliasToBeanResultTransformer(RegisterConsultationRow.class));
+		return query.list();
+	}
+
+	@Override
+	public Long getRegisterConsultationCount(String register, Date startDate, Date endDate, String search) {
+		Query query = sessionFactory.getCurrentSession().createQuery("SELECT COUNT(c.consultationId) " +
+				"FROM " + getRegisterEntityName(register) + " c " +
+				"INNER JOIN c.pregnantPatient pp " +
+				getRegisterConsultationFilter(search))
+				.setParameter("startDate", startDate)
+				.setParameter("endDate", endDate);
+		if (search != null && !search.isEmpty()) {
+			query.setParameter("search", search + "%");
+		}
+		return (Long) query.uniqueResult();
+	}
+
 	@SuppressWarnings("unchecked")
 	@Override
 	public List<Postnatal> getPostnatalConsultationsByDate(Date sDate, Date eDate) {
@@ -353,18 +484,24 @@ public class HibernatePreventTransmissionDAO implements PreventTransmissionDAO {
 	@SuppressWarnings("unchecked")
 	@Override
 	public List<Prenatal> getPrenatalConsultationsByPregnantPatientNumber(String pregnantNumber) {
-		return (List<Prenatal>) sessionFactory.getCurrentSession().createQuery("FROM Prenatal p WHERE p.pregnantPatient.pregnantNumber = '" + pregnantNumber + "'").list();
+		return (List<Prenatal>) sessionFactory.getCurrentSession().getNamedQuery("Prenatal.byPregnantNumber")
+				.setParameter("pregnantNumber", pregnantNumber)
+				.list();
 	}
 
 	@SuppressWarnings("unchecked")
 	@Override
 	public List<Postnatal> getPostnatalConsultationsByPregnantPatientNumber(String pregnantNumber) {
-		return (List<Postnatal>) sessionFactory.getCurrentSession().createQuery("FROM Postnatal as p WHERE p.pregnantPatient.pregnantNumber = '" + pregnantNumber + "'").list();
+		return (List<Postnatal>) sessionFactory.getCurrentSession().getNamedQuery("Postnatal.byPregnantNumber")
+				.setParameter("pregnantNumber", pregnantNumber)
+				.list();
 	}
 
 	@Override
 	public MotherFollowup getCurrentMotherFollowupByPregnantPatient(PregnantPatient pregnantPatient) {
-		return (MotherFollowup) sessionFactory.getCurrentSession().createQuery("FROM MotherFollowup as m where m.pregnancyOutcome IS NULL AND m.voided = false AND m.pregnantPatient.pregnantPatientId = " + pregnantPatient.getPregnantPatientId()).uniqueResult();
+		return (MotherFollowup) sessionFactory.getCurrentSession().getNamedQuery("MotherFollowup.currentByPregnantPatient")
+				.setParameter("pregnantPatientId", pregnantPatient.getPregnantPatientId())
+				.uniqueResult();
 	}
 
 	@Override
@@ -402,12 +539,25 @@ public class HibernatePreventTransmissionDAO implements PreventTransmissionDAO {
 		return motherFollowupVisit;
 	}
 
+	@Override
+	public Integer voidMotherFollowupVisits(MotherFollowup motherFollowup, Boolean voided, User user, Date date, String reason) {
+		// Pending changes of the visits are written first, the statement below bypasses the session
+		sessionFactory.getCurrentSession().flush();
+		int rows = getVisitVoidUpdate("MotherFollowupVisit", "motherFollowup", motherFollowup, voided, user, date, reason).executeUpdate();
+		if (Hibernate.isInitialized(motherFollowup.getMotherFollowupVisits()) && motherFollowup.getMotherFollowupVisits() != null) {
+			for (MotherFollowupVisit visit : motherFollowup.getMotherFollowupVisits()) {
+				applyVoid(visit, voided, user, date, reason);
+			}
+		}
+		return rows;
+	}
+
 	@Override
 	public MotherFollowupVisit getPregnantPatientFollowupByDate(Integer pregnantPatientId, Date visitDate) {
 		return (MotherFollowupVisit) sessionFactory.getCurrentSession()
 				.createQuery("FROM MotherFollowupVisit m WHERE m.motherFollowup.pregnantPatient.pregnantPatientId = :pregnantPatientId AND m.visitDate = :visitDate")
 				.setParameter("pregnantPatientId", pregnantPatientId)
-				.setParameter("visitDate", UsefullFunction.formatDateToyyyyMMdd(visitDate)).uniqueResult();
+				.setParameter("visitDate", PtmeDateUtils.startOfDay(visitDate)).uniqueResult();
 	}
 
 	@Override
@@ -419,9 +569,10 @@ public class HibernatePreventTransmissionDAO implements PreventTransmissionDAO {
 
 	@Override
 	public Child getChildByFollowupNumber(String childFollowupNumber) {
-		return (Child) sessionFactory.getCurrentSession().createQuery(
-				"FROM Child c WHERE c.childFollowupNumber = '" + childFollowupNumber + "'"
-		).uniqueResult();
+		if (childFollowupNumber == null) {
+			return null;
+		}
+		return (Child) sessionFactory.getCurrentSession().bySimpleNaturalId(Child.class).load(childFollowupNumber);
 	}
 
 	@SuppressWarnings("unchecked")
@@ -434,6 +585,7 @@ public class HibernatePreventTransmissionDAO implements PreventTransmissionDAO {
 				"ppp.pregnant_number As pregnantNumber," +
 				"ppp.screening_number as screeningNumber," +
 				"ppp.hiv_care_number as hivCareNumber," +
+				"ppp.patient_id as patientId," +
 				"ppp.age " +
 				"FROM ptme_pregnant_patient ppp LEFT JOIN" +
 				"  ptme_mother_followup pmf ON ppp.pregnant_patient_id = pmf.pregnant_patient_id " +
@@ -447,6 +599,7 @@ public class HibernatePreventTransmissionDAO implements PreventTransmissionDAO {
 				.addScalar("givenName", StandardBasicTypes.STRING)
 				.addScalar("pregnantNumber", StandardBasicTypes.STRING)
 				.addScalar("hivCareNumber", StandardBasicTypes.STRING)
+				.addScalar("patientId", StandardBasicTypes.INTEGER)
 				.addScalar("screeningNumber", StandardBasicTypes.STRING)
 				.addScalar("age",StandardBasicTypes.INTEGER)
 				;
@@ -461,7 +614,9 @@ public class HibernatePreventTransmissionDAO implements PreventTransmissionDAO {
 	@Override
 	public Patient getPatientByIdentifier(String identifier) {
 		Patient patient = null;
-		PatientIdentifier patientIdentifier = (PatientIdentifier) sessionFactory.getCurrentSession().createQuery("FROM PatientIdentifier p WHERE p.identifier = '"+identifier+"' AND (p.voided = false AND p.patient.voided = false) AND p.preferred = true").uniqueResult();
+		PatientIdentifier patientIdentifier = (PatientIdentifier) sessionFactory.getCurrentSession().getNamedQuery("PregnantPatient.preferredPatientIdentifier")
+				.setParameter("identifier", identifier)
+				.uniqueResult();
 		if(patientIdentifier != null) {
 			patient = patientIdentifier.getPatient();
 		}
@@ -480,34 +635,33 @@ public class HibernatePreventTransmissionDAO implements PreventTransmissionDAO {
 						"  family_name as familyName, " +
 						"  given_name as givenName, " +
 						"  arv_status_at_registering as arvStatusAtRegistering, " +
-						"  visitCount, " +
+						"  pmfs.visit_count AS visitCount, " +
 						"  start_date as startDate," +
 						"  end_date as endDate," +
-						"  status," +
-						"  lastVisitDate," +
-						"  pregnancy_outcome as pregnancyOutcome," +
+						"  pmf.status," +
+						"  pmfs.last_visit_date AS lastVisitDate," +
+						"  pmf.pregnancy_outcome as pregnancyOutcome," +
 						"  delivery_type as deliveryType," +
 						"  pmf.spousal_screening_date as spousalScreeningDate," +
 						"  pmf.spousal_screening_result as spousalScreeningResult " +
 						"FROM " +
-						"  (SELECT *, if(prengnancy_outcome IS NULL, 'Off', 'On') status FROM ptme_mother_followup) pmf, " +
+						"  (SELECT *, if(pregnancy_outcome IS NULL, 'Off', 'On') status FROM ptme_mother_followup) pmf, " +
 						"  ptme_pregnant_patient ppp, " +
-						"  ( SELECT count(*) visitCount, mother_followup_id FROM ptme_mother_followup_visit GROUP BY mother_followup_id) pmfv2, " +
-						"  ( SELECT max(visit_date) lastVisitDate, mother_followup_id FROM ptme_mother_followup_visit GROUP BY mother_followup_id) pmfv3 " +
+						"  ptme_mother_followup_summary pmfs " +
 						"WHERE " +
 						"  pmf.pregnant_patient_id = ppp.pregnant_patient_id AND " +
-						"  pmf.mother_followup_id = pmfv2.mother_followup_id AND " +
-						"  pmf.mother_followup_id = pmfv3.mother_followup_id AND " +
+						"  pmf.mother_followup_id = pmfs.mother_followup_id AND " +
+						"  pmfs.visit_count > 0 AND " +
 						"  pmf.voided = FALSE ";
 
 		if (startDate != null)
 			sqlQuery = sqlQuery + " AND pmf.start_date = :startDate";
 		if (status != null)
-			sqlQuery = sqlQuery + " AND pmf.Status = :status";
+			sqlQuery = sqlQuery + " AND pmf.status = :status";
 		if (endDate != null)
 			sqlQuery = sqlQuery + " AND pmf.end_date = :endDate";
 		if (pregnancyOutcome != null)
-			sqlQuery = sqlQuery + " AND pmf.pregnacy_outcome = :pregnancyOutcome";
+			sqlQuery = sqlQuery + " AND pmf.pregnancy_outcome = :pregnancyOutcome";
 
 		Query query = sessionFactory.getCurrentSession().createSQLQuery(sqlQuery)
 				.addScalar("motherFollowupId", StandardBasicTypes.INTEGER)
@@ -662,6 +816,50 @@ public class HibernatePreventTransmissionDAO implements PreventTransmissionDAO {
 				.setParameter("visitDate", visitDate).uniqueResult();
 	}
 
+	@Override
+	public Integer voidChildFollowupVisits(Child child, Boolean voided, User user, Date date, String reason) {
+		sessionFactory.getCurrentSession().flush();
+		int rows = getVisitVoidUpdate("ChildFollowupVisit", "child", child, voided, user, date, reason).executeUpdate();
+		if (Hibernate.isInitialized(child.getChildFollowupVisits()) && child.getChildFollowupVisits() != null) {
+			for (ChildFollowupVisit visit : child.getChildFollowupVisits()) {
+				applyVoid(visit, voided, user, date, reason);
+			}
+		}
+		return rows;
+	}
+
+	/**
+	 * Voids or unvoids in one statement the visits of a follow-up which are not already in that state
+	 */
+	private Query getVisitVoidUpdate(String visitEntity, String parentProperty, Object parent, Boolean voided,
+									 User user, Date date, String reason) {
+		if (!voided) {
+			return sessionFactory.getCurrentSession().createQuery("UPDATE " + visitEntity + " v " +
+					"SET v.voided = false, v.voidedBy = null, v.dateVoided = null, v.voidReason = null " +
+					"WHERE v." + parentProperty + " = :parent AND v.voided = true")
+					.setParameter("parent", parent);
+		}
+		return sessionFactory.getCurrentSession().createQuery("UPDATE " + visitEntity + " v " +
+				"SET v.voided = true, v.voidedBy = :voidedBy, v.dateVoided = :dateVoided, v.voidReason = :voidReason " +
+				"WHERE v." + parentProperty + " = :parent AND v.voided = false")
+				.setParameter("parent", parent)
+				.setParameter("voidedBy", user)
+				.setParameter("dateVoided", date)
+				.setParameter("voidReason", reason);
+	}
+
+	/**
+	 * Brings a visit already loaded in the session in line with the bulk update. The visit is evicted
+	 * first so that the change is not written again, row by row, at the next flush.
+	 */
+	private void applyVoid(BaseOpenmrsData visit, Boolean voided, User user, Date date, String reason) {
+		sessionFactory.getCurrentSession().evict(visit);
+		visit.setVoided(voided);
+		visit.setVoidedBy(voided ? user : null);
+		visit.setDateVoided(voided ? date : null);
+		visit.setVoidReason(voided ? reason : null);
+	}
+
 	@SuppressWarnings("unchecked")
 	@Override
 	public List<ChildFollowupVisit> getChildFollowupVisitByChild(Integer childId) {
@@ -671,6 +869,20 @@ public class HibernatePreventTransmissionDAO implements PreventTransmissionDAO {
 				.list();
 	}
 
+	@SuppressWarnings("unchecked")
+	@Override
+	public List<ChildFollowupVisitRow> getChildFollowupVisitRows(Integer childId) {
+		return (List<ChildFollowupVisitRow>) sessionFactory.getCurrentSession().createQuery("SELECT " +
+				"c.childFollowupVisitId AS childFollowupVisitId, c.visitDate AS visitDate, " +
+				"c.modernContraceptiveMethod AS modernContraceptiveMethod, c.ageInDay AS ageInDay, c.ageInWeek AS ageInWeek, " +
+				"c.ageInMonth AS ageInMonth, c.eatingType AS eatingType, c.continuingCtx AS continuingCtx, " +
+				"c.continuingInh AS continuingInh " +
+				"FROM ChildFollowupVisit c WHERE c.child.childId = :childId AND c.voided = false ORDER BY c.visitDate desc")
+				.setParameter("childId", childId)
+				.setResultTransformer(new AliasToBeanResultTransformer(ChildFollowupVisitRow.class))
+				.list();
+	}
+
 	@Transactional
 	@Override
 	public void deleteChildFollowupVisit(ChildFollowupVisit childFollowupVisit) {
@@ -699,21 +911,20 @@ public class HibernatePreventTransmissionDAO implements PreventTransmissionDAO {
 						"        IF(pcr1_result IS NOT NULL, pcr1_result, NULL)) ) AS lastPCRResult," +
 						"  ctx_initiation_date AS ctxInitiationDate," +
 						"  inh_initiation_date AS inhInitiationDate," +
-						"  status," +
-						"  visitCount," +
-						"  lastVisitDate," +
+						"  pcfs.status," +
+						"  pcfs.visit_count AS visitCount," +
+						"  pcfs.last_visit_date AS lastVisitDate," +
 						"  followup_result AS  result," +
 						"  followup_result_date AS resultDate " +
 						"FROM " +
-						"  (SELECT *, if(followup_result IS NOT NULL, 'Off', 'On') status FROM ptme_child_followup) pcf," +
-						"  ptme_child pc," +
-						"  ( SELECT count(*) visitCount, child_id FROM ptme_child_followup_visit GROUP BY child_id) pcfv1," +
-						"  ( SELECT max(visit_date) lastVisitDate, child_id FROM ptme_child_followup_visit GROUP BY child_id) pcfv2 " +
+						"  ptme_child_followup_summary pcfs," +
+						"  ptme_child_followup pcf," +
+						"  ptme_child pc " +
 						"WHERE" +
+						"  pcf.child_followup_id = pcfs.child_followup_id AND" +
 						"  pc.child_id = pcf.child_followup_id AND" +
-						"  pcfv1.child_id = pc.child_id AND" +
-						"  pcfv2.child_id = pc.child_id AND" +
-						"  pcf.status = :status AND pcf.voided = false ";
+						"  pcfs.visit_count > 0 AND" +
+						"  pcfs.status = :status AND pcf.voided = false ";
 
 		if (status.equals("Off")) {
 			if (startDate != null && endDate != null) {
@@ -763,6 +974,92 @@ public class HibernatePreventTransmissionDAO implements PreventTransmissionDAO {
 		sessionFactory.getCurrentSession().delete(childFollowup);
 	}
 
+	/**
+	 * Follow-up summaries
+	 */
+
+	private static String getMotherFollowupSummaryInsert(boolean singleFollowup) {
+		return "INSERT INTO ptme_mother_followup_summary (mother_followup_id, status, visit_count, last_visit_date, next_appointment_date, outcome) " +
+				"SELECT f.mother_followup_id, IF(f.pregnancy_outcome IS NULL, 'On', 'Off'), IFNULL(v.visit_count, 0), v.last_visit_date, " +
+				"       ADDDATE(v.last_visit_date, INTERVAL 1 MONTH), f.pregnancy_outcome " +
+				"FROM ptme_mother_followup f " +
+				"  LEFT JOIN (SELECT mother_followup_id, COUNT(*) visit_count, MAX(visit_date) last_visit_date " +
+				"             FROM ptme_mother_followup_visit WHERE voided = 0 " +
+				(singleFollowup ? "AND mother_followup_id = :motherFollowupId " : "") +
+				"             GROUP BY mother_followup_id) v " +
+				"    ON v.mother_followup_id = f.mother_followup_id " +
+				"WHERE f.voided = 0 " +
+				(singleFollowup ? "AND f.mother_followup_id = :motherFollowupId" : "");
+	}
+
+	/**
+	 * The child summaries are keyed on ptme_child, as the worklists read the children with a left join
+	 * to their follow-up : a child without follow-up yet is in progress and waits for its visits and
+	 * its first PCR.
+	 */
+	private static String getChildFollowupSummaryInsert(boolean singleFollowup) {
+		return "INSERT INTO ptme_child_followup_summary (child_followup_id, status, visit_count, last_visit_date, next_appointment_date, outcome, pcr1_due_date) " +
+				"SELECT c.child_id, IF(f.followup_result IS NULL, 'On', 'Off'), IFNULL(v.visit_count, 0), v.last_visit_date, " +
+				"       ADDDATE(IFNULL(v.last_visit_date, c.birth_date), INTERVAL 1 MONTH), f.followup_result, " +
+				"       IF(f.pcr1_sampling_date IS NULL AND f.followup_result IS NULL, ADDDATE(c.birth_date, INTERVAL 6 WEEK), NULL) " +
+				"FROM ptme_child c " +
+				"  LEFT JOIN ptme_child_followup f ON f.child_followup_id = c.child_id " +
+				"  LEFT JOIN (SELECT child_id, COUNT(*) visit_count, MAX(visit_date) last_visit_date " +
+				"             FROM ptme_child_followup_visit WHERE voided = 0 " +
+				(singleFollowup ? "AND child_id = :childFollowupId " : "") +
+				"             GROUP BY child_id) v " +
+				"    ON v.child_id = c.child_id " +
+				(singleFollowup ? "WHERE c.child_id = :childFollowupId" : "");
+	}
+
+	@Override
+	public void refreshMotherFollowupSummary(Integer motherFollowupId) {
+		if (motherFollowupId == null) {
+			return;
+		}
+		// The pending changes of the follow-up and its visits must be visible to the statements below.
+		// The statements only declare the summary table so that the second level cache is kept.
+		sessionFactory.getCurrentSession().flush();
+		sessionFactory.getCurrentSession().createSQLQuery("DELETE FROM ptme_mother_followup_summary WHERE mother_followup_id = :motherFollowupId")
+				.addSynchronizedQuerySpace("ptme_mother_followup_summary")
+				.setParameter("motherFollowupId", motherFollowupId)
+				.executeUpdate();
+		sessionFactory.getCurrentSession().createSQLQuery(getMotherFollowupSummaryInsert(true))
+				.addSynchronizedQuerySpace("ptme_mother_followup_summary")
+				.setParameter("motherFollowupId", motherFollowupId)
+				.executeUpdate();
+	}
+
+	@Override
+	public void refreshChildFollowupSummary(Integer childFollowupId) {
+		if (childFollowupId == null) {
+			return;
+		}
+		sessionFactory.getCurrentSession().flush();
+		sessionFactory.getCurrentSession().createSQLQuery("DELETE FROM ptme_child_followup_summary WHERE child_followup_id = :childFollowupId")
+				.addSynchronizedQuerySpace("ptme_child_followup_summary")
+				.setParameter("childFollowupId", childFollowupId)
+				.executeUpdate();
+		sessionFactory.getCurrentSession().createSQLQuery(getChildFollowupSummaryInsert(true))
+				.addSynchronizedQuerySpace("ptme_child_followup_summary")
+				.setParameter("childFollowupId", childFollowupId)
+				.executeUpdate();
+	}
+
+	@Override
+	public Integer rebuildFollowupSummaries() {
+		sessionFactory.getCurrentSession().flush();
+		sessionFactory.getCurrentSession().createSQLQuery("DELETE FROM ptme_mother_followup_summary")
+				.addSynchronizedQuerySpace("ptme_mother_followup_summary").executeUpdate();
+		sessionFactory.getCurrentSession().createSQLQuery("DELETE FROM ptme_child_followup_summary")
+				.addSynchronizedQuerySpace("ptme_child_followup_summary").executeUpdate();
+		int rows = sessionFactory.getCurrentSession().createSQLQuery(getMotherFollowupSummaryInsert(false))
+				.addSynchronizedQuerySpace("ptme_mother_followup_summary").executeUpdate();
+		rows += sessionFactory.getCurrentSession().createSQLQuery(getChildFollowupSummaryInsert(false))
+				.addSynchronizedQuerySpace("ptme_child_followup_summary").executeUpdate();
+		return rows;
+	}
+
 	@SuppressWarnings("unchecked")
 	@Override
 	public List<MotherFollowupVisit> getMotherFollowupVisitByPatientAndFollowup(MotherFollowup motherFollowup) {
@@ -773,6 +1070,19 @@ public class HibernatePreventTransmissionDAO implements PreventTransmissionDAO {
 				.list();
 	}
 
+	@SuppressWarnings("unchecked")
+	@Override
+	public List<MotherFollowupVisitRow> getMotherFollowupVisitRows(Integer motherFollowupId, Boolean latestFirst) {
+		return (List<MotherFollowupVisitRow>) sessionFactory.getCurrentSession().createQuery("SELECT " +
+				"m.motherFollowupVisitId AS motherFollowupVisitId, m.visitDate AS visitDate, m.gestationalAge AS gestationalAge, " +
+				"m.continuingArv AS continuingArv, m.continuingCtx AS continuingCtx " +
+				"FROM MotherFollowupVisit m WHERE m.motherFollowup.motherFollowupId = :motherFollowupId " +
+				"AND m.voided = false ORDER BY " + (latestFirst ? "m.visitDate desc" : "m.motherFollowupVisitId"))
+				.setParameter("motherFollowupId", motherFollowupId)
+				.setResultTransformer(new AliasToBeanResultTransformer(MotherFollowupVisitRow.class))
+				.list();
+	}
+
 	@Override
 	public Relationship getChildRelationship(Patient mother, Patient patient) {
 		return (Relationship) sessionFactory.getCurrentSession().createQuery("FROM " +
@@ -819,6 +1129,22 @@ public class HibernatePreventTransmissionDAO implements PreventTransmissionDAO {
 		return null;
 	}
 
+	/**
+	 * Appointments
+	 * The due dates are read from the follow-up summaries, the lists are range scans on their indexes
+	 */
+
+	private static Date getFirstDayOfMonth(int monthOffset) {
+		Calendar calendar = Calendar.getInstance();
+		calendar.set(Calendar.DAY_OF_MONTH, 1);
+		calendar.set(Calendar.HOUR_OF_DAY, 0);
+		calendar.set(Calendar.MINUTE, 0);
+		calendar.set(Calendar.SECOND, 0);
+		calendar.set(Calendar.MILLISECOND, 0);
+		calendar.add(Calendar.MONTH, monthOffset);
+		return calendar.getTime();
+	}
+
 	@SuppressWarnings("unchecked")
 	@Override
 	public List<MotherFollowupAppointment> getPregnantPatientsAppointment() {
@@ -827,47 +1153,38 @@ public class HibernatePreventTransmissionDAO implements PreventTransmissionDAO {
 				"SELECT" +
 						"  pregnant_number AS pregnantNumber," +
 						"  hiv_care_number AS hivCareNumber," +
+						"  ppp.patient_id AS patientId," +
 						"  lastVisitDate," +
 						"  numberOfVisit," +
 						"  AppointmentDate, " +
-						"  passed, " +
+						"  IF(AppointmentDate > NOW(), 0, IF(AppointmentDate = DATE(NOW()), 1, 2)) passed, " +
 						"  family_name as familyName," +
-						"  given_name as givenName, " +
-						"  IF(TelPatient IS NOT NULL AND CelPatient IS NOT NULL, CONCAT_WS(' / ', CelPatient, TelPatient), " +
-						"		IF(TelPatient IS NULL AND CelPatient IS NOT NULL, CelPatient, " +
-						"		IF(TelPatient IS NOT NULL AND CelPatient IS NULL,TelPatient, NULL))) contact " +
+						"  given_name as givenName " +
 						"FROM" +
-						"  (SELECT * FROM ptme_mother_followup WHERE voided = 0) pmf" +
-						"  INNER JOIN (SELECT MAX(visit_date) lastVisitDate, mother_followup_id FROM ptme_mother_followup_visit WHERE voided = 0 GROUP BY mother_followup_id) lpmfv" +
-						"    ON pmf.mother_followup_id = lpmfv.mother_followup_id" +
-						"  LEFT JOIN (SELECT *," +
-						"               ADDDATE(visit_date, INTERVAL 1 MONTH) AppointmentDate," +
-						"               IF(ADDDATE(visit_date, INTERVAL 1 MONTH) > NOW(), 0, " +
-						"                  IF(ADDDATE(visit_date, INTERVAL 1 MONTH) = DATE(NOW()), 1, 2)) passed FROM ptme_mother_followup_visit WHERE voided = 0) pmfv ON pmf.mother_followup_id = lpmfv.mother_followup_id AND lpmfv.lastVisitDate = pmfv.visit_date" +
-						"  LEFT JOIN ptme_pregnant_patient ppp ON pmf.pregnant_patient_id = ppp.pregnant_patient_id" +
-						"  LEFT JOIN (SELECT COUNT(mother_followup_visit_id) numberOfVisit, mother_followup_id FROM ptme_mother_followup_visit WHERE visit_date < DATE(CONCAT_WS('-', YEAR(NOW()), MONTH(NOW()), '01')) AND voided = 0 GROUP BY mother_followup_id) nbv" +
-						"    ON nbv.mother_followup_id = pmf.mother_followup_id " +
-						"  LEFT JOIN (SELECT person_id, value_text TelPatient FROM obs o WHERE concept_id = 164500) SoutTel" +
-						"    ON SoutTel.person_id = ppp.patient_id" +
-						"  LEFT JOIN (SELECT person_id, value_text CelPatient FROM obs o WHERE concept_id = 164501) SoutCel " +
-						"    ON SoutCel.person_id = ppp.patient_id " +
-						"WHERE" +
-						"  pmf.pregnancy_outcome IS NULL GROUP BY hiv_care_number " +
-						"HAVING ADDDATE(lastVisitDate, INTERVAL 1 MONTH) BETWEEN DATE(CONCAT_WS('-', YEAR(NOW()), MONTH(NOW()), '01')) AND DATE(LAST_DAY(NOW())) " +
+						"  (SELECT s.mother_followup_id, s.last_visit_date lastVisitDate, s.next_appointment_date AppointmentDate, " +
+						"     (SELECT COUNT(*) FROM ptme_mother_followup_visit v " +
+						"      WHERE v.mother_followup_id = s.mother_followup_id AND v.voided = 0 AND v.visit_date < :monthStart) numberOfVisit " +
+						"   FROM ptme_mother_followup_summary s " +
+						"   WHERE s.status = 'On' AND s.next_appointment_date >= :monthStart AND s.next_appointment_date < :nextMonthStart) pmfs" +
+						"  INNER JOIN ptme_mother_followup pmf ON pmf.mother_followup_id = pmfs.mother_followup_id" +
+						"  LEFT JOIN ptme_pregnant_patient ppp ON pmf.pregnant_patient_id = ppp.pregnant_patient_id " +
+						"GROUP BY hiv_care_number " +
 						"ORDER BY AppointmentDate ";
 		Query query = sessionFactory.getCurrentSession().createSQLQuery(sqlQuery)
+				.setParameter("monthStart", getFirstDayOfMonth(0))
+				.setParameter("nextMonthStart", getFirstDayOfMonth(1))
 				.addScalar("pregnantNumber", StandardBasicTypes.STRING)
 				.addScalar("hivCareNumber", StandardBasicTypes.STRING)
+				.addScalar("patientId", StandardBasicTypes.INTEGER)
 				.addScalar("numberOfVisit", StandardBasicTypes.INTEGER)
 				.addScalar("familyName", StandardBasicTypes.STRING)
 				.addScalar("givenName", StandardBasicTypes.STRING)
-				.addScalar("contact", StandardBasicTypes.STRING)
 				.addScalar("appointmentDate", StandardBasicTypes.DATE)
 				.addScalar("passed", StandardBasicTypes.INTEGER)
 				.addScalar("lastVisitDate", StandardBasicTypes.DATE);
 
 		query.setResultTransformer(new AliasToBeanResultTransformer(MotherFollowupAppointment.class));
-		return (List<MotherFollowupAppointment>) query.list();
+		return setMotherContacts((List<MotherFollowupAppointment>) query.list());
 	}
 
 	@SuppressWarnings("unchecked")
@@ -877,43 +1194,36 @@ public class HibernatePreventTransmissionDAO implements PreventTransmissionDAO {
 				"SELECT" +
 						"  pregnant_number AS pregnantNumber," +
 						"  hiv_care_number AS hivCareNumber," +
+						"  ppp.patient_id AS patientId," +
 						"  lastVisitDate," +
 						"  numberOfVisit," +
 						"  AppointmentDate," +
 						"  family_name as familyName," +
-						"  given_name as givenName, " +
-						"  IF(TelPatient IS NOT NULL AND CelPatient IS NOT NULL, CONCAT_WS(' / ', CelPatient, TelPatient), " +
-						"		IF(TelPatient IS NULL AND CelPatient IS NOT NULL, CelPatient, " +
-						"		IF(TelPatient IS NOT NULL AND CelPatient IS NULL,TelPatient, NULL))) contact " +
+						"  given_name as givenName " +
 						"FROM" +
-						"  (SELECT * FROM ptme_mother_followup WHERE voided = 0) pmf" +
-						"  INNER JOIN (SELECT MAX(visit_date) lastVisitDate, mother_followup_id FROM ptme_mother_followup_visit GROUP BY mother_followup_id) lpmfv" +
-						"    ON pmf.mother_followup_id = lpmfv.mother_followup_id" +
-						"  LEFT JOIN (SELECT *, ADDDATE(visit_date, INTERVAL 1 MONTH) AppointmentDate FROM ptme_mother_followup_visit) pmfv ON pmf.mother_followup_id = lpmfv.mother_followup_id AND lpmfv.lastVisitDate = pmfv.visit_date" +
-						"  LEFT JOIN ptme_pregnant_patient ppp ON pmf.pregnant_patient_id = ppp.pregnant_patient_id" +
-						"  LEFT JOIN (SELECT COUNT(mother_followup_visit_id) numberOfVisit, mother_followup_id FROM ptme_mother_followup_visit WHERE visit_date < DATE(CONCAT_WS('-', YEAR(NOW()), MONTH(NOW()), '01')) GROUP BY mother_followup_id) nbv" +
-						"    ON nbv.mother_followup_id = pmf.mother_followup_id " +
-						"  LEFT JOIN (SELECT person_id, value_text TelPatient FROM obs o WHERE concept_id = 164500) SoutTel" +
-						"    ON SoutTel.person_id = ppp.patient_id" +
-						"  LEFT JOIN (SELECT person_id, value_text CelPatient FROM obs o WHERE concept_id = 164501) SoutCel " +
-						"    ON SoutCel.person_id = ppp.patient_id " +
-						"WHERE" +
-						"  pmf.pregnancy_outcome IS NULL GROUP BY hiv_care_number " +
-						"HAVING ADDDATE(lastVisitDate, INTERVAL 1 MONTH) < DATE(CONCAT_WS('-', YEAR(NOW()), MONTH(NOW()), '01')) AND " +
-						"  ADDDATE(lastVisitDate, INTERVAL 1 MONTH) >= ADDDATE(DATE(CONCAT_WS('-', YEAR(NOW()), MONTH(NOW()), '01')), INTERVAL -3 MONTH) " +
+						"  (SELECT s.mother_followup_id, s.last_visit_date lastVisitDate, s.next_appointment_date AppointmentDate, " +
+						"     (SELECT COUNT(*) FROM ptme_mother_followup_visit v " +
+						"      WHERE v.mother_followup_id = s.mother_followup_id AND v.voided = 0 AND v.visit_date < :monthStart) numberOfVisit " +
+						"   FROM ptme_mother_followup_summary s " +
+						"   WHERE s.status = 'On' AND s.next_appointment_date >= :fromDate AND s.next_appointment_date < :monthStart) pmfs" +
+						"  INNER JOIN ptme_mother_followup pmf ON pmf.mother_followup_id = pmfs.mother_followup_id" +
+						"  LEFT JOIN ptme_pregnant_patient ppp ON pmf.pregnant_patient_id = ppp.pregnant_patient_id " +
+						"GROUP BY hiv_care_number " +
 						"ORDER BY lastVisitDate ";
 		Query query = sessionFactory.getCurrentSession().createSQLQuery(sqlQuery)
+				.setParameter("fromDate", getFirstDayOfMonth(-3))
+				.setParameter("monthStart", getFirstDayOfMonth(0))
 				.addScalar("pregnantNumber", StandardBasicTypes.STRING)
 				.addScalar("hivCareNumber", StandardBasicTypes.STRING)
+				.addScalar("patientId", StandardBasicTypes.INTEGER)
 				.addScalar("numberOfVisit", StandardBasicTypes.INTEGER)
 				.addScalar("familyName", StandardBasicTypes.STRING)
-				.addScalar("contact", StandardBasicTypes.STRING)
 				.addScalar("givenName", StandardBasicTypes.STRING)
 				.addScalar("appointmentDate", StandardBasicTypes.DATE)
 				.addScalar("lastVisitDate", StandardBasicTypes.DATE);
 
 		query.setResultTransformer(new AliasToBeanResultTransformer(MotherFollowupAppointment.class));
-		return (List<MotherFollowupAppointment>) query.list();
+		return setMotherContacts((List<MotherFollowupAppointment>) query.list());
 	}
 
 	@Override
@@ -927,9 +1237,7 @@ public class HibernatePreventTransmissionDAO implements PreventTransmissionDAO {
 						"  AppointmentDate," +
 						"  family_name as familyName," +
 						"  given_name as givenName, " +
-						"  IF(TelPatient IS NOT NULL AND CelPatient IS NOT NULL, CONCAT_WS(' / ', CelPatient, TelPatient), " +
-						"		IF(TelPatient IS NULL AND CelPatient IS NOT NULL, CelPatient, " +
-						"		IF(TelPatient IS NOT NULL AND CelPatient IS NULL,TelPatient, NULL))) contact " +
+						"  ppp.patient_id AS patientId " +
 						"FROM" +
 						"  (SELECT * FROM ptme_mother_followup WHERE voided = 0) pmf" +
 						"  INNER JOIN (SELECT MAX(visit_date) lastVisitDate, mother_followup_id FROM ptme_mother_followup_visit GROUP BY mother_followup_id) lpmfv" +
@@ -938,10 +1246,6 @@ public class HibernatePreventTransmissionDAO implements PreventTransmissionDAO {
 						"  LEFT JOIN ptme_pregnant_patient ppp ON pmf.pregnant_patient_id = ppp.pregnant_patient_id" +
 						"  LEFT JOIN (SELECT COUNT(mother_followup_visit_id) numberOfVisit, mother_followup_id FROM ptme_mother_followup_visit WHERE visit_date < DATE(CONCAT_WS('-', YEAR(NOW()), MONTH(NOW()), '01')) GROUP BY mother_followup_id) nbv" +
 						"    ON nbv.mother_followup_id = pmf.mother_followup_id " +
-						"  LEFT JOIN (SELECT person_id, value_text TelPatient FROM obs o WHERE concept_id = 164500) SoutTel" +
-						"    ON SoutTel.person_id = ppp.patient_id" +
-						"  LEFT JOIN (SELECT person_id, value_text CelPatient FROM obs o WHERE concept_id = 164501) SoutCel " +
-						"    ON SoutCel.person_id = ppp.patient_id " +
 						"WHERE" +
 						"  pmf.pregnancy_outcome IS NULL GROUP BY hiv_care_number " +
 						"HAVING ADDDATE(lastVisitDate, INTERVAL 1 MONTH) < DATE(CONCAT_WS('-', YEAR(NOW()), MONTH(NOW()), '01')) AND " +
@@ -950,15 +1254,15 @@ public class HibernatePreventTransmissionDAO implements PreventTransmissionDAO {
 		Query query = sessionFactory.getCurrentSession().createSQLQuery(sqlQuery)
 				.addScalar("pregnantNumber", StandardBasicTypes.STRING)
 				.addScalar("hivCareNumber", StandardBasicTypes.STRING)
+				.addScalar("patientId", StandardBasicTypes.INTEGER)
 				.addScalar("numberOfVisit", StandardBasicTypes.INTEGER)
 				.addScalar("familyName", StandardBasicTypes.STRING)
-				.addScalar("contact", StandardBasicTypes.STRING)
 				.addScalar("givenName", StandardBasicTypes.STRING)
 				.addScalar("appointmentDate", StandardBasicTypes.DATE)
 				.addScalar("lastVisitDate", StandardBasicTypes.DATE);
 
 		query.setResultTransformer(new AliasToBeanResultTransformer(MotherFollowupAppointment.class));
-		return (List<MotherFollowupAppointment>) query.list();
+		return setMotherContacts((List<MotherFollowupAppointment>) query.list());
 	}
 
 	@SuppressWarnings("unchecked")
@@ -970,46 +1274,32 @@ public class HibernatePreventTransmissionDAO implements PreventTransmissionDAO {
 						"  family_name familyName," +
 						"  given_name AS givenName," +
 						"  lastVisitDate," +
-						"  IF(numberOfVisit IS NULL, 0, numberOfVisit) numberOfVisit," +
+						"  numberOfVisit," +
 						"  AppointmentDate, " +
-						"  passed," +
+						"  IF(AppointmentDate > NOW(), 0, IF(AppointmentDate = DATE(NOW()), 1, 2)) passed," +
 						"  birth_date," +
-						"  IF(TelPatient IS NOT NULL AND CelPatient IS NOT NULL, CONCAT_WS(' / ', CelPatient, TelPatient), " +
-						"		IF(TelPatient IS NULL AND CelPatient IS NOT NULL, CelPatient, " +
-						"		IF(TelPatient IS NOT NULL AND CelPatient IS NULL,TelPatient, NULL))) motherContact " +
+						"  pc.mother AS motherId " +
 						"FROM" +
-						"  (SELECT * FROM ptme_child WHERE voided = 0) pc" +
-						"  LEFT JOIN ptme_child_followup pcf ON pc.child_id = pcf.child_followup_id" +
-						"  LEFT JOIN (SELECT MAX(visit_date) lastVisitDate, child_id FROM ptme_child_followup_visit GROUP BY child_id) lpcfv" +
-						"    ON pc.child_id = lpcfv.child_id" +
-						"  LEFT JOIN (SELECT *," +
-						"               ADDDATE(visit_date, INTERVAL 1 MONTH) AppointmentDate," +
-						"               IF(ADDDATE(visit_date, INTERVAL 1 MONTH) > NOW(), 0, " +
-						"                  IF(ADDDATE(visit_date, INTERVAL 1 MONTH) = DATE(NOW()), 1, 2)) passed FROM ptme_child_followup_visit) pcfv ON pc.child_id = pcfv.child_id AND pcfv.visit_date = lpcfv.lastVisitDate" +
-						"  LEFT JOIN (SELECT COUNT(child_followup_visit_id) numberOfVisit, child_id FROM ptme_child_followup_visit GROUP BY child_id) cpcfv" +
-						"    ON cpcfv.child_id = pc.child_id " +
-						"  LEFT JOIN (SELECT person_id, value_text TelPatient FROM obs o WHERE concept_id = 164500) SoutTel" +
-						"    ON SoutTel.person_id = pc.mother" +
-						"  LEFT JOIN (SELECT person_id, value_text CelPatient FROM obs o WHERE concept_id = 164501) SoutCel " +
-						"    ON SoutCel.person_id = pc.mother " +
-						"WHERE" +
-						"  pcf.followup_result IS NULL AND (lastVisitDate IS NULL OR NOT (lastVisitDate BETWEEN DATE(CONCAT_WS('-', YEAR(NOW()), MONTH(NOW()), '01')) AND DATE(LAST_DAY(NOW())))) " +
-						"  GROUP BY child_followup_number " +
-						"HAVING (lastVisitDate IS NOT NULL AND ADDDATE(lastVisitDate, INTERVAL 1 MONTH) BETWEEN DATE(CONCAT_WS('-', YEAR(NOW()), MONTH(NOW()), '01')) AND DATE(LAST_DAY(NOW()))) OR " +
-						"       (lastVisitDate IS NULL AND (ADDDATE(birth_date, INTERVAL 1 MONTH) BETWEEN DATE(CONCAT_WS('-', YEAR(NOW()), MONTH(NOW()), '01')) AND DATE(LAST_DAY(NOW())) ))" +
+						"  (SELECT child_followup_id, last_visit_date lastVisitDate, visit_count numberOfVisit, next_appointment_date AppointmentDate " +
+						"   FROM ptme_child_followup_summary " +
+						"   WHERE status = 'On' AND next_appointment_date >= :monthStart AND next_appointment_date < :nextMonthStart) pcfs" +
+						"  INNER JOIN ptme_child pc ON pc.child_id = pcfs.child_followup_id AND pc.voided = 0 " +
+						"GROUP BY child_followup_number " +
 						"ORDER BY AppointmentDate";
 		Query query = sessionFactory.getCurrentSession().createSQLQuery(sqlQuery)
+				.setParameter("monthStart", getFirstDayOfMonth(0))
+				.setParameter("nextMonthStart", getFirstDayOfMonth(1))
 				.addScalar("childFollowupNumber", StandardBasicTypes.STRING)
 				.addScalar("numberOfVisit", StandardBasicTypes.INTEGER)
 				.addScalar("familyName", StandardBasicTypes.STRING)
 				.addScalar("givenName", StandardBasicTypes.STRING)
-				.addScalar("motherContact", StandardBasicTypes.STRING)
+				.addScalar("motherId", StandardBasicTypes.INTEGER)
 				.addScalar("appointmentDate", StandardBasicTypes.DATE)
 				.addScalar("passed", StandardBasicTypes.INTEGER)
 				.addScalar("lastVisitDate", StandardBasicTypes.DATE);
 
 		query.setResultTransformer(new AliasToBeanResultTransformer(ChildFollowupAppointment.class));
-		return (List<ChildFollowupAppointment>) query.list();
+		return setChildMotherContacts((List<ChildFollowupAppointment>) query.list());
 	}
 
 	@SuppressWarnings("unchecked")
@@ -1023,37 +1313,28 @@ public class HibernatePreventTransmissionDAO implements PreventTransmissionDAO {
 						"  lastVisitDate," +
 						"  numberOfVisit," +
 						"  AppointmentDate, " +
-						"  IF(TelPatient IS NOT NULL AND CelPatient IS NOT NULL, CONCAT_WS(' / ', CelPatient, TelPatient), " +
-						"		IF(TelPatient IS NULL AND CelPatient IS NOT NULL, CelPatient, " +
-						"		IF(TelPatient IS NOT NULL AND CelPatient IS NULL,TelPatient, NULL))) motherContact " +
+						"  pc.mother AS motherId " +
 						"FROM" +
-						"  (SELECT * FROM ptme_child WHERE voided = 0) pc" +
-						"  LEFT JOIN ptme_child_followup pcf ON pc.child_id = pcf.child_followup_id" +
-						"  LEFT JOIN (SELECT MAX(visit_date) lastVisitDate, child_id FROM ptme_child_followup_visit GROUP BY child_id) lpcfv" +
-						"    ON pc.child_id = lpcfv.child_id" +
-						"  LEFT JOIN (SELECT *, ADDDATE(visit_date, INTERVAL 1 MONTH) AppointmentDate FROM ptme_child_followup_visit) pcfv ON pc.child_id = pcfv.child_id AND pcfv.visit_date = lpcfv.lastVisitDate" +
-						"  LEFT JOIN (SELECT COUNT(child_followup_visit_id) numberOfVisit, child_id FROM ptme_child_followup_visit WHERE visit_date < DATE(CONCAT_WS('-', YEAR(NOW()), MONTH(NOW()), '01')) GROUP BY child_id) cpcfv" +
-						"    ON cpcfv.child_id = pc.child_id " +
-						"  LEFT JOIN (SELECT person_id, value_text TelPatient FROM obs o WHERE concept_id = 164500) SoutTel" +
-						"    ON SoutTel.person_id = pc.mother" +
-						"  LEFT JOIN (SELECT person_id, value_text CelPatient FROM obs o WHERE concept_id = 164501) SoutCel " +
-						"    ON SoutCel.person_id = pc.mother " +
-						"WHERE" +
-						"  pcf.followup_result IS NULL GROUP BY child_followup_number " +
-						"HAVING ADDDATE(lastVisitDate, INTERVAL 1 MONTH) < DATE(CONCAT_WS('-', YEAR(NOW()), MONTH(NOW()), '01')) AND " +
-						"  ADDDATE(lastVisitDate, INTERVAL 1 MONTH) >= ADDDATE(DATE(CONCAT_WS('-', YEAR(NOW()), MONTH(NOW()), '01')), INTERVAL -3 MONTH) " +
+						"  (SELECT child_followup_id, last_visit_date lastVisitDate, visit_count numberOfVisit, next_appointment_date AppointmentDate " +
+						"   FROM ptme_child_followup_summary " +
+						"   WHERE status = 'On' AND next_appointment_date >= :fromDate AND next_appointment_date < :monthStart " +
+						"     AND last_visit_date IS NOT NULL) pcfs" +
+						"  INNER JOIN ptme_child pc ON pc.child_id = pcfs.child_followup_id AND pc.voided = 0 " +
+						"GROUP BY child_followup_number " +
 						"ORDER BY lastVisitDate";
 		Query query = sessionFactory.getCurrentSession().createSQLQuery(sqlQuery)
+				.setParameter("fromDate", getFirstDayOfMonth(-3))
+				.setParameter("monthStart", getFirstDayOfMonth(0))
 				.addScalar("childFollowupNumber", StandardBasicTypes.STRING)
 				.addScalar("numberOfVisit", StandardBasicTypes.INTEGER)
 				.addScalar("familyName", StandardBasicTypes.STRING)
 				.addScalar("givenName", StandardBasicTypes.STRING)
-				.addScalar("motherContact", StandardBasicTypes.STRING)
+				.addScalar("motherId", StandardBasicTypes.INTEGER)
 				.addScalar("appointmentDate", StandardBasicTypes.DATE)
 				.addScalar("lastVisitDate", StandardBasicTypes.DATE);
 
 		query.setResultTransformer(new AliasToBeanResultTransformer(ChildFollowupAppointment.class));
-		return (List<ChildFollowupAppointment>) query.list();
+		return setChildMotherContacts((List<ChildFollowupAppointment>) query.list());
 	}
 
 	@SuppressWarnings("unchecked")
@@ -1090,23 +1371,17 @@ public class HibernatePreventTransmissionDAO implements PreventTransmissionDAO {
 								"  family_name familyName," +
 								"  given_name AS givenName," +
 								"  pc.birth_date As lastVisitDate," +
-								"  AppointmentDate," +
-								"  IF(TelPatient IS NOT NULL AND CelPatient IS NOT NULL, CONCAT_WS(' / ', CelPatient, TelPatient), " +
-								"		IF(TelPatient IS NULL AND CelPatient IS NOT NULL, CelPatient, " +
-								"		IF(TelPatient IS NOT NULL AND CelPatient IS NULL,TelPatient, NULL))) motherContact, " +
-								"  passed, " +
+								"  pcfs.pcr1_due_date AS AppointmentDate," +
+								"  pc.mother AS motherId, " +
+								"  IF(pcfs.pcr1_due_date > NOW(), 0, IF(pcfs.pcr1_due_date = DATE(NOW()), 1, 2)) passed, " +
 								" 0 AS numberOfVisit " +
 								"FROM" +
-								" (SELECT *, ADDDATE(birth_date, INTERVAL 6 WEEK) AppointmentDate, " +
-								"      IF(ADDDATE(birth_date, INTERVAL 6 WEEK) > NOW(), 0, IF(ADDDATE(birth_date, INTERVAL 6 WEEK) = DATE(NOW()), 1, 2)) passed  FROM ptme_child WHERE voided = 0) pc" +
+								"  ptme_child_followup_summary pcfs" +
+								"  INNER JOIN ptme_child pc ON pc.child_id = pcfs.child_followup_id AND pc.voided = 0" +
 								"  LEFT JOIN ptme_child_followup pcf ON pc.child_id = pcf.child_followup_id " +
-								"  LEFT JOIN (SELECT person_id, value_text TelPatient FROM obs o WHERE concept_id = 164500) SoutTel" +
-								"    ON SoutTel.person_id = pc.mother" +
-								"  LEFT JOIN (SELECT person_id, value_text CelPatient FROM obs o WHERE concept_id = 164501) SoutCel " +
-								"    ON SoutCel.person_id = pc.mother " +
 								"WHERE" +
-								"  pcf.pcr1_sampling_date IS NULL AND " +
-								"  ((FLOOR(DATEDIFF(DATE(NOW()), birth_date) /7) >= 6 AND FLOOR(DATEDIFF(DATE(NOW()), birth_date) /30) <= 8" +
+								"  pcfs.pcr1_due_date <= DATE(NOW()) AND " +
+								"  ((FLOOR(DATEDIFF(DATE(NOW()), birth_date) /30) <= 8" +
 								"  AND pcf.hiv_serology1_date IS NULL AND pcf.hiv_serology2_date IS NULL) OR " +
 								"  (FLOOR(DATEDIFF(DATE(NOW()), birth_date) /30) >= 9 AND pcf.hiv_serology1_result = 1))" +
 								"  AND pcf.followup_result IS NULL ";
@@ -1118,14 +1393,12 @@ public class HibernatePreventTransmissionDAO implements PreventTransmissionDAO {
 						"  given_name AS givenName," +
 						"  pc.birth_date As lastVisitDate," +
 						"  IF(hiv_serology1_result IS NOT NULL, hiv_serology1_date, pcr1_sampling_date ) AppointmentDate," +
-						"  IF(TelPatient IS NOT NULL AND CelPatient IS NOT NULL, CONCAT_WS(' / ', CelPatient, TelPatient), " +
-						"		IF(TelPatient IS NULL AND CelPatient IS NOT NULL, CelPatient, " +
-						"		IF(TelPatient IS NOT NULL AND CelPatient IS NULL,TelPatient, NULL))) motherContact, " +
+						"  pc.mother AS motherId, " +
 						"  IF(hiv_serology1_result IS NOT NULL, 1, 2 ) AS numberOfVisit," +
 						"  IF(hiv_serology1_result IS NOT NULL, hiv_serology1_result, pcr1_result ) AS passed " +
 						"FROM " +
 						"  (SELECT * FROM ptme_child WHERE voided = 0) pc" +
-						"  LEFT JOIN ptme_child_followup pcf ON pc.child_id = pcf.child_followup_id" +
+						"  LEFT JOIN ptme_child_followup pcf ON pc.child_id = pcf.child_followup_id " +
 //						"  LEFT JOIN (SELECT MAX(visit_date) MaxVisiteDateAllt, child_id FROM ptme_child_followup_visit WHERE eating_type = 1 AND visit_date <= DATE(NOW()) AND voided = 0 GROUP BY child_id) MV" +
 //						"    ON pc.child_id = MV.child_id" +
 //						"  LEFT JOIN (SELECT MAX(visit_date) MaxVisiteDate, child_id FROM ptme_child_followup_visit WHERE eating_type <> 1 AND visit_date <= DATE(NOW()) AND voided = 0 GROUP BY child_id) MV1" +
@@ -1134,10 +1407,6 @@ public class HibernatePreventTransmissionDAO implements PreventTransmissionDAO {
 //						"                IF(ADDDATE(visit_date, INTERVAL 6 WEEK) > NOW(), 0," +
 //						"                 IF(ADDDATE(visit_date, INTERVAL 6 WEEK) = DATE(NOW()), 1, 2)) passed FROM ptme_child_followup_visit WHERE voided = 0) pcfv " +
 //						"    ON pcfv.child_id = MV1.child_id AND pcfv.visit_date = MV1.MaxVisiteDate " +
-						"  LEFT JOIN (SELECT person_id, value_text TelPatient FROM obs o WHERE concept_id = 164500) SoutTel" +
-						"    ON SoutTel.person_id = pc.mother" +
-						"  LEFT JOIN (SELECT person_id, value_text CelPatient FROM obs o WHERE concept_id = 164501) SoutCel " +
-						"    ON SoutCel.person_id = pc.mother " +
 						"WHERE " +
 						"  pcf.pcr1_result IS NOT NULL" +
 						"  AND pcf.pcr2_sampling_date IS NULL" +
@@ -1156,18 +1425,12 @@ public class HibernatePreventTransmissionDAO implements PreventTransmissionDAO {
 						"  given_name AS givenName," +
 						"  pc.birth_date As lastVisitDate," +
 						"  IF(hiv_serology1_date IS NOT NULL, hiv_serology1_date, pcr2_sampling_date ) AppointmentDate," +
-						"  IF(TelPatient IS NOT NULL AND CelPatient IS NOT NULL, CONCAT_WS(' / ', CelPatient, TelPatient), " +
-						"		IF(TelPatient IS NULL AND CelPatient IS NOT NULL, CelPatient, " +
-						"		IF(TelPatient IS NOT NULL AND CelPatient IS NULL,TelPatient, NULL))) motherContact, " +
+						"  pc.mother AS motherId, " +
 						"  2 AS passed, " +
 						"  0 AS numberOfVisit " +
 						"FROM" +
 						" (SELECT * FROM ptme_child WHERE voided = 0) pc" +
 						"  LEFT JOIN ptme_child_followup pcf ON pc.child_id = pcf.child_followup_id " +
-						"  LEFT JOIN (SELECT person_id, value_text TelPatient FROM obs o WHERE concept_id = 164500) SoutTel" +
-						"    ON SoutTel.person_id = pc.mother" +
-						"  LEFT JOIN (SELECT person_id, value_text CelPatient FROM obs o WHERE concept_id = 164501) SoutCel" +
-						"    ON SoutCel.person_id = pc.mother " +
 						"WHERE" +
 						"  pcf.pcr3_sampling_date IS NULL AND " +
 						"  ((pcf.pcr2_result = 1 AND pcf.pcr1_result = 0) OR (pcf.pcr1_result = 1 AND pcf.pcr2_result = 0)) AND " +
@@ -1180,9 +1443,7 @@ public class HibernatePreventTransmissionDAO implements PreventTransmissionDAO {
 						"  given_name AS givenName," +
 						"  pc.birth_date As lastVisitDate," +
 						"  BirthDateAfter9Month AppointmentDate," +
-						"  IF(TelPatient IS NOT NULL AND CelPatient IS NOT NULL, CONCAT_WS(' / ', CelPatient, TelPatient), " +
-						"		IF(TelPatient IS NULL AND CelPatient IS NOT NULL, CelPatient, " +
-						"		IF(TelPatient IS NOT NULL AND CelPatient IS NULL,TelPatient, NULL))) motherContact, " +
+						"  pc.mother AS motherId, " +
 						"  0 AS passed, " +
 						"  0 AS numberOfVisit " +
 //						"  IF(IF(EarlistVisitDateNotBreastfeeding <= BirthDateAfter9Month, BirthDateAfter9Month, EarlistVisitDateNotBreastfeeding) > NOW(), 0, " +
@@ -1194,10 +1455,6 @@ public class HibernatePreventTransmissionDAO implements PreventTransmissionDAO {
 //						"    ON LVDB.child_id = pc.child_id " +
 //						"  LEFT JOIN (SELECT ADDDATE(MIN(visit_date), INTERVAL 6 WEEK) EarlistVisitDateNotBreastfeeding, child_id FROM ptme_child_followup_visit WHERE eating_type <> 1 GROUP BY child_id) LVDNB " +
 //						"    ON LVDNB.child_id = pc.child_id AND (LastVisitDateBreastfeeding IS NULL OR LastVisitDateBreastfeeding < EarlistVisitDateNotBreastfeeding) " +
-						"  LEFT JOIN (SELECT person_id, value_text TelPatient FROM obs o WHERE concept_id = 164500) SoutTel" +
-						"    ON SoutTel.person_id = pc.mother" +
-						"  LEFT JOIN (SELECT person_id, value_text CelPatient FROM obs o WHERE concept_id = 164501) SoutCel " +
-						"    ON SoutCel.person_id = pc.mother " +
 						"WHERE" +
 						"  ((pcf.pcr1_sampling_date IS NULL " +
 						"  AND ( FLOOR(DATEDIFF(DATE(NOW()), birth_date) /30) >= 9 AND FLOOR(DATEDIFF(DATE(NOW()), birth_date) /30) < 18)) OR " +
@@ -1216,9 +1473,7 @@ public class HibernatePreventTransmissionDAO implements PreventTransmissionDAO {
 						"  given_name AS givenName," +
 						"  pc.birth_date As lastVisitDate," +
 						"  AppointmentDate," +
-						"  IF(TelPatient IS NOT NULL AND CelPatient IS NOT NULL, CONCAT_WS(' / ', CelPatient, TelPatient), " +
-						"		IF(TelPatient IS NULL AND CelPatient IS NOT NULL, CelPatient, " +
-						"		IF(TelPatient IS NOT NULL AND CelPatient IS NULL,TelPatient, NULL))) motherContact, " +
+						"  pc.mother AS motherId, " +
 						"  0 AS passed, " +
 						"  0 AS numberOfVisit " +
 						"FROM" +
@@ -1226,10 +1481,6 @@ public class HibernatePreventTransmissionDAO implements PreventTransmissionDAO {
 //						"			,IF(ADDDATE(birth_date, INTERVAL 18 MONTH) > NOW(), 0, IF(ADDDATE(birth_date, INTERVAL 9 MONTH) = DATE(NOW()), 1, 2)) passed " +
 						"		FROM ptme_child WHERE voided = 0) pc" +
 						"  LEFT JOIN ptme_child_followup pcf ON pc.child_id = pcf.child_followup_id " +
-						"  LEFT JOIN (SELECT person_id, value_text TelPatient FROM obs o WHERE concept_id = 164500) SoutTel" +
-						"    ON SoutTel.person_id = pc.mother" +
-						"  LEFT JOIN (SELECT person_id, value_text CelPatient FROM obs o WHERE concept_id = 164501) SoutCel " +
-						"    ON SoutCel.person_id = pc.mother " +
 						"WHERE" +
 						"  ((pcf.hiv_serology2_date IS NULL " +
 						"  AND FLOOR(DATEDIFF(DATE(NOW()), birth_date) /30) >= 18))" +
@@ -1245,11 +1496,11 @@ public class HibernatePreventTransmissionDAO implements PreventTransmissionDAO {
 				.addScalar("familyName", StandardBasicTypes.STRING)
 				.addScalar("givenName", StandardBasicTypes.STRING)
 				.addScalar("appointmentDate", StandardBasicTypes.DATE)
-				.addScalar("motherContact", StandardBasicTypes.STRING)
+				.addScalar("motherId", StandardBasicTypes.INTEGER)
 				.addScalar("lastVisitDate", StandardBasicTypes.DATE);
 
 		query.setResultTransformer(new AliasToBeanResultTransformer(ChildFollowupAppointment.class));
-		return (List<ChildFollowupAppointment>) query.list();
+		return setChildMotherContacts((List<ChildFollowupAppointment>) query.list());
 	}
 
 	@SuppressWarnings("unchecked")
@@ -1272,19 +1523,13 @@ public class HibernatePreventTransmissionDAO implements PreventTransmissionDAO {
 						"  IF(pcr3_sampling_date IS NOT NULL, pcr3_result," +
 						"     IF(pcr2_sampling_date IS NOT NULL, pcr2_result," +
 						"        IF(pcr1_sampling_date IS NOT NULL, pcr1_result, NULL)) ) AS lastPCRResult, " +
-						"  IF(TelPatient IS NOT NULL AND CelPatient IS NOT NULL, CONCAT_WS(' / ', CelPatient, TelPatient), " +
-						"		IF(TelPatient IS NULL AND CelPatient IS NOT NULL, CelPatient, " +
-						"		IF(TelPatient IS NOT NULL AND CelPatient IS NULL,TelPatient, NULL))) motherContact," +
+						"  pc.mother AS motherId," +
 						" IF(pcr3_sampling_date IS NOT NULL, DATEDIFF(DATE(NOW()), pcr3_sampling_date)," +
 						"    IF(pcr2_sampling_date IS NOT NULL, DATEDIFF(DATE(NOW()), pcr2_sampling_date)," +
 						"       IF(pcr1_sampling_date IS NOT NULL, DATEDIFF(DATE(NOW()), pcr1_sampling_date), NULL))) numDay " +
 						"FROM " +
 						"  (SELECT *, if(followup_result IS NOT NULL, 'Off', 'On') status FROM ptme_child_followup) pcf" +
-						"  INNER JOIN  ptme_child pc ON pc.child_id = pcf.child_followup_id" +
-						"  LEFT JOIN (SELECT person_id, value_text TelPatient FROM obs o WHERE concept_id = 164500) SoutTel" +
-						"    ON SoutTel.person_id = pc.mother" +
-						"  LEFT JOIN (SELECT person_id, value_text CelPatient FROM obs o WHERE concept_id = 164501) SoutCel " +
-						"    ON SoutCel.person_id = pc.mother " +
+						"  INNER JOIN  ptme_child pc ON pc.child_id = pcf.child_followup_id " +
 						"WHERE" +
 //						"  pc.child_id = pcf.child_followup_id AND" +
 						"  pcf.status = 'On' AND pcf.voided = false " +
@@ -1293,12 +1538,45 @@ public class HibernatePreventTransmissionDAO implements PreventTransmissionDAO {
 				.addScalar("childFollowupNumber", StandardBasicTypes.STRING)
 				.addScalar("familyName", StandardBasicTypes.STRING)
 				.addScalar("givenName", StandardBasicTypes.STRING)
-				.addScalar("motherContact", StandardBasicTypes.STRING)
+				.addScalar("motherId", StandardBasicTypes.INTEGER)
 				.addScalar("samplingDate", StandardBasicTypes.DATE)
 				.addScalar("numDay", StandardBasicTypes.INTEGER)
 				.addScalar("pcrRank", StandardBasicTypes.STRING);
 		query.setResultTransformer(new AliasToBeanResultTransformer(ChildPcrResultWaitingTransformer.class));
-		return (List<ChildPcrResultWaitingTransformer>) query.list();
+		List<ChildPcrResultWaitingTransformer> children = (List<ChildPcrResultWaitingTransformer>) query.list();
+		List<Integer> motherIds = new ArrayList<Integer>();
+		for (ChildPcrResultWaitingTransformer child : children) {
+			motherIds.add(child.getMotherId());
+		}
+		Map<Integer, String> contacts = getPersonContacts(motherIds);
+		for (ChildPcrResultWaitingTransformer child : children) {
+			child.setMotherContact(contacts.get(child.getMotherId()));
+		}
+		return children;
+	}
+
+	private List<MotherFollowupAppointment> setMotherContacts(List<MotherFollowupAppointment> appointments) {
+		List<Integer> patientIds = new ArrayList<Integer>();
+		for (MotherFollowupAppointment appointment : appointments) {
+			patientIds.add(appointment.getPatientId());
+		}
+		Map<Integer, String> contacts = getPersonContacts(patientIds);
+		for (MotherFollowupAppointment appointment : appointments) {
+			appointment.setContact(contacts.get(appointment.getPatientId()));
+		}
+		return appointments;
+	}
+
+	private List<ChildFollowupAppointment> setChildMotherContacts(List<ChildFollowupAppointment> appointments) {
+		List<Integer> motherIds = new ArrayList<Integer>();
+		for (ChildFollowupAppointment appointment : appointments) {
+			motherIds.add(appointment.getMotherId());
+		}
+		Map<Integer, String> contacts = getPersonContacts(motherIds);
+		for (ChildFollowupAppointment appointment : appointments) {
+			appointment.setMotherContact(contacts.get(appointment.getMotherId()));
+		}
+		return appointments;
 	}
 
 	@Override
@@ -1330,6 +1608,129 @@ public class HibernatePreventTransmissionDAO implements PreventTransmissionDAO {
 		return pregnantPatient != null;
 	}
 
+	@Override
+	public Map<Integer, PatientVitalStatus> getPatientVitalStatuses(Collection<Integer> patientIds) {
+		Map<Integer, PatientVitalStatus> statuses = new HashMap<Integer, PatientVitalStatus>();
+		List<Integer> ids = new ArrayList<Integer>();
+		for (Integer patientId : patientIds) {
+			if (patientId != null && !statuses.containsKey(patientId)) {
+				statuses.put(patientId, PatientVitalStatus.ACTIVE);
+				ids.add(patientId);
+			}
+		}
+
+		for (int from = 0; from < ids.size(); from += MAX_IN_PARAMETERS) {
+			List<Integer> chunk = ids.subList(from, Math.min(from + MAX_IN_PARAMETERS, ids.size()));
+
+			// Applied from the lowest to the highest priority status
+			setVitalStatus(statuses, PatientVitalStatus.DECLARED_NEGATIVE, sessionFactory.getCurrentSession().createSQLQuery(
+					"SELECT DISTINCT o.person_id FROM obs o " +
+							"WHERE o.concept_id = 163511 AND o.voided = 0 AND o.person_id IN (:patientIds)")
+					.setParameterList("patientIds", chunk)
+					.list());
+			// Transfer recorded after the last encounter of the patient
+			setVitalStatus(statuses, PatientVitalStatus.TRANSFERRED, sessionFactory.getCurrentSession().createSQLQuery(
+					"SELECT DISTINCT o.person_id FROM obs o " +
+							"INNER JOIN (SELECT patient_id, MAX(encounter_datetime) lastEncounterDate FROM encounter " +
+							"            WHERE encounter_type = 1 AND voided = 0 AND patient_id IN (:patientIds) GROUP BY patient_id) e " +
+							"  ON e.patient_id = o.person_id " +
+							"WHERE o.concept_id = 164595 AND o.voided = 0 AND o.value_datetime >= e.lastEncounterDate " +
+							"AND o.person_id IN (:patientIds)")
+					.setParameterList("patientIds", chunk)
+					.list());
+			setVitalStatus(statuses, PatientVitalStatus.DEAD, sessionFactory.getCurrentSession().createSQLQuery(
+					"SELECT DISTINCT o.person_id FROM obs o " +
+							"WHERE o.concept_id = 1543 AND o.voided = 0 AND o.person_id IN (:patientIds)")
+					.setParameterList("patientIds", chunk)
+					.list());
+		}
+		return statuses;
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public Map<Integer, String> getPersonContacts(Collection<Integer> personIds) {
+		Map<Integer, String> mobiles = new HashMap<Integer, String>();
+		Map<Integer, String> phones = new HashMap<Integer, String>();
+		Set<Integer> distinctIds = new LinkedHashSet<Integer>(personIds);
+		distinctIds.remove(null);
+		List<Integer> ids = new ArrayList<Integer>(distinctIds);
+
+		for (int from = 0; from < ids.size(); from += MAX_IN_PARAMETERS) {
+			List<Integer> chunk = ids.subList(from, Math.min(from + MAX_IN_PARAMETERS, ids.size()));
+			// Ordered by date, the most recent number of each person is kept
+			List<Object[]> rows = sessionFactory.getCurrentSession().createSQLQuery(
+					"SELECT o.person_id, o.concept_id, o.value_text FROM obs o " +
+							"WHERE o.concept_id IN (164500, 164501) AND o.voided = 0 AND o.value_text IS NOT NULL " +
+							"AND o.person_id IN (:personIds) " +
+							"ORDER BY o.obs_datetime, o.obs_id")
+					.setParameterList("personIds", chunk)
+					.list();
+			for (Object[] row : rows) {
+				Integer personId = ((Number) row[0]).intValue();
+				if (((Number) row[1]).intValue() == 164501) {
+					mobiles.put(personId, (String) row[2]);
+				} else {
+					phones.put(personId, (String) row[2]);
+				}
+			}
+		}
+
+		Map<Integer, String> contacts = new HashMap<Integer, String>();
+		for (Integer personId : ids) {
+			String mobile = mobiles.get(personId);
+			String phone = phones.get(personId);
+			if (mobile != null && phone != null) {
+				contacts.put(personId, mobile + " / " + phone);
+			} else if (mobile != null || phone != null) {
+				contacts.put(personId, mobile != null ? mobile : phone);
+			}
+		}
+		return contacts;
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public Map<Integer, Map<Integer, Obs>> getLatestObs(Collection<Integer> personIds, Collection<Integer> conceptIds) {
+		Map<Integer, Map<Integer, Obs>> latestObs = new HashMap<Integer, Map<Integer, Obs>>();
+		if (conceptIds == null || conceptIds.isEmpty()) {
+			return latestObs;
+		}
+		Set<Integer> distinctIds = new LinkedHashSet<Integer>(personIds);
+		distinctIds.remove(null);
+		List<Integer> ids = new ArrayList<Integer>(distinctIds);
+
+		for (int from = 0; from < ids.size(); from += MAX_IN_PARAMETERS) {
+			List<Integer> chunk = ids.subList(from, Math.min(from + MAX_IN_PARAMETERS, ids.size()));
+			// Concepts filtered by id, without loading them first. The most recent obs comes first.
+			List<Obs> observations = sessionFactory.getCurrentSession().createQuery(
+					"FROM Obs o WHERE o.person.personId IN (:personIds) AND o.concept.conceptId IN (:conceptIds) " +
+							"AND o.voided = false ORDER BY o.obsDatetime DESC, o.obsId DESC")
+					.setParameterList("personIds", chunk)
+					.setParameterList("conceptIds", conceptIds)
+					.list();
+			for (Obs obs : observations) {
+				Integer personId = obs.getPersonId();
+				Map<Integer, Obs> personObs = latestObs.get(personId);
+				if (personObs == null) {
+					personObs = new HashMap<Integer, Obs>();
+					latestObs.put(personId, personObs);
+				}
+				Integer conceptId = obs.getConcept().getConceptId();
+				if (!personObs.containsKey(conceptId)) {
+					personObs.put(conceptId, obs);
+				}
+			}
+		}
+		return latestObs;
+	}
+
+	private static void setVitalStatus(Map<Integer, PatientVitalStatus> statuses, PatientVitalStatus status, List<?> patientIds) {
+		for (Object patientId : patientIds) {
+			statuses.put(((Number) patientId).intValue(), status);
+		}
+	}
+
 	@SuppressWarnings("unchecked")
 	@Override
 	public List<ReportingIndicator> getAllIndicators() {
@@ -1377,10 +1778,39 @@ public class HibernatePreventTransmissionDAO implements PreventTransmissionDAO {
 
 	@Override
 	public ReportingIndicator getIndicatorByUuid(String uuid) {
-		Criteria criteria = sessionFactory.getCurrentSession().createCriteria(ReportingIndicator.class);
+		Criteria criteria = cacheMetadataQuery(sessionFactory.getCurrentSession().createCriteria(ReportingIndicator.class));
 		return (ReportingIndicator) criteria.add(Restrictions.eq("uuid", uuid)).uniqueResult();
 	}
 
+	@Override
+	public Map<String, String> getIndicatorNamesByUuids(Collection<String> uuids) {
+		return getNamesByUuids("ReportingIndicator", uuids);
+	}
+
+	@Override
+	public Map<String, String> getDatasetNamesByUuids(Collection<String> uuids) {
+		return getNamesByUuids("ReportingDataset", uuids);
+	}
+
+	/**
+	 * Name of each entity of the given uuids, in a single query
+	 */
+	@SuppressWarnings("unchecked")
+	private Map<String, String> getNamesByUuids(String entityName, Collection<String> uuids) {
+		Map<String, String> names = new HashMap<String, String>();
+		if (uuids == null || uuids.isEmpty()) {
+			return names;
+		}
+		List<Object[]> rows = sessionFactory.getCurrentSession()
+				.createQuery("SELECT e.uuid, e.name FROM " + entityName + " e WHERE e.uuid IN (:uuids)")
+				.setParameterList("uuids", uuids)
+				.list();
+		for (Object[] row : rows) {
+			names.put((String) row[0], (String) row[1]);
+		}
+		return names;
+	}
+
 	@SuppressWarnings("unchecked")
 	@Override
 	public List<ReportingDataset> getAllDatasets() {
@@ -1491,7 +1921,7 @@ public class HibernatePreventTransmissionDAO implements PreventTransmissionDAO {
 
 	@Override
 	public ReportingTemplate getTemplateByName(String name) {
-		Criteria criteria = sessionFactory.getCurrentSession().createCriteria(ReportingTemplate.class);
+		Criteria criteria = cacheMetadataQuery(sessionFactory.getCurrentSession().createCriteria(ReportingTemplate.class));
 		return (ReportingTemplate) criteria.add(Restrictions.eq("name", name)).uniqueResult();
 	}
 
@@ -1564,19 +1994,40 @@ public class HibernatePreventTransmissionDAO implements PreventTransmissionDAO {
 
 	@Override
 	public Location getLocationByName(String name) {
-		Criteria criteria = sessionFactory.getCurrentSession().createCriteria(Location.class);
+		Criteria criteria = cacheMetadataQuery(sessionFactory.getCurrentSession().createCriteria(Location.class));
 		return (Location) criteria.add(Restrictions.eq("name", name)).uniqueResult();
 	}
 
+	@Override
+	public MetadataCacheStatistics getMetadataCacheStatistics() {
+		Statistics statistics = sessionFactory.getHibernateSessionFactory().getStatistics();
+		MetadataCacheStatistics cacheStatistics = new MetadataCacheStatistics();
+		cacheStatistics.setStatisticsEnabled(statistics.isStatisticsEnabled());
+		for (String regionName : statistics.getSecondLevelCacheRegionNames()) {
+			SecondLevelCacheStatistics regionStatistics = statistics.getSecondLevelCacheStatistics(regionName);
+			if (regionStatistics == null) {
+				continue;
+			}
+			if (regionName.endsWith(METADATA_QUERY_CACHE_REGION)) {
+				cacheStatistics.setQueryHitCount(cacheStatistics.getQueryHitCount() + regionStatistics.getHitCount());
+				cacheStatistics.setQueryMissCount(cacheStatistics.getQueryMissCount() + regionStatistics.getMissCount());
+			} else if (regionName.contains("org.openmrs.module.ptme.Reporting") || regionName.endsWith("org.openmrs.Location")) {
+				cacheStatistics.setEntityHitCount(cacheStatistics.getEntityHitCount() + regionStatistics.getHitCount());
+				cacheStatistics.setEntityMissCount(cacheStatistics.getEntityMissCount() + regionStatistics.getMissCount());
+			}
+		}
+		return cacheStatistics;
+	}
+
 	@Override
 	public ReportingIndicator getIndicatorByName(String name) {
-		Criteria criteria = sessionFactory.getCurrentSession().createCriteria(ReportingIndicator.class);
+		Criteria criteria = cacheMetadataQuery(sessionFactory.getCurrentSession().createCriteria(ReportingIndicator.class));
 		return (ReportingIndicator) criteria.add(Restrictions.eq("name", name)).uniqueResult();
 	}
 
 	@Override
 	public ReportingIndicator getIndicatorByCode(String code) {
-		Criteria criteria = sessionFactory.getCurrentSession().createCriteria(ReportingIndicator.class);
+		Criteria criteria = cacheMetadataQuery(sessionFactory.getCurrentSession().createCriteria(ReportingIndicator.class));
 		return (ReportingIndicator) criteria.add(Restrictions.eq("templateCode", code)).uniqueResult();
 	}
 
@@ -1597,14 +2048,34 @@ public class HibernatePreventTransmissionDAO implements PreventTransmissionDAO {
 
 	@Override
 	public String getGeneratedReportXmlString(Date startDate, Date endDate, Integer reportId, String location) {
+		return getGeneratedReportXmlString(startDate, endDate, reportId, location, 1);
+	}
+
+	@Override
+	public String getGeneratedReportXmlString(Date startDate, Date endDate, Integer reportId, String location, Integer parallelism) {
+		return getGeneratedReportXmlString(startDate, endDate, reportId, location, parallelism, null);
+	}
+
+	@Override
+	public String getGeneratedReportXmlString(Date startDate, Date endDate, Integer reportId, String location,
+											  Integer parallelism, IndicatorProgressListener listener) {
+		ReportIndicatorValues reportIndicatorValues = getGeneratedReportValues(startDate, endDate, reportId, location,
+				parallelism, listener);
+
+		XStream xStream = new XStream(new DomDriver());
+		xStream.registerConverter(new ReportIndicatorValuesXml());
+		xStream.alias("report", ReportIndicatorValues.class);
+
+		return xStream.toXML(reportIndicatorValues);
+	}
+
+	@Override
+	public ReportIndicatorValues getGeneratedReportValues(Date startDate, Date endDate, Integer reportId, String location,
+														  Integer parallelism, IndicatorProgressListener listener) {
 //		Location l = Context.getLocationService().getDefaultLocation();
 		Location l = getLocationByName(location);
 		ReportIndicatorValues reportIndicatorValues = new ReportIndicatorValues();
 
-
-//		System.out.println("Param location name : " + getLocationByName(location).getName());
-//		System.out.println("Param location name after checking in data : " + getLocationByName(location).getName());
-
 		reportIndicatorValues.setGenerationDate(new Date());
 		reportIndicatorValues.setReportStartDate(startDate);
 		reportIndicatorValues.setReportEndDate(endDate);
@@ -1616,53 +2087,12 @@ public class HibernatePreventTransmissionDAO implements PreventTransmissionDAO {
 		}
 
 		ReportingReport report = getReportById(reportId);
-		List<ReportDataSetIndicatorRun> reportDataSetIndicatorRuns = new ArrayList<ReportDataSetIndicatorRun>();
-
-		for (ReportingDataset reportingDataset : report.getReportingDatasets()) {
-
-			ReportDataSetIndicatorRun reportDataSetIndicatorRun = new ReportDataSetIndicatorRun();
-			reportDataSetIndicatorRun.setDataSetUuid(reportingDataset.getUuid());
-
-			List<ReportRunIndicatorValue> reportRunIndicatorValues = new ArrayList<ReportRunIndicatorValue>();
-
-			for (ReportingIndicator reportingIndicator : reportingDataset.getReportingIndicators()) {
-				ReportRunIndicatorValue reportRunIndicatorValue = new ReportRunIndicatorValue();
-
-				String sqlQuery = reportingIndicator.getIndicatorSqlScript();
-
-				Query query = sessionFactory.getCurrentSession().createSQLQuery(sqlQuery);
-				if (sqlQuery.contains(":startDate")) {
-					query.setParameter("startDate", startDate);
-				}
-				if (sqlQuery.contains(":endDate")) {
-					query.setParameter("endDate", endDate);
-				}
-				if (sqlQuery.contains(":locationId")) {
-					query.setParameter("locationId", locationId);
-				}
-
-				String value = query.uniqueResult().toString();
-
-				reportRunIndicatorValue.setValue(Integer.parseInt(value));
-				reportRunIndicatorValue.setIndicatorUuid(reportingIndicator.getUuid());
-				reportRunIndicatorValue.setCode(reportingDataset.getCode() + "." + reportingIndicator.getTemplateCode());
-
-				reportRunIndicatorValues.add(reportRunIndicatorValue);
-			}
-
-			reportDataSetIndicatorRun.setReportRunIndicatorValues(reportRunIndicatorValues);
-			reportDataSetIndicatorRuns.add(reportDataSetIndicatorRun);
-		}
-
-		//reportIndicatorValues.setReportRunIndicatorValues(reportRunIndicatorValues);
+		List<ReportDataSetIndicatorRun> reportDataSetIndicatorRuns = indicatorExecutionEngine.run(report, startDate, endDate,
+				locationId, parallelism != null ? parallelism : 1, listener);
 
 		reportIndicatorValues.setReportDataSetIndicatorRuns(reportDataSetIndicatorRuns);
 
-		XStream xStream = new XStream(new DomDriver());
-		xStream.registerConverter(new ReportIndicatorValuesXml());
-		xStream.alias("report", ReportIndicatorValues.class);
-
-		return xStream.toXML(reportIndicatorValues);
+		return reportIndicatorValues;
 	}
 
 	@Transactional
@@ -1675,23 +2105,96 @@ public class HibernatePreventTransmissionDAO implements PreventTransmissionDAO {
 	@SuppressWarnings("unchecked")
 	@Override
 	public List<ReportingReportGeneration> getAllGeneratedReport(Boolean includeVoided) {
-		return (List<ReportingReportGeneration>) sessionFactory.getCurrentSession().createCriteria(ReportingReportGeneration.class).list();
+		Criteria criteria = sessionFactory.getCurrentSession().createCriteria(ReportingReportGeneration.class);
+		if (!includeVoided) {
+			criteria.add(Restrictions.eq("voided", false));
+		}
+		return (List<ReportingReportGeneration>) criteria.list();
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public List<ReportGenerationSummary> getGeneratedReportSummaries(Boolean includeVoided, Integer firstResult, Integer maxResults) {
+		Query query = sessionFactory.getCurrentSession().createQuery("SELECT " +
+				"r.generationId AS generationId, " +
+				"r.name AS name, " +
+				"r.generationDate AS generationDate, " +
+				"r.reportPeriodStartDate AS reportPeriodStartDate, " +
+				"r.reportPeriodEndDate AS reportPeriodEndDate, " +
+				"r.saved AS saved, " +
+				"rep.reportLabel AS reportLabel, " +
+				"l.name AS locationName, " +
+				"pn.familyName AS creatorFamilyName, " +
+				"pn.middleName AS creatorMiddleName, " +
+				"pn.givenName AS creatorGivenName " +
+				"FROM ReportingReportGeneration r " +
+				"INNER JOIN r.report rep " +
+				"INNER JOIN r.reportLocation l " +
+				"LEFT JOIN r.creator u " +
+				"LEFT JOIN u.person p " +
+				"LEFT JOIN p.names pn WITH pn.preferred = true AND pn.voided = false " +
+				"WHERE (:includeVoided = true OR r.voided = false) " +
+				"ORDER BY r.generationDate DESC, r.generationId DESC")
+				.setParameter("includeVoided", includeVoided);
+		if (firstResult != null) {
+			query.setFirstResult(firstResult);
+		}
+		if (maxResults != null) {
+			query.setMaxResults(maxResults);
+		}
+		query.setResultTransformer(new AliasToBeanResultTransformer(ReportGenerationSummary.class));
+		return query.list();
+	}
+
+	@Override
+	public Long getGeneratedReportCount(Boolean includeVoided) {
+		return (Long) sessionFactory.getCurrentSession().createQuery("SELECT COUNT(r.generationId) " +
+				"FROM ReportingReportGeneration r WHERE (:includeVoided = true OR r.voided = false)")
+				.setParameter("includeVoided", includeVoided)
+				.uniqueResult();
 	}
 
 	@Override
 	public ReportingDataset getDatasetByUuid(String uuid) {
-		Criteria criteria = sessionFactory.getCurrentSession().createCriteria(ReportingDataset.class);
+		Criteria criteria = cacheMetadataQuery(sessionFactory.getCurrentSession().createCriteria(ReportingDataset.class));
 		return (ReportingDataset) criteria.add(Restrictions.eq("uuid", uuid)).uniqueResult();
 	}
 
 	@SuppressWarnings("unchecked")
 	@Override
 	public Boolean removeGeneratedReport(Integer delId) {
-		if (getGeneratedReport(delId) != null){
-			sessionFactory.getCurrentSession().delete(getGeneratedReport(delId));
-			return true;
+		// Deleted without loading the generated content
+		boolean removed = sessionFactory.getCurrentSession().createQuery("DELETE FROM ReportingReportGeneration r " +
+				"WHERE r.generationId = :generationId")
+				.setParameter("generationId", delId)
+				.executeUpdate() > 0;
+		if (removed) {
+			deleteOrphanGenerationContents();
 		}
-		return false;
+		return removed;
+	}
+
+	@Override
+	public Integer purgeUnsavedGeneratedReports(Date generatedBefore) {
+		int purged = sessionFactory.getCurrentSession().createQuery("DELETE FROM ReportingReportGeneration r " +
+				"WHERE r.saved = false AND r.generationDate < :generatedBefore")
+				.setParameter("generatedBefore", generatedBefore)
+				.executeUpdate();
+		if (purged > 0) {
+			deleteOrphanGenerationContents();
+		}
+		return purged;
+	}
+
+	/**
+	 * The bulk deletes of the generations do not cascade, their contents are deleted afterwards
+	 */
+	private void deleteOrphanGenerationContents() {
+		sessionFactory.getCurrentSession().createSQLQuery("DELETE c FROM ptme_reporting_report_generation_content c " +
+				"LEFT JOIN ptme_reporting_report_generation g ON g.content_id = c.content_id " +
+				"WHERE g.generation_id IS NULL")
+				.addSynchronizedEntityClass(ReportingReportGenerationContent.class)
+				.executeUpdate();
 	}
 
 	@SuppressWarnings("unchecked")
@@ -1701,15 +2204,16 @@ public class HibernatePreventTransmissionDAO implements PreventTransmissionDAO {
 				"SELECT " +
 						"  pmf.mother_followup_id as motherFollowupId," +
 						"  hiv_care_number as hivCareNumber," +
+						"  patient_id as patientId," +
 						"  age, " +
 						"  family_name as familyName, " +
 						"  given_name as givenName, " +
 						"  arv_status_at_registering as arvStatusAtRegistering, " +
-						"  visitCount, " +
+						"  pmfs.visit_count AS visitCount, " +
 						"  start_date as startDate," +
 						"  end_date as endDate," +
 						"  if(pregnancy_outcome IS NULL AND DateTransfert IS NULL AND DateDeces IS NULL AND DateNotPositive IS NULL, 'On', 'Off') status, " +
-						"  lastVisitDate," +
+						"  pmfs.last_visit_date AS lastVisitDate," +
 						"  if(DateDeces IS NOT NULL AND pregnancy_outcome IS NULL , 6, if(DateTransfert IS NOT NULL AND pregnancy_outcome IS NULL, 7, if( DateNotPositive IS NOT NULL AND pregnancy_outcome IS NULL , 8, pregnancy_outcome ))) as pregnancyOutcome," +
 						"  delivery_type as deliveryType," +
 						"  pmf.spousal_screening_date as spousalScreeningDate," +
@@ -1719,7 +2223,7 @@ public class HibernatePreventTransmissionDAO implements PreventTransmissionDAO {
 						"    SELECT mother_followup_id, arv_status_at_registering, start_date, end_date, " +
 						"           pregnancy_outcome, " +
 						"           delivery_type, spousal_screening_date, f.spousal_screening_result," +
-						"           hiv_care_number, age, family_name, given_name, f.voided, T.value_datetime DateTransfert, D.value_datetime DateDeces, F.value_datetime DateNotPositive FROM ptme_mother_followup f" +
+						"           hiv_care_number, ppp.patient_id, age, family_name, given_name, f.voided, T.value_datetime DateTransfert, D.value_datetime DateDeces, F.value_datetime DateNotPositive FROM ptme_mother_followup f" +
 						"    INNER JOIN ptme_pregnant_patient ppp  ON f.pregnant_patient_id = ppp.pregnant_patient_id" +
 						"    LEFT JOIN (SELECT person_id, value_datetime FROM obs WHERE concept_id = 1543 AND value_datetime "+ (endDate != null ? "<= :endDate" : " = NOW()") +" AND voided = 0) D ON D.person_id = ppp.patient_id" +
 						"    LEFT JOIN (SELECT person_id, value_datetime FROM obs o WHERE concept_id = 164595 AND voided = 0 " +
@@ -1728,13 +2232,11 @@ public class HibernatePreventTransmissionDAO implements PreventTransmissionDAO {
 						"      ON T.person_id = ppp.patient_id " +
 						"    LEFT JOIN (SELECT person_id, value_datetime FROM obs WHERE concept_id = 163511 AND voided = 0) F ON F.person_id = ppp.patient_id" +
 						"  ) pmf, " +
-
-						"  ( SELECT count(*) visitCount, mother_followup_id FROM ptme_mother_followup_visit GROUP BY mother_followup_id) pmfv2, " +
-						"  ( SELECT max(visit_date) lastVisitDate, mother_followup_id FROM ptme_mother_followup_visit GROUP BY mother_followup_id) pmfv3 " +
+						"  ptme_mother_followup_summary pmfs " +
 						"WHERE " +
 						//"  pmf.pregnant_patient_id = ppp.pregnant_patient_id AND " +
-						"  pmf.mother_followup_id = pmfv2.mother_followup_id AND " +
-						"  pmf.mother_followup_id = pmfv3.mother_followup_id AND " +
+						"  pmf.mother_followup_id = pmfs.mother_followup_id AND " +
+						"  pmfs.visit_count > 0 AND " +
 						"  pmf.voided = 0 ";
 
 //		if (startDate != null)
@@ -1743,7 +2245,7 @@ public class HibernatePreventTransmissionDAO implements PreventTransmissionDAO {
 //		if (endDate != null)
 //			sqlQuery = sqlQuery + " AND pmf.end_date = :endDate";
 		if (pregnancyOutcome != null)
-			sqlQuery = sqlQuery + " AND pmf.pregnacy_outcome = :pregnancyOutcome";
+			sqlQuery = sqlQuery + " AND pmf.pregnancy_outcome = :pregnancyOutcome";
 		if (startOrEnd != null) {
 			if (startOrEnd.equals("startDate")) {
 				sqlQuery = sqlQuery + " AND pmf.start_date BETWEEN :startDate AND :endDate";
@@ -1751,12 +2253,16 @@ public class HibernatePreventTransmissionDAO implements PreventTransmissionDAO {
 				sqlQuery = sqlQuery + " AND pmf.end_date BETWEEN :startDate AND :endDate";
 			}
 		}
+		if ("On".equals(status))
+			// Followups with a pregnancy outcome are never 'On', they are skipped through the summary index
+			sqlQuery = sqlQuery + " AND pmfs.status = 'On'";
 		if (status != null)
 			sqlQuery = sqlQuery + " HAVING status = :status";
 
 		Query query = sessionFactory.getCurrentSession().createSQLQuery(sqlQuery)
 				.addScalar("motherFollowupId", StandardBasicTypes.INTEGER)
 				.addScalar("hivCareNumber", StandardBasicTypes.STRING)
+				.addScalar("patientId", StandardBasicTypes.INTEGER)
 				.addScalar("familyName", StandardBasicTypes.STRING)
 				.addScalar("givenName", StandardBasicTypes.STRING)
 				.addScalar("status", StandardBasicTypes.STRING)
@@ -0,0 +1,332 @@
+package org.openmrs.module.ptme.api.db.hibernate;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.hibernate.FlushMode;
+import org.hibernate.HibernateException;
+import org.hibernate.Query;
+import org.hibernate.Session;
+import org.openmrs.api.APIException;
+import org.openmrs.api.db.hibernate.DbSessionFactory;
+import org.openmrs.module.ptme.ReportingDataset;
+import org.openmrs.module.ptme.ReportingIndicator;
+import org.openmrs.module.ptme.ReportingReport;
+import org.openmrs.module.ptme.utils.IndicatorProgressListener;
+import org.openmrs.module.ptme.utils.IndicatorResultCache;
+import org.openmrs.module.ptme.utils.ReportDataSetIndicatorRun;
+import org.openmrs.module.ptme.utils.ReportRunIndicatorValue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the indicators of a report concurrently on a bounded pool of workers.
+ * Each worker opens its own read-only session, so indicator scripts never share
+ * the request session. Values are put back together in dataset order.
+ * Values already in the result cache for the same location and period are not computed again,
+ * and indicators sharing a base join are computed together by one fused query.
+ */
+public class IndicatorExecutionEngine {
+
+    protected final Log log = LogFactory.getLog(this.getClass());
+
+    private DbSessionFactory sessionFactory;
+
+    private int maxWorkers = 8;
+
+    private ExecutorService executor;
+
+    private IndicatorResultCache indicatorResultCache;
+
+    private IndicatorQueryFuser indicatorQueryFuser = new IndicatorQueryFuser();
+
+    private boolean fusedEvaluation = true;
+
+    /**
+     * @param sessionFactory the sessionFactory to set
+     */
+    public void setSessionFactory(DbSessionFactory sessionFactory) {
+        this.sessionFactory = sessionFactory;
+    }
+
+    /**
+     * @param maxWorkers the number of threads shared by all the report runs
+     */
+    public void setMaxWorkers(int maxWorkers) {
+        this.maxWorkers = maxWorkers;
+    }
+
+    public int getMaxWorkers() {
+        return maxWorkers;
+    }
+
+    /**
+     * @param indicatorResultCache cache of the values already computed, may be null
+     */
+    public void setIndicatorResultCache(IndicatorResultCache indicatorResultCache) {
+        this.indicatorResultCache = indicatorResultCache;
+    }
+
+    /**
+     * @param fusedEvaluation true to compute the indicators sharing a base join with a single query
+     */
+    public void setFusedEvaluation(boolean fusedEvaluation) {
+        this.fusedEvaluation = fusedEvaluation;
+    }
+
+    public void setIndicatorQueryFuser(IndicatorQueryFuser indicatorQueryFuser) {
+        this.indicatorQueryFuser = indicatorQueryFuser;
+    }
+
+    private synchronized ExecutorService getExecutor() {
+        if (executor == null || executor.isShutdown()) {
+            final AtomicInteger threadNumber = new AtomicInteger(1);
+            executor = Executors.newFixedThreadPool(maxWorkers, new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "ptme-indicator-" + threadNumber.getAndIncrement());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return executor;
+    }
+
+    /**
+     * Stops the workers, called when the module context is closed
+     */
+    public synchronized void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    /**
+     * Executes every indicator of the report for the given period and location.
+     *
+     * @param parallelism maximum number of indicators of this report running at the same time
+     * @return one run per dataset, in the iteration order of the report datasets
+     */
+    public List<ReportDataSetIndicatorRun> run(ReportingReport report, Date startDate, Date endDate,
+                                               Integer locationId, int parallelism) {
+        return run(report, startDate, endDate, locationId, parallelism, null);
+    }
+
+    /**
+     * Same as {@link #run(ReportingReport, Date, Date, Integer, int)}, notifying the listener
+     * each time an indicator has been computed.
+     */
+    public List<ReportDataSetIndicatorRun> run(ReportingReport report, Date startDate, Date endDate,
+                                               Integer locationId, int parallelism,
+                                               IndicatorProgressListener listener) {
+        List<ReportDataSetIndicatorRun> reportDataSetIndicatorRuns = new ArrayList<ReportDataSetIndicatorRun>();
+        List<ReportRunIndicatorValue> pendingValues = new ArrayList<ReportRunIndicatorValue>();
+        List<ReportingIndicator> pendingIndicators = new ArrayList<ReportingIndicator>();
+        int total = 0;
+
+        for (ReportingDataset reportingDataset : report.getReportingDatasets()) {
+
+            ReportDataSetIndicatorRun reportDataSetIndicatorRun = new ReportDataSetIndicatorRun();
+            reportDataSetIndicatorRun.setDataSetUuid(reportingDataset.getUuid());
+
+            List<ReportRunIndicatorValue> reportRunIndicatorValues = new ArrayList<ReportRunIndicatorValue>();
+
+            for (ReportingIndicator reportingIndicator : reportingDataset.getReportingIndicators()) {
+                ReportRunIndicatorValue reportRunIndicatorValue = new ReportRunIndicatorValue();
+                reportRunIndicatorValue.setIndicatorUuid(reportingIndicator.getUuid());
+                reportRunIndicatorValue.setCode(reportingDataset.getCode() + "." + reportingIndicator.getTemplateCode());
+                reportRunIndicatorValues.add(reportRunIndicatorValue);
+                total++;
+
+                Integer cachedValue = null;
+                if (indicatorResultCache != null) {
+                    cachedValue = indicatorResultCache.get(reportingIndicator.getUuid(),
+                            reportingIndicator.getIndicatorSqlScript(), locationId, startDate, endDate);
+                }
+                if (cachedValue != null) {
+                    reportRunIndicatorValue.setValue(cachedValue);
+                } else {
+                    pendingValues.add(reportRunIndicatorValue);
+                    pendingIndicators.add(reportingIndicator);
+                }
+            }
+
+            reportDataSetIndicatorRun.setReportRunIndicatorValues(reportRunIndicatorValues);
+            reportDataSetIndicatorRuns.add(reportDataSetIndicatorRun);
+        }
+
+        if (listener != null) {
+            listener.onStart(total);
+            for (int i = 0; i < total - pendingValues.size(); i++) {
+                listener.onIndicatorCompleted();
+            }
+        }
+
+        // Indicators sharing a base join are computed by a single query, the others on their own
+        List<List<Integer>> batches = new ArrayList<List<Integer>>();
+        List<String> batchQueries = new ArrayList<String>();
+        boolean[] fused = new boolean[pendingIndicators.size()];
+
+        if (fusedEvaluation && pendingIndicators.size() > 1) {
+            List<String> sqlScripts = new ArrayList<String>();
+            for (ReportingIndicator reportingIndicator : pendingIndicators) {
+                sqlScripts.add(reportingIndicator.getIndicatorSqlScript());
+            }
+            for (IndicatorQueryFuser.FusedQuery fusedQuery : indicatorQueryFuser.fuse(sqlScripts)) {
+                batches.add(fusedQuery.getMembers());
+                batchQueries.add(fusedQuery.getSql());
+                for (Integer member : fusedQuery.getMembers()) {
+                    fused[member] = true;
+                }
+            }
+        }
+        for (int i = 0; i < pendingIndicators.size(); i++) {
+            if (!fused[i]) {
+                batches.add(Collections.singletonList(i));
+                batchQueries.add(null);
+            }
+        }
+
+        int permits = Math.max(1, Math.min(parallelism, maxWorkers));
+        Semaphore semaphore = new Semaphore(permits);
+        List<Future<List<Integer>>> futures = new ArrayList<Future<List<Integer>>>();
+
+        try {
+            for (int i = 0; i < batches.size(); i++) {
+                List<ReportingIndicator> indicators = new ArrayList<ReportingIndicator>();
+                for (Integer member : batches.get(i)) {
+                    indicators.add(pendingIndicators.get(member));
+                }
+
+                semaphore.acquire();
+                try {
+                    futures.add(getExecutor().submit(
+                            new IndicatorTask(indicators, batchQueries.get(i), startDate, endDate, locationId, semaphore, listener)));
+                } catch (RejectedExecutionException e) {
+                    semaphore.release();
+                    throw e;
+                }
+            }
+
+            for (int i = 0; i < batches.size(); i++) {
+                List<Integer> values = futures.get(i).get();
+                List<Integer> members = batches.get(i);
+                for (int j = 0; j < members.size(); j++) {
+                    pendingValues.get(members.get(j)).setValue(values.get(j));
+                }
+            }
+        } catch (InterruptedException e) {
+            cancel(futures);
+            Thread.currentThread().interrupt();
+            throw new APIException("Report generation interrupted", e);
+        } catch (ExecutionException e) {
+            cancel(futures);
+            throw new APIException("Error while running report indicator : " + e.getCause().getMessage(), e.getCause());
+        }
+
+        return reportDataSetIndicatorRuns;
+    }
+
+    private void cancel(List<Future<List<Integer>>> futures) {
+        for (Future<List<Integer>> future : futures) {
+            future.cancel(true);
+        }
+    }
+
+    /**
+     * Computes a set of indicators, with their fused query when there is one.
+     * If the fused query fails, every indicator is run on its own.
+     */
+    private class IndicatorTask implements Callable<List<Integer>> {
+
+        private final List<ReportingIndicator> indicators;
+        private final String fusedQuery;
+        private final Date startDate;
+        private final Date endDate;
+        private final Integer locationId;
+        private final Semaphore semaphore;
+        private final IndicatorProgressListener listener;
+        private final long cacheVersion;
+
+        IndicatorTask(List<ReportingIndicator> indicators, String fusedQuery, Date startDate, Date endDate,
+                      Integer locationId, Semaphore semaphore, IndicatorProgressListener listener) {
+            this.indicators = indicators;
+            this.fusedQuery = fusedQuery;
+            this.startDate = startDate;
+            this.endDate = endDate;
+            this.locationId = locationId;
+            this.semaphore = semaphore;
+            this.listener = listener;
+            this.cacheVersion = indicatorResultCache != null ? indicatorResultCache.getVersion() : 0;
+        }
+
+        @Override
+        public List<Integer> call() throws Exception {
+            Session session = sessionFactory.getHibernateSessionFactory().openSession();
+            try {
+                session.setDefaultReadOnly(true);
+                session.setFlushMode(FlushMode.MANUAL);
+
+                List<Integer> values = null;
+                if (fusedQuery != null) {
+                    try {
+                        values = runFused(session);
+                    } catch (HibernateException e) {
+                        log.warn("Fused evaluation failed, indicators are run one by one : " + e.getMessage());
+                    }
+                }
+                if (values == null) {
+                    values = new ArrayList<Integer>();
+                    for (ReportingIndicator indicator : indicators) {
+                        Query query = createQuery(session, indicator.getIndicatorSqlScript());
+                        values.add(Integer.parseInt(query.uniqueResult().toString()));
+                    }
+                }
+
+                for (int i = 0; i < indicators.size(); i++) {
+                    ReportingIndicator indicator = indicators.get(i);
+                    if (indicatorResultCache != null) {
+                        indicatorResultCache.put(cacheVersion, indicator.getUuid(), indicator.getIndicatorSqlScript(),
+                                locationId, startDate, endDate, values.get(i));
+                    }
+                    if (listener != null) {
+                        listener.onIndicatorCompleted();
+                    }
+                }
+                return values;
+            } finally {
+                session.close();
+                semaphore.release();
+            }
+        }
+
+        private List<Integer> runFused(Session session) {
+            Object[] row = (Object[]) createQuery(session, fusedQuery).uniqueResult();
+            List<Integer> values = new ArrayList<Integer>();
+            for (Object value : row) {
+                values.add(value != null ? ((Number) value).intValue() : 0);
+            }
+            return values;
+        }
+
+        private Query createQuery(Session session, String sqlQuery) {
+            Query query = session.createSQLQuery(sqlQuery);
+            if (sqlQuery.contains(":startDate")) {
+                query.setParameter("startDate", startDate);
+            }
+            if (sqlQuery.contains(":endDate")) {
+                query.setParameter("endDate", endDate);
+            }
+            if (sqlQuery.contains(":locationId")) {
+                query.setParameter("locationId", locationId);
+            }
+            return query;
+        }
+    }
+}
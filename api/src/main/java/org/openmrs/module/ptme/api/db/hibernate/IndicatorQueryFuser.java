@@ -0,0 +1,501 @@
+package org.openmrs.module.ptme.api.db.hibernate;
+
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Compiles indicator scripts of the form <code>SELECT COUNT(*) FROM ... WHERE ...</code> into
+ * one query per base join :
+ * <code>SELECT SUM(CASE WHEN ... THEN 1 ELSE 0 END), ... FROM ... WHERE ...</code>
+ * (<code>COUNT([DISTINCT] CASE WHEN ... THEN column END)</code> for scripts counting a column).
+ * <p>
+ * Scripts share a base join when they have the same tables, the same join predicates and the same
+ * period and location predicates. Predicates common to every script of the base stay in the WHERE
+ * clause, the others go in the CASE of their indicator. Scripts that do not follow this form are
+ * not fused and must be run on their own.
+ */
+public class IndicatorQueryFuser {
+
+    private static final Pattern COUNT = Pattern.compile("(?is)^count\\s*\\(\\s*(distinct\\s+)?(.+?)\\s*\\)(\\s+(as\\s+)?\\w+)?$");
+
+    private static final Pattern COLUMN_EQUALITY = Pattern.compile("(?is)^(\\w+)\\.\\w+\\s*=\\s*(\\w+)\\.\\w+$");
+
+    private static final Pattern FROM_ITEM = Pattern.compile("(?is)^(\\w+)(\\s+(as\\s+)?(\\w+))?$");
+
+    private static final Pattern PERIOD_OR_LOCATION = Pattern.compile(":(startDate|endDate|locationId)\\b");
+
+    private static final String[] UNSUPPORTED_CLAUSES = {"GROUP", "HAVING", "ORDER", "LIMIT", "UNION", "PROCEDURE", "INTO", "FOR"};
+
+    private int maxIndicatorsPerQuery = 50;
+
+    /**
+     * @param maxIndicatorsPerQuery maximum number of indicators computed by a single fused query
+     */
+    public void setMaxIndicatorsPerQuery(int maxIndicatorsPerQuery) {
+        this.maxIndicatorsPerQuery = maxIndicatorsPerQuery;
+    }
+
+    /**
+     * Groups the scripts sharing a base join.
+     *
+     * @param sqlScripts the indicator scripts
+     * @return the fused queries, each with the indexes of the scripts it computes in the order of its columns.
+     * Scripts whose index is not part of any fused query have to be run on their own.
+     */
+    public List<FusedQuery> fuse(List<String> sqlScripts) {
+        Map<String, List<Integer>> groups = new LinkedHashMap<String, List<Integer>>();
+        Map<Integer, CountQuery> countQueries = new HashMap<Integer, CountQuery>();
+
+        for (int i = 0; i < sqlScripts.size(); i++) {
+            CountQuery countQuery = parse(sqlScripts.get(i));
+            if (countQuery == null) {
+                continue;
+            }
+            countQueries.put(i, countQuery);
+            List<Integer> group = groups.get(countQuery.groupKey);
+            if (group == null) {
+                group = new ArrayList<Integer>();
+                groups.put(countQuery.groupKey, group);
+            }
+            group.add(i);
+        }
+
+        List<FusedQuery> fusedQueries = new ArrayList<FusedQuery>();
+        for (List<Integer> group : groups.values()) {
+            for (int start = 0; start < group.size(); start += maxIndicatorsPerQuery) {
+                List<Integer> members = group.subList(start, Math.min(group.size(), start + maxIndicatorsPerQuery));
+                if (members.size() > 1) {
+                    fusedQueries.add(compile(new ArrayList<Integer>(members), countQueries));
+                }
+            }
+        }
+        return fusedQueries;
+    }
+
+    private FusedQuery compile(List<Integer> members, Map<Integer, CountQuery> countQueries) {
+        CountQuery first = countQueries.get(members.get(0));
+
+        // Filters found in every script of the group are evaluated once in the WHERE clause
+        Set<String> commonFilters = new LinkedHashSet<String>(first.filters.keySet());
+        for (Integer member : members) {
+            commonFilters.retainAll(countQueries.get(member).filters.keySet());
+        }
+
+        List<String> basePredicates = new ArrayList<String>();
+        basePredicates.addAll(first.joinPredicates);
+        basePredicates.addAll(first.periodPredicates);
+        for (String commonFilter : commonFilters) {
+            basePredicates.add(first.filters.get(commonFilter));
+        }
+
+        StringBuilder sql = new StringBuilder("SELECT ");
+        for (int i = 0; i < members.size(); i++) {
+            List<String> specificPredicates = new ArrayList<String>();
+            for (Map.Entry<String, String> filter : countQueries.get(members.get(i)).filters.entrySet()) {
+                if (!commonFilters.contains(filter.getKey())) {
+                    specificPredicates.add(filter.getValue());
+                }
+            }
+            if (i > 0) {
+                sql.append(", ");
+            }
+            CountQuery countQuery = countQueries.get(members.get(i));
+            String condition = specificPredicates.isEmpty() ? "1 = 1" : joinPredicates(specificPredicates);
+            if (countQuery.countedExpression.equals("*") && !countQuery.distinct) {
+                sql.append("COALESCE(SUM(CASE WHEN ").append(condition).append(" THEN 1 ELSE 0 END), 0)");
+            } else {
+                // COUNT ignores the NULL given by the CASE for the rows not matching the indicator
+                sql.append("COUNT(").append(countQuery.distinct ? "DISTINCT " : "")
+                        .append("CASE WHEN ").append(condition)
+                        .append(" THEN ").append(countQuery.countedExpression.equals("*") ? "1" : countQuery.countedExpression)
+                        .append(" END)");
+            }
+            sql.append(" v").append(i);
+        }
+        sql.append(" FROM ").append(first.fromClause);
+        if (!basePredicates.isEmpty()) {
+            sql.append(" WHERE ").append(joinPredicates(basePredicates));
+        }
+
+        return new FusedQuery(sql.toString(), members);
+    }
+
+    private static String joinPredicates(List<String> predicates) {
+        StringBuilder builder = new StringBuilder();
+        for (String predicate : predicates) {
+            if (builder.length() > 0) {
+                builder.append(" AND ");
+            }
+            builder.append("(").append(predicate).append(")");
+        }
+        return builder.toString();
+    }
+
+    /**
+     * @return the parts of a COUNT(*) script over comma separated joined tables, null if the script
+     * can not be fused
+     */
+    CountQuery parse(String sqlScript) {
+        if (sqlScript == null) {
+            return null;
+        }
+        String sql = sqlScript.trim();
+        while (sql.endsWith(";")) {
+            sql = sql.substring(0, sql.length() - 1).trim();
+        }
+        if (sql.contains("--") || sql.contains("/*") || sql.contains("#") || sql.contains(";")) {
+            return null;
+        }
+
+        if (indexOfKeyword(sql, "SELECT", 0) != 0) {
+            return null;
+        }
+        int fromIndex = indexOfKeyword(sql, "FROM", 0);
+        if (fromIndex < 0 || indexOfKeyword(sql, "SELECT", 1) >= 0) {
+            return null;
+        }
+        String selectList = sql.substring("SELECT".length(), fromIndex).trim();
+        Matcher countMatcher = COUNT.matcher(selectList);
+        if (!countMatcher.matches() || !isBalanced(countMatcher.group(2))) {
+            return null;
+        }
+
+        int whereIndex = indexOfKeyword(sql, "WHERE", fromIndex);
+        String fromClause = (whereIndex < 0 ? sql.substring(fromIndex + 4) : sql.substring(fromIndex + 4, whereIndex)).trim();
+        String whereClause = whereIndex < 0 ? "" : sql.substring(whereIndex + 5).trim();
+
+        for (String clause : UNSUPPORTED_CLAUSES) {
+            if (indexOfKeyword(sql, clause, fromIndex) >= 0) {
+                return null;
+            }
+        }
+
+        CountQuery countQuery = new CountQuery();
+        countQuery.fromClause = fromClause;
+        countQuery.distinct = countMatcher.group(1) != null;
+        countQuery.countedExpression = countMatcher.group(2).trim();
+
+        List<String> conjuncts = splitConjuncts(whereClause);
+        for (String conjunct : conjuncts) {
+            String predicate = unwrap(conjunct);
+            Matcher matcher = COLUMN_EQUALITY.matcher(predicate);
+            if (matcher.matches() && !matcher.group(1).equalsIgnoreCase(matcher.group(2))) {
+                countQuery.joinPredicates.add(predicate);
+                countQuery.joinKeys.add(normalizeEquality(predicate));
+            } else if (PERIOD_OR_LOCATION.matcher(predicate).find()) {
+                countQuery.periodPredicates.add(predicate);
+            } else {
+                countQuery.filters.put(normalize(predicate), predicate);
+            }
+        }
+
+        if (!isConnected(fromClause, countQuery.joinPredicates)) {
+            return null;
+        }
+
+        List<String> fromKeys = new ArrayList<String>();
+        for (String item : splitTopLevel(fromClause, ',')) {
+            fromKeys.add(normalize(item));
+        }
+        Collections.sort(fromKeys);
+        List<String> joinKeys = new ArrayList<String>(countQuery.joinKeys);
+        Collections.sort(joinKeys);
+        List<String> periodKeys = new ArrayList<String>();
+        for (String periodPredicate : countQuery.periodPredicates) {
+            periodKeys.add(normalize(periodPredicate));
+        }
+        Collections.sort(periodKeys);
+
+        countQuery.groupKey = fromKeys + "|" + joinKeys + "|" + periodKeys;
+        return countQuery;
+    }
+
+    /**
+     * Tables listed with commas must all be joined by the join predicates, otherwise the fused query
+     * would run over a cartesian product.
+     */
+    private static boolean isConnected(String fromClause, List<String> joinPredicates) {
+        List<String> items = splitTopLevel(fromClause, ',');
+        if (items.size() == 1) {
+            return true;
+        }
+
+        Map<String, String> parents = new HashMap<String, String>();
+        for (String item : items) {
+            Matcher matcher = FROM_ITEM.matcher(item.trim());
+            if (!matcher.matches()) {
+                return false;
+            }
+            String alias = (matcher.group(4) != null ? matcher.group(4) : matcher.group(1)).toLowerCase();
+            parents.put(alias, alias);
+        }
+
+        for (String joinPredicate : joinPredicates) {
+            Matcher matcher = COLUMN_EQUALITY.matcher(joinPredicate);
+            if (matcher.matches()) {
+                String left = matcher.group(1).toLowerCase();
+                String right = matcher.group(2).toLowerCase();
+                if (parents.containsKey(left) && parents.containsKey(right)) {
+                    parents.put(find(parents, left), find(parents, right));
+                }
+            }
+        }
+
+        Set<String> roots = new HashSet<String>();
+        for (String alias : parents.keySet()) {
+            roots.add(find(parents, alias));
+        }
+        return roots.size() == 1;
+    }
+
+    private static String find(Map<String, String> parents, String alias) {
+        String root = alias;
+        while (!parents.get(root).equals(root)) {
+            root = parents.get(root);
+        }
+        return root;
+    }
+
+    /**
+     * Splits a WHERE clause on its top level AND, leaving the AND of BETWEEN and the operators
+     * written inside a CASE ... END expression untouched. A clause with a top level OR is kept whole.
+     */
+    static List<String> splitConjuncts(String whereClause) {
+        List<String> conjuncts = new ArrayList<String>();
+        if (whereClause.isEmpty()) {
+            return conjuncts;
+        }
+
+        int depth = 0;
+        int caseDepth = 0;
+        char quote = 0;
+        boolean pendingBetween = false;
+        int start = 0;
+
+        for (int i = 0; i < whereClause.length(); i++) {
+            char c = whereClause.charAt(i);
+            if (quote != 0) {
+                if (c == quote) {
+                    quote = 0;
+                }
+                continue;
+            }
+            if (c == '\'' || c == '"' || c == '`') {
+                quote = c;
+            } else if (c == '(') {
+                depth++;
+            } else if (c == ')') {
+                depth--;
+            } else if (depth == 0 && isWordStart(whereClause, i)) {
+                String word = readWord(whereClause, i);
+                if (word.equalsIgnoreCase("CASE")) {
+                    caseDepth++;
+                } else if (word.equalsIgnoreCase("END") && caseDepth > 0) {
+                    caseDepth--;
+                } else if (caseDepth == 0) {
+                    if (word.equalsIgnoreCase("OR") || word.equalsIgnoreCase("XOR")) {
+                        conjuncts.clear();
+                        conjuncts.add(whereClause.trim());
+                        return conjuncts;
+                    } else if (word.equalsIgnoreCase("BETWEEN")) {
+                        pendingBetween = true;
+                    } else if (word.equalsIgnoreCase("AND")) {
+                        if (pendingBetween) {
+                            pendingBetween = false;
+                        } else {
+                            conjuncts.add(whereClause.substring(start, i).trim());
+                            start = i + word.length();
+                        }
+                    }
+                }
+                i += word.length() - 1;
+            }
+        }
+        conjuncts.add(whereClause.substring(start).trim());
+        return conjuncts;
+    }
+
+    private static List<String> splitTopLevel(String text, char separator) {
+        List<String> parts = new ArrayList<String>();
+        int depth = 0;
+        char quote = 0;
+        int start = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (quote != 0) {
+                if (c == quote) {
+                    quote = 0;
+                }
+            } else if (c == '\'' || c == '"' || c == '`') {
+                quote = c;
+            } else if (c == '(') {
+                depth++;
+            } else if (c == ')') {
+                depth--;
+            } else if (c == separator && depth == 0) {
+                parts.add(text.substring(start, i));
+                start = i + 1;
+            }
+        }
+        parts.add(text.substring(start));
+        return parts;
+    }
+
+    /**
+     * @return position of the keyword outside of parentheses and quotes, -1 if not found
+     */
+    static int indexOfKeyword(String sql, String keyword, int from) {
+        int depth = 0;
+        char quote = 0;
+        for (int i = 0; i < sql.length(); i++) {
+            char c = sql.charAt(i);
+            if (quote != 0) {
+                if (c == quote) {
+                    quote = 0;
+                }
+                continue;
+            }
+            if (c == '\'' || c == '"' || c == '`') {
+                quote = c;
+            } else if (c == '(') {
+                depth++;
+            } else if (c == ')') {
+                depth--;
+            } else if (i >= from && depth == 0 && isWordStart(sql, i)) {
+                String word = readWord(sql, i);
+                if (word.equalsIgnoreCase(keyword)) {
+                    return i;
+                }
+                i += word.length() - 1;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isWordStart(String text, int index) {
+        return isWordChar(text.charAt(index)) && (index == 0 || !isWordChar(text.charAt(index - 1)));
+    }
+
+    private static String readWord(String text, int index) {
+        int end = index;
+        while (end < text.length() && isWordChar(text.charAt(end))) {
+            end++;
+        }
+        return text.substring(index, end);
+    }
+
+    private static boolean isWordChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == ':' || c == '.';
+    }
+
+    /**
+     * Removes the parentheses around a whole predicate
+     */
+    private static String unwrap(String predicate) {
+        String result = predicate.trim();
+        while (result.startsWith("(") && result.endsWith(")") && isBalanced(result.substring(1, result.length() - 1))) {
+            result = result.substring(1, result.length() - 1).trim();
+        }
+        return result;
+    }
+
+    private static boolean isBalanced(String text) {
+        int depth = 0;
+        char quote = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (quote != 0) {
+                if (c == quote) {
+                    quote = 0;
+                }
+            } else if (c == '\'' || c == '"' || c == '`') {
+                quote = c;
+            } else if (c == '(') {
+                depth++;
+            } else if (c == ')') {
+                if (--depth < 0) {
+                    return false;
+                }
+            }
+        }
+        return depth == 0 && quote == 0;
+    }
+
+    /**
+     * Lower case and whitespace insensitive form of a predicate, literals are left untouched
+     */
+    static String normalize(String text) {
+        StringBuilder builder = new StringBuilder();
+        char quote = 0;
+        boolean pendingSpace = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (quote != 0) {
+                builder.append(c);
+                if (c == quote) {
+                    quote = 0;
+                }
+                continue;
+            }
+            if (Character.isWhitespace(c)) {
+                pendingSpace = builder.length() > 0;
+                continue;
+            }
+            if (pendingSpace && isWordChar(builder.charAt(builder.length() - 1)) && isWordChar(c)) {
+                builder.append(' ');
+            }
+            pendingSpace = false;
+            if (c == '\'' || c == '"' || c == '`') {
+                quote = c;
+            }
+            builder.append(Character.toLowerCase(c));
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Same form of a.x = b.y and b.y = a.x
+     */
+    private static String normalizeEquality(String predicate) {
+        String[] sides = normalize(predicate).split("=");
+        return sides[0].compareTo(sides[1]) <= 0 ? sides[0] + "=" + sides[1] : sides[1] + "=" + sides[0];
+    }
+
+    static class CountQuery {
+        private String fromClause;
+        private String countedExpression;
+        private boolean distinct;
+        private final List<String> joinKeys = new ArrayList<String>();
+        private String groupKey;
+        private final List<String> joinPredicates = new ArrayList<String>();
+        private final List<String> periodPredicates = new ArrayList<String>();
+        private final Map<String, String> filters = new LinkedHashMap<String, String>();
+    }
+
+    /**
+     * A query computing several indicators, one column per indicator
+     */
+    public static class FusedQuery {
+
+        private final String sql;
+
+        private final List<Integer> members;
+
+        FusedQuery(String sql, List<Integer> members) {
+            this.sql = sql;
+            this.members = members;
+        }
+
+        public String getSql() {
+            return sql;
+        }
+
+        /**
+         * @return indexes of the fused scripts, in the order of the columns of the query
+         */
+        public List<Integer> getMembers() {
+            return members;
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package org.openmrs.module.ptme.api.impl;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.openmrs.api.context.Context;
+import org.openmrs.module.ptme.api.PreventTransmissionService;
+import org.openmrs.module.ptme.utils.ReportRetentionStatistics;
+
+import java.util.Date;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodically deletes the generated reports which were not saved by the user once they are older
+ * than the retention set in the global property {@link PreventTransmissionServiceImpl#GP_GENERATED_REPORT_RETENTION_DAYS}.
+ * Each sweep is a single delete statement, its outcome is read through
+ * {@link PreventTransmissionService#getGeneratedReportRetentionStatistics()}.
+ */
+public class GeneratedReportRetentionSweeper {
+
+    protected final Log log = LogFactory.getLog(this.getClass());
+
+    /**
+     * Leaves time to the module context to be fully started before the first sweep
+     */
+    private long initialDelayMillis = 5L * 60L * 1000L;
+
+    private long sweepIntervalMillis = 6L * 60L * 60L * 1000L;
+
+    private ScheduledExecutorService executor;
+
+    private volatile Date lastSweepDate;
+
+    private volatile int lastPurgedCount = 0;
+
+    private volatile long lastSweepDurationMillis = 0;
+
+    private volatile String lastError;
+
+    private long totalPurgedCount = 0;
+
+    private long sweepCount = 0;
+
+    public void setInitialDelayMillis(long initialDelayMillis) {
+        this.initialDelayMillis = initialDelayMillis;
+    }
+
+    public void setSweepIntervalMillis(long sweepIntervalMillis) {
+        this.sweepIntervalMillis = sweepIntervalMillis;
+    }
+
+    /**
+     * Schedules the sweeps, called when the module context is started
+     */
+    public synchronized void start() {
+        if (executor != null && !executor.isShutdown()) {
+            return;
+        }
+        executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "ptme-report-retention");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        executor.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                sweep();
+            }
+        }, initialDelayMillis, sweepIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops the sweeps, called when the module context is closed
+     */
+    public synchronized void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    /**
+     * Deletes the expired unsaved reports now
+     *
+     * @return the number of deleted reports, -1 if the sweep failed
+     */
+    public int sweep() {
+        long start = System.currentTimeMillis();
+        int purged = -1;
+        try {
+            Context.openSession();
+            purged = Context.getService(PreventTransmissionService.class).purgeUnsavedGeneratedReports();
+            lastError = null;
+        } catch (Exception e) {
+            log.error("Unable to purge the unsaved generated reports", e);
+            lastError = e.getMessage();
+        } finally {
+            Context.closeSession();
+        }
+
+        long duration = System.currentTimeMillis() - start;
+        synchronized (this) {
+            sweepCount++;
+            if (purged > 0) {
+                totalPurgedCount += purged;
+            }
+            lastSweepDate = new Date(start);
+            lastSweepDurationMillis = duration;
+            lastPurgedCount = Math.max(purged, 0);
+        }
+
+        if (purged >= 0) {
+            log.info("Generated reports retention : " + purged + " unsaved reports deleted in " + duration + " ms");
+        }
+        return purged;
+    }
+
+    /**
+     * @return the outcome of the last sweep and the totals since the start of the module
+     */
+    public synchronized ReportRetentionStatistics getStatistics() {
+        ReportRetentionStatistics statistics = new ReportRetentionStatistics();
+        statistics.setLastSweepDate(lastSweepDate);
+        statistics.setLastPurgedCount(lastPurgedCount);
+        statistics.setLastSweepDurationMillis(lastSweepDurationMillis);
+        statistics.setLastError(lastError);
+        statistics.setTotalPurgedCount(totalPurgedCount);
+        statistics.setSweepCount(sweepCount);
+        return statistics;
+    }
+}
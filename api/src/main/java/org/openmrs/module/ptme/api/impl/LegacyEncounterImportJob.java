@@ -0,0 +1,395 @@
+package org.openmrs.module.ptme.api.impl;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.Transaction;
+import org.openmrs.api.context.Context;
+import org.openmrs.api.db.hibernate.DbSessionFactory;
+import org.openmrs.module.ptme.api.PreventTransmissionService;
+import org.openmrs.module.ptme.utils.IndicatorResultCache;
+import org.openmrs.module.ptme.utils.LegacyImportProgress;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Imports the visits of the legacy PTME follow-up forms (encounter type 16, forms 14 and 15) into
+ * the follow-up visit tables, outside of the module startup.
+ * <p>
+ * The encounters are read by chunks in the order of their id, through a stateless session. The
+ * visits of a chunk are written in one JDBC batch, in the same transaction as the id of the last
+ * encounter read, kept in ptme_import_checkpoint. An interrupted import starts again after that id.
+ * <p>
+ * A step is only imported when its checkpoint row exists: the row is created by the data migration
+ * changeSet of the step, which only runs on the sites holding legacy encounters and no follow-up yet.
+ */
+public class LegacyEncounterImportJob {
+
+    protected final Log log = LogFactory.getLog(this.getClass());
+
+    private static final List<Step> STEPS = Arrays.asList(
+            new Step("motherFollowupVisits", 15,
+                    "SELECT pmf.mother_followup_id, e.encounter_datetime, " +
+                            "  MAX(IF(o.concept_id = 1409, o.value_numeric, NULL)) gestational_age, " +
+                            "  MAX(IF(o.concept_id = 5576, IF(o.value_coded = 1, 1, IF(o.value_coded = 2, 0, 2)), NULL)) continuing_arv, " +
+                            "  MAX(IF(o.concept_id = 164502, IF(o.value_coded = 164503, 0, IF(o.value_coded = 164504, 1, NULL)), NULL)) continuing_ctx, " +
+                            "  e.location_id, e.creator, e.date_created, e.voided " +
+                            "FROM encounter e " +
+                            "  INNER JOIN ptme_pregnant_patient pt ON pt.patient_id = e.patient_id " +
+                            "  INNER JOIN ptme_mother_followup pmf ON pmf.pregnant_patient_id = pt.pregnant_patient_id " +
+                            "  LEFT JOIN obs o ON o.encounter_id = e.encounter_id AND o.voided = 0 AND o.concept_id IN (1409, 5576, 164502) " +
+                            "WHERE e.encounter_id IN (:encounterIds) " +
+                            "GROUP BY e.encounter_id, pmf.mother_followup_id " +
+                            "ORDER BY e.encounter_id",
+                    "INSERT INTO ptme_mother_followup_visit (mother_followup_id, visit_date, gestational_age, continuing_arv, " +
+                            "continuing_ctx, location_id, creator, date_created, voided, uuid) " +
+                            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)"),
+            new Step("childFollowupVisits", 14,
+                    "SELECT pc.child_id, e.encounter_datetime, " +
+                            "  MAX(IF(o.concept_id = 164691, o.value_numeric, NULL)) age_in_week, " +
+                            "  MAX(IF(o.concept_id = 164690, o.value_numeric, NULL)) age_in_month, " +
+                            "  IFNULL(MAX(IF(o.concept_id = 164694, IF(o.value_coded = 5526, 1, " +
+                            "    IF(o.value_coded IN (164692, 164693, 164052), 0, NULL)), NULL)), 1) eating_type, " +
+                            "  MAX(IF(o.concept_id = 164685, IF(o.value_coded = 1065, 1, IF(o.value_coded = 1066, 0, NULL)), NULL)) modern_contraceptive_method, " +
+                            "  MAX(IF(o.concept_id = 164703, IF(o.value_coded = 1, 1, IF(o.value_coded = 2, 0, NULL)), NULL)) continuing_ctx, " +
+                            "  MAX(IF(o.concept_id = 164704, IF(o.value_coded = 1, 1, IF(o.value_coded = 2, 0, NULL)), NULL)) continuing_inh, " +
+                            "  e.location_id, e.creator, e.date_created, e.voided " +
+                            "FROM encounter e " +
+                            "  INNER JOIN patient_identifier pi ON pi.patient_id = e.patient_id " +
+                            "  INNER JOIN ptme_child pc ON pc.child_followup_number = pi.identifier " +
+                            "  LEFT JOIN obs o ON o.encounter_id = e.encounter_id AND o.voided = 0 " +
+                            "    AND o.concept_id IN (164685, 164690, 164691, 164694, 164703, 164704) " +
+                            "WHERE e.encounter_id IN (:encounterIds) " +
+                            "GROUP BY e.encounter_id, pc.child_id " +
+                            "ORDER BY e.encounter_id",
+                    "INSERT INTO ptme_child_followup_visit (child_id, visit_date, age_in_week, age_in_month, eating_type, " +
+                            "modern_contraceptive_method, continuing_ctx, continuing_inh, location_id, creator, date_created, voided, uuid) " +
+                            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)")
+    );
+
+    private static final String SOURCE_IDS_QUERY = "SELECT encounter_id FROM encounter " +
+            "WHERE encounter_type = 16 AND form_id = :formId AND voided = 0 AND encounter_id > :lastId " +
+            "ORDER BY encounter_id";
+
+    private static final String PENDING_SOURCE_COUNT_QUERY = "SELECT COUNT(*) FROM encounter " +
+            "WHERE encounter_type = 16 AND form_id = :formId AND voided = 0 AND encounter_id > :lastId";
+
+    private DbSessionFactory sessionFactory;
+
+    private IndicatorResultCache indicatorResultCache;
+
+    private int chunkSize = 1000;
+
+    /**
+     * Leaves time to the module context to be fully started before the import
+     */
+    private long initialDelayMillis = 2L * 60L * 1000L;
+
+    private ScheduledExecutorService executor;
+
+    private volatile boolean running = false;
+
+    private volatile boolean completed = false;
+
+    private volatile String currentStep;
+
+    private volatile Integer lastSourceId;
+
+    private volatile long importedRows = 0;
+
+    private volatile long pendingSourceRows = 0;
+
+    private volatile Date startDate;
+
+    private volatile Date lastCheckpointDate;
+
+    private volatile String lastError;
+
+    public void setSessionFactory(DbSessionFactory sessionFactory) {
+        this.sessionFactory = sessionFactory;
+    }
+
+    /**
+     * @param indicatorResultCache cache of the indicator values, invalidated for the periods of the imported visits
+     */
+    public void setIndicatorResultCache(IndicatorResultCache indicatorResultCache) {
+        this.indicatorResultCache = indicatorResultCache;
+    }
+
+    /**
+     * @param chunkSize number of encounters imported in each transaction
+     */
+    public void setChunkSize(int chunkSize) {
+        this.chunkSize = chunkSize;
+    }
+
+    public void setInitialDelayMillis(long initialDelayMillis) {
+        this.initialDelayMillis = initialDelayMillis;
+    }
+
+    /**
+     * Schedules the import in the background, called when the module context is started.
+     * The steps already completed are skipped, so this is a no-op once everything is imported.
+     */
+    public synchronized void start() {
+        schedule(initialDelayMillis);
+    }
+
+    /**
+     * Runs the import again now, from the last checkpoint of each step
+     *
+     * @return false if an import is already running
+     */
+    public synchronized boolean restart() {
+        if (running) {
+            return false;
+        }
+        schedule(0);
+        return true;
+    }
+
+    private void schedule(long delayMillis) {
+        if (executor == null || executor.isShutdown()) {
+            executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "ptme-legacy-import");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        executor.schedule(new Runnable() {
+            @Override
+            public void run() {
+                runImport();
+            }
+        }, delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops the import, called when the module context is closed. The chunk in progress is rolled back.
+     */
+    public synchronized void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    private void runImport() {
+        running = true;
+        startDate = new Date();
+        importedRows = 0;
+        lastError = null;
+        try {
+            boolean allCompleted = true;
+            for (Step step : STEPS) {
+                if (Thread.currentThread().isInterrupted()) {
+                    allCompleted = false;
+                    break;
+                }
+                allCompleted &= importStep(step);
+            }
+            completed = allCompleted;
+            if (importedRows > 0) {
+                rebuildFollowupSummaries();
+                // The summaries read by the indicators were rebuilt for every follow-up
+                if (indicatorResultCache != null) {
+                    indicatorResultCache.clear();
+                }
+            }
+        } catch (Exception e) {
+            log.error("Legacy encounter import stopped at encounter " + lastSourceId + " of step " + currentStep, e);
+            lastError = e.getMessage();
+        } finally {
+            running = false;
+            currentStep = null;
+        }
+    }
+
+    /**
+     * @return true if every encounter of the step is imported, or if the step was not registered on this site
+     */
+    @SuppressWarnings("unchecked")
+    private boolean importStep(Step step) {
+        StatelessSession session = sessionFactory.getHibernateSessionFactory().openStatelessSession();
+        try {
+            Object[] checkpoint = (Object[]) session.createSQLQuery(
+                    "SELECT last_source_id, completed FROM ptme_import_checkpoint WHERE step = :step")
+                    .setParameter("step", step.name)
+                    .uniqueResult();
+            if (checkpoint == null || ((Number) checkpoint[1]).intValue() == 1) {
+                return true;
+            }
+            int lastId = ((Number) checkpoint[0]).intValue();
+
+            currentStep = step.name;
+            lastSourceId = lastId;
+            pendingSourceRows = ((Number) session.createSQLQuery(PENDING_SOURCE_COUNT_QUERY)
+                    .setParameter("formId", step.formId)
+                    .setParameter("lastId", lastId)
+                    .uniqueResult()).longValue();
+            log.info("Legacy encounter import, step " + step.name + " : " + pendingSourceRows + " encounters to read after " + lastId);
+
+            while (!Thread.currentThread().isInterrupted()) {
+                long chunkStart = System.currentTimeMillis();
+                Transaction transaction = session.beginTransaction();
+                try {
+                    List<Number> encounterIds = session.createSQLQuery(SOURCE_IDS_QUERY)
+                            .setParameter("formId", step.formId)
+                            .setParameter("lastId", lastId)
+                            .setMaxResults(chunkSize)
+                            .list();
+                    if (encounterIds.isEmpty()) {
+                        saveCheckpoint(session, step, lastId, 0, true);
+                        transaction.commit();
+                        log.info("Legacy encounter import, step " + step.name + " completed");
+                        return true;
+                    }
+
+                    List<Object[]> rows = session.createSQLQuery(step.sourceQuery)
+                            .setParameterList("encounterIds", encounterIds)
+                            .list();
+                    int written = insertRows(session, step, rows);
+                    lastId = encounterIds.get(encounterIds.size() - 1).intValue();
+                    saveCheckpoint(session, step, lastId, written, false);
+                    transaction.commit();
+                    invalidateIndicatorResults(rows);
+
+                    importedRows += written;
+                    pendingSourceRows = Math.max(0, pendingSourceRows - encounterIds.size());
+                    lastSourceId = lastId;
+                    lastCheckpointDate = new Date();
+                    if (log.isDebugEnabled()) {
+                        log.debug("Legacy encounter import, step " + step.name + " : " + written + " visits written in "
+                                + (System.currentTimeMillis() - chunkStart) + " ms, " + pendingSourceRows + " encounters left");
+                    }
+                } catch (RuntimeException e) {
+                    transaction.rollback();
+                    throw e;
+                }
+            }
+            return false;
+        } finally {
+            session.close();
+        }
+    }
+
+    @SuppressWarnings("deprecation")
+    private int insertRows(StatelessSession session, Step step, List<Object[]> rows) {
+        if (rows.isEmpty()) {
+            return 0;
+        }
+        Connection connection = session.connection();
+        PreparedStatement statement = null;
+        try {
+            statement = connection.prepareStatement(step.insertStatement);
+            for (Object[] row : rows) {
+                for (int i = 0; i < row.length; i++) {
+                    statement.setObject(i + 1, row[i]);
+                }
+                statement.setString(row.length + 1, UUID.randomUUID().toString());
+                statement.addBatch();
+            }
+            statement.executeBatch();
+            return rows.size();
+        } catch (SQLException e) {
+            throw new IllegalStateException("Unable to write the visits of step " + step.name, e);
+        } finally {
+            if (statement != null) {
+                try {
+                    statement.close();
+                } catch (SQLException e) {
+                    log.warn("Unable to close the import statement", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * The visits are written without the service, the values computed for their periods are dropped here
+     */
+    private void invalidateIndicatorResults(List<Object[]> rows) {
+        if (indicatorResultCache == null || rows.isEmpty()) {
+            return;
+        }
+        Date earliestVisitDate = null;
+        for (Object[] row : rows) {
+            Date visitDate = (Date) row[1];
+            if (visitDate == null) {
+                earliestVisitDate = null;
+                break;
+            }
+            if (earliestVisitDate == null || visitDate.before(earliestVisitDate)) {
+                earliestVisitDate = visitDate;
+            }
+        }
+        indicatorResultCache.invalidate(null, earliestVisitDate);
+    }
+
+    private void saveCheckpoint(StatelessSession session, Step step, int lastId, int written, boolean stepCompleted) {
+        session.createSQLQuery("INSERT INTO ptme_import_checkpoint (step, last_source_id, imported_rows, completed, date_changed) " +
+                "VALUES (:step, :lastId, :written, :completed, NOW()) " +
+                "ON DUPLICATE KEY UPDATE last_source_id = VALUES(last_source_id), imported_rows = imported_rows + VALUES(imported_rows), " +
+                "completed = VALUES(completed), date_changed = VALUES(date_changed)")
+                .setParameter("step", step.name)
+                .setParameter("lastId", lastId)
+                .setParameter("written", written)
+                .setParameter("completed", stepCompleted ? 1 : 0)
+                .executeUpdate();
+    }
+
+    private void rebuildFollowupSummaries() {
+        try {
+            Context.openSession();
+            Integer summaries = Context.getService(PreventTransmissionService.class).rebuildFollowupSummaries();
+            log.info("Legacy encounter import : " + summaries + " follow-up summaries rebuilt");
+        } finally {
+            Context.closeSession();
+        }
+    }
+
+    public LegacyImportProgress getProgress() {
+        LegacyImportProgress progress = new LegacyImportProgress();
+        progress.setRunning(running);
+        progress.setCompleted(completed);
+        progress.setCurrentStep(currentStep);
+        progress.setLastSourceId(lastSourceId);
+        progress.setImportedRows(importedRows);
+        progress.setPendingSourceRows(pendingSourceRows);
+        progress.setStartDate(startDate);
+        progress.setLastCheckpointDate(lastCheckpointDate);
+        progress.setLastError(lastError);
+        Date start = startDate;
+        if (start != null) {
+            long elapsedMillis = (lastCheckpointDate != null ? lastCheckpointDate.getTime() : System.currentTimeMillis()) - start.getTime();
+            progress.setRowsPerSecond(elapsedMillis > 0 ? importedRows * 1000.0 / elapsedMillis : 0);
+        }
+        return progress;
+    }
+
+    private static class Step {
+        private final String name;
+        private final int formId;
+        private final String sourceQuery;
+        private final String insertStatement;
+
+        Step(String name, int formId, String sourceQuery, String insertStatement) {
+            this.name = name;
+            this.formId = formId;
+            this.sourceQuery = sourceQuery;
+            this.insertStatement = insertStatement;
+        }
+    }
+}
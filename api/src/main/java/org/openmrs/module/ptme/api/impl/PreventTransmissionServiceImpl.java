@@ -14,18 +14,22 @@
 package org.openmrs.module.ptme.api.impl;
 
 import org.openmrs.Location;
+import org.openmrs.Obs;
 import org.openmrs.Patient;
 import org.openmrs.Relationship;
+import org.openmrs.api.context.Context;
 import org.openmrs.api.impl.BaseOpenmrsService;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.openmrs.module.ptme.*;
 import org.openmrs.module.ptme.api.PreventTransmissionService;
 import org.openmrs.module.ptme.api.db.PreventTransmissionDAO;
+import org.openmrs.module.ptme.forms.RunReportForm;
 import org.openmrs.module.ptme.utils.*;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
-import java.util.Date;
-import java.util.List;
+import java.util.*;
 
 /**
  * It is a default implementation of {@link PreventTransmissionService}.
@@ -33,8 +37,39 @@ import java.util.List;
 public class PreventTransmissionServiceImpl extends BaseOpenmrsService implements PreventTransmissionService {
 	
 	protected final Log log = LogFactory.getLog(this.getClass());
+
+	public static final String GP_REPORT_PARALLELISM = "ptme.reportParallelism";
+
+	public static final String GP_GENERATED_REPORT_RETENTION_DAYS = "ptme.generatedReportRetentionDays";
+
+	private static final int DEFAULT_GENERATED_REPORT_RETENTION_DAYS = 3;
 	
 	private PreventTransmissionDAO dao;
+
+	private ReportGenerationJobManager reportGenerationJobManager;
+
+	private LegacyEncounterImportJob legacyEncounterImportJob;
+
+	private GeneratedReportRetentionSweeper generatedReportRetentionSweeper;
+
+	private IndicatorResultCache indicatorResultCache;
+
+	private static final int MAX_CACHED_METADATA_NAMES = 2000;
+
+	/**
+	 * Names of datasets and indicators by uuid, dropped whenever a definition is changed
+	 */
+	private final Map<String, String> metadataNameCache = new LinkedHashMap<String, String>(256, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+			return size() > MAX_CACHED_METADATA_NAMES;
+		}
+	};
+
+	/**
+	 * Incremented on every clear, names read before a clear are not put back in the cache
+	 */
+	private long metadataNameCacheGeneration;
 	
 	/**
      * @param dao the dao to set
@@ -50,6 +85,67 @@ public class PreventTransmissionServiceImpl extends BaseOpenmrsService implement
 	    return dao;
     }
 
+    /**
+     * @param reportGenerationJobManager the queue of report generations
+     */
+    public void setReportGenerationJobManager(ReportGenerationJobManager reportGenerationJobManager) {
+        this.reportGenerationJobManager = reportGenerationJobManager;
+    }
+
+    /**
+     * @param legacyEncounterImportJob the background import of the legacy follow-up encounters
+     */
+    public void setLegacyEncounterImportJob(LegacyEncounterImportJob legacyEncounterImportJob) {
+        this.legacyEncounterImportJob = legacyEncounterImportJob;
+    }
+
+    /**
+     * @param generatedReportRetentionSweeper the periodic deletion of the expired unsaved reports
+     */
+    public void setGeneratedReportRetentionSweeper(GeneratedReportRetentionSweeper generatedReportRetentionSweeper) {
+        this.generatedReportRetentionSweeper = generatedReportRetentionSweeper;
+    }
+
+    /**
+     * @param indicatorResultCache the cache of indicator values to invalidate on saves
+     */
+    public void setIndicatorResultCache(IndicatorResultCache indicatorResultCache) {
+        this.indicatorResultCache = indicatorResultCache;
+    }
+
+    /**
+     * Drops the cached indicator values of the location that may count the saved data.
+     * A new record only affects the periods ending on or after its earliest date, an updated
+     * or deleted one may have had other dates so every period of the location is dropped.
+     * The values are dropped again once the transaction is committed, so that a report running
+     * in the meantime does not put back values computed on the previous data.
+     */
+    private void invalidateIndicatorResults(Integer savedId, Location location, Date... dates) {
+        if (indicatorResultCache == null) {
+            return;
+        }
+        Date fromDate = null;
+        if (savedId == null && dates != null) {
+            for (Date date : dates) {
+                if (date != null && (fromDate == null || date.before(fromDate))) {
+                    fromDate = date;
+                }
+            }
+        }
+        final Integer locationId = location != null ? location.getLocationId() : null;
+        final Date invalidatedFrom = fromDate;
+        indicatorResultCache.invalidate(locationId, invalidatedFrom);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    indicatorResultCache.invalidate(locationId, invalidatedFrom);
+                }
+            });
+        }
+    }
+
 
     /**
      * Pregnant Patient
@@ -67,16 +163,22 @@ public class PreventTransmissionServiceImpl extends BaseOpenmrsService implement
 
     @Override
     public PregnantPatient savePregnantPatient(PregnantPatient pregnantPatient) {
+        invalidateIndicatorResults(pregnantPatient.getId(), pregnantPatient.getLocation());
         return dao.savePregnantPatient(pregnantPatient);
     }
 
     @Override
     public void deletePregnantPatient(PregnantPatient pregnantPatient) {
+        invalidateIndicatorResults(pregnantPatient.getId(), pregnantPatient.getLocation());
         dao.deletePregnantPatient(pregnantPatient);
     }
 
     @Override
     public PregnantPatient voidPregnantPatient(Integer id) {
+        PregnantPatient pregnantPatient = dao.getPregnantPatientById(id);
+        if (pregnantPatient != null) {
+            invalidateIndicatorResults(pregnantPatient.getId(), pregnantPatient.getLocation());
+        }
         return dao.voidPregnantPatient(id);
     }
 
@@ -111,11 +213,14 @@ public class PreventTransmissionServiceImpl extends BaseOpenmrsService implement
 
     @Override
     public HivService saveHivService(HivService hivService) {
+        invalidateIndicatorResults(hivService.getId(), hivService.getLocation(),
+                hivService.getConsultation() != null ? hivService.getConsultation().getConsultationDate() : null);
         return dao.saveHivService(hivService);
     }
 
     @Override
     public void deleteHivService(HivService hivService) {
+        invalidateIndicatorResults(hivService.getId(), hivService.getLocation());
         dao.deleteHivService(hivService);
     }
 
@@ -135,16 +240,19 @@ public class PreventTransmissionServiceImpl extends BaseOpenmrsService implement
 
     @Override
     public Birth saveBirthConsultation(Birth birth) {
+        invalidateIndicatorResults(birth.getId(), birth.getLocation(), birth.getConsultationDate(), birth.getDeliveryDate());
         return dao.saveBirthConsultation(birth);
     }
 
     @Override
     public Prenatal savePrenatalConsultation(Prenatal prenatal) {
+        invalidateIndicatorResults(prenatal.getId(), prenatal.getLocation(), prenatal.getConsultationDate());
         return dao.savePrenatalConsultation(prenatal);
     }
 
     @Override
     public Postnatal savePostnatalConsultation(Postnatal postnatal) {
+        invalidateIndicatorResults(postnatal.getId(), postnatal.getLocation(), postnatal.getConsultationDate());
         return dao.savePostnatalConsultation(postnatal);
     }
 
@@ -203,6 +311,18 @@ public class PreventTransmissionServiceImpl extends BaseOpenmrsService implement
         return dao.getPostnatalConsultationsByDate(sDate, eDate);
     }
 
+    @Override
+    public List<RegisterConsultationRow> getRegisterConsultations(String register, Date startDate, Date endDate, String search,
+                                                                  Date afterDate, Integer afterConsultationId,
+                                                                  Integer firstResult, Integer maxResults) {
+        return dao.getRegisterConsultations(register, startDate, endDate, search, afterDate, afterConsultationId, firstResult, maxResults);
+    }
+
+    @Override
+    public Long getRegisterConsultationCount(String register, Date startDate, Date endDate, String search) {
+        return dao.getRegisterConsultationCount(register, startDate, endDate, search);
+    }
+
     @Override
     public Birth getBirthConsultation(Integer id) {
         return dao.getBirthConsultation(id);
@@ -235,12 +355,19 @@ public class PreventTransmissionServiceImpl extends BaseOpenmrsService implement
 
     @Override
     public void removeMotherFollowupVisit(MotherFollowupVisit motherFollowupVisit) {
+        invalidateIndicatorResults(motherFollowupVisit.getId(), motherFollowupVisit.getLocation());
+        Integer motherFollowupId = motherFollowupVisit.getMotherFollowup() != null ?
+                motherFollowupVisit.getMotherFollowup().getMotherFollowupId() : null;
         dao.removeMotherFollowupVisit(motherFollowupVisit);
+        dao.refreshMotherFollowupSummary(motherFollowupId);
     }
 
     @Override
     public void removeMotherFollowup(MotherFollowup motherFollowup) {
+        invalidateIndicatorResults(motherFollowup.getId(), motherFollowup.getLocation());
+        Integer motherFollowupId = motherFollowup.getMotherFollowupId();
         dao.removeMotherFollowup(motherFollowup);
+        dao.refreshMotherFollowupSummary(motherFollowupId);
     }
 
     @Override
@@ -255,12 +382,38 @@ public class PreventTransmissionServiceImpl extends BaseOpenmrsService implement
 
     @Override
     public MotherFollowup saveMotherFollowup(MotherFollowup motherFollowup) {
-        return dao.saveMotherFollowup(motherFollowup);
+        invalidateIndicatorResults(motherFollowup.getId(), motherFollowup.getLocation(), motherFollowup.getStartDate(),
+                motherFollowup.getEndDate(), motherFollowup.getSpousalScreeningDate(), motherFollowup.getEstimatedDeliveryDate());
+        MotherFollowup saved = dao.saveMotherFollowup(motherFollowup);
+        dao.refreshMotherFollowupSummary(saved.getMotherFollowupId());
+        return saved;
     }
 
     @Override
     public MotherFollowupVisit saveMotherFollowupVisit(MotherFollowupVisit motherFollowupVisit) {
-        return dao.saveMotherFollowupVisit(motherFollowupVisit);
+        invalidateIndicatorResults(motherFollowupVisit.getId(), motherFollowupVisit.getLocation(), motherFollowupVisit.getVisitDate());
+        MotherFollowupVisit saved = dao.saveMotherFollowupVisit(motherFollowupVisit);
+        if (saved.getMotherFollowup() != null) {
+            dao.refreshMotherFollowupSummary(saved.getMotherFollowup().getMotherFollowupId());
+        }
+        return saved;
+    }
+
+    @Override
+    public Integer voidMotherFollowupVisits(MotherFollowup motherFollowup, String reason) {
+        return setMotherFollowupVisitsVoided(motherFollowup, true, reason);
+    }
+
+    @Override
+    public Integer unvoidMotherFollowupVisits(MotherFollowup motherFollowup) {
+        return setMotherFollowupVisitsVoided(motherFollowup, false, null);
+    }
+
+    private Integer setMotherFollowupVisitsVoided(MotherFollowup motherFollowup, Boolean voided, String reason) {
+        invalidateIndicatorResults(motherFollowup.getId(), motherFollowup.getLocation());
+        Integer rows = dao.voidMotherFollowupVisits(motherFollowup, voided, Context.getAuthenticatedUser(), new Date(), reason);
+        dao.refreshMotherFollowupSummary(motherFollowup.getMotherFollowupId());
+        return rows;
     }
 
     @Override
@@ -310,7 +463,11 @@ public class PreventTransmissionServiceImpl extends BaseOpenmrsService implement
 
     @Override
     public Child saveChild(Child child) {
-        return dao.saveChild(child);
+        invalidateIndicatorResults(child.getId(), child.getLocation(), child.getBirthDate());
+        Child saved = dao.saveChild(child);
+        // The birth date drives the first visit and PCR due dates of the child
+        dao.refreshChildFollowupSummary(saved.getChildId());
+        return saved;
     }
 
     @Override
@@ -325,12 +482,43 @@ public class PreventTransmissionServiceImpl extends BaseOpenmrsService implement
 
     @Override
     public ChildFollowup saveChildFollowup(ChildFollowup childFollowup) {
-        return dao.saveChildFollowup(childFollowup);
+        invalidateIndicatorResults(childFollowup.getId(), childFollowup.getLocation(),
+                childFollowup.getChild() != null ? childFollowup.getChild().getBirthDate() : null,
+                childFollowup.getArvProphylaxisGivenDate(), childFollowup.getPcr1SamplingDate(),
+                childFollowup.getPcr2SamplingDate(), childFollowup.getPcr3SamplingDate(),
+                childFollowup.getCtxInitiationDate(), childFollowup.getInhInitiationDate(),
+                childFollowup.getHivSerology1Date(), childFollowup.getHivSerology2Date(),
+                childFollowup.getFollowupResultDate());
+        ChildFollowup saved = dao.saveChildFollowup(childFollowup);
+        dao.refreshChildFollowupSummary(saved.getChildFollowupId());
+        return saved;
     }
 
     @Override
     public ChildFollowupVisit saveChildFollowupVisit(ChildFollowupVisit childFollowupVisit) {
-        return dao.saveChildFollowupVisit(childFollowupVisit);
+        invalidateIndicatorResults(childFollowupVisit.getId(), childFollowupVisit.getLocation(), childFollowupVisit.getVisitDate());
+        ChildFollowupVisit saved = dao.saveChildFollowupVisit(childFollowupVisit);
+        if (saved.getChild() != null) {
+            dao.refreshChildFollowupSummary(saved.getChild().getChildId());
+        }
+        return saved;
+    }
+
+    @Override
+    public Integer voidChildFollowupVisits(Child child, String reason) {
+        return setChildFollowupVisitsVoided(child, true, reason);
+    }
+
+    @Override
+    public Integer unvoidChildFollowupVisits(Child child) {
+        return setChildFollowupVisitsVoided(child, false, null);
+    }
+
+    private Integer setChildFollowupVisitsVoided(Child child, Boolean voided, String reason) {
+        invalidateIndicatorResults(child.getId(), child.getLocation());
+        Integer rows = dao.voidChildFollowupVisits(child, voided, Context.getAuthenticatedUser(), new Date(), reason);
+        dao.refreshChildFollowupSummary(child.getChildId());
+        return rows;
     }
 
     @Override
@@ -343,9 +531,17 @@ public class PreventTransmissionServiceImpl extends BaseOpenmrsService implement
         return dao.getChildFollowupVisitByChild(childId);
     }
 
+    @Override
+    public List<ChildFollowupVisitRow> getChildFollowupVisitRows(Integer childId) {
+        return dao.getChildFollowupVisitRows(childId);
+    }
+
     @Override
     public void deleteChildFollowupVisit(ChildFollowupVisit childFollowupVisit) {
+        invalidateIndicatorResults(childFollowupVisit.getId(), childFollowupVisit.getLocation());
+        Integer childFollowupId = childFollowupVisit.getChild() != null ? childFollowupVisit.getChild().getChildId() : null;
         dao.deleteChildFollowupVisit(childFollowupVisit);
+        dao.refreshChildFollowupSummary(childFollowupId);
     }
 
     @Override
@@ -355,7 +551,15 @@ public class PreventTransmissionServiceImpl extends BaseOpenmrsService implement
 
     @Override
     public void deleteChildFollowup(ChildFollowup childFollowup) {
+        invalidateIndicatorResults(childFollowup.getId(), childFollowup.getLocation());
+        Integer childFollowupId = childFollowup.getChildFollowupId();
         dao.deleteChildFollowup(childFollowup);
+        dao.refreshChildFollowupSummary(childFollowupId);
+    }
+
+    @Override
+    public Integer rebuildFollowupSummaries() {
+        return dao.rebuildFollowupSummaries();
     }
 
     @Override
@@ -363,6 +567,11 @@ public class PreventTransmissionServiceImpl extends BaseOpenmrsService implement
         return dao.getMotherFollowupVisitByPatientAndFollowup(motherFollowup);
     }
 
+    @Override
+    public List<MotherFollowupVisitRow> getMotherFollowupVisitRows(Integer motherFollowupId, Boolean latestFirst) {
+        return dao.getMotherFollowupVisitRows(motherFollowupId, latestFirst);
+    }
+
     @Override
     public Relationship getChildRelationship(Patient mother, Patient patient) {
         return dao.getChildRelationship(mother, patient);
@@ -413,6 +622,21 @@ public class PreventTransmissionServiceImpl extends BaseOpenmrsService implement
         return dao.isDeclaredNegative(patient);
     }
 
+    @Override
+    public Map<Integer, PatientVitalStatus> getPatientVitalStatuses(Collection<Integer> patientIds) {
+        return dao.getPatientVitalStatuses(patientIds);
+    }
+
+    @Override
+    public Map<Integer, String> getPersonContacts(Collection<Integer> personIds) {
+        return dao.getPersonContacts(personIds);
+    }
+
+    @Override
+    public Map<Integer, Map<Integer, Obs>> getLatestObs(Collection<Integer> personIds, Collection<Integer> conceptIds) {
+        return dao.getLatestObs(personIds, conceptIds);
+    }
+
     @Override
     public List<ReportingIndicator> getAllIndicators() {
         return dao.getAllIndicators();
@@ -430,16 +654,19 @@ public class PreventTransmissionServiceImpl extends BaseOpenmrsService implement
 
     @Override
     public ReportingIndicator saveReportingIndicator(ReportingIndicator indicator) {
+        clearMetadataNameCache();
         return dao.saveReportingIndicator(indicator);
     }
 
     @Override
     public Boolean removeIndicator(Integer indicatorId) {
+        clearMetadataNameCache();
         return dao.removeIndicator(indicatorId);
     }
 
     @Override
     public ReportingIndicator voidIndicator(Integer indicatorId) {
+        clearMetadataNameCache();
         return dao.voidIndicator(indicatorId);
     }
 
@@ -465,16 +692,19 @@ public class PreventTransmissionServiceImpl extends BaseOpenmrsService implement
 
     @Override
     public ReportingDataset saveReportingDataset(ReportingDataset dataset) {
+        clearMetadataNameCache();
         return dao.saveReportingDataset(dataset);
     }
 
     @Override
     public Boolean removeDataset(Integer datasetId) {
+        clearMetadataNameCache();
         return dao.removeDataset(datasetId);
     }
 
     @Override
     public ReportingDataset voidDataset(Integer datasetId) {
+        clearMetadataNameCache();
         return dao.voidDataset(datasetId);
     }
 
@@ -576,7 +806,75 @@ public class PreventTransmissionServiceImpl extends BaseOpenmrsService implement
 
     @Override
     public String getGeneratedReportXmlString(Date startDate, Date endDate, Integer reportId, String location) {
-        return dao.getGeneratedReportXmlString(startDate, endDate, reportId, location);
+        return dao.getGeneratedReportXmlString(startDate, endDate, reportId, location, getReportParallelism());
+    }
+
+    @Override
+    public String getGeneratedReportXmlString(Date startDate, Date endDate, Integer reportId, String location,
+                                              IndicatorProgressListener listener) {
+        return dao.getGeneratedReportXmlString(startDate, endDate, reportId, location, getReportParallelism(), listener);
+    }
+
+    @Override
+    public byte[] getGeneratedReportContent(Date startDate, Date endDate, Integer reportId, String location,
+                                            IndicatorProgressListener listener) {
+        return ReportIndicatorValuesCodec.encode(dao.getGeneratedReportValues(startDate, endDate, reportId, location,
+                getReportParallelism(), listener));
+    }
+
+    @Override
+    public ReportGenerationJob submitReportGeneration(RunReportForm runReportForm) {
+        return reportGenerationJobManager.submit(runReportForm);
+    }
+
+    @Override
+    public ReportGenerationJob getReportGenerationJob(String jobId) {
+        return reportGenerationJobManager.getJob(jobId);
+    }
+
+    /**
+     * Number of indicators of a single report allowed to run at the same time
+     */
+    private Integer getReportParallelism() {
+        String value = Context.getAdministrationService().getGlobalProperty(GP_REPORT_PARALLELISM);
+        try {
+            return value != null ? Integer.valueOf(value.trim()) : 1;
+        } catch (NumberFormatException e) {
+            log.warn("Invalid value for " + GP_REPORT_PARALLELISM + " : " + value);
+            return 1;
+        }
+    }
+
+    private int getGeneratedReportRetentionDays() {
+        String value = Context.getAdministrationService().getGlobalProperty(GP_GENERATED_REPORT_RETENTION_DAYS);
+        try {
+            return value != null ? Integer.valueOf(value.trim()) : DEFAULT_GENERATED_REPORT_RETENTION_DAYS;
+        } catch (NumberFormatException e) {
+            log.warn("Invalid value for " + GP_GENERATED_REPORT_RETENTION_DAYS + " : " + value);
+            return DEFAULT_GENERATED_REPORT_RETENTION_DAYS;
+        }
+    }
+
+    @Override
+    public Integer purgeUnsavedGeneratedReports() {
+        Calendar limit = Calendar.getInstance();
+        limit.add(Calendar.DAY_OF_MONTH, -getGeneratedReportRetentionDays());
+        return dao.purgeUnsavedGeneratedReports(limit.getTime());
+    }
+
+    @Override
+    public Boolean restartLegacyEncounterImport() {
+        return legacyEncounterImportJob.restart();
+    }
+
+    @Override
+    public ReportRetentionStatistics getGeneratedReportRetentionStatistics() {
+        return generatedReportRetentionSweeper.getStatistics();
+    }
+
+    @Override
+    public LegacyImportProgress getLegacyEncounterImportProgress() {
+        return legacyEncounterImportJob.getProgress();
     }
 
     @Override
@@ -589,13 +887,88 @@ public class PreventTransmissionServiceImpl extends BaseOpenmrsService implement
         return dao.getAllGeneratedReport(includeVoided);
     }
 
+    @Override
+    public List<ReportGenerationSummary> getGeneratedReportSummaries(Boolean includeVoided, Integer firstResult, Integer maxResults) {
+        return dao.getGeneratedReportSummaries(includeVoided, firstResult, maxResults);
+    }
+
+    @Override
+    public Long getGeneratedReportCount(Boolean includeVoided) {
+        return dao.getGeneratedReportCount(includeVoided);
+    }
+
     @Override
     public ReportingDataset getDatasetByUuid(String uuid) {
         return dao.getDatasetByUuid(uuid);
     }
 
+    @Override
+    public Map<String, String> getReportMetadataNames(ReportIndicatorValues reportIndicatorValues) {
+        Map<String, String> names = new HashMap<String, String>();
+        Set<String> missingDatasets = new HashSet<String>();
+        Set<String> missingIndicators = new HashSet<String>();
+        long generation;
+
+        synchronized (metadataNameCache) {
+            generation = metadataNameCacheGeneration;
+            for (ReportDataSetIndicatorRun dataSetIndicatorRun : reportIndicatorValues.getReportDataSetIndicatorRuns()) {
+                collectName(dataSetIndicatorRun.getDataSetUuid(), names, missingDatasets);
+                if (dataSetIndicatorRun.getReportRunIndicatorValues() != null) {
+                    for (ReportRunIndicatorValue indicatorValue : dataSetIndicatorRun.getReportRunIndicatorValues()) {
+                        collectName(indicatorValue.getIndicatorUuid(), names, missingIndicators);
+                    }
+                }
+            }
+        }
+
+        Map<String, String> loadedNames = new HashMap<String, String>();
+        loadedNames.putAll(dao.getDatasetNamesByUuids(missingDatasets));
+        loadedNames.putAll(dao.getIndicatorNamesByUuids(missingIndicators));
+
+        synchronized (metadataNameCache) {
+            if (generation == metadataNameCacheGeneration) {
+                metadataNameCache.putAll(loadedNames);
+            }
+        }
+        names.putAll(loadedNames);
+        return names;
+    }
+
+    private void collectName(String uuid, Map<String, String> names, Set<String> missing) {
+        String name = metadataNameCache.get(uuid);
+        if (name != null) {
+            names.put(uuid, name);
+        } else if (uuid != null) {
+            missing.add(uuid);
+        }
+    }
+
+    /**
+     * Clears the names now and again once the transaction is committed, so that names read by a
+     * concurrent request before the commit do not stay in the cache
+     */
+    private void clearMetadataNameCache() {
+        doClearMetadataNameCache();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    doClearMetadataNameCache();
+                }
+            });
+        }
+    }
+
+    private void doClearMetadataNameCache() {
+        synchronized (metadataNameCache) {
+            metadataNameCache.clear();
+            metadataNameCacheGeneration++;
+        }
+    }
+
     @Override
     public Boolean removeGeneratedReport(Integer delId) {
+        ReportIndicatorValuesReader.evict(delId);
         return dao.removeGeneratedReport(delId);
     }
 
@@ -604,6 +977,11 @@ public class PreventTransmissionServiceImpl extends BaseOpenmrsService implement
         return dao.getLocationByName(name);
     }
 
+    @Override
+    public MetadataCacheStatistics getMetadataCacheStatistics() {
+        return dao.getMetadataCacheStatistics();
+    }
+
     @Override
     public ReportingIndicator getIndicatorByName(String name) {
         return dao.getIndicatorByName(name);
@@ -636,6 +1014,7 @@ public class PreventTransmissionServiceImpl extends BaseOpenmrsService implement
 
     @Override
     public void removePregnantPatient(PregnantPatient pregnantPatient) {
+        invalidateIndicatorResults(pregnantPatient.getId(), pregnantPatient.getLocation());
         dao.removePregnantPatient(pregnantPatient);
     }
 
@@ -686,7 +1065,10 @@ public class PreventTransmissionServiceImpl extends BaseOpenmrsService implement
 
     @Override
     public void removeChild(Child child) {
+        invalidateIndicatorResults(child.getId(), child.getLocation());
+        Integer childId = child.getChildId();
         dao.removeChild(child);
+        dao.refreshChildFollowupSummary(childId);
     }
 
 }
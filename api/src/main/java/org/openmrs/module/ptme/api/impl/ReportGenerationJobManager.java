@@ -0,0 +1,173 @@
+package org.openmrs.module.ptme.api.impl;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.openmrs.api.context.Context;
+import org.openmrs.api.context.UserContext;
+import org.openmrs.module.ptme.ReportingReportGeneration;
+import org.openmrs.module.ptme.api.PreventTransmissionService;
+import org.openmrs.module.ptme.forms.RunReportForm;
+import org.openmrs.module.ptme.utils.ReportGenerationJob;
+
+import java.util.Date;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Queue of report generations. A submission returns at once with a job whose progress
+ * can be followed, the generated report is saved by the job when the run is over.
+ * Identical submissions (same report, location and period) share the running job.
+ */
+public class ReportGenerationJobManager {
+
+    protected final Log log = LogFactory.getLog(this.getClass());
+
+    private int maxConcurrentJobs = 2;
+
+    /**
+     * Time during which a finished job can still be queried
+     */
+    private long finishedJobRetentionMillis = 60L * 60L * 1000L;
+
+    private final Map<String, ReportGenerationJob> jobs = new ConcurrentHashMap<String, ReportGenerationJob>();
+
+    private final Map<String, ReportGenerationJob> activeJobs = new ConcurrentHashMap<String, ReportGenerationJob>();
+
+    private ExecutorService executor;
+
+    /**
+     * @param maxConcurrentJobs the number of reports generated at the same time
+     */
+    public void setMaxConcurrentJobs(int maxConcurrentJobs) {
+        this.maxConcurrentJobs = maxConcurrentJobs;
+    }
+
+    public void setFinishedJobRetentionMillis(long finishedJobRetentionMillis) {
+        this.finishedJobRetentionMillis = finishedJobRetentionMillis;
+    }
+
+    private synchronized ExecutorService getExecutor() {
+        if (executor == null || executor.isShutdown()) {
+            final AtomicInteger threadNumber = new AtomicInteger(1);
+            executor = Executors.newFixedThreadPool(maxConcurrentJobs, new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "ptme-report-job-" + threadNumber.getAndIncrement());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return executor;
+    }
+
+    /**
+     * Stops the job threads, called when the module context is closed
+     */
+    public synchronized void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    /**
+     * Queues the generation described by the form. If the same report is already being generated
+     * for the same location and period, the job in progress is returned instead.
+     */
+    public synchronized ReportGenerationJob submit(RunReportForm runReportForm) {
+        purgeFinishedJobs();
+
+        String jobKey = ReportGenerationJob.buildJobKey(runReportForm.getReportId(), runReportForm.getReportLocation(),
+                runReportForm.getReportPeriodStartDate(), runReportForm.getReportPeriodEndDate());
+
+        ReportGenerationJob activeJob = activeJobs.get(jobKey);
+        if (activeJob != null && !activeJob.isFinished()) {
+            return activeJob;
+        }
+
+        final ReportGenerationJob job = new ReportGenerationJob(UUID.randomUUID().toString(), jobKey);
+        job.setReportId(runReportForm.getReportId());
+        job.setReportLocation(runReportForm.getReportLocation());
+        job.setReportPeriodStartDate(runReportForm.getReportPeriodStartDate());
+        job.setReportPeriodEndDate(runReportForm.getReportPeriodEndDate());
+        job.setName(runReportForm.getName());
+
+        jobs.put(job.getJobId(), job);
+        activeJobs.put(jobKey, job);
+
+        getExecutor().submit(new JobRunner(job, runReportForm, Context.getUserContext()));
+
+        return job;
+    }
+
+    public ReportGenerationJob getJob(String jobId) {
+        if (jobId == null) {
+            return null;
+        }
+        return jobs.get(jobId);
+    }
+
+    private void purgeFinishedJobs() {
+        long limit = new Date().getTime() - finishedJobRetentionMillis;
+        Iterator<ReportGenerationJob> iterator = jobs.values().iterator();
+        while (iterator.hasNext()) {
+            ReportGenerationJob job = iterator.next();
+            if (job.isFinished() && job.getEndDate() != null && job.getEndDate().getTime() < limit) {
+                iterator.remove();
+            }
+        }
+    }
+
+    private class JobRunner implements Runnable {
+
+        private final ReportGenerationJob job;
+        private final RunReportForm runReportForm;
+        private final UserContext userContext;
+
+        JobRunner(ReportGenerationJob job, RunReportForm runReportForm, UserContext userContext) {
+            this.job = job;
+            this.runReportForm = runReportForm;
+            this.userContext = userContext;
+        }
+
+        @Override
+        public void run() {
+            try {
+                Context.openSession();
+                // The job runs on behalf of the user who submitted it
+                Context.setUserContext(userContext);
+
+                PreventTransmissionService service = Context.getService(PreventTransmissionService.class);
+
+                byte[] generatedReportContent = service.getGeneratedReportContent(runReportForm.getReportPeriodStartDate(),
+                        runReportForm.getReportPeriodEndDate(), runReportForm.getReportId(), runReportForm.getReportLocation(), job);
+
+                ReportingReportGeneration reportingReportGeneration;
+                if (runReportForm.getGenerationId() != null) {
+                    reportingReportGeneration = runReportForm.setGeneratedReport(service.getGeneratedReportById(runReportForm.getGenerationId()));
+                } else {
+                    reportingReportGeneration = runReportForm.setGeneratedReport(new ReportingReportGeneration());
+                }
+                reportingReportGeneration.setContentGenerated(generatedReportContent);
+
+                reportingReportGeneration = service.saveGenerationReport(reportingReportGeneration);
+                job.markCompleted(reportingReportGeneration.getGenerationId());
+            } catch (Exception e) {
+                log.error("Report generation " + job.getJobId() + " failed", e);
+                job.markFailed(e.getMessage());
+            } finally {
+                activeJobs.remove(job.getJobKey(), job);
+                // The worker thread is pooled, the next job must not inherit this user
+                Context.clearUserContext();
+                Context.closeSession();
+            }
+        }
+    }
+}
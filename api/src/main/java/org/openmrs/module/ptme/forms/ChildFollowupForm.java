@@ -7,7 +7,7 @@ import org.openmrs.module.ptme.Child;
 import org.openmrs.module.ptme.ChildFollowup;
 import org.openmrs.module.ptme.ChildFollowupVisit;
 import org.openmrs.module.ptme.api.PreventTransmissionService;
-import org.openmrs.module.ptme.utils.UsefullFunction;
+import org.openmrs.module.ptme.utils.PtmeDateUtils;
 
 import java.util.Date;
 
@@ -491,16 +491,16 @@ public class ChildFollowupForm {
 
         if (childFollowup.getCreator() == null){
             childFollowup.setCreator(Context.getAuthenticatedUser());
-            childFollowup.setDateCreated(UsefullFunction.formatDateToddMMyyyyhms(new Date()));
+            childFollowup.setDateCreated(PtmeDateUtils.now());
         }
 
         if (this.getChildId() != null) {
             childFollowup.setChangedBy(Context.getAuthenticatedUser());
-            childFollowup.setDateChanged(UsefullFunction.formatDateToddMMyyyyhms(new Date()));
+            childFollowup.setDateChanged(PtmeDateUtils.now());
         }
         if(childFollowup.getVoided()) {
             childFollowup.setVoidedBy(Context.getAuthenticatedUser());
-            childFollowup.setDateVoided(UsefullFunction.formatDateToddMMyyyyhms(new Date()));
+            childFollowup.setDateVoided(PtmeDateUtils.now());
         }
         if(childFollowup.getLocation() == null) {
             childFollowup.setLocation(getChosenLocation(null));
@@ -534,15 +534,15 @@ public class ChildFollowupForm {
 
         if (childFollowupVisit.getCreator() == null){
             childFollowupVisit.setCreator(Context.getAuthenticatedUser());
-            childFollowupVisit.setDateCreated(UsefullFunction.formatDateToddMMyyyyhms(new Date()));
+            childFollowupVisit.setDateCreated(PtmeDateUtils.now());
         }
         if (this.getChildId() != null) {
             childFollowupVisit.setChangedBy(Context.getAuthenticatedUser());
-            childFollowupVisit.setDateChanged(UsefullFunction.formatDateToddMMyyyyhms(new Date()));
+            childFollowupVisit.setDateChanged(PtmeDateUtils.now());
         }
         if(childFollowupVisit.getVoided()) {
             childFollowupVisit.setVoidedBy(Context.getAuthenticatedUser());
-            childFollowupVisit.setDateVoided(UsefullFunction.formatDateToddMMyyyyhms(new Date()));
+            childFollowupVisit.setDateVoided(PtmeDateUtils.now());
         }
         if(childFollowupVisit.getLocation() == null) {
             childFollowupVisit.setLocation(getChosenLocation(null));
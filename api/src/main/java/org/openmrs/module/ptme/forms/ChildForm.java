@@ -5,7 +5,7 @@ import org.openmrs.Patient;
 import org.openmrs.api.context.Context;
 import org.openmrs.module.ptme.Child;
 import org.openmrs.module.ptme.api.PreventTransmissionService;
-import org.openmrs.module.ptme.utils.UsefullFunction;
+import org.openmrs.module.ptme.utils.PtmeDateUtils;
 
 import java.util.Date;
 
@@ -144,15 +144,15 @@ public class ChildForm {
 
         if (child.getCreator() == null){
             child.setCreator(Context.getAuthenticatedUser());
-            child.setDateCreated(UsefullFunction.formatDateToddMMyyyyhms(new Date()));
+            child.setDateCreated(PtmeDateUtils.now());
         }
         if (this.getChildId() != null) {
             child.setChangedBy(Context.getAuthenticatedUser());
-            child.setDateChanged(UsefullFunction.formatDateToddMMyyyyhms(new Date()));
+            child.setDateChanged(PtmeDateUtils.now());
         }
         if(child.getVoided()) {
             child.setVoidedBy(Context.getAuthenticatedUser());
-            child.setDateVoided(UsefullFunction.formatDateToddMMyyyyhms(new Date()));
+            child.setDateVoided(PtmeDateUtils.now());
         }
         if(child.getLocation() == null) {
             child.setLocation(getChosenLocation(null));
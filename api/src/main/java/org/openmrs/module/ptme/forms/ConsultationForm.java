@@ -5,7 +5,7 @@ import org.openmrs.Patient;
 import org.openmrs.api.context.Context;
 import org.openmrs.module.ptme.*;
 import org.openmrs.module.ptme.api.PreventTransmissionService;
-import org.openmrs.module.ptme.utils.UsefullFunction;
+import org.openmrs.module.ptme.utils.PtmeDateUtils;
 
 import java.util.Date;
 import java.util.UUID;
@@ -330,13 +330,13 @@ public class ConsultationForm {
         }
         if(pregnantPatient.getCreator() == null) {
             pregnantPatient.setCreator(Context.getAuthenticatedUser());
-            pregnantPatient.setDateCreated(UsefullFunction.formatDateToddMMyyyy(new Date()));
+            pregnantPatient.setDateCreated(PtmeDateUtils.today());
         }
         if(pregnantPatient.getVoided() == null) {
             pregnantPatient.setVoided(false);
         } else if(pregnantPatient.getVoided()) {
             pregnantPatient.setVoidedBy(Context.getAuthenticatedUser());
-            pregnantPatient.setDateVoided(UsefullFunction.formatDateToddMMyyyy(new Date()));
+            pregnantPatient.setDateVoided(PtmeDateUtils.today());
         }
         if (pregnantPatient.getUuid().isEmpty()) {
             pregnantPatient.setUuid(UUID.randomUUID().toString());
@@ -374,14 +374,14 @@ public class ConsultationForm {
         }
         if(hivService.getCreator() == null) {
             hivService.setCreator(Context.getAuthenticatedUser());
-            hivService.setDateCreated(UsefullFunction.formatDateToddMMyyyy(new Date()));
+            hivService.setDateCreated(PtmeDateUtils.today());
         }
         if(hivService.getVoided() == null) {
 
             hivService.setVoided(false);
         } else if(hivService.getVoided()) {
 
-            hivService.setDateVoided(UsefullFunction.formatDateToddMMyyyy(new Date()));
+            hivService.setDateVoided(PtmeDateUtils.today());
             hivService.setVoidedBy(Context.getAuthenticatedUser());
         }
 
@@ -422,11 +422,11 @@ public class ConsultationForm {
 //        consultation.setHivService(this.getHivService());
 //        consultation.setPregnantPatient(this.getPregnantPatient());
         if (consultation.getConsultationId() != null) {
-            consultation.setDateChanged(UsefullFunction.formatDateToddMMyyyyhms(new Date()));
+            consultation.setDateChanged(PtmeDateUtils.now());
             consultation.setChangedBy(Context.getAuthenticatedUser());
         } else {
             consultation.setCreator(Context.getAuthenticatedUser());
-            consultation.setDateCreated(UsefullFunction.formatDateToddMMyyyyhms(new Date()));
+            consultation.setDateCreated(PtmeDateUtils.now());
         }
         if (consultation.getLocation() == null){
             consultation.setLocation(getChosenLocation(null));
@@ -445,11 +445,11 @@ public class ConsultationForm {
         consultation.setConsultationId(this.getConsultationId());
         consultation.setConsultationDate(this.getConsultationDate());
         if (consultation.getConsultationId() != null) {
-            consultation.setDateChanged(UsefullFunction.formatDateToddMMyyyyhms(new Date()));
+            consultation.setDateChanged(PtmeDateUtils.now());
             consultation.setChangedBy(Context.getAuthenticatedUser());
         } else {
             consultation.setCreator(Context.getAuthenticatedUser());
-            consultation.setDateCreated(UsefullFunction.formatDateToddMMyyyyhms(new Date()));
+            consultation.setDateCreated(PtmeDateUtils.now());
         }
         if (consultation.getLocation() == null){
             consultation.setLocation(getChosenLocation(null));
@@ -477,11 +477,11 @@ public class ConsultationForm {
         consultation.setDeliveryDate(this.getDeliveryDate());
 
         if (consultation.getConsultationId() != null) {
-            consultation.setDateChanged(UsefullFunction.formatDateToddMMyyyyhms(new Date()));
+            consultation.setDateChanged(PtmeDateUtils.now());
             consultation.setChangedBy(Context.getAuthenticatedUser());
         } else {
             consultation.setCreator(Context.getAuthenticatedUser());
-            consultation.setDateCreated(UsefullFunction.formatDateToddMMyyyyhms(new Date()));
+            consultation.setDateCreated(PtmeDateUtils.now());
         }
         if (consultation.getLocation() == null){
             consultation.setLocation(getChosenLocation(null));
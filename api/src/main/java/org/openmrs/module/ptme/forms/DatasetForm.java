@@ -5,9 +5,9 @@ import org.openmrs.module.ptme.ReportingDataset;
 import org.openmrs.module.ptme.ReportingDatasetIndicator;
 import org.openmrs.module.ptme.ReportingIndicator;
 import org.openmrs.module.ptme.api.PreventTransmissionService;
+import org.openmrs.module.ptme.utils.PtmeDateUtils;
 import org.openmrs.module.ptme.utils.UsefullFunction;
 
-import java.util.Date;
 import java.util.HashSet;
 import java.util.Set;
 
@@ -91,16 +91,16 @@ public class DatasetForm {
 
         if (reportingDataset.getCreator() == null){
             reportingDataset.setCreator(Context.getAuthenticatedUser());
-            reportingDataset.setDateCreated(UsefullFunction.formatDateToddMMyyyyhms(new Date()));
+            reportingDataset.setDateCreated(PtmeDateUtils.now());
         }
         if (this.getDatasetId() != null) {
             reportingDataset.setChangedBy(Context.getAuthenticatedUser());
-            reportingDataset.setDateChanged(UsefullFunction.formatDateToddMMyyyyhms(new Date()));
+            reportingDataset.setDateChanged(PtmeDateUtils.now());
         }
 
         if(reportingDataset.getVoided()) {
             reportingDataset.setVoidedBy(Context.getAuthenticatedUser());
-            reportingDataset.setDateVoided(UsefullFunction.formatDateToddMMyyyyhms(new Date()));
+            reportingDataset.setDateVoided(PtmeDateUtils.now());
         }
         if (this.getSelectedIndicatorList().size() != 0) {
 //            Set<ReportingDatasetIndicator> listReportingDatasetIndicators;
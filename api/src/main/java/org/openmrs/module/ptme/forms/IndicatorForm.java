@@ -2,10 +2,9 @@ package org.openmrs.module.ptme.forms;
 
 import org.openmrs.api.context.Context;
 import org.openmrs.module.ptme.ReportingIndicator;
+import org.openmrs.module.ptme.utils.PtmeDateUtils;
 import org.openmrs.module.ptme.utils.UsefullFunction;
 
-import java.util.Date;
-
 public class IndicatorForm {
     private String mode;
     private Integer indicatorId;
@@ -86,15 +85,15 @@ public class IndicatorForm {
 
         if (indicator.getCreator() == null){
             indicator.setCreator(Context.getAuthenticatedUser());
-            indicator.setDateCreated(UsefullFunction.formatDateToddMMyyyyhms(new Date()));
+            indicator.setDateCreated(PtmeDateUtils.now());
         }
         if (this.getIndicatorId() != null) {
             indicator.setChangedBy(Context.getAuthenticatedUser());
-            indicator.setDateChanged(UsefullFunction.formatDateToddMMyyyyhms(new Date()));
+            indicator.setDateChanged(PtmeDateUtils.now());
         }
         if(indicator.getVoided()) {
             indicator.setVoidedBy(Context.getAuthenticatedUser());
-            indicator.setDateVoided(UsefullFunction.formatDateToddMMyyyyhms(new Date()));
+            indicator.setDateVoided(PtmeDateUtils.now());
         }
 
         return indicator;
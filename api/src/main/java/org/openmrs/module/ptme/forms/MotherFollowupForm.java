@@ -5,7 +5,7 @@ import org.openmrs.api.context.Context;
 import org.openmrs.module.ptme.MotherFollowup;
 import org.openmrs.module.ptme.MotherFollowupVisit;
 import org.openmrs.module.ptme.api.PreventTransmissionService;
-import org.openmrs.module.ptme.utils.UsefullFunction;
+import org.openmrs.module.ptme.utils.PtmeDateUtils;
 
 import java.util.Date;
 
@@ -179,11 +179,11 @@ public class MotherFollowupForm {
         motherFollowup.setSpousalScreeningDate(this.getSpousalScreeningDate());
         if(motherFollowup.getCreator() == null) {
             motherFollowup.setCreator(Context.getAuthenticatedUser());
-            motherFollowup.setDateCreated(UsefullFunction.formatDateToddMMyyyyhms(new Date()));
+            motherFollowup.setDateCreated(PtmeDateUtils.now());
         }
         if (motherFollowup.getMotherFollowupId() != null) {
             motherFollowup.setChangedBy(Context.getAuthenticatedUser());
-            motherFollowup.setDateChanged(UsefullFunction.formatDateToddMMyyyyhms(new Date()));
+            motherFollowup.setDateChanged(PtmeDateUtils.now());
         }
         if (motherFollowup.getLocation() == null) {
             motherFollowup.setLocation(getChosenLocation(null));
@@ -204,11 +204,11 @@ public class MotherFollowupForm {
 
         if(motherFollowupVisit.getCreator() == null) {
             motherFollowupVisit.setCreator(Context.getAuthenticatedUser());
-            motherFollowupVisit.setDateCreated(UsefullFunction.formatDateToddMMyyyyhms(new Date()));
+            motherFollowupVisit.setDateCreated(PtmeDateUtils.now());
         }
         if (motherFollowupVisit.getMotherFollowupVisitId() != null) {
             motherFollowupVisit.setChangedBy(Context.getAuthenticatedUser());
-            motherFollowupVisit.setDateChanged(UsefullFunction.formatDateToddMMyyyyhms(new Date()));
+            motherFollowupVisit.setDateChanged(PtmeDateUtils.now());
         }
         if (motherFollowupVisit.getLocation() == null) {
             motherFollowupVisit.setLocation(getChosenLocation(null));
@@ -4,9 +4,7 @@ import org.openmrs.Location;
 import org.openmrs.Patient;
 import org.openmrs.api.context.Context;
 import org.openmrs.module.ptme.PregnantPatient;
-import org.openmrs.module.ptme.utils.UsefullFunction;
-
-import java.util.Date;
+import org.openmrs.module.ptme.utils.PtmeDateUtils;
 
 public class MotherFollowupPatientForm {
 
@@ -105,15 +103,15 @@ public class MotherFollowupPatientForm {
         pregnantPatient.setAge(patient.getAge());
         if(pregnantPatient.getCreator() == null) {
             pregnantPatient.setCreator(Context.getAuthenticatedUser());
-            pregnantPatient.setDateCreated(UsefullFunction.formatDateToddMMyyyyhms(new Date()));
+            pregnantPatient.setDateCreated(PtmeDateUtils.now());
         }
         if(pregnantPatient.getPregnantPatientId() != null) {
-            pregnantPatient.setDateChanged(UsefullFunction.formatDateToddMMyyyyhms(new Date()));
+            pregnantPatient.setDateChanged(PtmeDateUtils.now());
             pregnantPatient.setChangedBy(Context.getAuthenticatedUser());
         }
         if(pregnantPatient.getVoided()){
             pregnantPatient.setVoidedBy(Context.getAuthenticatedUser());
-            pregnantPatient.setDateVoided(UsefullFunction.formatDateToddMMyyyyhms(new Date()));
+            pregnantPatient.setDateVoided(PtmeDateUtils.now());
         }
 
         pregnantPatient.setLocation(getChosenLocation(null));
@@ -6,9 +6,9 @@ import org.openmrs.module.ptme.ReportingIndicator;
 import org.openmrs.module.ptme.ReportingReport;
 import org.openmrs.module.ptme.ReportingTemplate;
 import org.openmrs.module.ptme.api.PreventTransmissionService;
+import org.openmrs.module.ptme.utils.PtmeDateUtils;
 import org.openmrs.module.ptme.utils.UsefullFunction;
 
-import java.util.Date;
 import java.util.HashSet;
 import java.util.Set;
 
@@ -92,16 +92,16 @@ public class ReportForm {
 
         if (report.getCreator() == null){
             report.setCreator(Context.getAuthenticatedUser());
-            report.setDateCreated(UsefullFunction.formatDateToddMMyyyyhms(new Date()));
+            report.setDateCreated(PtmeDateUtils.now());
         }
         if (this.getTemplateId() != null) {
             report.setChangedBy(Context.getAuthenticatedUser());
-            report.setDateChanged(UsefullFunction.formatDateToddMMyyyyhms(new Date()));
+            report.setDateChanged(PtmeDateUtils.now());
         }
 
         if(report.getVoided()) {
             report.setVoidedBy(Context.getAuthenticatedUser());
-            report.setDateVoided(UsefullFunction.formatDateToddMMyyyyhms(new Date()));
+            report.setDateVoided(PtmeDateUtils.now());
         }
         if (this.getSelectedDataSetList().size() != 0) {
             Set<ReportingDataset> reportingDatasets = new HashSet<ReportingDataset>();
@@ -5,7 +5,7 @@ import org.openmrs.api.context.Context;
 import org.openmrs.module.ptme.ReportingReport;
 import org.openmrs.module.ptme.ReportingReportGeneration;
 import org.openmrs.module.ptme.api.PreventTransmissionService;
-import org.openmrs.module.ptme.utils.UsefullFunction;
+import org.openmrs.module.ptme.utils.PtmeDateUtils;
 
 import java.util.Date;
 
@@ -118,16 +118,16 @@ public class RunReportForm {
 
         if (generation.getCreator() == null){
             generation.setCreator(Context.getAuthenticatedUser());
-            generation.setDateCreated(UsefullFunction.formatDateToddMMyyyyhms(new Date()));
+            generation.setDateCreated(PtmeDateUtils.now());
         }
         if (this.getGenerationId() != null) {
             generation.setChangedBy(Context.getAuthenticatedUser());
-            generation.setDateChanged(UsefullFunction.formatDateToddMMyyyyhms(new Date()));
+            generation.setDateChanged(PtmeDateUtils.now());
         }
 
         if(generation.getVoided()) {
             generation.setVoidedBy(Context.getAuthenticatedUser());
-            generation.setDateVoided(UsefullFunction.formatDateToddMMyyyyhms(new Date()));
+            generation.setDateVoided(PtmeDateUtils.now());
         }
         return generation;
     }
@@ -2,10 +2,10 @@ package org.openmrs.module.ptme.forms;
 
 import org.openmrs.api.context.Context;
 import org.openmrs.module.ptme.ReportingTemplate;
+import org.openmrs.module.ptme.utils.PtmeDateUtils;
 import org.openmrs.module.ptme.utils.UsefullFunction;
 
 import java.io.IOException;
-import java.util.Date;
 
 /**
  * Created by YEO on 25/10/2018.
@@ -83,15 +83,15 @@ public class TemplateForm {
 
         if (template.getCreator() == null){
             template.setCreator(Context.getAuthenticatedUser());
-            template.setDateCreated(UsefullFunction.formatDateToddMMyyyyhms(new Date()));
+            template.setDateCreated(PtmeDateUtils.now());
         }
         if (this.getTemplateId() != null) {
             template.setChangedBy(Context.getAuthenticatedUser());
-            template.setDateChanged(UsefullFunction.formatDateToddMMyyyyhms(new Date()));
+            template.setDateChanged(PtmeDateUtils.now());
         }
         if(template.getVoided()) {
             template.setVoidedBy(Context.getAuthenticatedUser());
-            template.setDateVoided(UsefullFunction.formatDateToddMMyyyyhms(new Date()));
+            template.setDateVoided(PtmeDateUtils.now());
         }
 
         return template ;
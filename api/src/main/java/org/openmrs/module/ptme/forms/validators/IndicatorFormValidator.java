@@ -5,12 +5,12 @@ import org.openmrs.api.context.Context;
 import org.openmrs.module.ptme.ReportingIndicator;
 import org.openmrs.module.ptme.api.PreventTransmissionService;
 import org.openmrs.module.ptme.forms.IndicatorForm;
+import org.openmrs.module.ptme.utils.PtmeDateUtils;
 import org.springframework.validation.Errors;
 import org.springframework.validation.ValidationUtils;
 import org.springframework.validation.Validator;
 
 import java.sql.*;
-import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.Properties;
 import java.util.regex.Pattern;
@@ -70,9 +70,9 @@ public class IndicatorFormValidator implements Validator {
                         String sql = form.getIndicatorSqlScript();
                         sql = sql.replace(":locationId", "1");
 
-                        SimpleDateFormat dateFormatter = new SimpleDateFormat("yyyy-MM-dd");
-                        sql = sql.replace(":startDate", "'" + dateFormatter.format(new Date()) + "'");
-                        sql = sql.replace(":endDate", "'" +  dateFormatter.format(new Date()) + "'");
+                        String today = PtmeDateUtils.format(new Date(), PtmeDateUtils.ISO_DATE);
+                        sql = sql.replace(":startDate", "'" + today + "'");
+                        sql = sql.replace(":endDate", "'" + today + "'");
 
                         stmt = connection.createStatement();
                         stmt.executeQuery(sql);
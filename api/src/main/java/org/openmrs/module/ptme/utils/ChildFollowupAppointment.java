@@ -8,6 +8,7 @@ public class ChildFollowupAppointment {
     private Date lastVisitDate;
     private String familyName;
     private String givenName;
+    private Integer motherId;
     private String motherContact;
     private Integer numberOfVisit;
     private Date appointmentDate;
@@ -48,6 +49,14 @@ public class ChildFollowupAppointment {
         this.givenName = givenName;
     }
 
+    public Integer getMotherId() {
+        return motherId;
+    }
+
+    public void setMotherId(Integer motherId) {
+        this.motherId = motherId;
+    }
+
     public String getMotherContact() {
         return motherContact;
     }
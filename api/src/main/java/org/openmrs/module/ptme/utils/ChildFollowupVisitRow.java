@@ -0,0 +1,94 @@
+package org.openmrs.module.ptme.utils;
+
+import java.io.Serializable;
+import java.util.Date;
+
+/**
+ * Visit of the follow-up of a child, only the columns displayed in the follow-up form
+ */
+public class ChildFollowupVisitRow implements Serializable {
+    private Integer childFollowupVisitId;
+    private Date visitDate;
+    private Boolean modernContraceptiveMethod;
+    private Integer ageInDay;
+    private Integer ageInWeek;
+    private Integer ageInMonth;
+    private Integer eatingType;
+    private Integer continuingCtx;
+    private Integer continuingInh;
+
+    public ChildFollowupVisitRow() {
+    }
+
+    public Integer getChildFollowupVisitId() {
+        return childFollowupVisitId;
+    }
+
+    public void setChildFollowupVisitId(Integer childFollowupVisitId) {
+        this.childFollowupVisitId = childFollowupVisitId;
+    }
+
+    public Date getVisitDate() {
+        return visitDate;
+    }
+
+    public void setVisitDate(Date visitDate) {
+        this.visitDate = visitDate;
+    }
+
+    public Boolean getModernContraceptiveMethod() {
+        return modernContraceptiveMethod;
+    }
+
+    public void setModernContraceptiveMethod(Boolean modernContraceptiveMethod) {
+        this.modernContraceptiveMethod = modernContraceptiveMethod;
+    }
+
+    public Integer getAgeInDay() {
+        return ageInDay;
+    }
+
+    public void setAgeInDay(Integer ageInDay) {
+        this.ageInDay = ageInDay;
+    }
+
+    public Integer getAgeInWeek() {
+        return ageInWeek;
+    }
+
+    public void setAgeInWeek(Integer ageInWeek) {
+        this.ageInWeek = ageInWeek;
+    }
+
+    public Integer getAgeInMonth() {
+        return ageInMonth;
+    }
+
+    public void setAgeInMonth(Integer ageInMonth) {
+        this.ageInMonth = ageInMonth;
+    }
+
+    public Integer getEatingType() {
+        return eatingType;
+    }
+
+    public void setEatingType(Integer eatingType) {
+        this.eatingType = eatingType;
+    }
+
+    public Integer getContinuingCtx() {
+        return continuingCtx;
+    }
+
+    public void setContinuingCtx(Integer continuingCtx) {
+        this.continuingCtx = continuingCtx;
+    }
+
+    public Integer getContinuingInh() {
+        return continuingInh;
+    }
+
+    public void setContinuingInh(Integer continuingInh) {
+        this.continuingInh = continuingInh;
+    }
+}
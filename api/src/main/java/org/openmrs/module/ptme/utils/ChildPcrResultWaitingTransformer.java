@@ -7,6 +7,7 @@ public class ChildPcrResultWaitingTransformer {
     private String childFollowupNumber;
     private String familyName;
     private String givenName;
+    private Integer motherId;
     private String motherContact;
     private Date samplingDate;
     private String pcrRank;
@@ -39,6 +40,14 @@ public class ChildPcrResultWaitingTransformer {
         this.givenName = givenName;
     }
 
+    public Integer getMotherId() {
+        return motherId;
+    }
+
+    public void setMotherId(Integer motherId) {
+        this.motherId = motherId;
+    }
+
     public String getMotherContact() {
         return motherContact;
     }
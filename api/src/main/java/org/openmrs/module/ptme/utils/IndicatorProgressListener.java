@@ -0,0 +1,12 @@
+package org.openmrs.module.ptme.utils;
+
+/**
+ * Receives the progress of a report run, indicator by indicator.
+ * Methods may be called from the indicator worker threads.
+ */
+public interface IndicatorProgressListener {
+
+    void onStart(int totalIndicators);
+
+    void onIndicatorCompleted();
+}
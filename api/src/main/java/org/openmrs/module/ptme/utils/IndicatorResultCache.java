@@ -0,0 +1,177 @@
+package org.openmrs.module.ptme.utils;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded LRU cache of indicator values, keyed by indicator uuid, SQL script,
+ * location and period. Entries are dropped per location and period when the data used by
+ * the indicators is saved through the service.
+ */
+public class IndicatorResultCache {
+
+    protected final Log log = LogFactory.getLog(this.getClass());
+
+    private int maxEntries = 5000;
+
+    private long timeToLiveMillis = 60L * 60L * 1000L;
+
+    private long version = 0;
+
+    private long hits = 0;
+
+    private long misses = 0;
+
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<Key, Entry>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+            return size() > maxEntries;
+        }
+    };
+
+    /**
+     * @param maxEntries maximum number of values kept, the least recently used are evicted first
+     */
+    public void setMaxEntries(int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * @param timeToLiveMillis age after which a value is computed again, for data changed outside of the module
+     */
+    public void setTimeToLiveMillis(long timeToLiveMillis) {
+        this.timeToLiveMillis = timeToLiveMillis;
+    }
+
+    public synchronized Integer get(String indicatorUuid, String sqlScript, Integer locationId, Date startDate, Date endDate) {
+        Key key = new Key(indicatorUuid, sqlScript, locationId, startDate, endDate);
+        Entry entry = entries.get(key);
+        if (entry == null || System.currentTimeMillis() - entry.created > timeToLiveMillis) {
+            if (entry != null) {
+                entries.remove(key);
+            }
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry.value;
+    }
+
+    /**
+     * Current version of the cache, to be given back to {@link #put} once the value is computed
+     */
+    public synchronized long getVersion() {
+        return version;
+    }
+
+    /**
+     * Stores a value computed while the cache was at the given version. The value is ignored if
+     * an invalidation happened in the meantime, since it may have been computed on older data.
+     */
+    public synchronized void put(long computedAtVersion, String indicatorUuid, String sqlScript, Integer locationId,
+                                 Date startDate, Date endDate, Integer value) {
+        if (computedAtVersion != version || value == null) {
+            return;
+        }
+        entries.put(new Key(indicatorUuid, sqlScript, locationId, startDate, endDate), new Entry(value));
+    }
+
+    /**
+     * Drops the values of the location whose period ends on or after the given date.
+     *
+     * @param locationId location of the saved data, null for every location
+     * @param fromDate earliest date of the saved data, null for every period
+     */
+    public synchronized void invalidate(Integer locationId, Date fromDate) {
+        version++;
+        int removed = 0;
+        Iterator<Key> iterator = entries.keySet().iterator();
+        while (iterator.hasNext()) {
+            Key key = iterator.next();
+            boolean sameLocation = locationId == null || key.locationId == null || locationId.equals(key.locationId);
+            boolean affectedPeriod = fromDate == null || key.endDate == null || key.endDate >= fromDate.getTime();
+            if (sameLocation && affectedPeriod) {
+                iterator.remove();
+                removed++;
+            }
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Indicator cache : " + removed + " values dropped for location " + locationId + " from " + fromDate);
+        }
+    }
+
+    public synchronized void clear() {
+        version++;
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    private static class Entry {
+        private final Integer value;
+        private final long created;
+
+        Entry(Integer value) {
+            this.value = value;
+            this.created = System.currentTimeMillis();
+        }
+    }
+
+    private static class Key {
+        private final String indicatorUuid;
+        // The script itself, an edited script with the same hash must not hit the old value
+        private final String sqlScript;
+        private final Integer locationId;
+        private final Long startDate;
+        private final Long endDate;
+
+        Key(String indicatorUuid, String sqlScript, Integer locationId, Date startDate, Date endDate) {
+            this.indicatorUuid = indicatorUuid;
+            this.sqlScript = sqlScript;
+            this.locationId = locationId;
+            this.startDate = startDate != null ? startDate.getTime() : null;
+            this.endDate = endDate != null ? endDate.getTime() : null;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            return equal(sqlScript, key.sqlScript) &&
+                    equal(indicatorUuid, key.indicatorUuid) &&
+                    equal(locationId, key.locationId) &&
+                    equal(startDate, key.startDate) &&
+                    equal(endDate, key.endDate);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = indicatorUuid != null ? indicatorUuid.hashCode() : 0;
+            result = 31 * result + (sqlScript != null ? sqlScript.hashCode() : 0);
+            result = 31 * result + (locationId != null ? locationId.hashCode() : 0);
+            result = 31 * result + (startDate != null ? startDate.hashCode() : 0);
+            result = 31 * result + (endDate != null ? endDate.hashCode() : 0);
+            return result;
+        }
+
+        private static boolean equal(Object a, Object b) {
+            return a == null ? b == null : a.equals(b);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package org.openmrs.module.ptme.utils;
+
+import java.io.Serializable;
+import java.util.Date;
+
+/**
+ * State of the import of the legacy follow-up encounters, as seen when it was requested
+ */
+public class LegacyImportProgress implements Serializable {
+    private boolean running;
+    private boolean completed;
+    private String currentStep;
+    private Integer lastSourceId;
+    private long importedRows;
+    private long pendingSourceRows;
+    private double rowsPerSecond;
+    private Date startDate;
+    private Date lastCheckpointDate;
+    private String lastError;
+
+    public LegacyImportProgress() {
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    public void setRunning(boolean running) {
+        this.running = running;
+    }
+
+    public boolean isCompleted() {
+        return completed;
+    }
+
+    public void setCompleted(boolean completed) {
+        this.completed = completed;
+    }
+
+    public String getCurrentStep() {
+        return currentStep;
+    }
+
+    public void setCurrentStep(String currentStep) {
+        this.currentStep = currentStep;
+    }
+
+    public Integer getLastSourceId() {
+        return lastSourceId;
+    }
+
+    public void setLastSourceId(Integer lastSourceId) {
+        this.lastSourceId = lastSourceId;
+    }
+
+    public long getImportedRows() {
+        return importedRows;
+    }
+
+    public void setImportedRows(long importedRows) {
+        this.importedRows = importedRows;
+    }
+
+    public long getPendingSourceRows() {
+        return pendingSourceRows;
+    }
+
+    public void setPendingSourceRows(long pendingSourceRows) {
+        this.pendingSourceRows = pendingSourceRows;
+    }
+
+    public double getRowsPerSecond() {
+        return rowsPerSecond;
+    }
+
+    public void setRowsPerSecond(double rowsPerSecond) {
+        this.rowsPerSecond = rowsPerSecond;
+    }
+
+    public Date getStartDate() {
+        return startDate;
+    }
+
+    public void setStartDate(Date startDate) {
+        this.startDate = startDate;
+    }
+
+    public Date getLastCheckpointDate() {
+        return lastCheckpointDate;
+    }
+
+    public void setLastCheckpointDate(Date lastCheckpointDate) {
+        this.lastCheckpointDate = lastCheckpointDate;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    public void setLastError(String lastError) {
+        this.lastError = lastError;
+    }
+}
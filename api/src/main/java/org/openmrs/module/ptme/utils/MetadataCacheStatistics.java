@@ -0,0 +1,70 @@
+package org.openmrs.module.ptme.utils;
+
+import java.io.Serializable;
+
+/**
+ * Hits and misses of the second level cache for the reporting definitions and the locations,
+ * counted since the statistics of the session factory were enabled
+ */
+public class MetadataCacheStatistics implements Serializable {
+    private boolean statisticsEnabled;
+    private long entityHitCount;
+    private long entityMissCount;
+    private long queryHitCount;
+    private long queryMissCount;
+
+    public MetadataCacheStatistics() {
+    }
+
+    public boolean isStatisticsEnabled() {
+        return statisticsEnabled;
+    }
+
+    public void setStatisticsEnabled(boolean statisticsEnabled) {
+        this.statisticsEnabled = statisticsEnabled;
+    }
+
+    public long getEntityHitCount() {
+        return entityHitCount;
+    }
+
+    public void setEntityHitCount(long entityHitCount) {
+        this.entityHitCount = entityHitCount;
+    }
+
+    public long getEntityMissCount() {
+        return entityMissCount;
+    }
+
+    public void setEntityMissCount(long entityMissCount) {
+        this.entityMissCount = entityMissCount;
+    }
+
+    public long getQueryHitCount() {
+        return queryHitCount;
+    }
+
+    public void setQueryHitCount(long queryHitCount) {
+        this.queryHitCount = queryHitCount;
+    }
+
+    public long getQueryMissCount() {
+        return queryMissCount;
+    }
+
+    public void setQueryMissCount(long queryMissCount) {
+        this.queryMissCount = queryMissCount;
+    }
+
+    public Double getEntityHitRatio() {
+        return ratio(entityHitCount, entityMissCount);
+    }
+
+    public Double getQueryHitRatio() {
+        return ratio(queryHitCount, queryMissCount);
+    }
+
+    private static Double ratio(long hits, long misses) {
+        return hits + misses > 0 ? (double) hits / (hits + misses) : null;
+    }
+}
@@ -8,6 +8,7 @@ import java.util.Date;
 public class MotherFollowupAppointment {
 
     private String hivCareNumber;
+    private Integer patientId;
     private String pregnantNumber;
     private String familyName;
     private String givenName;
@@ -28,6 +29,14 @@ public class MotherFollowupAppointment {
         this.hivCareNumber = hivCareNumber;
     }
 
+    public Integer getPatientId() {
+        return patientId;
+    }
+
+    public void setPatientId(Integer patientId) {
+        this.patientId = patientId;
+    }
+
     public String getPregnantNumber() {
         return pregnantNumber;
     }
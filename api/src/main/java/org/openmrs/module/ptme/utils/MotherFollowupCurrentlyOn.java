@@ -7,6 +7,7 @@ public class MotherFollowupCurrentlyOn implements Serializable{
 
     private Integer motherFollowupId;
     private String hivCareNumber;
+    private Integer patientId;
     private String familyName;
     private String givenName;
     private Integer arvStatusAtRegistering;
@@ -39,6 +40,14 @@ public class MotherFollowupCurrentlyOn implements Serializable{
         this.hivCareNumber = hivCareNumber;
     }
 
+    public Integer getPatientId() {
+        return patientId;
+    }
+
+    public void setPatientId(Integer patientId) {
+        this.patientId = patientId;
+    }
+
     public String getFamilyName() {
         return familyName;
     }
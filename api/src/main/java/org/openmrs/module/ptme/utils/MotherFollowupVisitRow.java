@@ -0,0 +1,58 @@
+package org.openmrs.module.ptme.utils;
+
+import java.io.Serializable;
+import java.util.Date;
+
+/**
+ * Visit of the follow-up of a mother, only the columns displayed in the follow-up form
+ */
+public class MotherFollowupVisitRow implements Serializable {
+    private Integer motherFollowupVisitId;
+    private Date visitDate;
+    private Integer gestationalAge;
+    private Integer continuingArv;
+    private Integer continuingCtx;
+
+    public MotherFollowupVisitRow() {
+    }
+
+    public Integer getMotherFollowupVisitId() {
+        return motherFollowupVisitId;
+    }
+
+    public void setMotherFollowupVisitId(Integer motherFollowupVisitId) {
+        this.motherFollowupVisitId = motherFollowupVisitId;
+    }
+
+    public Date getVisitDate() {
+        return visitDate;
+    }
+
+    public void setVisitDate(Date visitDate) {
+        this.visitDate = visitDate;
+    }
+
+    public Integer getGestationalAge() {
+        return gestationalAge;
+    }
+
+    public void setGestationalAge(Integer gestationalAge) {
+        this.gestationalAge = gestationalAge;
+    }
+
+    public Integer getContinuingArv() {
+        return continuingArv;
+    }
+
+    public void setContinuingArv(Integer continuingArv) {
+        this.continuingArv = continuingArv;
+    }
+
+    public Integer getContinuingCtx() {
+        return continuingCtx;
+    }
+
+    public void setContinuingCtx(Integer continuingCtx) {
+        this.continuingCtx = continuingCtx;
+    }
+}
@@ -0,0 +1,15 @@
+package org.openmrs.module.ptme.utils;
+
+/**
+ * Status of a mother in the follow-up worklists, from the observations recorded on her.
+ * When several apply, the first one of this list is retained.
+ */
+public enum PatientVitalStatus {
+    /** Death recorded (concept 1543) */
+    DEAD,
+    /** Transfer out recorded after the last encounter (concept 164595) */
+    TRANSFERRED,
+    /** Declared HIV negative (concept 163511) */
+    DECLARED_NEGATIVE,
+    ACTIVE
+}
@@ -8,6 +8,7 @@ public class PregnantPatientToFollow implements Serializable {
     private String givenName;
     private String pregnantNumber;
     private String hivCareNumber;
+    private Integer patientId;
     private String screeningNumber;
     private Integer age;
 
@@ -54,6 +55,14 @@ public class PregnantPatientToFollow implements Serializable {
         this.hivCareNumber = hivCareNumber;
     }
 
+    public Integer getPatientId() {
+        return patientId;
+    }
+
+    public void setPatientId(Integer patientId) {
+        this.patientId = patientId;
+    }
+
     public String getScreeningNumber() {
         return screeningNumber;
     }
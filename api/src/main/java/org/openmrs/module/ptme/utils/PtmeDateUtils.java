@@ -0,0 +1,75 @@
+package org.openmrs.module.ptme.utils;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Date;
+
+/**
+ * Date truncation and formatting of the module. The formatters are immutable and can be shared
+ * between request threads, and the truncations are computed without formatting and parsing the date.
+ *
+ * The dates are read through {@link Date#getTime()} so that the java.sql.Date and Timestamp values
+ * loaded by Hibernate are accepted too.
+ */
+public final class PtmeDateUtils {
+
+    public static final DateTimeFormatter ISO_DATE = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+
+    public static final DateTimeFormatter DAY_MONTH_YEAR = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+
+    public static final DateTimeFormatter FILE_TIMESTAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd_HHmmss");
+
+    private static final long MILLIS_PER_SECOND = 1000L;
+
+    private PtmeDateUtils() {
+    }
+
+    /**
+     * Current date and time without the milliseconds, as stored in the audit columns
+     */
+    public static Date now() {
+        return truncateToSecond(new Date());
+    }
+
+    /**
+     * Midnight of the current day
+     */
+    public static Date today() {
+        return startOfDay(new Date(), 0);
+    }
+
+    public static Date truncateToSecond(Date date) {
+        if (date == null) {
+            return null;
+        }
+        long time = date.getTime();
+        return new Date(time - Math.floorMod(time, MILLIS_PER_SECOND));
+    }
+
+    public static Date startOfDay(Date date) {
+        return startOfDay(date, 0);
+    }
+
+    /**
+     * Midnight of the day of the date, moved by dayOffset days, in the time zone of the server
+     */
+    public static Date startOfDay(Date date, int dayOffset) {
+        if (date == null) {
+            return null;
+        }
+        ZoneId zone = ZoneId.systemDefault();
+        return new Date(Instant.ofEpochMilli(date.getTime()).atZone(zone).toLocalDate()
+                .plusDays(dayOffset).atStartOfDay(zone).toInstant().toEpochMilli());
+    }
+
+    /**
+     * @return the date formatted in the time zone of the server, null if the date is null
+     */
+    public static String format(Date date, DateTimeFormatter formatter) {
+        if (date == null) {
+            return null;
+        }
+        return formatter.format(Instant.ofEpochMilli(date.getTime()).atZone(ZoneId.systemDefault()));
+    }
+}
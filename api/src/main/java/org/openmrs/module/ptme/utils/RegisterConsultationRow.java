@@ -0,0 +1,176 @@
+package org.openmrs.module.ptme.utils;
+
+import java.io.Serializable;
+import java.util.Date;
+
+/**
+ * Row of a consultation register, only the columns displayed in the register list.
+ * The prenatal and birth columns are empty for the other registers.
+ */
+public class RegisterConsultationRow implements Serializable {
+    private Integer consultationId;
+    private Date consultationDate;
+    private String pregnantNumber;
+    private String hivCareNumber;
+    private String rank;
+    private Integer weekOfAmenorrhea;
+    private Integer spousalScreening;
+    private Integer spousalScreeningResult;
+    private Integer hivStatusAtReception;
+    private Integer testProposal;
+    private Integer testResult;
+    private Integer resultAnnouncement;
+    private Integer arvDiscount;
+    private Integer childArvProphylaxis;
+    private Date deliveryDate;
+    private Boolean homeBirth;
+    private Integer pregnancyIssue;
+    private Integer childState;
+
+    public RegisterConsultationRow() {
+    }
+
+    public Integer getConsultationId() {
+        return consultationId;
+    }
+
+    public void setConsultationId(Integer consultationId) {
+        this.consultationId = consultationId;
+    }
+
+    public Date getConsultationDate() {
+        return consultationDate;
+    }
+
+    public void setConsultationDate(Date consultationDate) {
+        this.consultationDate = consultationDate;
+    }
+
+    public String getPregnantNumber() {
+        return pregnantNumber;
+    }
+
+    public void setPregnantNumber(String pregnantNumber) {
+        this.pregnantNumber = pregnantNumber;
+    }
+
+    public String getHivCareNumber() {
+        return hivCareNumber;
+    }
+
+    public void setHivCareNumber(String hivCareNumber) {
+        this.hivCareNumber = hivCareNumber;
+    }
+
+    public String getRank() {
+        return rank;
+    }
+
+    public void setRank(String rank) {
+        this.rank = rank;
+    }
+
+    public Integer getWeekOfAmenorrhea() {
+        return weekOfAmenorrhea;
+    }
+
+    public void setWeekOfAmenorrhea(Integer weekOfAmenorrhea) {
+        this.weekOfAmenorrhea = weekOfAmenorrhea;
+    }
+
+    public Integer getSpousalScreening() {
+        return spousalScreening;
+    }
+
+    public void setSpousalScreening(Integer spousalScreening) {
+        this.spousalScreening = spousalScreening;
+    }
+
+    public Integer getSpousalScreeningResult() {
+        return spousalScreeningResult;
+    }
+
+    public void setSpousalScreeningResult(Integer spousalScreeningResult) {
+        this.spousalScreeningResult = spousalScreeningResult;
+    }
+
+    public Integer getHivStatusAtReception() {
+        return hivStatusAtReception;
+    }
+
+    public void setHivStatusAtReception(Integer hivStatusAtReception) {
+        this.hivStatusAtReception = hivStatusAtReception;
+    }
+
+    public Integer getTestProposal() {
+        return testProposal;
+    }
+
+    public void setTestProposal(Integer testProposal) {
+        this.testProposal = testProposal;
+    }
+
+    public Integer getTestResult() {
+        return testResult;
+    }
+
+    public void setTestResult(Integer testResult) {
+        this.testResult = testResult;
+    }
+
+    public Integer getResultAnnouncement() {
+        return resultAnnouncement;
+    }
+
+    public void setResultAnnouncement(Integer resultAnnouncement) {
+        this.resultAnnouncement = resultAnnouncement;
+    }
+
+    public Integer getArvDiscount() {
+        return arvDiscount;
+    }
+
+    public void setArvDiscount(Integer arvDiscount) {
+        this.arvDiscount = arvDiscount;
+    }
+
+    public Integer getChildArvProphylaxis() {
+        return childArvProphylaxis;
+    }
+
+    public void setChildArvProphylaxis(Integer childArvProphylaxis) {
+        this.childArvProphylaxis = childArvProphylaxis;
+    }
+
+    public Date getDeliveryDate() {
+        return deliveryDate;
+    }
+
+    public void setDeliveryDate(Date deliveryDate) {
+        this.deliveryDate = deliveryDate;
+    }
+
+    public Boolean getHomeBirth() {
+        return homeBirth;
+    }
+
+    public void setHomeBirth(Boolean homeBirth) {
+        this.homeBirth = homeBirth;
+    }
+
+    public Integer getPregnancyIssue() {
+        return pregnancyIssue;
+    }
+
+    public void setPregnancyIssue(Integer pregnancyIssue) {
+        this.pregnancyIssue = pregnancyIssue;
+    }
+
+    public Integer getChildState() {
+        return childState;
+    }
+
+    public void setChildState(Integer childState) {
+        this.childState = childState;
+    }
+}
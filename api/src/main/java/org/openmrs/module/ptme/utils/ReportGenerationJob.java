@@ -0,0 +1,189 @@
+package org.openmrs.module.ptme.utils;
+
+import java.io.Serializable;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * State of a report generation submitted to the job queue
+ */
+public class ReportGenerationJob implements Serializable, IndicatorProgressListener {
+
+    public static final String STATUS_QUEUED = "QUEUED";
+    public static final String STATUS_RUNNING = "RUNNING";
+    public static final String STATUS_COMPLETED = "COMPLETED";
+    public static final String STATUS_FAILED = "FAILED";
+
+    private String jobId;
+    private String jobKey;
+    private Integer reportId;
+    private String reportLocation;
+    private Date reportPeriodStartDate;
+    private Date reportPeriodEndDate;
+    private String name;
+    private Date submissionDate;
+    private volatile Date endDate;
+    private volatile String status = STATUS_QUEUED;
+    private volatile int total;
+    private final AtomicInteger completed = new AtomicInteger();
+    private volatile Integer generationId;
+    private volatile String errorMessage;
+
+    public ReportGenerationJob() {
+    }
+
+    public ReportGenerationJob(String jobId, String jobKey) {
+        this.jobId = jobId;
+        this.jobKey = jobKey;
+        this.submissionDate = new Date();
+    }
+
+    /**
+     * Key used to de-duplicate identical submissions
+     */
+    public static String buildJobKey(Integer reportId, String reportLocation, Date startDate, Date endDate) {
+        return reportId + "|" + (reportLocation != null ? reportLocation.trim().toLowerCase() : "") + "|"
+                + (startDate != null ? startDate.getTime() : "") + "|"
+                + (endDate != null ? endDate.getTime() : "");
+    }
+
+    @Override
+    public void onStart(int totalIndicators) {
+        this.total = totalIndicators;
+        this.completed.set(0);
+        this.status = STATUS_RUNNING;
+    }
+
+    @Override
+    public void onIndicatorCompleted() {
+        this.completed.incrementAndGet();
+    }
+
+    public void markCompleted(Integer generationId) {
+        this.generationId = generationId;
+        this.endDate = new Date();
+        this.status = STATUS_COMPLETED;
+    }
+
+    public void markFailed(String errorMessage) {
+        this.errorMessage = errorMessage;
+        this.endDate = new Date();
+        this.status = STATUS_FAILED;
+    }
+
+    public Boolean isFinished() {
+        return STATUS_COMPLETED.equals(status) || STATUS_FAILED.equals(status);
+    }
+
+    public String getJobId() {
+        return jobId;
+    }
+
+    public void setJobId(String jobId) {
+        this.jobId = jobId;
+    }
+
+    public String getJobKey() {
+        return jobKey;
+    }
+
+    public void setJobKey(String jobKey) {
+        this.jobKey = jobKey;
+    }
+
+    public Integer getReportId() {
+        return reportId;
+    }
+
+    public void setReportId(Integer reportId) {
+        this.reportId = reportId;
+    }
+
+    public String getReportLocation() {
+        return reportLocation;
+    }
+
+    public void setReportLocation(String reportLocation) {
+        this.reportLocation = reportLocation;
+    }
+
+    public Date getReportPeriodStartDate() {
+        return reportPeriodStartDate;
+    }
+
+    public void setReportPeriodStartDate(Date reportPeriodStartDate) {
+        this.reportPeriodStartDate = reportPeriodStartDate;
+    }
+
+    public Date getReportPeriodEndDate() {
+        return reportPeriodEndDate;
+    }
+
+    public void setReportPeriodEndDate(Date reportPeriodEndDate) {
+        this.reportPeriodEndDate = reportPeriodEndDate;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public Date getSubmissionDate() {
+        return submissionDate;
+    }
+
+    public void setSubmissionDate(Date submissionDate) {
+        this.submissionDate = submissionDate;
+    }
+
+    public Date getEndDate() {
+        return endDate;
+    }
+
+    public void setEndDate(Date endDate) {
+        this.endDate = endDate;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    public void setTotal(int total) {
+        this.total = total;
+    }
+
+    public int getCompleted() {
+        return completed.get();
+    }
+
+    public void setCompleted(int completed) {
+        this.completed.set(completed);
+    }
+
+    public Integer getGenerationId() {
+        return generationId;
+    }
+
+    public void setGenerationId(Integer generationId) {
+        this.generationId = generationId;
+    }
+
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+
+    public void setErrorMessage(String errorMessage) {
+        this.errorMessage = errorMessage;
+    }
+}
@@ -0,0 +1,112 @@
+package org.openmrs.module.ptme.utils;
+
+import java.io.Serializable;
+import java.util.Date;
+
+/**
+ * Row of the generated reports list, without the generated content
+ */
+public class ReportGenerationSummary implements Serializable {
+    private Integer generationId;
+    private String name;
+    private Date generationDate;
+    private Date reportPeriodStartDate;
+    private Date reportPeriodEndDate;
+    private Boolean saved;
+    private String reportLabel;
+    private String locationName;
+    private String creatorFamilyName;
+    private String creatorMiddleName;
+    private String creatorGivenName;
+
+    public ReportGenerationSummary() {
+    }
+
+    public Integer getGenerationId() {
+        return generationId;
+    }
+
+    public void setGenerationId(Integer generationId) {
+        this.generationId = generationId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public Date getGenerationDate() {
+        return generationDate;
+    }
+
+    public void setGenerationDate(Date generationDate) {
+        this.generationDate = generationDate;
+    }
+
+    public Date getReportPeriodStartDate() {
+        return reportPeriodStartDate;
+    }
+
+    public void setReportPeriodStartDate(Date reportPeriodStartDate) {
+        this.reportPeriodStartDate = reportPeriodStartDate;
+    }
+
+    public Date getReportPeriodEndDate() {
+        return reportPeriodEndDate;
+    }
+
+    public void setReportPeriodEndDate(Date reportPeriodEndDate) {
+        this.reportPeriodEndDate = reportPeriodEndDate;
+    }
+
+    public Boolean getSaved() {
+        return saved;
+    }
+
+    public void setSaved(Boolean saved) {
+        this.saved = saved;
+    }
+
+    public String getReportLabel() {
+        return reportLabel;
+    }
+
+    public void setReportLabel(String reportLabel) {
+        this.reportLabel = reportLabel;
+    }
+
+    public String getLocationName() {
+        return locationName;
+    }
+
+    public void setLocationName(String locationName) {
+        this.locationName = locationName;
+    }
+
+    public String getCreatorFamilyName() {
+        return creatorFamilyName;
+    }
+
+    public void setCreatorFamilyName(String creatorFamilyName) {
+        this.creatorFamilyName = creatorFamilyName;
+    }
+
+    public String getCreatorMiddleName() {
+        return creatorMiddleName;
+    }
+
+    public void setCreatorMiddleName(String creatorMiddleName) {
+        this.creatorMiddleName = creatorMiddleName;
+    }
+
+    public String getCreatorGivenName() {
+        return creatorGivenName;
+    }
+
+    public void setCreatorGivenName(String creatorGivenName) {
+        this.creatorGivenName = creatorGivenName;
+    }
+}
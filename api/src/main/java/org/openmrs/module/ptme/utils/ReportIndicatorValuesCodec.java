@@ -0,0 +1,181 @@
+package org.openmrs.module.ptme.utils;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Compact storage format of the values of a generated report.
+ * <p>
+ * Layout : the magic bytes <code>PTMR</code>, a version byte, then a deflated stream holding the
+ * period, the location and, for each dataset, its uuid followed by the uuid, code and value of each
+ * indicator. Uuids are stored on 16 bytes. Content which does not start with the magic bytes is
+ * the XML written by the previous versions of the module.
+ */
+public class ReportIndicatorValuesCodec {
+
+    private static final byte[] MAGIC = {'P', 'T', 'M', 'R'};
+
+    public static final byte VERSION_1 = 1;
+
+    private static final long NO_DATE = Long.MIN_VALUE;
+
+    private ReportIndicatorValuesCodec() {
+    }
+
+    /**
+     * @return true if the content is in the compact format, false for the XML format
+     */
+    public static boolean isEncoded(byte[] content) {
+        if (content == null || content.length <= MAGIC.length) {
+            return false;
+        }
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (content[i] != MAGIC[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public static byte[] encode(ReportIndicatorValues values) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            bytes.write(MAGIC);
+            bytes.write(VERSION_1);
+
+            DeflaterOutputStream deflater = new DeflaterOutputStream(bytes, new Deflater(Deflater.BEST_COMPRESSION));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(deflater));
+
+            writeDate(out, values.getReportStartDate());
+            writeDate(out, values.getReportEndDate());
+            writeDate(out, values.getGenerationDate());
+            writeUuid(out, values.getLocationUuid());
+
+            List<ReportDataSetIndicatorRun> runs = values.getReportDataSetIndicatorRuns() != null ?
+                    values.getReportDataSetIndicatorRuns() : new ArrayList<ReportDataSetIndicatorRun>();
+            out.writeInt(runs.size());
+            for (ReportDataSetIndicatorRun run : runs) {
+                writeUuid(out, run.getDataSetUuid());
+                List<ReportRunIndicatorValue> indicatorValues = run.getReportRunIndicatorValues() != null ?
+                        run.getReportRunIndicatorValues() : new ArrayList<ReportRunIndicatorValue>();
+                out.writeInt(indicatorValues.size());
+                for (ReportRunIndicatorValue indicatorValue : indicatorValues) {
+                    writeUuid(out, indicatorValue.getIndicatorUuid());
+                    writeString(out, indicatorValue.getCode());
+                    out.writeBoolean(indicatorValue.getValue() != null);
+                    if (indicatorValue.getValue() != null) {
+                        out.writeInt(indicatorValue.getValue());
+                    }
+                }
+            }
+
+            out.close();
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to encode the report values", e);
+        }
+    }
+
+    public static ReportIndicatorValues decode(byte[] content) {
+        if (!isEncoded(content)) {
+            throw new IllegalArgumentException("Content is not in the compact report format");
+        }
+        byte version = content[MAGIC.length];
+        if (version != VERSION_1) {
+            throw new IllegalArgumentException("Unsupported report format version : " + version);
+        }
+
+        try {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(new InflaterInputStream(
+                    new ByteArrayInputStream(content, MAGIC.length + 1, content.length - MAGIC.length - 1))));
+
+            ReportIndicatorValues values = new ReportIndicatorValues();
+            values.setReportStartDate(readDate(in));
+            values.setReportEndDate(readDate(in));
+            values.setGenerationDate(readDate(in));
+            values.setLocationUuid(readUuid(in));
+
+            int runCount = in.readInt();
+            List<ReportDataSetIndicatorRun> runs = new ArrayList<ReportDataSetIndicatorRun>(runCount);
+            for (int i = 0; i < runCount; i++) {
+                ReportDataSetIndicatorRun run = new ReportDataSetIndicatorRun();
+                run.setDataSetUuid(readUuid(in));
+
+                int valueCount = in.readInt();
+                List<ReportRunIndicatorValue> indicatorValues = new ArrayList<ReportRunIndicatorValue>(valueCount);
+                for (int j = 0; j < valueCount; j++) {
+                    ReportRunIndicatorValue indicatorValue = new ReportRunIndicatorValue();
+                    indicatorValue.setIndicatorUuid(readUuid(in));
+                    indicatorValue.setCode(readString(in));
+                    if (in.readBoolean()) {
+                        indicatorValue.setValue(in.readInt());
+                    }
+                    indicatorValues.add(indicatorValue);
+                }
+                run.setReportRunIndicatorValues(indicatorValues);
+                runs.add(run);
+            }
+            values.setReportDataSetIndicatorRuns(runs);
+
+            in.close();
+            return values;
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Unable to decode the report values", e);
+        }
+    }
+
+    private static void writeDate(DataOutputStream out, Date date) throws IOException {
+        out.writeLong(date != null ? date.getTime() : NO_DATE);
+    }
+
+    private static Date readDate(DataInputStream in) throws IOException {
+        long time = in.readLong();
+        return time != NO_DATE ? new Date(time) : null;
+    }
+
+    /**
+     * Uuids are written on 16 bytes, other identifiers as strings
+     */
+    private static void writeUuid(DataOutputStream out, String uuid) throws IOException {
+        UUID parsed = null;
+        if (uuid != null && uuid.length() == 36) {
+            try {
+                parsed = UUID.fromString(uuid);
+            } catch (IllegalArgumentException e) {
+                parsed = null;
+            }
+        }
+        if (parsed != null && parsed.toString().equals(uuid)) {
+            out.writeByte(1);
+            out.writeLong(parsed.getMostSignificantBits());
+            out.writeLong(parsed.getLeastSignificantBits());
+        } else {
+            out.writeByte(0);
+            writeString(out, uuid);
+        }
+    }
+
+    private static String readUuid(DataInputStream in) throws IOException {
+        if (in.readByte() == 1) {
+            return new UUID(in.readLong(), in.readLong()).toString();
+        }
+        return readString(in);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
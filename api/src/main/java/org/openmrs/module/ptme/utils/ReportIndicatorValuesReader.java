@@ -0,0 +1,106 @@
+package org.openmrs.module.ptme.utils;
+
+import org.openmrs.module.ptme.ReportingReportGeneration;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Unmarshaller;
+import java.io.ByteArrayInputStream;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Reads the values stored in the content of a generated report.
+ * The JAXB context is created once, and the values of the most recently read generations are
+ * kept so that reopening a generated report does not parse its content again.
+ * The returned values are shared and must not be modified.
+ */
+public class ReportIndicatorValuesReader {
+
+    private static final int MAX_CACHED_REPORTS = 50;
+
+    private static volatile JAXBContext jaxbContext;
+
+    private static final Map<String, ReportIndicatorValues> cache = new LinkedHashMap<String, ReportIndicatorValues>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, ReportIndicatorValues> eldest) {
+            return size() > MAX_CACHED_REPORTS;
+        }
+    };
+
+    private ReportIndicatorValuesReader() {
+    }
+
+    private static JAXBContext getJaxbContext() throws JAXBException {
+        if (jaxbContext == null) {
+            synchronized (ReportIndicatorValuesReader.class) {
+                if (jaxbContext == null) {
+                    jaxbContext = JAXBContext.newInstance(ReportIndicatorValues.class);
+                }
+            }
+        }
+        return jaxbContext;
+    }
+
+    /**
+     * @return the values of the generated report, from the cache when this version of the generation was already read
+     */
+    public static ReportIndicatorValues read(ReportingReportGeneration generation) throws JAXBException {
+        String key = getVersionKey(generation);
+        synchronized (cache) {
+            ReportIndicatorValues values = cache.get(key);
+            if (values != null) {
+                return values;
+            }
+        }
+
+        ReportIndicatorValues values = parse(generation.getContentGenerated());
+
+        if (key != null) {
+            synchronized (cache) {
+                cache.put(key, values);
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Parses the content of a generated report, without cache. The content is either in the compact
+     * format of {@link ReportIndicatorValuesCodec} or in the XML format of the older generations.
+     */
+    public static ReportIndicatorValues parse(byte[] content) throws JAXBException {
+        if (ReportIndicatorValuesCodec.isEncoded(content)) {
+            return ReportIndicatorValuesCodec.decode(content);
+        }
+        // Unmarshallers are not thread safe, the context is
+        Unmarshaller unmarshaller = getJaxbContext().createUnmarshaller();
+        return (ReportIndicatorValues) unmarshaller.unmarshal(new ByteArrayInputStream(content));
+    }
+
+    /**
+     * Drops the cached values of a generation, when it is removed
+     */
+    public static void evict(Integer generationId) {
+        String prefix = generationId + ":";
+        synchronized (cache) {
+            Iterator<String> iterator = cache.keySet().iterator();
+            while (iterator.hasNext()) {
+                if (iterator.next().startsWith(prefix)) {
+                    iterator.remove();
+                }
+            }
+        }
+    }
+
+    private static String getVersionKey(ReportingReportGeneration generation) {
+        if (generation.getGenerationId() == null || generation.getContentId() == null) {
+            return null;
+        }
+        // Each new content of a generation has a new id, the content is not loaded on a cache hit
+        Date dateChanged = generation.getDateChanged() != null ? generation.getDateChanged() : generation.getGenerationDate();
+        return generation.getGenerationId() + ":" + (dateChanged != null ? dateChanged.getTime() : 0) + ":"
+                + generation.getContentId();
+    }
+}
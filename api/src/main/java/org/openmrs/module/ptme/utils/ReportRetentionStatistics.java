@@ -0,0 +1,67 @@
+package org.openmrs.module.ptme.utils;
+
+import java.io.Serializable;
+import java.util.Date;
+
+/**
+ * Outcome of the sweeps deleting the expired unsaved generated reports, as seen when it was requested
+ */
+public class ReportRetentionStatistics implements Serializable {
+    private Date lastSweepDate;
+    private int lastPurgedCount;
+    private long lastSweepDurationMillis;
+    private String lastError;
+    private long totalPurgedCount;
+    private long sweepCount;
+
+    public ReportRetentionStatistics() {
+    }
+
+    public Date getLastSweepDate() {
+        return lastSweepDate;
+    }
+
+    public void setLastSweepDate(Date lastSweepDate) {
+        this.lastSweepDate = lastSweepDate;
+    }
+
+    public int getLastPurgedCount() {
+        return lastPurgedCount;
+    }
+
+    public void setLastPurgedCount(int lastPurgedCount) {
+        this.lastPurgedCount = lastPurgedCount;
+    }
+
+    public long getLastSweepDurationMillis() {
+        return lastSweepDurationMillis;
+    }
+
+    public void setLastSweepDurationMillis(long lastSweepDurationMillis) {
+        this.lastSweepDurationMillis = lastSweepDurationMillis;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    public void setLastError(String lastError) {
+        this.lastError = lastError;
+    }
+
+    public long getTotalPurgedCount() {
+        return totalPurgedCount;
+    }
+
+    public void setTotalPurgedCount(long totalPurgedCount) {
+        this.totalPurgedCount = totalPurgedCount;
+    }
+
+    public long getSweepCount() {
+        return sweepCount;
+    }
+
+    public void setSweepCount(long sweepCount) {
+        this.sweepCount = sweepCount;
+    }
+}
@@ -8,23 +8,16 @@ import org.w3c.dom.NodeList;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import java.io.ByteArrayInputStream;
-import java.text.DateFormat;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
 import java.util.Calendar;
 import java.util.Date;
 
 public class UsefullFunction {
-    public static Date formatDateToyyyyMMdd(Date d){
-        try {
-            DateFormat formatter = new SimpleDateFormat("yyyy-MM-dd");
-            //noinspection UnnecessaryLocalVariable
-            Date ddf = formatter.parse(formatter.format(d));
-            return ddf;
-        } catch (ParseException e) {
-            e.printStackTrace();
-        }
-        return d;
+    /**
+     * @deprecated use {@link PtmeDateUtils#startOfDay(Date)}
+     */
+    @Deprecated
+    public static Date formatDateToyyyyMMdd(Date d) {
+        return PtmeDateUtils.startOfDay(d);
     }
 
     //Convert Calendar to Date
@@ -32,16 +25,12 @@ public class UsefullFunction {
         return calendar.getTime();
     }
 
-    public static Date formatDateToddMMyyyy(Date d){
-        try {
-            DateFormat formatter = new SimpleDateFormat("dd/MM/yyyy");
-            //noinspection UnnecessaryLocalVariable
-            Date ddf = formatter.parse(formatter.format(d));
-            return ddf;
-        } catch (ParseException e) {
-            e.printStackTrace();
-        }
-        return d;
+    /**
+     * @deprecated use {@link PtmeDateUtils#startOfDay(Date)}
+     */
+    @Deprecated
+    public static Date formatDateToddMMyyyy(Date d) {
+        return PtmeDateUtils.startOfDay(d);
     }
 
     public static Date getFirstDateOfMonth(Date date){
@@ -51,51 +40,37 @@ public class UsefullFunction {
         return cal.getTime();
     }
 
+    /**
+     * @deprecated use {@link PtmeDateUtils#startOfDay(Date)}
+     */
+    @Deprecated
     public static String formatDateToyyyyMMddString(Date d) {
-        try {
-            DateFormat formatter = new SimpleDateFormat("yyyy-MM-dd");
-            Date ddf = formatter.parse(formatter.format(d));
-            return ddf.toString();
-        } catch (ParseException e) {
-            e.printStackTrace();
-        }
-        return d.toString();
+        return String.valueOf(PtmeDateUtils.startOfDay(d));
     }
 
-    public static Date formatDateToddMMyyyyhms(Date d){
-        try {
-            DateFormat formatter = new SimpleDateFormat("dd/MM/yyyy HH:mm:ss");
-            //noinspection UnnecessaryLocalVariable
-            Date ddf = formatter.parse(formatter.format(d));
-            return ddf;
-        } catch (ParseException e) {
-            e.printStackTrace();
-        }
-        return d;
+    /**
+     * @deprecated use {@link PtmeDateUtils#truncateToSecond(Date)}
+     */
+    @Deprecated
+    public static Date formatDateToddMMyyyyhms(Date d) {
+        return PtmeDateUtils.truncateToSecond(d);
     }
 
-    public static Date formatDateToddMMyyyyhmsStart(Date d){
-        try {
-            DateFormat formatter = new SimpleDateFormat("dd/MM/yyyy 00:00:00");
-            //noinspection UnnecessaryLocalVariable
-            Date ddf = formatter.parse(formatter.format(d));
-            return ddf;
-        } catch (ParseException e) {
-            e.printStackTrace();
-        }
-        return d;
+    /**
+     * @deprecated use {@link PtmeDateUtils#startOfDay(Date)}
+     */
+    @Deprecated
+    public static Date formatDateToddMMyyyyhmsStart(Date d) {
+        return PtmeDateUtils.startOfDay(d);
     }
 
-    public static Date formatDateToddMMyyyyhmsEnd(Date d){
-        try {
-            DateFormat formatter = new SimpleDateFormat("dd/MM/yyyy 23:59:59");
-            //noinspection UnnecessaryLocalVariable
-            Date ddf = formatter.parse(formatter.format(d));
-            return ddf;
-        } catch (ParseException e) {
-            e.printStackTrace();
-        }
-        return d;
+    /**
+     * @deprecated use {@link PtmeDateUtils#startOfDay(Date, int)} with an exclusive upper bound
+     */
+    @Deprecated
+    public static Date formatDateToddMMyyyyhmsEnd(Date d) {
+        Date nextDay = PtmeDateUtils.startOfDay(d, 1);
+        return nextDay != null ? new Date(nextDay.getTime() - 1000L) : null;
     }
 
     public static Document obtenerDocumentDeByte(byte[] documentoXml) throws Exception {
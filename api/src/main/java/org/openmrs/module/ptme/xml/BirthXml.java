@@ -6,23 +6,19 @@ import com.thoughtworks.xstream.converters.UnmarshallingContext;
 import com.thoughtworks.xstream.io.HierarchicalStreamReader;
 import com.thoughtworks.xstream.io.HierarchicalStreamWriter;
 import org.openmrs.module.ptme.Birth;
-
-import java.text.SimpleDateFormat;
+import org.openmrs.module.ptme.utils.PtmeDateUtils;
 
 public class BirthXml implements Converter {
 
-    private static SimpleDateFormat dateFormatter = new SimpleDateFormat(
-            "yyyy-MM-dd");
-
     @Override
     public void marshal(Object value, HierarchicalStreamWriter writer, MarshallingContext context) {
         Birth birth = (Birth) value;
-        addOptionalElement(writer, "deliveryDate", dateFormatter.format(birth.getDeliveryDate()));
+        addOptionalElement(writer, "deliveryDate", PtmeDateUtils.format(birth.getDeliveryDate(), PtmeDateUtils.ISO_DATE));
         addOptionalElement(writer, "homeBirth", nullSafeString(birth.getHomeBirth()));
         addOptionalElement(writer, "pregnancyIssue", nullSafeString(birth.getPregnancyIssue()));
         addOptionalElement(writer, "childState", nullSafeString(birth.getChildState()));
 
-//        writer.addAttribute("deliveryDate", dateFormatter.format(birth.getDeliveryDate()));
+//        writer.addAttribute("deliveryDate", PtmeDateUtils.format(birth.getDeliveryDate(), PtmeDateUtils.ISO_DATE));
 //        writer.addAttribute("homeBirth", nullSafeString(birth.getHomeBirth()));
 //        writer.addAttribute("pregnancyIssue", nullSafeString(birth.getPregnancyIssue()));
 //        writer.addAttribute("childState", nullSafeString(birth.getChildState()));
@@ -6,14 +6,10 @@ import com.thoughtworks.xstream.converters.UnmarshallingContext;
 import com.thoughtworks.xstream.io.HierarchicalStreamReader;
 import com.thoughtworks.xstream.io.HierarchicalStreamWriter;
 import org.openmrs.module.ptme.ChildFollowupVisit;
-
-import java.text.SimpleDateFormat;
+import org.openmrs.module.ptme.utils.PtmeDateUtils;
 
 public class ChildFollowupVisitXml implements Converter {
 
-    private static SimpleDateFormat dateFormatter = new SimpleDateFormat(
-            "yyyy-MM-dd");
-
     @Override
     public void marshal(Object value, HierarchicalStreamWriter writer, MarshallingContext context) {
         ChildFollowupVisit cfv = (ChildFollowupVisit) value;
@@ -22,14 +18,14 @@ public class ChildFollowupVisitXml implements Converter {
         if (cfv.isVoided()) {
             writer.addAttribute("voided", "1");
         }
-        addOptionalElement(writer, "visitDate", dateFormatter.format(cfv.getVisitDate()));
+        addOptionalElement(writer, "visitDate", PtmeDateUtils.format(cfv.getVisitDate(), PtmeDateUtils.ISO_DATE));
         addOptionalElement(writer, "modernContraceptiveMethod", cfv.getModernContraceptiveMethod().toString());
         addOptionalElement(writer, "ageInDay", nullSafeString(cfv.getAgeInDay()));
         addOptionalElement(writer, "ageInWeek", nullSafeString(cfv.getAgeInWeek()));
         addOptionalElement(writer, "ageInMonth", nullSafeString(cfv.getAgeInMonth()));
         addOptionalElement(writer, "continuingCtx", nullSafeString(cfv.getContinuingCtx()));
         addOptionalElement(writer, "continuingInh", nullSafeString(cfv.getContinuingInh()));
-        //writer.addAttribute("visitDate", dateFormatter.format(cfv.getVisitDate()));
+        //writer.addAttribute("visitDate", PtmeDateUtils.format(cfv.getVisitDate(), PtmeDateUtils.ISO_DATE));
 //        writer.addAttribute("modernContraceptiveMethod", cfv.getModernContraceptiveMethod().toString());
 //        writer.addAttribute("ageInDay", nullSafeString(cfv.getAgeInDay()));
 //        writer.addAttribute("ageInMonth", nullSafeString(cfv.getAgeInMonth()));
@@ -7,17 +7,13 @@ import com.thoughtworks.xstream.io.HierarchicalStreamReader;
 import com.thoughtworks.xstream.io.HierarchicalStreamWriter;
 import org.openmrs.module.ptme.Child;
 import org.openmrs.module.ptme.ChildFollowupVisit;
-
-import java.text.SimpleDateFormat;
+import org.openmrs.module.ptme.utils.PtmeDateUtils;
 
 public class ChildXml implements Converter {
 
     /**
      * All dates are reported in YYYY-MM-DD format
      */
-    private static SimpleDateFormat dateFormatter = new SimpleDateFormat(
-            "yyyy-MM-dd");
-
     @Override
     public void marshal(Object value, HierarchicalStreamWriter writer, MarshallingContext context) {
         Child child = (Child) value;
@@ -25,7 +21,7 @@ public class ChildXml implements Converter {
         writer.addAttribute("uuid", child.getUuid());
 
         addOptionalElement(writer,"childFollowupNumber", child.getChildFollowupNumber());
-        addOptionalElement(writer,"birthDate", dateFormatter.format(child.getBirthDate()));
+        addOptionalElement(writer,"birthDate", PtmeDateUtils.format(child.getBirthDate(), PtmeDateUtils.ISO_DATE));
         addOptionalElement(writer,"gender", child.getGender());
         addOptionalElement(writer,"familyName", child.getFamilyName());
         addOptionalElement(writer,"givenName", child.getGivenName());
@@ -9,17 +9,13 @@ import org.openmrs.Location;
 import org.openmrs.module.ptme.Consultation;
 import org.openmrs.module.ptme.HivService;
 import org.openmrs.module.ptme.PregnantPatient;
-
-import java.text.SimpleDateFormat;
+import org.openmrs.module.ptme.utils.PtmeDateUtils;
 
 public class ConsultationXml implements Converter {
 
     /**
      * All dates are reported in YYYY-MM-DD format
      */
-    private static SimpleDateFormat dateFormatter = new SimpleDateFormat(
-            "yyyy-MM-dd");
-
     @Override
     public void marshal(Object value, HierarchicalStreamWriter writer, MarshallingContext context) {
         Consultation consultation = (Consultation) value;
@@ -29,14 +25,14 @@ public class ConsultationXml implements Converter {
         }
 
         writer.startNode("consultationDate");
-        writer.setValue(dateFormatter.format(consultation.getConsultationDate()));
+        writer.setValue(PtmeDateUtils.format(consultation.getConsultationDate(), PtmeDateUtils.ISO_DATE));
         writer.endNode();
 
         writer.startNode("pregnantPatient");
         writer.setValue(consultation.getPregnantPatient().getUuid());
         writer.endNode();
 
-        //writer.addAttribute("consultationDate", dateFormatter.format(consultation.getConsultationDate()));
+        //writer.addAttribute("consultationDate", PtmeDateUtils.format(consultation.getConsultationDate(), PtmeDateUtils.ISO_DATE));
 
         //if (consultation.getPregnantPatient() != null) {
 //            writer.startNode("pregnantPatient");
@@ -7,8 +7,6 @@ import com.thoughtworks.xstream.io.HierarchicalStreamReader;
 import com.thoughtworks.xstream.io.HierarchicalStreamWriter;
 import org.openmrs.module.ptme.HivService;
 
-import java.text.SimpleDateFormat;
-
 public class HivServiceXml implements Converter {
 
     @Override
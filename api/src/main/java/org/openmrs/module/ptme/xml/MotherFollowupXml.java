@@ -7,14 +7,10 @@ import com.thoughtworks.xstream.io.HierarchicalStreamReader;
 import com.thoughtworks.xstream.io.HierarchicalStreamWriter;
 import org.openmrs.module.ptme.MotherFollowup;
 import org.openmrs.module.ptme.MotherFollowupVisit;
-
-import java.text.SimpleDateFormat;
+import org.openmrs.module.ptme.utils.PtmeDateUtils;
 
 public class MotherFollowupXml implements Converter {
 
-    private static SimpleDateFormat dateFormatter = new SimpleDateFormat(
-            "yyyy-MM-dd");
-
     @Override
     public void marshal(Object value, HierarchicalStreamWriter writer, MarshallingContext context) {
         MotherFollowup mf = (MotherFollowup) value;
@@ -23,12 +19,12 @@ public class MotherFollowupXml implements Converter {
             writer.addAttribute("voided", "1");
         }
 
-        addOptionalElement(writer,"visitDate", dateFormatter.format(mf.getStartDate()));
-        addOptionalElement(writer,"endDate", dateFormatter.format(mf.getEndDate()));
+        addOptionalElement(writer,"visitDate", PtmeDateUtils.format(mf.getStartDate(), PtmeDateUtils.ISO_DATE));
+        addOptionalElement(writer,"endDate", PtmeDateUtils.format(mf.getEndDate(), PtmeDateUtils.ISO_DATE));
         addOptionalElement(writer,"arvStatusAtRegistering", nullSafeString(mf.getArvStatusAtRegistering()));
-        addOptionalElement(writer,"estimatedDeliveryDate", nullSafeString(dateFormatter.format(mf.getEstimatedDeliveryDate())));
+        addOptionalElement(writer,"estimatedDeliveryDate", nullSafeString(PtmeDateUtils.format(mf.getEstimatedDeliveryDate(), PtmeDateUtils.ISO_DATE)));
         addOptionalElement(writer,"spousalScreeningResult", nullSafeString(mf.getSpousalScreeningResult()));
-        addOptionalElement(writer,"spousalScreeningDate", nullSafeString(dateFormatter.format(mf.getSpousalScreeningDate())));
+        addOptionalElement(writer,"spousalScreeningDate", nullSafeString(PtmeDateUtils.format(mf.getSpousalScreeningDate(), PtmeDateUtils.ISO_DATE)));
         addOptionalElement(writer,"pregnancyOutcome", nullSafeString(mf.getPregnancyOutcome()));
         addOptionalElement(writer,"deliveryType", nullSafeString(mf.getDeliveryType()));
         addOptionalElement(writer,"pregnantPatient", nullSafeString(mf.getPregnantPatient().getUuid()));
@@ -40,7 +36,7 @@ public class MotherFollowupXml implements Converter {
             for (MotherFollowupVisit mfv : mf.getMotherFollowupVisits()) {
                 writer.startNode("motherFollowupVisit");
                 writer.addAttribute("uuid", mfv.getUuid());
-                writer.addAttribute("visitDate", dateFormatter.format(mfv.getVisitDate()));
+                writer.addAttribute("visitDate", PtmeDateUtils.format(mfv.getVisitDate(), PtmeDateUtils.ISO_DATE));
                 writer.addAttribute("gestationalAge", nullSafeString(mfv.getGestationalAge()));
                 writer.addAttribute("continuingArv", nullSafeString(mfv.getContinuingArv()));
                 writer.addAttribute("continuingCtx", nullSafeString(mfv.getContinuingCtx()));
@@ -9,23 +9,19 @@ import org.openmrs.Patient;
 import org.openmrs.PatientIdentifier;
 import org.openmrs.PersonAddress;
 import org.openmrs.PersonName;
-
-import java.text.SimpleDateFormat;
+import org.openmrs.module.ptme.utils.PtmeDateUtils;
 
 public class PatientXml implements Converter {
 
     /**
      * All dates are reported in YYYY-MM-DD format
      */
-    private static SimpleDateFormat dateFormatter = new SimpleDateFormat(
-            "yyyy-MM-dd");
-
     @Override
     public void marshal(Object value, HierarchicalStreamWriter writer, MarshallingContext context) {
         Patient patient = (Patient) value;
 
         if (patient.getBirthdate() != null)
-            writer.addAttribute("birthdate", dateFormatter.format(patient.getBirthdate()));
+            writer.addAttribute("birthdate", PtmeDateUtils.format(patient.getBirthdate(), PtmeDateUtils.ISO_DATE));
         writer.addAttribute("birthdateEstimated", nullSafeString(patient.getBirthdateEstimated()));
         writer.addAttribute("gender", patient.getGender());
         writer.addAttribute("uuid", patient.getUuid());
@@ -7,13 +7,8 @@ import com.thoughtworks.xstream.io.HierarchicalStreamReader;
 import com.thoughtworks.xstream.io.HierarchicalStreamWriter;
 import org.openmrs.module.ptme.Postnatal;
 
-import java.text.SimpleDateFormat;
-
 public class PostnatalXml implements Converter {
 
-    private static SimpleDateFormat dateFormatter = new SimpleDateFormat(
-            "yyyy-MM-dd");
-
     @Override
     public void marshal(Object value, HierarchicalStreamWriter writer, MarshallingContext context) {
         Postnatal postnatal = (Postnatal) value;
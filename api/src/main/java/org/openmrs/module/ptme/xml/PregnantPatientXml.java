@@ -9,12 +9,8 @@ import org.openmrs.Location;
 import org.openmrs.Patient;
 import org.openmrs.module.ptme.PregnantPatient;
 
-import java.text.SimpleDateFormat;
-
 public class PregnantPatientXml implements Converter {
 
-    private static SimpleDateFormat dateFormatter = new SimpleDateFormat("yyyy-MM-dd");
-
     @Override
     public void marshal(Object o, HierarchicalStreamWriter writer, MarshallingContext context) {
         PregnantPatient pregnantPatient = (PregnantPatient) o;
@@ -6,14 +6,10 @@ import com.thoughtworks.xstream.converters.UnmarshallingContext;
 import com.thoughtworks.xstream.io.HierarchicalStreamReader;
 import com.thoughtworks.xstream.io.HierarchicalStreamWriter;
 import org.openmrs.module.ptme.Prenatal;
-
-import java.text.SimpleDateFormat;
+import org.openmrs.module.ptme.utils.PtmeDateUtils;
 
 public class PrenatalXml implements Converter {
 
-    private static SimpleDateFormat dateFormatter = new SimpleDateFormat(
-            "yyyy-MM-dd");
-
     @Override
     public void marshal(Object value, HierarchicalStreamWriter writer, MarshallingContext context) {
         Prenatal prenatal = (Prenatal) value;
@@ -21,7 +17,7 @@ public class PrenatalXml implements Converter {
         addOptionalElement(writer, "weekOfAmenorrhea", nullSafeString(prenatal.getWeekOfAmenorrhea()));
         addOptionalElement(writer, "spousalScreening", nullSafeString(prenatal.getSpousalScreening()));
         addOptionalElement(writer, "spousalScreeningResult", nullSafeString(prenatal.getSpousalScreeningResult()));
-        addOptionalElement(writer, "appointmentDate", dateFormatter.format(prenatal.getAppointmentDate()));
+        addOptionalElement(writer, "appointmentDate", PtmeDateUtils.format(prenatal.getAppointmentDate(), PtmeDateUtils.ISO_DATE));
 
         ConsultationXml consultationXml = new ConsultationXml();
         writer.startNode("consultation");
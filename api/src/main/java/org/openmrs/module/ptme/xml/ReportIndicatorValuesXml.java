@@ -8,20 +8,16 @@ import com.thoughtworks.xstream.io.HierarchicalStreamWriter;
 import org.openmrs.module.ptme.utils.ReportDataSetIndicatorRun;
 import org.openmrs.module.ptme.utils.ReportIndicatorValues;
 import org.openmrs.module.ptme.utils.ReportRunIndicatorValue;
-
-import java.text.SimpleDateFormat;
+import org.openmrs.module.ptme.utils.PtmeDateUtils;
 
 public class ReportIndicatorValuesXml implements Converter {
 
-    private static SimpleDateFormat dateFormatter = new SimpleDateFormat(
-            "yyyy-MM-dd");
-
     @Override
     public void marshal(Object value, HierarchicalStreamWriter writer, MarshallingContext context) {
         ReportIndicatorValues riv = (ReportIndicatorValues) value;
-        writer.addAttribute("startDate", nullSafeString(dateFormatter.format(riv.getReportStartDate())));
-        writer.addAttribute("endDate", nullSafeString(dateFormatter.format(riv.getReportEndDate())));
-        writer.addAttribute("generationDate", nullSafeString(dateFormatter.format(riv.getGenerationDate())));
+        writer.addAttribute("startDate", nullSafeString(PtmeDateUtils.format(riv.getReportStartDate(), PtmeDateUtils.ISO_DATE)));
+        writer.addAttribute("endDate", nullSafeString(PtmeDateUtils.format(riv.getReportEndDate(), PtmeDateUtils.ISO_DATE)));
+        writer.addAttribute("generationDate", nullSafeString(PtmeDateUtils.format(riv.getGenerationDate(), PtmeDateUtils.ISO_DATE)));
         writer.addAttribute("location", nullSafeString(riv.getLocationUuid()));
 
         if (!riv.getReportDataSetIndicatorRuns().isEmpty()) {
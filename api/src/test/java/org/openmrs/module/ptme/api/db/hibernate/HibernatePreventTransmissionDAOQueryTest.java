@@ -0,0 +1,246 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License
+ * Version 1.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * Copyright (C) OpenMRS, LLC.  All Rights Reserved.
+ */
+package org.openmrs.module.ptme.api.db.hibernate;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import org.junit.Test;
+
+/**
+ * Checks that the queries of {@link HibernatePreventTransmissionDAO}, {@link IndicatorExecutionEngine},
+ * {@link IndicatorQueryFuser} and every other source of the db package receive their values as bind
+ * parameters, so that their plans and prepared statements are reused.
+ * <p>
+ * The sources are read as a stream of tokens without the comments, so that a concatenation split
+ * over several lines or written with StringBuilder.append is seen as a whole. Literals concatenated
+ * together are merged first. A value is reported when it is appended after a literal holding SQL
+ * which ends where a value is expected (comparison, LIKE, IN, BETWEEN, LIMIT, OFFSET, VALUES, quote),
+ * or when it is followed by a literal starting with a quote.
+ */
+public class HibernatePreventTransmissionDAOQueryTest {
+
+	private static final String DB_SOURCES = "src/main/java/org/openmrs/module/ptme/api/db";
+
+	private static final Pattern SQL_TEXT = Pattern.compile(
+			"\\b(SELECT|FROM|WHERE|AND|OR|SET|JOIN|ON|HAVING|LIKE|IN|BETWEEN|LIMIT|OFFSET|VALUES|UPDATE|DELETE|INSERT)\\b",
+			Pattern.CASE_INSENSITIVE);
+
+	private static final Pattern EXPECTS_VALUE = Pattern.compile(
+			"(=|<>|!=|<|>|\\bLIKE|\\bIN\\s*\\(|\\bBETWEEN|\\bBETWEEN\\s+\\S+\\s+AND|\\bLIMIT|\\bOFFSET|\\bVALUES\\s*\\(|,\\s*'|')\\s*$",
+			Pattern.CASE_INSENSITIVE);
+
+	@Test
+	public void shouldBindEveryValueOfTheDbQueries() throws Exception {
+		File directory = new File(DB_SOURCES);
+		assertTrue("Sources not found : " + directory.getAbsolutePath(), directory.isDirectory());
+
+		List<File> sources = new ArrayList<File>();
+		collectSources(directory, sources);
+		List<String> names = new ArrayList<String>();
+		for (File source : sources) {
+			names.add(source.getName());
+		}
+		assertTrue(names.containsAll(Arrays.asList("PreventTransmissionDAO.java", "HibernatePreventTransmissionDAO.java",
+				"IndicatorExecutionEngine.java", "IndicatorQueryFuser.java")));
+
+		List<String> offendingConcatenations = new ArrayList<String>();
+		for (File source : sources) {
+			String code = new String(Files.readAllBytes(source.toPath()), Charset.forName("UTF-8"));
+			for (String concatenation : findConcatenatedValues(code)) {
+				offendingConcatenations.add(source.getName() + ": " + concatenation);
+			}
+		}
+		assertTrue("Values concatenated into queries, use bind parameters instead :\n" + offendingConcatenations,
+				offendingConcatenations.isEmpty());
+	}
+
+	@Test
+	public void findConcatenatedValues_shouldReportTheValuesAppendedToTheQueries() {
+		assertEquals(1, findConcatenatedValues("q = \"SELECT * FROM ptme_child LIMIT \" + n;").size());
+		assertEquals(1, findConcatenatedValues("q = \"SELECT * FROM ptme_child c WHERE c.child_id = \" + childId;").size());
+		assertEquals(1, findConcatenatedValues("q = \"SELECT * FROM ptme_child c WHERE c.code LIKE '\" + code + \"%'\";").size());
+		assertEquals(1, findConcatenatedValues("q = \"SELECT * FROM ptme_child c WHERE c.child_id IN (\" + ids + \")\";").size());
+		assertEquals(1, findConcatenatedValues("q = \"WHERE c.birth_date BETWEEN :startDate AND \" + endDate;").size());
+		assertEquals(1, findConcatenatedValues("q = \"SELECT * FROM ptme_child \" +\n\t\t\"LIMIT \"\n\t\t+ n;").size());
+		assertEquals(1, findConcatenatedValues("q = \"SELECT * FROM ptme_child c \" +\n\"WHERE c.child_id =\" + // id\n childId;").size());
+		assertEquals(1, findConcatenatedValues("sql.append(\"SELECT * FROM ptme_child LIMIT \").append(n);").size());
+		assertEquals(2, findConcatenatedValues("q = \"SELECT * FROM ptme_child c WHERE c.code = '\" + code + \"'\";").size());
+	}
+
+	@Test
+	public void findConcatenatedValues_shouldIgnoreTheIdentifiersAndTheOtherStrings() {
+		assertTrue(findConcatenatedValues("q = \"SELECT e.uuid FROM \" + entityName + \" e WHERE e.uuid IN (:uuids)\";").isEmpty());
+		assertTrue(findConcatenatedValues("q = sqlQuery + \" AND pmf.start_date = :startDate\";").isEmpty());
+		assertTrue(findConcatenatedValues("key = sides[0] + \"=\" + sides[1];").isEmpty());
+		assertTrue(findConcatenatedValues("throw new APIException(\"Unknown register : \" + register);").isEmpty());
+		assertTrue(findConcatenatedValues("q = \"WHERE c.birth_date = \" + \":startDate\";").isEmpty());
+		assertTrue(findConcatenatedValues("// q = \"LIMIT \" + n;\n/* \"LIMIT \" + n */").isEmpty());
+		assertTrue(findConcatenatedValues("q = \"text with a \\\" quote = \" + \"LIMIT :n\";").isEmpty());
+	}
+
+	private static void collectSources(File directory, List<File> sources) {
+		File[] files = directory.listFiles();
+		if (files == null) {
+			return;
+		}
+		Arrays.sort(files);
+		for (File file : files) {
+			if (file.isDirectory()) {
+				collectSources(file, sources);
+			} else if (file.getName().endsWith(".java")) {
+				sources.add(file);
+			}
+		}
+	}
+
+	/**
+	 * @return the concatenations of the code putting a value into the text of a query
+	 */
+	static List<String> findConcatenatedValues(String code) {
+		List<Token> tokens = mergeLiterals(tokenize(code));
+		List<String> concatenations = new ArrayList<String>();
+		for (int i = 0; i < tokens.size(); i++) {
+			Token literal = tokens.get(i);
+			if (!literal.literal) {
+				continue;
+			}
+			Token next = nextOperand(tokens, i);
+			if (next != null && !next.literal && SQL_TEXT.matcher(literal.text).find()
+					&& EXPECTS_VALUE.matcher(literal.text).find()) {
+				concatenations.add("\"" + literal.text + "\" + " + next.text);
+			}
+			Token previous = previousOperand(tokens, i);
+			if (previous != null && !previous.literal && literal.text.startsWith("'")) {
+				concatenations.add(previous.text + " + \"" + literal.text + "\"");
+			}
+		}
+		return concatenations;
+	}
+
+	/**
+	 * @return the operand added after the literal at the index, with + or .append, null if none
+	 */
+	private static Token nextOperand(List<Token> tokens, int index) {
+		if (isText(tokens, index + 1, "+")) {
+			return index + 2 < tokens.size() ? tokens.get(index + 2) : null;
+		}
+		if (isText(tokens, index + 1, ")") && isText(tokens, index + 2, ".") && isText(tokens, index + 3, "append")
+				&& isText(tokens, index + 4, "(")) {
+			return index + 5 < tokens.size() ? tokens.get(index + 5) : null;
+		}
+		return null;
+	}
+
+	/**
+	 * @return the operand added before the literal at the index, with + or .append, null if none
+	 */
+	private static Token previousOperand(List<Token> tokens, int index) {
+		if (isText(tokens, index - 1, "+")) {
+			return index - 2 >= 0 ? tokens.get(index - 2) : null;
+		}
+		if (isText(tokens, index - 1, "(") && isText(tokens, index - 2, "append") && isText(tokens, index - 3, ".")
+				&& isText(tokens, index - 4, ")")) {
+			return index - 5 >= 0 ? tokens.get(index - 5) : null;
+		}
+		return null;
+	}
+
+	private static boolean isText(List<Token> tokens, int index, String text) {
+		return index >= 0 && index < tokens.size() && !tokens.get(index).literal && tokens.get(index).text.equals(text);
+	}
+
+	/**
+	 * "a" + "b" becomes "ab", so that a query written over several lines is checked as a whole
+	 */
+	private static List<Token> mergeLiterals(List<Token> tokens) {
+		List<Token> merged = new ArrayList<Token>();
+		for (int i = 0; i < tokens.size(); i++) {
+			Token token = tokens.get(i);
+			int size = merged.size();
+			if (token.literal && size >= 2 && merged.get(size - 2).literal && isText(merged, size - 1, "+")
+					&& !isText(tokens, i + 1, ".")) {
+				Token previous = merged.remove(size - 2);
+				merged.remove(size - 2);
+				merged.add(new Token(previous.text + token.text, true));
+			} else {
+				merged.add(token);
+			}
+		}
+		return merged;
+	}
+
+	/**
+	 * Splits the code in string literals, identifiers and single characters, without the comments
+	 * and the white spaces
+	 */
+	private static List<Token> tokenize(String code) {
+		List<Token> tokens = new ArrayList<Token>();
+		int i = 0;
+		while (i < code.length()) {
+			char c = code.charAt(i);
+			if (Character.isWhitespace(c)) {
+				i++;
+			} else if (code.startsWith("//", i)) {
+				int end = code.indexOf('\n', i);
+				i = end < 0 ? code.length() : end + 1;
+			} else if (code.startsWith("/*", i)) {
+				int end = code.indexOf("*/", i + 2);
+				i = end < 0 ? code.length() : end + 2;
+			} else if (c == '"' || c == '\'') {
+				StringBuilder text = new StringBuilder();
+				int j = i + 1;
+				while (j < code.length() && code.charAt(j) != c) {
+					if (code.charAt(j) == '\\' && j + 1 < code.length()) {
+						j++;
+					}
+					text.append(code.charAt(j));
+					j++;
+				}
+				tokens.add(new Token(c == '"' ? text.toString() : "'" + text + "'", c == '"'));
+				i = j + 1;
+			} else if (Character.isJavaIdentifierPart(c)) {
+				int j = i;
+				while (j < code.length() && Character.isJavaIdentifierPart(code.charAt(j))) {
+					j++;
+				}
+				tokens.add(new Token(code.substring(i, j), false));
+				i = j;
+			} else {
+				tokens.add(new Token(String.valueOf(c), false));
+				i++;
+			}
+		}
+		return tokens;
+	}
+
+	private static class Token {
+
+		private final String text;
+
+		private final boolean literal;
+
+		private Token(String text, boolean literal) {
+			this.text = text;
+			this.literal = literal;
+		}
+	}
+}
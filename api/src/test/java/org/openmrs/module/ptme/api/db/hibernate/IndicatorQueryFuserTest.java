@@ -0,0 +1,170 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License
+ * Version 1.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * Copyright (C) OpenMRS, LLC.  All Rights Reserved.
+ */
+package org.openmrs.module.ptme.api.db.hibernate;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Tests of {@link IndicatorQueryFuser}
+ */
+public class IndicatorQueryFuserTest {
+
+	private static final String CHILD_JOIN = "FROM ptme_child c, ptme_child_followup f WHERE c.child_id = f.child_followup_id "
+			+ "AND f.pcr1_sampling_date BETWEEN :startDate AND :endDate AND c.location_id = :locationId";
+
+	private static final String FUSED_CHILD_JOIN = " FROM ptme_child c, ptme_child_followup f WHERE (c.child_id = f.child_followup_id) "
+			+ "AND (f.pcr1_sampling_date BETWEEN :startDate AND :endDate) AND (c.location_id = :locationId)";
+
+	private final IndicatorQueryFuser fuser = new IndicatorQueryFuser();
+
+	@Test
+	public void fuse_shouldGroupTheScriptsSharingTheBaseJoin() {
+		List<IndicatorQueryFuser.FusedQuery> fusedQueries = fuser.fuse(Arrays.asList(
+				"SELECT COUNT(*) " + CHILD_JOIN + " AND f.pcr1_result = 1",
+				"SELECT COUNT(*) FROM ptme_mother_followup m WHERE m.location_id = :locationId",
+				"select count(*) from ptme_child c,ptme_child_followup f where f.child_followup_id = c.child_id "
+						+ "and c.location_id = :locationId and f.pcr1_sampling_date between :startDate and :endDate "
+						+ "and f.pcr1_result = 0;"));
+
+		assertEquals(1, fusedQueries.size());
+		assertEquals(Arrays.asList(0, 2), fusedQueries.get(0).getMembers());
+		assertEquals("SELECT COALESCE(SUM(CASE WHEN (f.pcr1_result = 1) THEN 1 ELSE 0 END), 0) v0, "
+				+ "COALESCE(SUM(CASE WHEN (f.pcr1_result = 0) THEN 1 ELSE 0 END), 0) v1" + FUSED_CHILD_JOIN,
+				fusedQueries.get(0).getSql());
+	}
+
+	@Test
+	public void fuse_shouldEvaluateTheCommonFiltersOnce() {
+		List<IndicatorQueryFuser.FusedQuery> fusedQueries = fuser.fuse(Arrays.asList(
+				"SELECT COUNT(*) " + CHILD_JOIN + " AND c.gender = 'F' AND f.pcr1_result = 1",
+				"SELECT COUNT(*) " + CHILD_JOIN + " AND c.gender = 'F'"));
+
+		assertEquals(1, fusedQueries.size());
+		assertEquals("SELECT COALESCE(SUM(CASE WHEN (f.pcr1_result = 1) THEN 1 ELSE 0 END), 0) v0, "
+				+ "COALESCE(SUM(CASE WHEN 1 = 1 THEN 1 ELSE 0 END), 0) v1" + FUSED_CHILD_JOIN + " AND (c.gender = 'F')",
+				fusedQueries.get(0).getSql());
+	}
+
+	@Test
+	public void fuse_shouldNotFuseScriptsWithDifferentPeriods() {
+		List<IndicatorQueryFuser.FusedQuery> fusedQueries = fuser.fuse(Arrays.asList(
+				"SELECT COUNT(*) " + CHILD_JOIN,
+				"SELECT COUNT(*) FROM ptme_child c, ptme_child_followup f WHERE c.child_id = f.child_followup_id "
+						+ "AND f.pcr2_sampling_date BETWEEN :startDate AND :endDate AND c.location_id = :locationId"));
+
+		assertTrue(fusedQueries.isEmpty());
+	}
+
+	@Test
+	public void fuse_shouldSplitTheGroupsLargerThanTheMaximum() {
+		fuser.setMaxIndicatorsPerQuery(2);
+		List<IndicatorQueryFuser.FusedQuery> fusedQueries = fuser.fuse(Arrays.asList(
+				"SELECT COUNT(*) " + CHILD_JOIN + " AND f.pcr1_result = 0",
+				"SELECT COUNT(*) " + CHILD_JOIN + " AND f.pcr1_result = 1",
+				"SELECT COUNT(*) " + CHILD_JOIN + " AND f.pcr1_result = 2",
+				"SELECT COUNT(*) " + CHILD_JOIN + " AND f.pcr1_result = 3",
+				"SELECT COUNT(*) " + CHILD_JOIN + " AND f.pcr1_result = 4"));
+
+		assertEquals(2, fusedQueries.size());
+		assertEquals(Arrays.asList(0, 1), fusedQueries.get(0).getMembers());
+		assertEquals(Arrays.asList(2, 3), fusedQueries.get(1).getMembers());
+	}
+
+	@Test
+	public void fuse_shouldCountTheDistinctValuesOfTheMatchingRowsOnly() {
+		List<IndicatorQueryFuser.FusedQuery> fusedQueries = fuser.fuse(Arrays.asList(
+				"SELECT COUNT(DISTINCT c.child_id) " + CHILD_JOIN + " AND f.pcr1_result = 1",
+				"SELECT COUNT(c.child_id) " + CHILD_JOIN + " AND f.pcr1_result = 0"));
+
+		assertEquals(1, fusedQueries.size());
+		assertEquals("SELECT COUNT(DISTINCT CASE WHEN (f.pcr1_result = 1) THEN c.child_id END) v0, "
+				+ "COUNT(CASE WHEN (f.pcr1_result = 0) THEN c.child_id END) v1" + FUSED_CHILD_JOIN,
+				fusedQueries.get(0).getSql());
+	}
+
+	@Test
+	public void fuse_shouldKeepTheFiltersWrittenWithACaseWhole() {
+		String caseFilter = "CASE WHEN f.pcr1_result = 1 AND f.pcr2_result = 1 THEN 1 "
+				+ "ELSE CASE WHEN f.pcr3_result = 1 OR f.arv_prophylaxis = 1 THEN 2 END END = 1";
+		List<IndicatorQueryFuser.FusedQuery> fusedQueries = fuser.fuse(Arrays.asList(
+				"SELECT COUNT(*) " + CHILD_JOIN + " AND " + caseFilter,
+				"SELECT COUNT(*) " + CHILD_JOIN));
+
+		assertEquals(1, fusedQueries.size());
+		assertEquals("SELECT COALESCE(SUM(CASE WHEN (" + caseFilter + ") THEN 1 ELSE 0 END), 0) v0, "
+				+ "COALESCE(SUM(CASE WHEN 1 = 1 THEN 1 ELSE 0 END), 0) v1" + FUSED_CHILD_JOIN,
+				fusedQueries.get(0).getSql());
+	}
+
+	@Test
+	public void fuse_shouldLeaveAloneTheScriptsThatCanNotBeFused() {
+		List<IndicatorQueryFuser.FusedQuery> fusedQueries = fuser.fuse(Arrays.asList(
+				"SELECT COUNT(*) " + CHILD_JOIN + " AND f.pcr1_result = 1",
+				"SELECT COUNT(*) " + CHILD_JOIN + " GROUP BY c.gender",
+				"SELECT COUNT(*) " + CHILD_JOIN + " AND f.pcr1_result = 0"));
+
+		assertEquals(1, fusedQueries.size());
+		assertEquals(Arrays.asList(0, 2), fusedQueries.get(0).getMembers());
+	}
+
+	@Test
+	public void parse_shouldReturnNullForTheScriptsThatCanNotBeFused() {
+		assertNull(fuser.parse(null));
+		assertNull(fuser.parse("SELECT SUM(c.child_id) " + CHILD_JOIN));
+		assertNull(fuser.parse("SELECT COUNT(*), COUNT(c.child_id) " + CHILD_JOIN));
+		assertNull(fuser.parse("SELECT COUNT(*) " + CHILD_JOIN + " GROUP BY c.gender"));
+		assertNull(fuser.parse("SELECT COUNT(*) " + CHILD_JOIN + " HAVING COUNT(*) > 1"));
+		assertNull(fuser.parse("SELECT COUNT(*) " + CHILD_JOIN + " LIMIT 1"));
+		assertNull(fuser.parse("SELECT COUNT(*) " + CHILD_JOIN + " UNION SELECT COUNT(*) FROM ptme_child c"));
+		assertNull(fuser.parse("SELECT COUNT(*) " + CHILD_JOIN + " -- enfants"));
+		assertNull(fuser.parse("SELECT COUNT(*) " + CHILD_JOIN + "; DELETE FROM ptme_child"));
+		assertNull(fuser.parse("SELECT COUNT(*) FROM ptme_child c, ptme_child_followup f WHERE c.location_id = :locationId"));
+		assertNotNull(fuser.parse("SELECT COUNT(*) " + CHILD_JOIN + ";"));
+	}
+
+	@Test
+	public void splitConjuncts_shouldKeepTheAndOfBetween() {
+		assertEquals(Arrays.asList("c.birth_date BETWEEN :startDate AND :endDate", "c.gender = 'F'"),
+				IndicatorQueryFuser.splitConjuncts("c.birth_date BETWEEN :startDate AND :endDate AND c.gender = 'F'"));
+	}
+
+	@Test
+	public void splitConjuncts_shouldKeepAClauseWithATopLevelOrWhole() {
+		assertEquals(Arrays.asList("c.gender = 'F' AND c.location_id = :locationId OR c.child_id = 1"),
+				IndicatorQueryFuser.splitConjuncts("c.gender = 'F' AND c.location_id = :locationId OR c.child_id = 1"));
+		assertEquals(Arrays.asList("c.gender = 'F'", "(c.child_id = 1 OR c.child_id = 2)"),
+				IndicatorQueryFuser.splitConjuncts("c.gender = 'F' AND (c.child_id = 1 OR c.child_id = 2)"));
+	}
+
+	@Test
+	public void splitConjuncts_shouldNotSplitTheOperatorsOfACase() {
+		assertEquals(Arrays.asList(
+				"CASE WHEN c.gender = 'F' AND c.birth_date BETWEEN :startDate AND :endDate THEN 1 "
+						+ "ELSE CASE WHEN c.child_id = 1 OR c.child_id = 2 THEN 2 END END = 1",
+				"c.location_id = :locationId"),
+				IndicatorQueryFuser.splitConjuncts("CASE WHEN c.gender = 'F' AND c.birth_date BETWEEN :startDate AND :endDate THEN 1 "
+						+ "ELSE CASE WHEN c.child_id = 1 OR c.child_id = 2 THEN 2 END END = 1 AND c.location_id = :locationId"));
+	}
+
+	@Test
+	public void splitConjuncts_shouldIgnoreTheKeywordsOfTheLiterals() {
+		assertEquals(Arrays.asList("c.comment = 'case or end'", "c.gender = 'F'"),
+				IndicatorQueryFuser.splitConjuncts("c.comment = 'case or end' AND c.gender = 'F'"));
+	}
+}
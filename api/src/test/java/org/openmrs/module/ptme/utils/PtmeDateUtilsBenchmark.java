@@ -0,0 +1,76 @@
+package org.openmrs.module.ptme.utils;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link PtmeDateUtils} with the format and parse round trips it replaced in
+ * {@link UsefullFunction}. Not run by the build, start it with main() from the test classpath:
+ * the gc.alloc.rate.norm lines of the GC profiler give the bytes allocated by each call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PtmeDateUtilsBenchmark {
+
+    private final Date date = new Date(1571300000123L);
+
+    @Benchmark
+    public Date legacyTruncateToSecond() throws ParseException {
+        SimpleDateFormat formatter = new SimpleDateFormat("dd/MM/yyyy HH:mm:ss");
+        return formatter.parse(formatter.format(date));
+    }
+
+    @Benchmark
+    public Date truncateToSecond() {
+        return PtmeDateUtils.truncateToSecond(date);
+    }
+
+    @Benchmark
+    public Date legacyStartOfDay() throws ParseException {
+        SimpleDateFormat formatter = new SimpleDateFormat("yyyy-MM-dd");
+        return formatter.parse(formatter.format(date));
+    }
+
+    @Benchmark
+    public Date startOfDay() {
+        return PtmeDateUtils.startOfDay(date);
+    }
+
+    @Benchmark
+    public String legacyFormat() {
+        return new SimpleDateFormat("dd/MM/yyyy").format(date);
+    }
+
+    @Benchmark
+    public String format() {
+        return PtmeDateUtils.format(date, PtmeDateUtils.DAY_MONTH_YEAR);
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+                .include(PtmeDateUtilsBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
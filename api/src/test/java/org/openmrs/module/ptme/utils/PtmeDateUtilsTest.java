@@ -0,0 +1,152 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License
+ * Version 1.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * Copyright (C) OpenMRS, LLC.  All Rights Reserved.
+ */
+package org.openmrs.module.ptme.utils;
+
+import static org.junit.Assert.*;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Date;
+import java.util.TimeZone;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests of {@link PtmeDateUtils}. The days are computed in the default time zone, each test sets it
+ * and the original one is restored afterwards.
+ */
+public class PtmeDateUtilsTest {
+
+	private TimeZone defaultTimeZone;
+
+	@Before
+	public void saveDefaultTimeZone() {
+		defaultTimeZone = TimeZone.getDefault();
+	}
+
+	@After
+	public void restoreDefaultTimeZone() {
+		TimeZone.setDefault(defaultTimeZone);
+	}
+
+	@Test
+	public void truncateToSecond_shouldRemoveTheMilliseconds() {
+		assertEquals(new Date(1571300000000L), PtmeDateUtils.truncateToSecond(new Date(1571300000123L)));
+		assertEquals(new Date(1571300000000L), PtmeDateUtils.truncateToSecond(new Date(1571300000999L)));
+		assertEquals(new Date(1571300000000L), PtmeDateUtils.truncateToSecond(new Date(1571300000000L)));
+	}
+
+	@Test
+	public void truncateToSecond_shouldTruncateTheDatesBefore1970TowardsThePast() {
+		assertEquals(new Date(-1000L), PtmeDateUtils.truncateToSecond(new Date(-1L)));
+		assertEquals(new Date(-2000L), PtmeDateUtils.truncateToSecond(new Date(-1001L)));
+	}
+
+	@Test
+	public void truncateToSecond_shouldAcceptTheTimestampsLoadedByHibernate() {
+		Timestamp timestamp = new Timestamp(1571300000000L);
+		timestamp.setNanos(123456789);
+
+		Date truncated = PtmeDateUtils.truncateToSecond(timestamp);
+		assertEquals(Date.class, truncated.getClass());
+		assertEquals(1571300000000L, truncated.getTime());
+	}
+
+	@Test
+	public void truncateToSecond_shouldNotDependOnTheTimeZoneOrTheDaylightSavingTime() {
+		// 02:30:15.500 during the repeated hour of the end of the summer time in Paris
+		Date date = Date.from(Instant.parse("2019-10-27T00:30:15.500Z"));
+		TimeZone.setDefault(TimeZone.getTimeZone("Europe/Paris"));
+		assertEquals(Date.from(Instant.parse("2019-10-27T00:30:15Z")), PtmeDateUtils.truncateToSecond(date));
+
+		date = Date.from(Instant.parse("2019-10-27T01:30:15.500Z"));
+		assertEquals(Date.from(Instant.parse("2019-10-27T01:30:15Z")), PtmeDateUtils.truncateToSecond(date));
+	}
+
+	@Test
+	public void startOfDay_shouldReturnMidnightInTheDefaultTimeZone() {
+		TimeZone.setDefault(TimeZone.getTimeZone("Asia/Kathmandu"));
+		Date date = Date.from(Instant.parse("2019-10-16T20:00:00Z"));
+
+		assertEquals(Date.from(Instant.parse("2019-10-16T18:15:00Z")), PtmeDateUtils.startOfDay(date));
+
+		TimeZone.setDefault(TimeZone.getTimeZone("America/St_Johns"));
+		assertEquals(Date.from(Instant.parse("2019-10-16T02:30:00Z")), PtmeDateUtils.startOfDay(date));
+	}
+
+	@Test
+	public void startOfDay_shouldFollowTheDaylightSavingTimeTransitions() {
+		TimeZone.setDefault(TimeZone.getTimeZone("Europe/Paris"));
+
+		// The summer time starts on 2019-03-31, midnight before is at +01:00 and after at +02:00
+		Date transitionDay = Date.from(Instant.parse("2019-03-31T13:00:00Z"));
+		assertEquals(Date.from(Instant.parse("2019-03-30T23:00:00Z")), PtmeDateUtils.startOfDay(transitionDay));
+		assertEquals(Date.from(Instant.parse("2019-03-31T22:00:00Z")), PtmeDateUtils.startOfDay(transitionDay, 1));
+		assertEquals(Date.from(Instant.parse("2019-03-29T23:00:00Z")), PtmeDateUtils.startOfDay(transitionDay, -1));
+
+		// The summer time ends on 2019-10-27, the day lasts 25 hours
+		Date endOfSummerTime = Date.from(Instant.parse("2019-10-27T00:30:00Z"));
+		assertEquals(Date.from(Instant.parse("2019-10-26T22:00:00Z")), PtmeDateUtils.startOfDay(endOfSummerTime));
+		assertEquals(Date.from(Instant.parse("2019-10-27T23:00:00Z")), PtmeDateUtils.startOfDay(endOfSummerTime, 1));
+	}
+
+	@Test
+	public void startOfDay_shouldReturnTheFirstValidTimeWhenMidnightDoesNotExist() {
+		// The summer time of Sao Paulo started at midnight on 2018-11-04, the day started at 01:00
+		TimeZone.setDefault(TimeZone.getTimeZone("America/Sao_Paulo"));
+		Date date = Date.from(Instant.parse("2018-11-04T15:00:00Z"));
+
+		assertEquals(Date.from(Instant.parse("2018-11-04T03:00:00Z")), PtmeDateUtils.startOfDay(date));
+		assertEquals(Date.from(Instant.parse("2018-11-04T03:00:00Z")),
+				PtmeDateUtils.startOfDay(Date.from(Instant.parse("2018-11-03T15:00:00Z")), 1));
+	}
+
+	@Test
+	public void startOfDay_shouldMoveAcrossMonthsAndYears() {
+		TimeZone.setDefault(TimeZone.getTimeZone("Africa/Abidjan"));
+		Date date = Date.from(Instant.parse("2019-12-31T23:59:59Z"));
+
+		assertEquals(Date.from(Instant.parse("2020-01-01T00:00:00Z")), PtmeDateUtils.startOfDay(date, 1));
+		assertEquals(Date.from(Instant.parse("2020-03-01T00:00:00Z")), PtmeDateUtils.startOfDay(date, 61));
+		assertEquals(Date.from(Instant.parse("2019-11-30T00:00:00Z")), PtmeDateUtils.startOfDay(date, -31));
+	}
+
+	@Test
+	public void format_shouldFormatInTheDefaultTimeZone() {
+		Date date = Date.from(Instant.parse("2019-10-16T20:00:00Z"));
+
+		TimeZone.setDefault(TimeZone.getTimeZone("Asia/Kathmandu"));
+		assertEquals("17/10/2019", PtmeDateUtils.format(date, PtmeDateUtils.DAY_MONTH_YEAR));
+		assertEquals("2019-10-17_014500", PtmeDateUtils.format(date, PtmeDateUtils.FILE_TIMESTAMP));
+
+		TimeZone.setDefault(TimeZone.getTimeZone("Africa/Abidjan"));
+		assertEquals("2019-10-16", PtmeDateUtils.format(date, PtmeDateUtils.ISO_DATE));
+	}
+
+	@Test
+	public void format_shouldAcceptTheSqlDates() {
+		TimeZone.setDefault(TimeZone.getTimeZone("America/St_Johns"));
+		assertEquals("2019-10-17", PtmeDateUtils.format(java.sql.Date.valueOf("2019-10-17"), PtmeDateUtils.ISO_DATE));
+	}
+
+	@Test
+	public void shouldReturnNullForANullDate() {
+		assertNull(PtmeDateUtils.truncateToSecond(null));
+		assertNull(PtmeDateUtils.startOfDay(null));
+		assertNull(PtmeDateUtils.startOfDay(null, 1));
+		assertNull(PtmeDateUtils.format(null, PtmeDateUtils.ISO_DATE));
+	}
+}
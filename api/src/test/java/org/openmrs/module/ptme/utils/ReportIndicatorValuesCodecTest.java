@@ -0,0 +1,206 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License
+ * Version 1.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * Copyright (C) OpenMRS, LLC.  All Rights Reserved.
+ */
+package org.openmrs.module.ptme.utils;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.Marshaller;
+
+import org.junit.Test;
+
+/**
+ * Round trips of {@link ReportIndicatorValuesCodec} and detection of the XML content of the older
+ * generations
+ */
+public class ReportIndicatorValuesCodecTest {
+
+	private static final String LOCATION_UUID = "8d6c993e-c2cc-11de-8d13-0010c6dffd0f";
+
+	private static final String DATASET_UUID = "4c9a1d4e-7a2b-4f0e-9d1c-2b3a4c5d6e7f";
+
+	@Test
+	public void encode_shouldRoundTripTheValues() {
+		ReportIndicatorValues values = newValues(
+				newRun(DATASET_UUID,
+						newValue("a1b2c3d4-e5f6-4a5b-8c9d-0e1f2a3b4c5d", "PTME.01", 12),
+						newValue("b1b2c3d4-e5f6-4a5b-8c9d-0e1f2a3b4c5d", "PTME.02", 0),
+						newValue("c1b2c3d4-e5f6-4a5b-8c9d-0e1f2a3b4c5d", "PTME.03", Integer.MAX_VALUE),
+						newValue("d1b2c3d4-e5f6-4a5b-8c9d-0e1f2a3b4c5d", "PTME.04", -1)));
+
+		assertSameValues(values, roundTrip(values));
+	}
+
+	@Test
+	public void encode_shouldRoundTripTheNullValues() {
+		ReportIndicatorValues values = newValues(
+				newRun(null,
+						newValue(null, null, null),
+						newValue("a1b2c3d4-e5f6-4a5b-8c9d-0e1f2a3b4c5d", "PTME.01", null)));
+		values.setReportStartDate(null);
+		values.setReportEndDate(null);
+		values.setGenerationDate(null);
+		values.setLocationUuid(null);
+
+		assertSameValues(values, roundTrip(values));
+	}
+
+	@Test
+	public void encode_shouldKeepTheIdentifiersThatAreNotCanonicalUuids() {
+		ReportIndicatorValues values = newValues(
+				newRun("dataset-1",
+						newValue("A1B2C3D4-E5F6-4A5B-8C9D-0E1F2A3B4C5D", "PTME.01", 1),
+						newValue("a1b2c3d4e5f64a5b8c9d0e1f2a3b4c5d", "PTME.02", 2),
+						newValue("1-2-3-4-5", "PTME.03", 3),
+						newValue("", "", 4),
+						newValue("indicateur \u00e9", "code sp\u00e9cial", 5)));
+
+		assertSameValues(values, roundTrip(values));
+	}
+
+	@Test
+	public void encode_shouldRoundTripTheEmptyRuns() {
+		ReportIndicatorValues values = newValues(newRun(DATASET_UUID), newRun("e1b2c3d4-e5f6-4a5b-8c9d-0e1f2a3b4c5d"));
+		assertSameValues(values, roundTrip(values));
+
+		ReportIndicatorValues withoutRuns = newValues();
+		assertEquals(0, roundTrip(withoutRuns).getReportDataSetIndicatorRuns().size());
+
+		withoutRuns.setReportDataSetIndicatorRuns(null);
+		assertEquals(0, roundTrip(withoutRuns).getReportDataSetIndicatorRuns().size());
+
+		ReportDataSetIndicatorRun runWithoutValues = newRun(DATASET_UUID);
+		runWithoutValues.setReportRunIndicatorValues(null);
+		assertEquals(0, roundTrip(newValues(runWithoutValues)).getReportDataSetIndicatorRuns().get(0)
+				.getReportRunIndicatorValues().size());
+	}
+
+	@Test
+	public void isEncoded_shouldDetectTheCompactFormat() {
+		byte[] content = ReportIndicatorValuesCodec.encode(newValues(newRun(DATASET_UUID)));
+
+		assertTrue(ReportIndicatorValuesCodec.isEncoded(content));
+		assertEquals('P', content[0]);
+		assertEquals(ReportIndicatorValuesCodec.VERSION_1, content[4]);
+
+		assertFalse(ReportIndicatorValuesCodec.isEncoded(null));
+		assertFalse(ReportIndicatorValuesCodec.isEncoded(new byte[0]));
+		assertFalse(ReportIndicatorValuesCodec.isEncoded("PTMR".getBytes(Charset.forName("US-ASCII"))));
+		assertFalse(ReportIndicatorValuesCodec.isEncoded("PTMX1".getBytes(Charset.forName("US-ASCII"))));
+	}
+
+	@Test
+	public void isEncoded_shouldNotDetectTheLegacyXml() throws Exception {
+		byte[] xml = toXml(newValues(newRun(DATASET_UUID, newValue("a1b2c3d4-e5f6-4a5b-8c9d-0e1f2a3b4c5d", "PTME.01", 7))));
+
+		assertFalse(ReportIndicatorValuesCodec.isEncoded(xml));
+		assertFalse(ReportIndicatorValuesCodec.isEncoded(
+				"<report startDate=\"2019-10-01T00:00:00Z\"/>".getBytes(Charset.forName("UTF-8"))));
+	}
+
+	@Test
+	public void parse_shouldReadTheLegacyXmlAndTheCompactFormat() throws Exception {
+		ReportIndicatorValues values = newValues(
+				newRun(DATASET_UUID,
+						newValue("a1b2c3d4-e5f6-4a5b-8c9d-0e1f2a3b4c5d", "PTME.01", 7),
+						newValue("b1b2c3d4-e5f6-4a5b-8c9d-0e1f2a3b4c5d", "PTME.02", 9)));
+
+		assertSameValues(values, ReportIndicatorValuesReader.parse(toXml(values)));
+		assertSameValues(values, ReportIndicatorValuesReader.parse(ReportIndicatorValuesCodec.encode(values)));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void decode_shouldFailOnAnUnknownVersion() {
+		byte[] content = ReportIndicatorValuesCodec.encode(newValues(newRun(DATASET_UUID)));
+		content[4] = 2;
+		ReportIndicatorValuesCodec.decode(content);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void decode_shouldFailOnTheLegacyXml() throws Exception {
+		ReportIndicatorValuesCodec.decode(toXml(newValues(newRun(DATASET_UUID))));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void decode_shouldFailOnATruncatedContent() {
+		byte[] content = ReportIndicatorValuesCodec.encode(newValues(newRun(DATASET_UUID,
+				newValue("a1b2c3d4-e5f6-4a5b-8c9d-0e1f2a3b4c5d", "PTME.01", 7))));
+		ReportIndicatorValuesCodec.decode(Arrays.copyOf(content, 8));
+	}
+
+	private static ReportIndicatorValues roundTrip(ReportIndicatorValues values) {
+		return ReportIndicatorValuesCodec.decode(ReportIndicatorValuesCodec.encode(values));
+	}
+
+	private static byte[] toXml(ReportIndicatorValues values) throws Exception {
+		Marshaller marshaller = JAXBContext.newInstance(ReportIndicatorValues.class).createMarshaller();
+		marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, true);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		marshaller.marshal(values, out);
+		return out.toByteArray();
+	}
+
+	private static ReportIndicatorValues newValues(ReportDataSetIndicatorRun... runs) {
+		ReportIndicatorValues values = new ReportIndicatorValues();
+		values.setReportStartDate(new Date(1569888000000L));
+		values.setReportEndDate(new Date(1572566399000L));
+		values.setGenerationDate(new Date(1572600000000L));
+		values.setLocationUuid(LOCATION_UUID);
+		values.setReportDataSetIndicatorRuns(new ArrayList<ReportDataSetIndicatorRun>(Arrays.asList(runs)));
+		return values;
+	}
+
+	private static ReportDataSetIndicatorRun newRun(String dataSetUuid, ReportRunIndicatorValue... indicatorValues) {
+		ReportDataSetIndicatorRun run = new ReportDataSetIndicatorRun();
+		run.setDataSetUuid(dataSetUuid);
+		run.setReportRunIndicatorValues(new ArrayList<ReportRunIndicatorValue>(Arrays.asList(indicatorValues)));
+		return run;
+	}
+
+	private static ReportRunIndicatorValue newValue(String indicatorUuid, String code, Integer value) {
+		ReportRunIndicatorValue indicatorValue = new ReportRunIndicatorValue(value, indicatorUuid);
+		indicatorValue.setCode(code);
+		return indicatorValue;
+	}
+
+	private static void assertSameValues(ReportIndicatorValues expected, ReportIndicatorValues actual) {
+		assertEquals(expected.getReportStartDate(), actual.getReportStartDate());
+		assertEquals(expected.getReportEndDate(), actual.getReportEndDate());
+		assertEquals(expected.getGenerationDate(), actual.getGenerationDate());
+		assertEquals(expected.getLocationUuid(), actual.getLocationUuid());
+
+		List<ReportDataSetIndicatorRun> expectedRuns = expected.getReportDataSetIndicatorRuns();
+		List<ReportDataSetIndicatorRun> actualRuns = actual.getReportDataSetIndicatorRuns();
+		assertEquals(expectedRuns.size(), actualRuns.size());
+		for (int i = 0; i < expectedRuns.size(); i++) {
+			assertEquals(expectedRuns.get(i).getDataSetUuid(), actualRuns.get(i).getDataSetUuid());
+
+			List<ReportRunIndicatorValue> expectedValues = expectedRuns.get(i).getReportRunIndicatorValues();
+			List<ReportRunIndicatorValue> actualValues = actualRuns.get(i).getReportRunIndicatorValues();
+			assertEquals(expectedValues.size(), actualValues.size());
+			for (int j = 0; j < expectedValues.size(); j++) {
+				assertEquals(expectedValues.get(j).getIndicatorUuid(), actualValues.get(j).getIndicatorUuid());
+				assertEquals(expectedValues.get(j).getCode(), actualValues.get(j).getCode());
+				assertEquals(expectedValues.get(j).getValue(), actualValues.get(j).getValue());
+			}
+		}
+	}
+}
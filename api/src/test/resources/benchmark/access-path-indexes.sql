@@ -0,0 +1,216 @@
+-- Benchmark of the indexes added by the changeSet prevent-transmission-access-path-indexes-17-10-2026
+--
+-- To be run with the mysql client on a SCRATCH copy of an OpenMRS database where the module is installed :
+--   mysql -u openmrs -p openmrs_bench < access-path-indexes.sql
+--
+-- The script seeds a dataset, runs the hot queries without the indexes, then with the indexes,
+-- and prints the query plans and the mean latency of each query for both runs.
+-- The seeded rows are deleted at the end.
+-- The results of a run are in access-path-indexes-results.txt.
+
+SET @seed_patients = 50000;
+SET @location = (SELECT MIN(location_id) FROM location);
+SET @creator = 1;
+
+-- ----------------------------------------------------------------------------------------------
+-- Dataset
+-- ----------------------------------------------------------------------------------------------
+DROP TEMPORARY TABLE IF EXISTS bench_seq;
+CREATE TEMPORARY TABLE bench_seq (n INT PRIMARY KEY);
+INSERT INTO bench_seq (n)
+SELECT d1.d + d2.d * 10 + d3.d * 100 + d4.d * 1000 + d5.d * 10000 + 1
+FROM (SELECT 0 d UNION ALL SELECT 1 UNION ALL SELECT 2 UNION ALL SELECT 3 UNION ALL SELECT 4 UNION ALL
+      SELECT 5 UNION ALL SELECT 6 UNION ALL SELECT 7 UNION ALL SELECT 8 UNION ALL SELECT 9) d1,
+     (SELECT 0 d UNION ALL SELECT 1 UNION ALL SELECT 2 UNION ALL SELECT 3 UNION ALL SELECT 4 UNION ALL
+      SELECT 5 UNION ALL SELECT 6 UNION ALL SELECT 7 UNION ALL SELECT 8 UNION ALL SELECT 9) d2,
+     (SELECT 0 d UNION ALL SELECT 1 UNION ALL SELECT 2 UNION ALL SELECT 3 UNION ALL SELECT 4 UNION ALL
+      SELECT 5 UNION ALL SELECT 6 UNION ALL SELECT 7 UNION ALL SELECT 8 UNION ALL SELECT 9) d3,
+     (SELECT 0 d UNION ALL SELECT 1 UNION ALL SELECT 2 UNION ALL SELECT 3 UNION ALL SELECT 4 UNION ALL
+      SELECT 5 UNION ALL SELECT 6 UNION ALL SELECT 7 UNION ALL SELECT 8 UNION ALL SELECT 9) d4,
+     (SELECT 0 d UNION ALL SELECT 1 UNION ALL SELECT 2 UNION ALL SELECT 3 UNION ALL SELECT 4) d5;
+
+INSERT INTO ptme_pregnant_patient (pregnant_number, hiv_care_number, age, location_id, uuid, creator, date_created, voided)
+SELECT CONCAT('BENCH-', n), IF(n % 3 = 0, CONCAT('BENCH-HIV-', n), NULL), 18 + n % 25, @location, UUID(), @creator, NOW(), 0
+FROM bench_seq WHERE n <= @seed_patients;
+
+-- Four consultations per woman spread over three years
+INSERT INTO ptme_consultation (pregnant_patient_id, consultation_date, location_id, uuid, creator, date_created, voided)
+SELECT pp.pregnant_patient_id, ADDDATE('2016-01-01', INTERVAL (s.n * 7 + k.k * 61) % 1095 DAY), @location, UUID(), @creator, NOW(), IF(s.n % 50 = 0, 1, 0)
+FROM bench_seq s
+  INNER JOIN ptme_pregnant_patient pp ON pp.pregnant_number = CONCAT('BENCH-', s.n)
+  CROSS JOIN (SELECT 0 k UNION ALL SELECT 1 UNION ALL SELECT 2 UNION ALL SELECT 3) k;
+
+INSERT INTO ptme_mother_followup (pregnant_patient_id, start_date, arv_status_at_registering, pregnancy_outcome,
+                                  spousal_screening_date, location_id, uuid, creator, date_created, voided)
+SELECT pp.pregnant_patient_id, ADDDATE('2016-01-01', INTERVAL s.n % 1095 DAY), 1, IF(s.n % 4 = 0, NULL, 1 + s.n % 3),
+       IF(s.n % 5 = 0, ADDDATE('2016-01-01', INTERVAL s.n % 1095 DAY), NULL), @location, UUID(), @creator, NOW(), 0
+FROM bench_seq s
+  INNER JOIN ptme_pregnant_patient pp ON pp.pregnant_number = CONCAT('BENCH-', s.n);
+
+-- Five visits per follow up
+INSERT INTO ptme_mother_followup_visit (mother_followup_id, visit_date, location_id, uuid, creator, date_created, voided)
+SELECT f.mother_followup_id, ADDDATE(f.start_date, INTERVAL k.k * 30 DAY), @location, UUID(), @creator, NOW(), 0
+FROM ptme_mother_followup f
+  INNER JOIN ptme_pregnant_patient pp ON pp.pregnant_patient_id = f.pregnant_patient_id AND pp.pregnant_number LIKE 'BENCH-%'
+  CROSS JOIN (SELECT 0 k UNION ALL SELECT 1 UNION ALL SELECT 2 UNION ALL SELECT 3 UNION ALL SELECT 4) k;
+
+INSERT INTO ptme_child (child_followup_number, birth_date, gender, family_name, given_name, location_id, uuid, creator, date_created, voided)
+SELECT CONCAT('BENCH-', n), ADDDATE('2016-01-01', INTERVAL n % 1095 DAY), IF(n % 2 = 0, 'F', 'M'), 'BENCH', 'BENCH', @location, UUID(), @creator, NOW(), 0
+FROM bench_seq WHERE n <= @seed_patients;
+
+-- Six visits per child
+INSERT INTO ptme_child_followup_visit (child_id, visit_date, eating_type, location_id, uuid, creator, date_created, voided)
+SELECT c.child_id, ADDDATE(c.birth_date, INTERVAL k.k * 30 DAY), 1, @location, UUID(), @creator, NOW(), IF(k.k = 5 AND c.child_id % 10 = 0, 1, 0)
+FROM ptme_child c
+  CROSS JOIN (SELECT 0 k UNION ALL SELECT 1 UNION ALL SELECT 2 UNION ALL SELECT 3 UNION ALL SELECT 4 UNION ALL SELECT 5) k
+WHERE c.child_followup_number LIKE 'BENCH-%';
+
+ANALYZE TABLE ptme_pregnant_patient, ptme_consultation, ptme_mother_followup, ptme_mother_followup_visit, ptme_child, ptme_child_followup_visit;
+
+SET @sample_patient = (SELECT pregnant_patient_id FROM ptme_pregnant_patient WHERE pregnant_number = 'BENCH-25000');
+SET @sample_child = (SELECT child_id FROM ptme_child WHERE child_followup_number = 'BENCH-25000');
+
+-- ----------------------------------------------------------------------------------------------
+-- Hot queries, each run @runs times
+-- ----------------------------------------------------------------------------------------------
+DROP TABLE IF EXISTS bench_result;
+CREATE TABLE bench_result (run VARCHAR(20), query_name VARCHAR(60), mean_ms DECIMAL(12, 3));
+
+DROP PROCEDURE IF EXISTS bench_queries;
+DELIMITER //
+CREATE PROCEDURE bench_queries(IN run_name VARCHAR(20), IN runs INT)
+BEGIN
+    DECLARE i INT;
+    DECLARE started DATETIME(6);
+    DECLARE result INT;
+
+    -- Indicators : consultations of a location during a quarter
+    SET i = 0; SET started = NOW(6);
+    WHILE i < runs DO
+        SELECT COUNT(*) INTO result FROM ptme_consultation c
+        WHERE c.location_id = @location AND c.consultation_date BETWEEN '2017-01-01' AND '2017-03-31' AND c.voided = 0;
+        SET i = i + 1;
+    END WHILE;
+    INSERT INTO bench_result VALUES (run_name, 'consultations of a period', TIMESTAMPDIFF(MICROSECOND, started, NOW(6)) / 1000 / runs);
+
+    -- Mother follow up list : last visit of each follow up
+    SET i = 0; SET started = NOW(6);
+    WHILE i < runs DO
+        SELECT COUNT(*) INTO result FROM (
+            SELECT mother_followup_id, MAX(visit_date) FROM ptme_mother_followup_visit
+            WHERE visit_date <= '2017-12-31' GROUP BY mother_followup_id) v;
+        SET i = i + 1;
+    END WHILE;
+    INSERT INTO bench_result VALUES (run_name, 'last visit of each mother follow up', TIMESTAMPDIFF(MICROSECOND, started, NOW(6)) / 1000 / runs);
+
+    -- Child follow up form : visits of one child
+    SET i = 0; SET started = NOW(6);
+    WHILE i < runs DO
+        SELECT COUNT(*) INTO result FROM ptme_child_followup_visit
+        WHERE child_id = @sample_child AND voided = 0 ORDER BY visit_date DESC;
+        SET i = i + 1;
+    END WHILE;
+    INSERT INTO bench_result VALUES (run_name, 'visits of a child', TIMESTAMPDIFF(MICROSECOND, started, NOW(6)) / 1000 / runs);
+
+    -- Follow up in progress of a woman
+    SET i = 0; SET started = NOW(6);
+    WHILE i < runs DO
+        SELECT COUNT(*) INTO result FROM ptme_mother_followup
+        WHERE pregnant_patient_id = @sample_patient AND pregnancy_outcome IS NULL AND voided = 0;
+        SET i = i + 1;
+    END WHILE;
+    INSERT INTO bench_result VALUES (run_name, 'follow up in progress of a woman', TIMESTAMPDIFF(MICROSECOND, started, NOW(6)) / 1000 / runs);
+
+    -- Patient search by HIV care number
+    SET i = 0; SET started = NOW(6);
+    WHILE i < runs DO
+        SELECT COUNT(*) INTO result FROM ptme_pregnant_patient WHERE hiv_care_number = 'BENCH-HIV-24999';
+        SET i = i + 1;
+    END WHILE;
+    INSERT INTO bench_result VALUES (run_name, 'woman by HIV care number', TIMESTAMPDIFF(MICROSECOND, started, NOW(6)) / 1000 / runs);
+END //
+DELIMITER ;
+
+DROP PROCEDURE IF EXISTS bench_explain;
+DELIMITER //
+CREATE PROCEDURE bench_explain()
+BEGIN
+    EXPLAIN SELECT COUNT(*) FROM ptme_consultation c
+    WHERE c.location_id = @location AND c.consultation_date BETWEEN '2017-01-01' AND '2017-03-31' AND c.voided = 0;
+    EXPLAIN SELECT mother_followup_id, MAX(visit_date) FROM ptme_mother_followup_visit
+    WHERE visit_date <= '2017-12-31' GROUP BY mother_followup_id;
+    EXPLAIN SELECT visit_date FROM ptme_child_followup_visit
+    WHERE child_id = @sample_child AND voided = 0 ORDER BY visit_date DESC;
+    EXPLAIN SELECT mother_followup_id FROM ptme_mother_followup
+    WHERE pregnant_patient_id = @sample_patient AND pregnancy_outcome IS NULL AND voided = 0;
+    EXPLAIN SELECT pregnant_patient_id FROM ptme_pregnant_patient WHERE hiv_care_number = 'BENCH-HIV-24999';
+END //
+DELIMITER ;
+
+-- ----------------------------------------------------------------------------------------------
+-- Without the indexes
+-- ----------------------------------------------------------------------------------------------
+-- The composite indexes leading with a foreign key column also serve the foreign key : MySQL dropped
+-- the index it had created for the constraint and refuses to drop them (ERROR 1553). The single
+-- column indexes of the foreign keys are created first, they are what the tables had before the
+-- changeSet.
+CREATE INDEX bench_consultation_location ON ptme_consultation (location_id);
+CREATE INDEX bench_mother_followup_visit_followup ON ptme_mother_followup_visit (mother_followup_id);
+CREATE INDEX bench_child_followup_visit_child ON ptme_child_followup_visit (child_id);
+CREATE INDEX bench_mother_followup_patient ON ptme_mother_followup (pregnant_patient_id);
+CREATE INDEX bench_mother_followup_location ON ptme_mother_followup (location_id);
+
+ALTER TABLE ptme_consultation DROP INDEX ptme_consultation_location_date, DROP INDEX ptme_consultation_date;
+ALTER TABLE ptme_mother_followup_visit DROP INDEX ptme_mother_followup_visit_followup_date;
+ALTER TABLE ptme_child_followup_visit DROP INDEX ptme_child_followup_visit_child_date;
+ALTER TABLE ptme_mother_followup DROP INDEX ptme_mother_followup_patient_outcome, DROP INDEX ptme_mother_followup_location_screening;
+ALTER TABLE ptme_pregnant_patient DROP INDEX ptme_pregnant_patient_hiv_care_number;
+
+CALL bench_explain();
+CALL bench_queries('without indexes', 20);
+
+-- ----------------------------------------------------------------------------------------------
+-- With the indexes, same definitions as the changeSet
+-- ----------------------------------------------------------------------------------------------
+CREATE INDEX ptme_consultation_location_date ON ptme_consultation (location_id, consultation_date, voided);
+CREATE INDEX ptme_consultation_date ON ptme_consultation (consultation_date);
+CREATE INDEX ptme_mother_followup_visit_followup_date ON ptme_mother_followup_visit (mother_followup_id, visit_date);
+CREATE INDEX ptme_child_followup_visit_child_date ON ptme_child_followup_visit (child_id, visit_date, voided);
+CREATE INDEX ptme_mother_followup_patient_outcome ON ptme_mother_followup (pregnant_patient_id, pregnancy_outcome, voided);
+CREATE INDEX ptme_mother_followup_location_screening ON ptme_mother_followup (location_id, spousal_screening_date);
+CREATE INDEX ptme_pregnant_patient_hiv_care_number ON ptme_pregnant_patient (hiv_care_number);
+
+-- The foreign keys are served by the composite indexes again
+ALTER TABLE ptme_consultation DROP INDEX bench_consultation_location;
+ALTER TABLE ptme_mother_followup_visit DROP INDEX bench_mother_followup_visit_followup;
+ALTER TABLE ptme_child_followup_visit DROP INDEX bench_child_followup_visit_child;
+ALTER TABLE ptme_mother_followup DROP INDEX bench_mother_followup_patient, DROP INDEX bench_mother_followup_location;
+
+CALL bench_explain();
+CALL bench_queries('with indexes', 20);
+
+SELECT b.query_name, b.mean_ms AS without_indexes_ms, a.mean_ms AS with_indexes_ms,
+       ROUND(b.mean_ms / NULLIF(a.mean_ms, 0), 1) AS speedup
+FROM bench_result b
+  INNER JOIN bench_result a ON a.query_name = b.query_name AND a.run = 'with indexes'
+WHERE b.run = 'without indexes';
+
+-- ----------------------------------------------------------------------------------------------
+-- Cleanup
+-- ----------------------------------------------------------------------------------------------
+DELETE v FROM ptme_child_followup_visit v
+  INNER JOIN ptme_child c ON c.child_id = v.child_id WHERE c.child_followup_number LIKE 'BENCH-%';
+DELETE FROM ptme_child WHERE child_followup_number LIKE 'BENCH-%';
+DELETE v FROM ptme_mother_followup_visit v
+  INNER JOIN ptme_mother_followup f ON f.mother_followup_id = v.mother_followup_id
+  INNER JOIN ptme_pregnant_patient pp ON pp.pregnant_patient_id = f.pregnant_patient_id WHERE pp.pregnant_number LIKE 'BENCH-%';
+DELETE f FROM ptme_mother_followup f
+  INNER JOIN ptme_pregnant_patient pp ON pp.pregnant_patient_id = f.pregnant_patient_id WHERE pp.pregnant_number LIKE 'BENCH-%';
+DELETE c FROM ptme_consultation c
+  INNER JOIN ptme_pregnant_patient pp ON pp.pregnant_patient_id = c.pregnant_patient_id WHERE pp.pregnant_number LIKE 'BENCH-%';
+DELETE FROM ptme_pregnant_patient WHERE pregnant_number LIKE 'BENCH-%';
+
+DROP PROCEDURE bench_queries;
+DROP PROCEDURE bench_explain;
+DROP TABLE bench_result;
+DROP TEMPORARY TABLE bench_seq;
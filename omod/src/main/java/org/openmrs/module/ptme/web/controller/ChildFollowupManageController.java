@@ -12,7 +12,8 @@ import org.openmrs.module.ptme.forms.*;
 import org.openmrs.module.ptme.forms.validators.ChildFollowupFormValidator;
 import org.openmrs.module.ptme.forms.validators.ChildFormValidator;
 import org.openmrs.module.ptme.utils.ChildFollowupTransformer;
-import org.openmrs.module.ptme.utils.UsefullFunction;
+import org.openmrs.module.ptme.utils.ChildFollowupVisitRow;
+import org.openmrs.module.ptme.utils.PtmeDateUtils;
 import org.openmrs.web.WebConstants;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.ModelMap;
@@ -37,6 +38,15 @@ public class ChildFollowupManageController {
         return Context.getService(PreventTransmissionService.class);
     }
 
+    /**
+     * Visit rows and visit count of the child, read without loading its visits collection
+     */
+    private void addFollowupVisits(ModelMap modelMap, Child child) {
+        List<ChildFollowupVisitRow> childFollowupVisits = getPreventTransmissionService().getChildFollowupVisitRows(child.getChildId());
+        modelMap.addAttribute("childFollowupVisitCount", childFollowupVisits.size());
+        modelMap.addAttribute("childFollowupVisits", childFollowupVisits);
+    }
+
     public Map<String, Object> getPatientInfo(Patient patient) {
         if (patient != null) {
             Map<String, Object> patientInfo= new HashMap<String, Object>();
@@ -47,23 +57,17 @@ public class ChildFollowupManageController {
             patientInfo.put("middleName", patient.getMiddleName());
             patientInfo.put("givenName", patient.getGivenName());
 
-            List<Obs> obsList = Helpers.getNObservations(patient, 163623, 1);
-            if(obsList.size() != 0)
-                patientInfo.put("hivType", obsList.get(0).getValueCoded().getName());
-
-            obsList = Helpers.getNObservations(patient, 164500, 1);
-            if(obsList.size() != 0)
-                patientInfo.put("tel", obsList.get(0).getValueText());
-
-            obsList = Helpers.getNObservations(patient, 164501, 1);
-            if(obsList.size() != 0)
-                patientInfo.put("cel", obsList.get(0).getValueText());
-            obsList = Helpers.getNObservations(patient, 5596, 1);
-            if(obsList.size() != 0)
-                patientInfo.put("outcomeProbableDate", obsList.get(0).getValueDate());
-            obsList = Helpers.getNObservations(patient, 164588, 1);
-            if(obsList.size() != 0)
-                patientInfo.put("hivCareBeginning", obsList.get(0).getValueDate());
+            Map<Integer, Obs> observations = Helpers.getLatestObservations(patient, Helpers.PATIENT_INFO_CONCEPT_IDS);
+            if (observations.containsKey(163623))
+                patientInfo.put("hivType", observations.get(163623).getValueCoded().getName());
+            if (observations.containsKey(164500))
+                patientInfo.put("tel", observations.get(164500).getValueText());
+            if (observations.containsKey(164501))
+                patientInfo.put("cel", observations.get(164501).getValueText());
+            if (observations.containsKey(5596))
+                patientInfo.put("outcomeProbableDate", observations.get(5596).getValueDate());
+            if (observations.containsKey(164588))
+                patientInfo.put("hivCareBeginning", observations.get(164588).getValueDate());
 
             return patientInfo;
         }
@@ -105,7 +109,7 @@ public class ChildFollowupManageController {
                 if (childFollowupVisit != null) {
                     childFollowupVisit.setVoided(true);
                     childFollowupVisit.setVoidedBy(Context.getAuthenticatedUser());
-                    childFollowupVisit.setDateVoided(UsefullFunction.formatDateToddMMyyyyhms(new Date()));
+                    childFollowupVisit.setDateVoided(PtmeDateUtils.now());
 
                     getPreventTransmissionService().deleteChildFollowupVisit(childFollowupVisit);
                     session.setAttribute(WebConstants.OPENMRS_MSG_ATTR, "Suppression effectuées avec succès");
@@ -118,15 +122,10 @@ public class ChildFollowupManageController {
                 if(childFollowupToDelete != null) {
                     childFollowupToDelete.setVoidedBy(Context.getAuthenticatedUser());
                     childFollowupToDelete.setVoided(true);
-                    childFollowupToDelete.setDateVoided(UsefullFunction.formatDateToddMMyyyyhms(new Date()));
+                    childFollowupToDelete.setDateVoided(PtmeDateUtils.now());
 
                     getPreventTransmissionService().saveChildFollowup(childFollowupToDelete);
-                    for (ChildFollowupVisit childFollowupVisitToDelete : childFollowupToDelete.getChild().getChildFollowupVisits()){
-                        childFollowupVisitToDelete.setVoidedBy(Context.getAuthenticatedUser());
-                        childFollowupVisitToDelete.setVoided(true);
-                        childFollowupVisitToDelete.setDateVoided(UsefullFunction.formatDateToddMMyyyyhms(new Date()));
-                        getPreventTransmissionService().saveChildFollowupVisit(childFollowupVisitToDelete);
-                    }
+                    getPreventTransmissionService().voidChildFollowupVisits(childFollowupToDelete.getChild(), "Suivi supprimé");
                 }
             }
 
@@ -175,8 +174,7 @@ public class ChildFollowupManageController {
                     modelMap.addAttribute("currentChild", child);
                     modelMap.addAttribute("patientInfo", getPatientInfo(child.getMother()));
                     modelMap.addAttribute("childFollowupForm", childFollowupForm);
-                    modelMap.addAttribute("childFollowupVisitCount", child.getChildFollowupVisits().size());
-                    modelMap.addAttribute("childFollowupVisits", getPreventTransmissionService().getChildFollowupVisitByChild(child.getChildId()));
+                    addFollowupVisits(modelMap, child);
                 }
             }
 
@@ -205,8 +203,7 @@ public class ChildFollowupManageController {
                 modelMap.addAttribute("currentChild", child);
                 modelMap.addAttribute("patientInfo", getPatientInfo(child.getMother()));
                 modelMap.addAttribute("childFollowupForm", childFollowupForm);
-                modelMap.addAttribute("childFollowupVisitCount", child.getChildFollowupVisits().size());
-                modelMap.addAttribute("childFollowupVisits", child.getChildFollowupVisits());
+                addFollowupVisits(modelMap, child);
 
                 Boolean hasErrors = false;
                 Boolean insertVisit = true;
@@ -414,7 +411,7 @@ public class ChildFollowupManageController {
                             patient.setDead(false);
                             patient.setCreator(Context.getAuthenticatedUser());
                             patient.setPersonCreator(patient.getCreator());
-                            patient.setDateCreated(UsefullFunction.formatDateToddMMyyyyhms(new Date()));
+                            patient.setDateCreated(PtmeDateUtils.now());
                             patient.setPersonDateCreated(patient.getDateCreated());
                             patient.setVoided(false);
                             patient.setPersonVoided(patient.getVoided());
@@ -426,7 +423,7 @@ public class ChildFollowupManageController {
                                         Context.getPersonService().getRelationshipType(3));
                                 relationship.setStartDate(child.getBirthDate());
                                 relationship.setCreator(Context.getAuthenticatedUser());
-                                relationship.setDateCreated(UsefullFunction.formatDateToddMMyyyyhms(new Date()));
+                                relationship.setDateCreated(PtmeDateUtils.now());
                                 relationship.setVoided(false);
                                 Context.getPersonService().saveRelationship(relationship);
                             }
@@ -438,7 +435,7 @@ public class ChildFollowupManageController {
                                 if (getPreventTransmissionService().getChildRelationship(child.getMother(), child.getPatient()) != null) {
                                     relationship.setStartDate(child.getBirthDate());
                                     relationship.setCreator(Context.getAuthenticatedUser());
-                                    relationship.setDateCreated(UsefullFunction.formatDateToddMMyyyyhms(new Date()));
+                                    relationship.setDateCreated(PtmeDateUtils.now());
                                     relationship.setVoided(false);
                                     Context.getPersonService().saveRelationship(relationship);
                                 }
@@ -511,9 +508,8 @@ public class ChildFollowupManageController {
                 if (child != null) {
                     modelMap.addAttribute("currentChild", child);
                     modelMap.addAttribute("patientInfo", getPatientInfo(child.getMother()));
-                    modelMap.addAttribute("childFollowupVisitCount", child.getChildFollowupVisits().size());
                     modelMap.addAttribute("childFollowup", child.getChildFollowup());
-                    modelMap.addAttribute("childFollowupVisits", getPreventTransmissionService().getChildFollowupVisitByChild(child.getChildId()));
+                    addFollowupVisits(modelMap, child);
                     modelMap.addAttribute("mode", "followup");
                 }
             }
@@ -1,15 +1,44 @@
 package org.openmrs.module.ptme.web.controller;
 
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 import org.openmrs.Obs;
 import org.openmrs.Patient;
 import org.openmrs.api.context.Context;
+import org.openmrs.module.ptme.api.PreventTransmissionService;
+import org.openmrs.module.ptme.utils.UsefullFunction;
 
 // TODO: Reference concepts by UUIDs
 public class Helpers {
-    public static List<Obs> getNObservations(Patient patient, Integer conceptId, Integer n) {
-        return Context.getObsService().getObservations(Arrays.asList(patient), null, Arrays.asList(Context.getConceptService().getConcept(conceptId)), null, null, null, null, n, null, null, null, false, null);
+    /**
+     * Concepts shown in the patient information panel of the follow-up forms :
+     * HIV type, phone, mobile, probable delivery date and HIV care beginning
+     */
+    public static final List<Integer> PATIENT_INFO_CONCEPT_IDS = Collections.unmodifiableList(Arrays.asList(163623, 164500, 164501, 5596, 164588));
+
+    /**
+     * @return the latest observation of each of the concepts by concept id, read in one query
+     */
+    public static Map<Integer, Obs> getLatestObservations(Patient patient, List<Integer> conceptIds) {
+        Map<Integer, Obs> observations = Context.getService(PreventTransmissionService.class)
+                .getLatestObs(Collections.singletonList(patient.getPatientId()), conceptIds)
+                .get(patient.getPatientId());
+        return observations != null ? observations : Collections.<Integer, Obs>emptyMap();
+    }
+
+    /**
+     * @return the value as a JSON string literal, HTML escaped, or null
+     */
+    public static String toJsonString(String value) {
+        if (value == null) {
+            return "null";
+        }
+        return "\"" + UsefullFunction.escapeHTML(value)
+                .replace("\\", "\\\\")
+                .replace("\r", "\\r")
+                .replace("\n", "\\n") + "\"";
     }
 }
@@ -14,8 +14,10 @@ import org.openmrs.module.ptme.forms.*;
 import org.openmrs.module.ptme.forms.validators.MotherFollowupFormValidator;
 import org.openmrs.module.ptme.forms.validators.MotherFollowupPatientFormValidator;
 import org.openmrs.module.ptme.utils.MotherFollowupCurrentlyOn;
+import org.openmrs.module.ptme.utils.MotherFollowupVisitRow;
+import org.openmrs.module.ptme.utils.PatientVitalStatus;
 import org.openmrs.module.ptme.utils.PregnantPatientToFollow;
-import org.openmrs.module.ptme.utils.UsefullFunction;
+import org.openmrs.module.ptme.utils.PtmeDateUtils;
 import org.openmrs.web.WebConstants;
 import org.springframework.context.support.MessageSourceAccessor;
 import org.springframework.stereotype.Controller;
@@ -54,23 +56,17 @@ public class MotherFollowupManageController {
             patientInfo.put("givenName", patient.getGivenName());
             patientInfo.put("middleName", patient.getMiddleName());
 
-            List<Obs> obsList = Helpers.getNObservations(patient, 163623, 1);
-            if(obsList.size() != 0)
-                patientInfo.put("hivType", obsList.get(0).getValueCoded().getName());
-
-            obsList = Helpers.getNObservations(patient, 164500, 1);
-            if(obsList.size() != 0)
-                patientInfo.put("tel", obsList.get(0).getValueText());
-
-            obsList = Helpers.getNObservations(patient, 164501, 1);
-            if(obsList.size() != 0)
-                patientInfo.put("cel", obsList.get(0).getValueText());
-            obsList = Helpers.getNObservations(patient, 5596, 1);
-            if(obsList.size() != 0)
-                patientInfo.put("outcomeProbableDate", obsList.get(0).getValueDate());
-            obsList = Helpers.getNObservations(patient, 164588, 1);
-            if(obsList.size() != 0)
-                patientInfo.put("hivCareBeginning", obsList.get(0).getValueDate());
+            Map<Integer, Obs> observations = Helpers.getLatestObservations(patient, Helpers.PATIENT_INFO_CONCEPT_IDS);
+            if (observations.containsKey(163623))
+                patientInfo.put("hivType", observations.get(163623).getValueCoded().getName());
+            if (observations.containsKey(164500))
+                patientInfo.put("tel", observations.get(164500).getValueText());
+            if (observations.containsKey(164501))
+                patientInfo.put("cel", observations.get(164501).getValueText());
+            if (observations.containsKey(5596))
+                patientInfo.put("outcomeProbableDate", observations.get(5596).getValueDate());
+            if (observations.containsKey(164588))
+                patientInfo.put("hivCareBeginning", observations.get(164588).getValueDate());
 
             return patientInfo;
         }
@@ -81,6 +77,58 @@ public class MotherFollowupManageController {
         return Context.getService(PreventTransmissionService.class);
     }
 
+    /**
+     * Mothers currently followed, without those who died or were transferred and, unless
+     * includeDeclaredNegative, without those declared negative
+     */
+    private List<MotherFollowupCurrentlyOn> getActiveMotherFollowupList(boolean includeDeclaredNegative) {
+        List<MotherFollowupCurrentlyOn> listMotherFollowupOn = getPreventTransmissionService().
+                getMotherFollowupList(null, null, "On", null, null);
+
+        List<Integer> patientIds = new ArrayList<Integer>();
+        for (MotherFollowupCurrentlyOn motherFollowupCurrentlyOn : listMotherFollowupOn) {
+            patientIds.add(motherFollowupCurrentlyOn.getPatientId());
+        }
+        Map<Integer, PatientVitalStatus> vitalStatuses = getPreventTransmissionService().getPatientVitalStatuses(patientIds);
+
+        List<MotherFollowupCurrentlyOn> motherFollowupCurrentlyOnList = new ArrayList<MotherFollowupCurrentlyOn>();
+        for (MotherFollowupCurrentlyOn motherFollowupCurrentlyOn : listMotherFollowupOn) {
+            PatientVitalStatus vitalStatus = vitalStatuses.get(motherFollowupCurrentlyOn.getPatientId());
+            if (vitalStatus == null || vitalStatus == PatientVitalStatus.ACTIVE
+                    || (includeDeclaredNegative && vitalStatus == PatientVitalStatus.DECLARED_NEGATIVE)) {
+                motherFollowupCurrentlyOnList.add(motherFollowupCurrentlyOn);
+            }
+        }
+        return motherFollowupCurrentlyOnList;
+    }
+
+    private PatientVitalStatus getVitalStatus(Patient patient) {
+        if (patient == null) {
+            return PatientVitalStatus.ACTIVE;
+        }
+        return getPreventTransmissionService().getPatientVitalStatuses(Collections.singletonList(patient.getPatientId()))
+                .get(patient.getPatientId());
+    }
+
+    private static boolean isActive(Map<Integer, PatientVitalStatus> vitalStatuses, Integer patientId) {
+        PatientVitalStatus vitalStatus = vitalStatuses.get(patientId);
+        return vitalStatus == null || vitalStatus == PatientVitalStatus.ACTIVE;
+    }
+
+    /**
+     * Visit rows and visit count of the follow-up, read without loading its visits collection
+     *
+     * @param latestFirst true to list the latest visit first, false to keep the order in which the visits were recorded
+     */
+    private void addFollowupVisits(ModelMap modelMap, MotherFollowup motherFollowup, Boolean latestFirst) {
+        List<MotherFollowupVisitRow> motherFollowupVisits = new ArrayList<MotherFollowupVisitRow>();
+        if (motherFollowup != null && motherFollowup.getMotherFollowupId() != null) {
+            motherFollowupVisits = getPreventTransmissionService().getMotherFollowupVisitRows(motherFollowup.getMotherFollowupId(), latestFirst);
+        }
+        modelMap.addAttribute("motherFollowupVisits", motherFollowupVisits);
+        modelMap.addAttribute("motherFollowupVisitsCount", motherFollowupVisits.size());
+    }
+
     @RequestMapping(value = "/module/ptme/motherFollowup.form")
     public void manageForm(HttpServletRequest request,
                            ModelMap modelMap,
@@ -100,7 +148,6 @@ public class MotherFollowupManageController {
             MessageSourceAccessor msa = null;
 
             MotherFollowupForm motherFollowupForm = new MotherFollowupForm();
-            Collection<MotherFollowupVisit> motherFollowupVisits = null;
             PregnantPatient pregnantPatient = null;
 
             if(delId != null) {
@@ -113,14 +160,9 @@ public class MotherFollowupManageController {
             if(delFollowupId != null) {
                 MotherFollowup motherFollowupToDelete = getPreventTransmissionService().getMotherFollowupById(delFollowupId);
                 if(motherFollowupToDelete != null) {
-                    for (MotherFollowupVisit motherFollowupVisitToDelete : motherFollowupToDelete.getMotherFollowupVisits()){
-                        motherFollowupVisitToDelete.setVoided(true);
-                        motherFollowupVisitToDelete.setDateVoided(UsefullFunction.formatDateToddMMyyyyhms(new Date()));
-                        motherFollowupVisitToDelete.setVoidedBy(Context.getAuthenticatedUser());
-                        getPreventTransmissionService().saveMotherFollowupVisit(motherFollowupVisitToDelete);
-                    }
+                    getPreventTransmissionService().voidMotherFollowupVisits(motherFollowupToDelete, "Suivi supprimé");
                     motherFollowupToDelete.setVoided(true);
-                    motherFollowupToDelete.setDateVoided(UsefullFunction.formatDateToddMMyyyyhms(new Date()));
+                    motherFollowupToDelete.setDateVoided(PtmeDateUtils.now());
                     motherFollowupToDelete.setVoidedBy(Context.getAuthenticatedUser());
 
                     getPreventTransmissionService().saveMotherFollowup(motherFollowupToDelete);
@@ -133,19 +175,7 @@ public class MotherFollowupManageController {
                     modelMap.addAttribute("findPregnantPatientForm", findPregnantPatientForm);
                     if (!mode.isEmpty())
                         session.setAttribute(WebConstants.OPENMRS_ERROR_ATTR, "Veuillez entrer le numéro de prise en charge de la patiente SVP !");
-                    List<MotherFollowupCurrentlyOn> listMotherFollowupOn = getPreventTransmissionService().
-                            getMotherFollowupList(null, null, "On", null, null);
-
-                    List<MotherFollowupCurrentlyOn> motherFollowupCurrentlyOnList = new ArrayList<MotherFollowupCurrentlyOn>();
-                    for (MotherFollowupCurrentlyOn motherFollowupCurrentlyOn : listMotherFollowupOn) {
-                        PregnantPatient p = getPreventTransmissionService().getPregnantPatientByHivCareNumber(motherFollowupCurrentlyOn.getHivCareNumber());
-                        if (!getPreventTransmissionService().isDead(p.getPatient()) && !getPreventTransmissionService().isTransferred(p.getPatient())
-                                && !getPreventTransmissionService().isDeclaredNegative(p.getPatient())) {
-                            motherFollowupCurrentlyOnList.add(motherFollowupCurrentlyOn);
-                        }
-                    }
-
-                    modelMap.addAttribute("listMotherFollowupOn", motherFollowupCurrentlyOnList);
+                    modelMap.addAttribute("listMotherFollowupOn", getActiveMotherFollowupList(false));
                 } else {
                     MotherFollowup motherFollowup = getPreventTransmissionService().getMotherFollowupById(motherFollowupId);
                     if (motherFollowup != null) {
@@ -161,15 +191,13 @@ public class MotherFollowupManageController {
                             }
                         }
 
-                        motherFollowupVisits = motherFollowup.getMotherFollowupVisits();
                         pregnantPatient = motherFollowup.getPregnantPatient();
                         motherFollowupForm.setPregnantPatientId(motherFollowup.getPregnantPatient().getPregnantPatientId());
                         motherFollowupForm.setMotherFollowup(motherFollowup);
 
                         mode = "form";
 
-                        modelMap.addAttribute("motherFollowupVisits", getPreventTransmissionService().getMotherFollowupVisitByPatientAndFollowup(motherFollowup));
-                        modelMap.addAttribute("motherFollowupVisitsCount", motherFollowupVisits != null ? motherFollowupVisits.size() : 0);
+                        addFollowupVisits(modelMap, motherFollowup, true);
 
                         motherFollowupForm.setPregnantPatientId(pregnantPatient.getPregnantPatientId());
                         modelMap.addAttribute("motherFollowupForm", motherFollowupForm);
@@ -177,19 +205,7 @@ public class MotherFollowupManageController {
                         modelMap.addAttribute("patientInfo", getPatientInfo(pregnantPatient.getPatient()));
 
                     } else {
-                        List<MotherFollowupCurrentlyOn> listMotherFollowupOn = getPreventTransmissionService().
-                                getMotherFollowupList(null, null, "On", null, null);
-
-                        List<MotherFollowupCurrentlyOn> motherFollowupCurrentlyOnList = new ArrayList<MotherFollowupCurrentlyOn>();
-                        for (MotherFollowupCurrentlyOn motherFollowupCurrentlyOn : listMotherFollowupOn) {
-                            PregnantPatient p = getPreventTransmissionService().getPregnantPatientByHivCareNumber(motherFollowupCurrentlyOn.getHivCareNumber());
-                            if (!getPreventTransmissionService().isDead(p.getPatient()) && !getPreventTransmissionService().isTransferred(p.getPatient())
-                                    && !getPreventTransmissionService().isDeclaredNegative(p.getPatient())) {
-                                motherFollowupCurrentlyOnList.add(motherFollowupCurrentlyOn);
-                            }
-                        }
-
-                        modelMap.addAttribute("listMotherFollowupOn", motherFollowupCurrentlyOnList);
+                        modelMap.addAttribute("listMotherFollowupOn", getActiveMotherFollowupList(false));
                     }
                 }
 
@@ -204,19 +220,7 @@ public class MotherFollowupManageController {
                     session.setAttribute(WebConstants.OPENMRS_MSG_ATTR, "Aucune femme actuellement enceinte ne possède ce numéro");
                     modelMap.addAttribute("findPregnantPatientForm", findPregnantPatientForm);
 
-                    List<MotherFollowupCurrentlyOn> listMotherFollowupOn = getPreventTransmissionService().
-                            getMotherFollowupList(null, null, "On", null, null);
-
-                    List<MotherFollowupCurrentlyOn> motherFollowupCurrentlyOnList = new ArrayList<MotherFollowupCurrentlyOn>();
-                    for (MotherFollowupCurrentlyOn motherFollowupCurrentlyOn : listMotherFollowupOn) {
-                        PregnantPatient p = getPreventTransmissionService().getPregnantPatientByHivCareNumber(motherFollowupCurrentlyOn.getHivCareNumber());
-                        if (!getPreventTransmissionService().isDead(p.getPatient()) && !getPreventTransmissionService().isTransferred(p.getPatient())
-                                && !getPreventTransmissionService().isDeclaredNegative(p.getPatient())) {
-                            motherFollowupCurrentlyOnList.add(motherFollowupCurrentlyOn);
-                        }
-                    }
-
-                    modelMap.addAttribute("listMotherFollowupOn", motherFollowupCurrentlyOnList);
+                    modelMap.addAttribute("listMotherFollowupOn", getActiveMotherFollowupList(false));
                 } else {
 //                    List<Patient> listPatients = Context.getPatientService().getPatientsByIdentifier(hivCareNumber, false);
 
@@ -228,75 +232,31 @@ public class MotherFollowupManageController {
                         session.setAttribute(WebConstants.OPENMRS_MSG_ATTR, "Cette femme enceinte n'est pas prise en charge sur le site !");
                         modelMap.addAttribute("findPregnantPatientForm", findPregnantPatientForm);
 
-                        List<MotherFollowupCurrentlyOn> listMotherFollowupOn = getPreventTransmissionService().
-                                getMotherFollowupList(null, null, "On", null, null);
-
-                        List<MotherFollowupCurrentlyOn> motherFollowupCurrentlyOnList = new ArrayList<MotherFollowupCurrentlyOn>();
-                        for (MotherFollowupCurrentlyOn motherFollowupCurrentlyOn : listMotherFollowupOn) {
-                            PregnantPatient p = getPreventTransmissionService().getPregnantPatientByHivCareNumber(motherFollowupCurrentlyOn.getHivCareNumber());
-                            if (!getPreventTransmissionService().isDead(p.getPatient()) && !getPreventTransmissionService().isTransferred(p.getPatient())
-                                    && !getPreventTransmissionService().isDeclaredNegative(p.getPatient())) {
-                                motherFollowupCurrentlyOnList.add(motherFollowupCurrentlyOn);
-                            }
-                        }
-
-                        modelMap.addAttribute("listMotherFollowupOn", motherFollowupCurrentlyOnList);
+                        modelMap.addAttribute("listMotherFollowupOn", getActiveMotherFollowupList(false));
                     } else {
 
-                        if (getPreventTransmissionService().isDead(pregnantPatient.getPatient())) {
+                        PatientVitalStatus vitalStatus = getVitalStatus(pregnantPatient.getPatient());
+
+                        if (vitalStatus == PatientVitalStatus.DEAD) {
 
                             findPregnantPatientForm.setHivCareNumber(hivCareNumber);
                             session.setAttribute(WebConstants.OPENMRS_MSG_ATTR, "Cette femme est décédées. Veuillez en choisir une autre SVP !");
                             modelMap.addAttribute("findPregnantPatientForm", findPregnantPatientForm);
 
-                            List<MotherFollowupCurrentlyOn> listMotherFollowupOn = getPreventTransmissionService().
-                                    getMotherFollowupList(null, null, "On", null, null);
-
-                            List<MotherFollowupCurrentlyOn> motherFollowupCurrentlyOnList = new ArrayList<MotherFollowupCurrentlyOn>();
-                            for (MotherFollowupCurrentlyOn motherFollowupCurrentlyOn : listMotherFollowupOn) {
-                                PregnantPatient p = getPreventTransmissionService().getPregnantPatientByHivCareNumber(motherFollowupCurrentlyOn.getHivCareNumber());
-                                if (!getPreventTransmissionService().isDead(p.getPatient()) && !getPreventTransmissionService().isTransferred(p.getPatient())
-                                        && !getPreventTransmissionService().isDeclaredNegative(p.getPatient())) {
-                                    motherFollowupCurrentlyOnList.add(motherFollowupCurrentlyOn);
-                                }
-                            }
-
-                            modelMap.addAttribute("listMotherFollowupOn", motherFollowupCurrentlyOnList);
-                        } else if(getPreventTransmissionService().isTransferred(pregnantPatient.getPatient())) {
+                            modelMap.addAttribute("listMotherFollowupOn", getActiveMotherFollowupList(false));
+                        } else if (vitalStatus == PatientVitalStatus.TRANSFERRED) {
                             findPregnantPatientForm.setHivCareNumber(hivCareNumber);
                             session.setAttribute(WebConstants.OPENMRS_MSG_ATTR, "Cette femme est transférées vers un autre site. Veuillez en choisir une autre SVP !");
                             modelMap.addAttribute("findPregnantPatientForm", findPregnantPatientForm);
 
-                            List<MotherFollowupCurrentlyOn> listMotherFollowupOn = getPreventTransmissionService().
-                                    getMotherFollowupList(null, null, "On", null, null);
-
-                            List<MotherFollowupCurrentlyOn> motherFollowupCurrentlyOnList = new ArrayList<MotherFollowupCurrentlyOn>();
-                            for (MotherFollowupCurrentlyOn motherFollowupCurrentlyOn : listMotherFollowupOn) {
-                                PregnantPatient p = getPreventTransmissionService().getPregnantPatientByHivCareNumber(motherFollowupCurrentlyOn.getHivCareNumber());
-                                if (!getPreventTransmissionService().isDead(p.getPatient()) && !getPreventTransmissionService().isTransferred(p.getPatient())
-                                        && !getPreventTransmissionService().isDeclaredNegative(p.getPatient())) {
-                                    motherFollowupCurrentlyOnList.add(motherFollowupCurrentlyOn);
-                                }
-                            }
-
-                            modelMap.addAttribute("listMotherFollowupOn", motherFollowupCurrentlyOnList);
+                            modelMap.addAttribute("listMotherFollowupOn", getActiveMotherFollowupList(false));
                         }
-                        else if (getPreventTransmissionService().isDeclaredNegative(pregnantPatient.getPatient())) {
+                        else if (vitalStatus == PatientVitalStatus.DECLARED_NEGATIVE) {
                             findPregnantPatientForm.setHivCareNumber(hivCareNumber);
                             session.setAttribute(WebConstants.OPENMRS_MSG_ATTR, "Cette femme est déclarée faux positif. Veuillez en choisir une autre SVP !");
                             modelMap.addAttribute("findPregnantPatientForm", findPregnantPatientForm);
 
-                            List<MotherFollowupCurrentlyOn> listMotherFollowupOn = getPreventTransmissionService().
-                                    getMotherFollowupList(null, null, "On", null, null);
-
-                            List<MotherFollowupCurrentlyOn> motherFollowupCurrentlyOnList = new ArrayList<MotherFollowupCurrentlyOn>();
-                            for (MotherFollowupCurrentlyOn motherFollowupCurrentlyOn : listMotherFollowupOn) {
-                                PregnantPatient p = getPreventTransmissionService().getPregnantPatientByHivCareNumber(motherFollowupCurrentlyOn.getHivCareNumber());
-                                if (!getPreventTransmissionService().isDead(p.getPatient()) && !getPreventTransmissionService().isTransferred(p.getPatient())) {
-                                    motherFollowupCurrentlyOnList.add(motherFollowupCurrentlyOn);
-                                }
-                            }
-                            modelMap.addAttribute("listMotherFollowupOn", motherFollowupCurrentlyOnList);
+                            modelMap.addAttribute("listMotherFollowupOn", getActiveMotherFollowupList(true));
                         }
                         else {
                             mode = "form";
@@ -309,11 +269,9 @@ public class MotherFollowupManageController {
                     MotherFollowup currentMotherFollowup = getPreventTransmissionService().getCurrentMotherFollowupByPregnantPatient(pregnantPatient);
                     if(currentMotherFollowup != null){
                         motherFollowupForm.setMotherFollowup(currentMotherFollowup);
-                        motherFollowupVisits = currentMotherFollowup.getMotherFollowupVisits();
                     }
 
-                    modelMap.addAttribute("motherFollowupVisits", getPreventTransmissionService().getMotherFollowupVisitByPatientAndFollowup(currentMotherFollowup));
-                    modelMap.addAttribute("motherFollowupVisitsCount", motherFollowupVisits != null ? motherFollowupVisits.size() : 0);
+                    addFollowupVisits(modelMap, currentMotherFollowup, true);
 
                     assert pregnantPatient != null;
                     motherFollowupForm.setPregnantPatientId(pregnantPatient.getPregnantPatientId());
@@ -322,19 +280,7 @@ public class MotherFollowupManageController {
                     modelMap.addAttribute("pregnantPatient", pregnantPatient);
                     modelMap.addAttribute("patientInfo", getPatientInfo(pregnantPatient.getPatient()));
                 } else {
-                    List<MotherFollowupCurrentlyOn> listMotherFollowupOn = getPreventTransmissionService().
-                            getMotherFollowupList(null, null, "On", null, null);
-
-                    List<MotherFollowupCurrentlyOn> motherFollowupCurrentlyOnList = new ArrayList<MotherFollowupCurrentlyOn>();
-                    for (MotherFollowupCurrentlyOn motherFollowupCurrentlyOn : listMotherFollowupOn) {
-                        PregnantPatient p = getPreventTransmissionService().getPregnantPatientByHivCareNumber(motherFollowupCurrentlyOn.getHivCareNumber());
-                        if (!getPreventTransmissionService().isDead(p.getPatient()) && !getPreventTransmissionService().isTransferred(p.getPatient())
-                                && !getPreventTransmissionService().isDeclaredNegative(p.getPatient())) {
-                            motherFollowupCurrentlyOnList.add(motherFollowupCurrentlyOn);
-                        }
-                    }
-
-                    modelMap.addAttribute("listMotherFollowupOn", motherFollowupCurrentlyOnList);
+                    modelMap.addAttribute("listMotherFollowupOn", getActiveMotherFollowupList(false));
                 }
             }
 
@@ -373,15 +319,7 @@ public class MotherFollowupManageController {
             } else {
                 motherFollowup = motherFollowupForm.getMotherFollowup(getPreventTransmissionService().getMotherFollowupById(motherFollowupForm.getMotherFollowupId()));
             }
-            Collection<MotherFollowupVisit> motherFollowupVisits;
-            if(motherFollowup.getMotherFollowupId() == null) {
-                motherFollowupVisits = motherFollowup.getMotherFollowupVisits();
-            } else {
-                motherFollowupVisits = getPreventTransmissionService().getMotherFollowupVisitByPatientAndFollowup(motherFollowup);
-            }
-
-            modelMap.addAttribute("motherFollowupVisits", motherFollowupVisits);
-            modelMap.addAttribute("motherFollowupVisitsCount", motherFollowupVisits != null ? motherFollowupVisits.size() : 0);
+            addFollowupVisits(modelMap, motherFollowup, true);
 
             new MotherFollowupFormValidator().validate(motherFollowupForm, result);
 
@@ -522,8 +460,7 @@ public class MotherFollowupManageController {
             } else {
                 mode = "followup";
 
-                modelMap.addAttribute("motherFollowupVisits", motherFollowup.getMotherFollowupVisits());
-                modelMap.addAttribute("motherFollowupVisitsCount",motherFollowup.getMotherFollowupVisits().size());
+                addFollowupVisits(modelMap, motherFollowup, false);
                 modelMap.addAttribute("motherFollowup", motherFollowup);
                 modelMap.addAttribute("patientInfo", getPatientInfo(motherFollowup.getPregnantPatient().getPatient()));
                 modelMap.addAttribute("hivCareNumber", motherFollowup.getPregnantPatient().getHivCareNumber());
@@ -597,12 +534,15 @@ public class MotherFollowupManageController {
             } else {
                 List<PregnantPatientToFollow> pregnantPatientFollowupList = getPreventTransmissionService().getPregnantPatientFollowupList();
 
+                List<Integer> patientIds = new ArrayList<Integer>();
+                for (PregnantPatientToFollow pregnantPatientToFollow : pregnantPatientFollowupList) {
+                    patientIds.add(pregnantPatientToFollow.getPatientId());
+                }
+                Map<Integer, PatientVitalStatus> vitalStatuses = getPreventTransmissionService().getPatientVitalStatuses(patientIds);
+
                 List<PregnantPatientToFollow> pregnantPatientToFollowList = new ArrayList<PregnantPatientToFollow>();
                 for (PregnantPatientToFollow pregnantPatientToFollow : pregnantPatientFollowupList) {
-                    PregnantPatient patient = getPreventTransmissionService().getPregnantPatientById(pregnantPatientToFollow.getPregnantPatientId());
-                    if (!getPreventTransmissionService().isTransferred(patient.getPatient()) &&
-                            !getPreventTransmissionService().isDead(patient.getPatient())
-                            && !getPreventTransmissionService().isDeclaredNegative(patient.getPatient())) {
+                    if (isActive(vitalStatuses, pregnantPatientToFollow.getPatientId())) {
                         pregnantPatientToFollowList.add(pregnantPatientToFollow);
                     }
                 }
@@ -726,8 +666,7 @@ public class MotherFollowupManageController {
             MotherFollowup motherFollowup = getPreventTransmissionService().getMotherFollowupById(motherFollowupId);
             if (motherFollowup != null){
 
-                modelMap.addAttribute("motherFollowupVisits", motherFollowup.getMotherFollowupVisits());
-                modelMap.addAttribute("motherFollowupVisitsCount",motherFollowup.getMotherFollowupVisits().size());
+                addFollowupVisits(modelMap, motherFollowup, false);
                 modelMap.addAttribute("motherFollowup", motherFollowup);
                 modelMap.addAttribute("patientInfo", getPatientInfo(motherFollowup.getPregnantPatient().getPatient()));
                 modelMap.addAttribute("hivCareNumber", motherFollowup.getPregnantPatient().getHivCareNumber());
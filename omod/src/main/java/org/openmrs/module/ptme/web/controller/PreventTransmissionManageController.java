@@ -15,10 +15,10 @@ package org.openmrs.module.ptme.web.controller;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
-import org.openmrs.Patient;
 import org.openmrs.api.context.Context;
 import org.openmrs.module.ptme.api.PreventTransmissionService;
 import org.openmrs.module.ptme.utils.MotherFollowupAppointment;
+import org.openmrs.module.ptme.utils.PatientVitalStatus;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.ModelMap;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -26,6 +26,7 @@ import org.springframework.web.bind.annotation.RequestMethod;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 /**
  * The main controller.
@@ -39,28 +40,32 @@ public class  PreventTransmissionManageController {
 		return Context.getService(PreventTransmissionService.class);
 	}
 
-	@RequestMapping(value = "/module/ptme/manage", method = RequestMethod.GET)
-	public void manage(ModelMap model) {
-		List<MotherFollowupAppointment> motherFollowupAppointments = new ArrayList<MotherFollowupAppointment>();
-
-		for (MotherFollowupAppointment followupAppointment : getPreventTransmissionService().getPregnantPatientsAppointment()) {
-			Patient patient = getPreventTransmissionService().getPatientByIdentifier(followupAppointment.getHivCareNumber());
-			if (!getPreventTransmissionService().isTransferred(patient) && !getPreventTransmissionService().isDead(patient)
-					&& !getPreventTransmissionService().isDeclaredNegative(patient)) {
-				motherFollowupAppointments.add(followupAppointment);
-			}
+	/**
+	 * Appointments of the mothers who did not die, were not transferred and were not declared negative
+	 */
+	private List<MotherFollowupAppointment> getActiveAppointments(List<MotherFollowupAppointment> appointments) {
+		List<Integer> patientIds = new ArrayList<Integer>();
+		for (MotherFollowupAppointment followupAppointment : appointments) {
+			patientIds.add(followupAppointment.getPatientId());
 		}
-		model.addAttribute("motherFollowedAppointments", motherFollowupAppointments);
+		Map<Integer, PatientVitalStatus> vitalStatuses = getPreventTransmissionService().getPatientVitalStatuses(patientIds);
 
-		List<MotherFollowupAppointment> motherFollowupAppointmentsMissed = new ArrayList<MotherFollowupAppointment>();
-		for (MotherFollowupAppointment followupAppointment : getPreventTransmissionService().getPregnantPatientsAppointmentMissed()) {
-			Patient patient = getPreventTransmissionService().getPatientByIdentifier(followupAppointment.getHivCareNumber());
-			if (!getPreventTransmissionService().isTransferred(patient) && !getPreventTransmissionService().isDead(patient)
-					&& !getPreventTransmissionService().isDeclaredNegative(patient)) {
-				motherFollowupAppointmentsMissed.add(followupAppointment);
+		List<MotherFollowupAppointment> activeAppointments = new ArrayList<MotherFollowupAppointment>();
+		for (MotherFollowupAppointment followupAppointment : appointments) {
+			PatientVitalStatus vitalStatus = vitalStatuses.get(followupAppointment.getPatientId());
+			if (vitalStatus == null || vitalStatus == PatientVitalStatus.ACTIVE) {
+				activeAppointments.add(followupAppointment);
 			}
 		}
-		model.addAttribute("motherFollowedAppointmentsMissed", motherFollowupAppointmentsMissed);
+		return activeAppointments;
+	}
+
+	@RequestMapping(value = "/module/ptme/manage", method = RequestMethod.GET)
+	public void manage(ModelMap model) {
+		model.addAttribute("motherFollowedAppointments",
+				getActiveAppointments(getPreventTransmissionService().getPregnantPatientsAppointment()));
+		model.addAttribute("motherFollowedAppointmentsMissed",
+				getActiveAppointments(getPreventTransmissionService().getPregnantPatientsAppointmentMissed()));
 
 //		model.addAttribute("user", Context.getAuthenticatedUser());
 		model.addAttribute("childFollowedAppointments", getPreventTransmissionService().getChildByAppointment());
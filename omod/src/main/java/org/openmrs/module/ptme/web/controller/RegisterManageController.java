@@ -4,6 +4,9 @@ import com.thoughtworks.xstream.XStream;
 import com.thoughtworks.xstream.io.xml.DomDriver;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import org.openmrs.Location;
 import org.openmrs.api.context.Context;
 import org.openmrs.module.ptme.*;
@@ -13,7 +16,8 @@ import org.openmrs.module.ptme.forms.validators.BirthFormValidator;
 import org.openmrs.module.ptme.forms.validators.PostnatalFormValidator;
 import org.openmrs.module.ptme.forms.validators.PrenatalFormValidator;
 import org.openmrs.module.ptme.utils.ConsultationWithType;
-import org.openmrs.module.ptme.utils.UsefullFunction;
+import org.openmrs.module.ptme.utils.PtmeDateUtils;
+import org.openmrs.module.ptme.utils.RegisterConsultationRow;
 import org.openmrs.module.ptme.xml.BirthXml;
 import org.openmrs.module.ptme.xml.PostnatalXml;
 import org.openmrs.module.ptme.xml.PregnantPatientXml;
@@ -27,9 +31,16 @@ import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
 
 import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import javax.servlet.http.HttpSession;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
 
@@ -38,9 +49,13 @@ public class RegisterManageController {
 
     protected final Log log = LogFactory.getLog(getClass());
 
+    private static final int REGISTER_MAX_PAGE_SIZE = 100;
+
+    private static final int REGISTER_EXPORT_PAGE_SIZE = 500;
+
     @ModelAttribute("listConsultation")
     public List<ConsultationWithType> getListConsultation() {
-        return getPreventTransmissionService().getConsultationsByDate(UsefullFunction.formatDateToddMMyyyy(new Date()), false);
+        return getPreventTransmissionService().getConsultationsByDate(PtmeDateUtils.today(), false);
     }
 
     @ModelAttribute("chosenLocation")
@@ -83,15 +98,10 @@ public class RegisterManageController {
 
             modelMap.addAttribute("manageConsultationForm", manageConsultationForm);
 
-            if (register.equals("Prenatal")) {
-                List<Prenatal> prenatalList = getPreventTransmissionService().getPrenatalConsultationsByDate(sDate, eDate);
-                modelMap.addAttribute("consultationList", prenatalList);
-            } else if(register.equals("Birth")){
-                List<Birth> birthList = getPreventTransmissionService().getBirthConsultationsByDate(sDate, eDate);
-                modelMap.addAttribute("consultationList", birthList);
-            } else if(register.equals("Postnatal")){
-                List<Postnatal> postnatalList = getPreventTransmissionService().getPostnatalConsultationsByDate(sDate, eDate);
-                modelMap.addAttribute("consultationList", postnatalList);
+            // The rows are loaded page by page by the register table, from registerData.form
+            if (isRegister(register) && sDate != null && eDate != null) {
+                modelMap.addAttribute("consultationCount",
+                        getPreventTransmissionService().getRegisterConsultationCount(register, sDate, eDate, null));
             }
 
             modelMap.addAttribute("register ", register);
@@ -99,6 +109,206 @@ public class RegisterManageController {
         }
     }
 
+    private static boolean isRegister(String register) {
+        return register.equals("Prenatal") || register.equals("Birth") || register.equals("Postnatal");
+    }
+
+    /**
+     * Server side source of the register table (DataTables protocol). The key of the last row is
+     * returned so that the next page is read by keyset instead of skipping the previous rows.
+     */
+    @RequestMapping(value = "/module/ptme/registerData.form", method = RequestMethod.GET)
+    @ResponseBody
+    public String registerData(HttpServletResponse response,
+                               @RequestParam(required = false, defaultValue = "") String register,
+                               @RequestParam(required = false, defaultValue = "") Date sDate,
+                               @RequestParam(required = false, defaultValue = "") Date eDate,
+                               @RequestParam(required = false, defaultValue = "0") Integer draw,
+                               @RequestParam(required = false, defaultValue = "0") Integer start,
+                               @RequestParam(required = false, defaultValue = "20") Integer length,
+                               @RequestParam(value = "search[value]", required = false, defaultValue = "") String search,
+                               @RequestParam(required = false) Long afterDate,
+                               @RequestParam(required = false) Integer afterId) {
+
+        response.setContentType("application/json");
+
+        if (!Context.isAuthenticated() || !isRegister(register) || sDate == null || eDate == null) {
+            return "{\"draw\":" + draw + ",\"recordsTotal\":0,\"recordsFiltered\":0,\"data\":[]}";
+        }
+
+        int pageSize = Math.max(1, Math.min(length, REGISTER_MAX_PAGE_SIZE));
+        String filter = search.trim();
+
+        Long total = getPreventTransmissionService().getRegisterConsultationCount(register, sDate, eDate, null);
+        Long filtered = filter.isEmpty() ? total :
+                getPreventTransmissionService().getRegisterConsultationCount(register, sDate, eDate, filter);
+        List<RegisterConsultationRow> rows = getPreventTransmissionService().getRegisterConsultations(register, sDate, eDate,
+                filter, afterDate != null ? new Date(afterDate) : null, afterId, Math.max(start, 0), pageSize);
+
+        StringBuilder json = new StringBuilder();
+        json.append("{\"draw\":").append(draw)
+                .append(",\"start\":").append(Math.max(start, 0))
+                .append(",\"recordsTotal\":").append(total)
+                .append(",\"recordsFiltered\":").append(filtered)
+                .append(",\"data\":[");
+        for (int i = 0; i < rows.size(); i++) {
+            RegisterConsultationRow row = rows.get(i);
+            if (i > 0) {
+                json.append(",");
+            }
+            json.append("{\"consultationId\":").append(row.getConsultationId())
+                    .append(",\"consultationDate\":").append(toJsonDate(row.getConsultationDate()))
+                    .append(",\"pregnantNumber\":").append(Helpers.toJsonString(row.getPregnantNumber()))
+                    .append(",\"hivCareNumber\":").append(Helpers.toJsonString(row.getHivCareNumber()))
+                    .append(",\"rank\":").append(Helpers.toJsonString(row.getRank()))
+                    .append(",\"weekOfAmenorrhea\":").append(row.getWeekOfAmenorrhea())
+                    .append(",\"spousalScreening\":").append(row.getSpousalScreening())
+                    .append(",\"spousalScreeningResult\":").append(row.getSpousalScreeningResult())
+                    .append(",\"hivStatusAtReception\":").append(row.getHivStatusAtReception())
+                    .append(",\"testProposal\":").append(row.getTestProposal())
+                    .append(",\"testResult\":").append(row.getTestResult())
+                    .append(",\"resultAnnouncement\":").append(row.getResultAnnouncement())
+                    .append(",\"arvDiscount\":").append(row.getArvDiscount())
+                    .append(",\"childArvProphylaxis\":").append(row.getChildArvProphylaxis())
+                    .append(",\"deliveryDate\":").append(toJsonDate(row.getDeliveryDate()))
+                    .append(",\"homeBirth\":").append(row.getHomeBirth())
+                    .append(",\"pregnancyIssue\":").append(row.getPregnancyIssue())
+                    .append(",\"childState\":").append(row.getChildState())
+                    .append("}");
+        }
+        json.append("]");
+        if (!rows.isEmpty()) {
+            RegisterConsultationRow last = rows.get(rows.size() - 1);
+            json.append(",\"lastKey\":{\"date\":").append(last.getConsultationDate().getTime())
+                    .append(",\"id\":").append(last.getConsultationId()).append("}");
+        }
+        json.append("}");
+        return json.toString();
+    }
+
+    private static String toJsonDate(Date date) {
+        return date != null ? "\"" + PtmeDateUtils.format(date, PtmeDateUtils.DAY_MONTH_YEAR) + "\"" : "null";
+    }
+
+    /**
+     * Excel export of all the rows of a register, with the filter of the register table. The rows are
+     * read by keyset, REGISTER_EXPORT_PAGE_SIZE at a time, and written to a streamed workbook that only
+     * keeps a window of rows in memory.
+     */
+    @RequestMapping(value = "/module/ptme/registerExport.form", method = RequestMethod.GET)
+    public void registerExport(HttpServletResponse response,
+                               @RequestParam(required = false, defaultValue = "") String register,
+                               @RequestParam(required = false, defaultValue = "") Date sDate,
+                               @RequestParam(required = false, defaultValue = "") Date eDate,
+                               @RequestParam(required = false, defaultValue = "") String search) throws IOException {
+
+        if (!Context.isAuthenticated() || !isRegister(register) || sDate == null || eDate == null) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST);
+            return;
+        }
+
+        String filter = search.trim();
+        List<String> headers = new ArrayList<String>(Arrays.asList("Date", "Numéro de gestante", "Numéro de PEC"));
+        if (register.equals("Prenatal")) {
+            headers.addAll(Arrays.asList("Rang de CPN", "Semaines d'Amenorrhee", "Conjoint Dépisté", "Statut Conjoint"));
+        }
+        headers.addAll(Arrays.asList("Statut VIH à l'accueil", "Propostion de test", "Résultat du test", "Annonce du résultat", "ARV Remise ?"));
+        if (register.equals("Birth") || register.equals("Postnatal")) {
+            headers.add("Prophylaxie à l'enfant");
+        }
+        if (register.equals("Birth")) {
+            headers.addAll(Arrays.asList("Né(e) le", "À domicile", "Terme", "Etat de l'enfant"));
+        }
+
+        SXSSFWorkbook workbook = new SXSSFWorkbook();
+        try {
+            Sheet sheet = workbook.createSheet(register);
+            addRow(sheet, 0, headers);
+
+            int rowNumber = 1;
+            Date afterDate = null;
+            Integer afterId = null;
+            List<RegisterConsultationRow> rows;
+            do {
+                rows = getPreventTransmissionService().getRegisterConsultations(register, sDate, eDate, filter,
+                        afterDate, afterId, 0, REGISTER_EXPORT_PAGE_SIZE);
+                for (RegisterConsultationRow row : rows) {
+                    addRow(sheet, rowNumber++, getExportValues(register, row));
+                }
+                if (!rows.isEmpty()) {
+                    RegisterConsultationRow last = rows.get(rows.size() - 1);
+                    afterDate = last.getConsultationDate();
+                    afterId = last.getConsultationId();
+                }
+            } while (rows.size() == REGISTER_EXPORT_PAGE_SIZE);
+
+            String filename = "Registre_" + register + "_" + PtmeDateUtils.format(sDate, PtmeDateUtils.ISO_DATE) + "_" +
+                    PtmeDateUtils.format(eDate, PtmeDateUtils.ISO_DATE) + ".xlsx";
+            response.setContentType("application/vnd.ms-excel");
+            response.setHeader("Content-Disposition", "attachment; filename=" + filename);
+            response.setHeader("Pragma", "no-cache");
+
+            OutputStream outputStream = new BufferedOutputStream(response.getOutputStream());
+            workbook.write(outputStream);
+            outputStream.flush();
+        } finally {
+            workbook.dispose();
+            workbook.close();
+        }
+    }
+
+    private static void addRow(Sheet sheet, int rowNumber, List<String> values) {
+        Row row = sheet.createRow(rowNumber);
+        for (int i = 0; i < values.size(); i++) {
+            if (values.get(i) != null) {
+                row.createCell(i).setCellValue(values.get(i));
+            }
+        }
+    }
+
+    /**
+     * @return the cells of a row of the export, with the labels shown by the register table
+     */
+    private static List<String> getExportValues(String register, RegisterConsultationRow row) {
+        List<String> values = new ArrayList<String>();
+        values.add(PtmeDateUtils.format(row.getConsultationDate(), PtmeDateUtils.DAY_MONTH_YEAR));
+        values.add(row.getPregnantNumber());
+        values.add(row.getHivCareNumber());
+        if (register.equals("Prenatal")) {
+            values.add(row.getRank());
+            values.add(row.getWeekOfAmenorrhea() != null ? row.getWeekOfAmenorrhea().toString() : null);
+            values.add(Integer.valueOf(0).equals(row.getSpousalScreening()) ? "Non" :
+                    label(row.getSpousalScreeningResult(), null, "Oui", "Ne sait pas"));
+            values.add(label(row.getSpousalScreeningResult(), "Négatif", "Positif", "N/A"));
+        }
+        values.add(labelOrElse(label(row.getHivStatusAtReception(), "Négatif", "Positif"), "Inconnu"));
+        values.add(labelOrElse(label(row.getTestProposal(), "Non", "Oui"), "N/A"));
+        values.add(labelOrElse(label(row.getTestResult(), "Négatif", "Positif"), "N/A"));
+        values.add(labelOrElse(label(row.getResultAnnouncement(), "Non", "Oui"), "N/A"));
+        values.add(labelOrElse(label(row.getArvDiscount(), "Non", "Oui"), "N/A"));
+        if (register.equals("Birth") || register.equals("Postnatal")) {
+            values.add(label(row.getChildArvProphylaxis(), "Non", "Oui"));
+        }
+        if (register.equals("Birth")) {
+            values.add(PtmeDateUtils.format(row.getDeliveryDate(), PtmeDateUtils.DAY_MONTH_YEAR));
+            values.add(Boolean.TRUE.equals(row.getHomeBirth()) ? "Oui" : "Non");
+            values.add(label(row.getPregnancyIssue(), null, "A terme", "Prematuré", "Post-terme"));
+            values.add(label(row.getChildState(), null, "Vivant", "Mort né frais", "Mort né Macéré"));
+        }
+        return values;
+    }
+
+    /**
+     * @return the label at the index of the value, null when the value has no label
+     */
+    private static String label(Integer value, String... labels) {
+        return value != null && value >= 0 && value < labels.length ? labels[value] : null;
+    }
+
+    private static String labelOrElse(String label, String otherwise) {
+        return label != null ? label : otherwise;
+    }
+
     @RequestMapping(value = "/module/ptme/registerList.form", method = RequestMethod.GET)
     public void registerList(HttpServletRequest request, ModelMap model,
                              @RequestParam(required = false, defaultValue = "") String register,
@@ -125,7 +335,7 @@ public class RegisterManageController {
                         prenatal.getHivService().setVoided(prenatal.getVoided());
                         prenatal.setVoidedBy(Context.getAuthenticatedUser());
                         prenatal.getHivService().setVoidedBy(prenatal.getVoidedBy());
-                        prenatal.setDateVoided(UsefullFunction.formatDateToddMMyyyyhms(new Date()));
+                        prenatal.setDateVoided(PtmeDateUtils.now());
                         prenatal.getHivService().setDateVoided(prenatal.getDateVoided());
                         getPreventTransmissionService().savePrenatalConsultation(prenatal);
                     }
@@ -137,7 +347,7 @@ public class RegisterManageController {
                         birth.getHivService().setVoided(birth.getVoided());
                         birth.setVoidedBy(Context.getAuthenticatedUser());
                         birth.getHivService().setVoidedBy(birth.getVoidedBy());
-                        birth.setDateVoided(UsefullFunction.formatDateToddMMyyyyhms(new Date()));
+                        birth.setDateVoided(PtmeDateUtils.now());
                         birth.getHivService().setDateVoided(birth.getDateVoided());
                         getPreventTransmissionService().saveBirthConsultation(birth);
                     }
@@ -150,7 +360,7 @@ public class RegisterManageController {
                         postnatal.getHivService().setVoided(postnatal.getVoided());
                         postnatal.setVoidedBy(Context.getAuthenticatedUser());
                         postnatal.getHivService().setVoidedBy(postnatal.getVoidedBy());
-                        postnatal.setDateVoided(UsefullFunction.formatDateToddMMyyyyhms(new Date()));
+                        postnatal.setDateVoided(PtmeDateUtils.now());
                         postnatal.getHivService().setDateVoided(postnatal.getDateVoided());
                         getPreventTransmissionService().savePostnatalConsultation(postnatal);
                     }
@@ -0,0 +1,128 @@
+package org.openmrs.module.ptme.web.controller;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.openmrs.module.ptme.ReportingTemplate;
+
+import java.util.*;
+
+/**
+ * Position of the indicator codes and of the report placeholders in the first sheet of an
+ * Excel template. The sheet is scanned once per template version, the export then writes
+ * each value straight into its cells.
+ */
+public class ReportTemplateIndex {
+
+    public static final List<String> PLACEHOLDERS = Arrays.asList("reportTitle", "reportLocation",
+            "reportGenerationDate", "reportStartDate", "reportEndDate", "reportMonth");
+
+    private static final int MAX_CACHED_TEMPLATES = 20;
+
+    private static final Map<String, ReportTemplateIndex> cache = new LinkedHashMap<String, ReportTemplateIndex>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, ReportTemplateIndex> eldest) {
+            return size() > MAX_CACHED_TEMPLATES;
+        }
+    };
+
+    private final Map<String, List<int[]>> codeCells = new HashMap<String, List<int[]>>();
+
+    private final Map<String, int[]> placeholderCells = new HashMap<String, int[]>();
+
+    private int maxColumnLength = 0;
+
+    private ReportTemplateIndex() {
+    }
+
+    /**
+     * @param template the template the sheet was loaded from
+     * @param sheet first sheet of the template, scanned if the template version is not indexed yet
+     */
+    public static ReportTemplateIndex getIndex(ReportingTemplate template, Sheet sheet) {
+        String key = getVersionKey(template);
+        synchronized (cache) {
+            ReportTemplateIndex index = cache.get(key);
+            if (index == null) {
+                index = build(sheet);
+                cache.put(key, index);
+            }
+            return index;
+        }
+    }
+
+    private static String getVersionKey(ReportingTemplate template) {
+        Date dateChanged = template.getDateChanged() != null ? template.getDateChanged() : template.getDateCreated();
+        byte[] content = template.getContent();
+        return template.getTemplateId() + ":" + (dateChanged != null ? dateChanged.getTime() : 0) + ":"
+                + (content != null ? content.length + ":" + Arrays.hashCode(content) : "0");
+    }
+
+    private static ReportTemplateIndex build(Sheet sheet) {
+        ReportTemplateIndex index = new ReportTemplateIndex();
+
+        for (Row row : sheet) {
+            Set<String> codesOfRow = new HashSet<String>();
+            int cellNum = 0;
+
+            for (Cell cell : row) {
+                cellNum++;
+                if (cell.getCellType() != Cell.CELL_TYPE_STRING) {
+                    continue;
+                }
+                String value = cell.getStringCellValue();
+                int[] address = new int[]{row.getRowNum(), cell.getColumnIndex()};
+
+                if (PLACEHOLDERS.contains(value)) {
+                    if (!index.placeholderCells.containsKey(value)) {
+                        index.placeholderCells.put(value, address);
+                    }
+                } else if (codesOfRow.add(value)) {
+                    // Only the first cell of a row holding a code receives its value
+                    List<int[]> cells = index.codeCells.get(value);
+                    if (cells == null) {
+                        cells = new ArrayList<int[]>();
+                        index.codeCells.put(value, cells);
+                    }
+                    cells.add(address);
+                }
+            }
+
+            if (index.maxColumnLength < cellNum) {
+                index.maxColumnLength = cellNum;
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Writes the value in every cell holding the code
+     */
+    public void setValue(Sheet sheet, String code, Integer value) {
+        List<int[]> cells = codeCells.get(code);
+        if (cells == null || value == null) {
+            return;
+        }
+        for (int[] address : cells) {
+            sheet.getRow(address[0]).getCell(address[1]).setCellValue(value);
+        }
+    }
+
+    /**
+     * Replaces the first cell holding the placeholder
+     */
+    public void setPlaceholder(Sheet sheet, String placeholder, String value) {
+        int[] address = placeholderCells.get(placeholder);
+        if (address == null || value == null) {
+            return;
+        }
+        sheet.getRow(address[0]).getCell(address[1]).setCellValue(value);
+    }
+
+    /**
+     * @return the largest number of cells of a row of the sheet
+     */
+    public int getMaxColumnLength() {
+        return maxColumnLength;
+    }
+}
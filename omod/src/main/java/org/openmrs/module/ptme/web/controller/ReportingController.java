@@ -7,15 +7,16 @@ import org.apache.poi.xssf.usermodel.XSSFPrintSetup;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.openmrs.Location;
 import org.openmrs.api.context.Context;
-import org.openmrs.module.ptme.ReportingDataset;
-import org.openmrs.module.ptme.ReportingIndicator;
 import org.openmrs.module.ptme.ReportingReportGeneration;
 import org.openmrs.module.ptme.api.PreventTransmissionService;
 import org.openmrs.module.ptme.forms.GetRunReportFromFrom;
 import org.openmrs.module.ptme.forms.RunReportForm;
 import org.openmrs.module.ptme.forms.validators.RunReportFormValidator;
+import org.openmrs.module.ptme.utils.PtmeDateUtils;
 import org.openmrs.module.ptme.utils.ReportDataSetIndicatorRun;
+import org.openmrs.module.ptme.utils.ReportGenerationJob;
 import org.openmrs.module.ptme.utils.ReportIndicatorValues;
+import org.openmrs.module.ptme.utils.ReportIndicatorValuesReader;
 import org.openmrs.module.ptme.utils.ReportRunIndicatorValue;
 import org.openmrs.module.ptme.utils.UsefullFunction;
 import org.openmrs.web.WebConstants;
@@ -29,21 +30,18 @@ import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.servlet.ModelAndView;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import javax.servlet.http.HttpSession;
-import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
-import javax.xml.bind.Unmarshaller;
 import java.io.*;
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Date;
-import java.util.Iterator;
 import java.util.List;
-import java.util.concurrent.TimeUnit;
+import java.util.Map;
 
 @Controller
 public class ReportingController {
@@ -51,11 +49,7 @@ public class ReportingController {
 
     private static final Logger log = LoggerFactory.getLogger(ReportingController.class);
 
-    private static SimpleDateFormat dateFormatter = new SimpleDateFormat(
-            "yyyy-MM-dd_HHmmss");
-
-    private static SimpleDateFormat dateFormatterDdMmYyyy = new SimpleDateFormat(
-            "dd/MM/yyyy");
+    private static final int GENERATED_REPORTS_PAGE_SIZE = 100;
 
     private PreventTransmissionService getPreventTransmissionService() {
         return Context.getService(PreventTransmissionService.class);
@@ -83,6 +77,8 @@ public class ReportingController {
                                  @RequestParam(required = false, defaultValue = "") Integer reportSaveId,
                                  @RequestParam(required = false, defaultValue = "") Integer reportViewId,
                                  @RequestParam(required = false, defaultValue = "") Integer reportExcelId,
+                                 @RequestParam(required = false, defaultValue = "") String jobId,
+                                 @RequestParam(required = false, defaultValue = "1") Integer page,
                                  ModelMap modelMap) throws Exception{
 
         if (!Context.isAuthenticated()){
@@ -105,17 +101,8 @@ public class ReportingController {
 
             ReportingReportGeneration reportGeneration = getPreventTransmissionService().getGeneratedReportById(id);
 
-            String xml = new String(reportGeneration.getContentGenerated(), "UTF-8");
-
-            // System.out.println(xml);
-
-            JAXBContext jaxbContext = JAXBContext.newInstance(ReportIndicatorValues.class);
-            Unmarshaller unmarshaller = jaxbContext.createUnmarshaller();
-
-
-            StringReader reader = new StringReader(xml);
-
-            ReportIndicatorValues reportIndicatorValues = (ReportIndicatorValues)unmarshaller.unmarshal(reader);
+            // Shared with the other requests reading this generated report, copied below before display
+            ReportIndicatorValues reportIndicatorValues = ReportIndicatorValuesReader.read(reportGeneration);
 
             if (reportViewId != null) {
 
@@ -123,30 +110,34 @@ public class ReportingController {
 
                 List<ReportDataSetIndicatorRun> dataSetIndicatorRuns = new ArrayList<ReportDataSetIndicatorRun>();
 
-                for (ReportDataSetIndicatorRun dataSetIndicatorRun : reportIndicatorValues.getReportDataSetIndicatorRuns()) {
-
-                    String uuid = dataSetIndicatorRun.getDataSetUuid();
+                Map<String, String> names = getPreventTransmissionService().getReportMetadataNames(reportIndicatorValues);
 
-                    //System.out.println(uuid);
+                for (ReportDataSetIndicatorRun dataSetIndicatorRun : reportIndicatorValues.getReportDataSetIndicatorRuns()) {
 
-                    ReportingDataset dataset = getPreventTransmissionService().getDatasetByUuid(uuid);
-                    dataSetIndicatorRun.setDataSetUuid(UsefullFunction.escapeHTML(dataset.getName()));
+                    ReportDataSetIndicatorRun displayedRun = new ReportDataSetIndicatorRun();
+                    displayedRun.setDataSetUuid(UsefullFunction.escapeHTML(getName(names, dataSetIndicatorRun.getDataSetUuid())));
 
                     List<ReportRunIndicatorValue> reportRunIndicatorValues = new ArrayList<ReportRunIndicatorValue>();
 
                     for (ReportRunIndicatorValue indicatorValue : dataSetIndicatorRun.getReportRunIndicatorValues()) {
-                        ReportingIndicator indicator = getPreventTransmissionService().getIndicatorByUuid(indicatorValue.getIndicatorUuid());
-                        indicatorValue.setIndicatorUuid(UsefullFunction.escapeHTML(indicator.getName()));
-                        reportRunIndicatorValues.add(indicatorValue);
+                        ReportRunIndicatorValue displayedValue = new ReportRunIndicatorValue(indicatorValue.getValue(),
+                                UsefullFunction.escapeHTML(getName(names, indicatorValue.getIndicatorUuid())));
+                        displayedValue.setCode(indicatorValue.getCode());
+                        reportRunIndicatorValues.add(displayedValue);
                     }
-                    dataSetIndicatorRun.setReportRunIndicatorValues(reportRunIndicatorValues);
-                    dataSetIndicatorRuns.add(dataSetIndicatorRun);
+                    displayedRun.setReportRunIndicatorValues(reportRunIndicatorValues);
+                    dataSetIndicatorRuns.add(displayedRun);
                 }
-                reportIndicatorValues.setReportDataSetIndicatorRuns(dataSetIndicatorRuns);
 
+                ReportIndicatorValues displayedValues = new ReportIndicatorValues();
+                displayedValues.setReportStartDate(reportIndicatorValues.getReportStartDate());
+                displayedValues.setReportEndDate(reportIndicatorValues.getReportEndDate());
+                displayedValues.setLocationUuid(reportIndicatorValues.getLocationUuid());
+                displayedValues.setGenerationDate(reportIndicatorValues.getGenerationDate());
+                displayedValues.setReportDataSetIndicatorRuns(dataSetIndicatorRuns);
 
                 modelMap.addAttribute("reportGeneration", reportGeneration);
-                modelMap.addAttribute("reportValue", reportIndicatorValues);
+                modelMap.addAttribute("reportValue", displayedValues);
             }
         }
 
@@ -181,29 +172,31 @@ public class ReportingController {
         }
 
         if (mode.equals("list")) {
-            List<ReportingReportGeneration> reportGeneratedList = getPreventTransmissionService().getAllGeneratedReport(false);
-
-            for (ReportingReportGeneration reportGeneration : reportGeneratedList) {
-                if (!reportGeneration.getSaved()) {
-                    Date generationDate = reportGeneration.getGenerationDate();
-                    Date toDay = new Date();
-                    long diffInMillis = Math.abs(generationDate.getTime() - toDay.getTime());
-                    long diff = TimeUnit.DAYS.convert(diffInMillis, TimeUnit.MILLISECONDS);
-
-                    if (diff > 3) {
-                        getPreventTransmissionService().removeGeneratedReport(reportGeneration.getId());
-                    }
-                }
+            if (!jobId.isEmpty()) {
+                modelMap.addAttribute("reportJob", getPreventTransmissionService().getReportGenerationJob(jobId));
             }
 
             modelMap.addAttribute("getRunReportFormForm", new GetRunReportFromFrom());
-            modelMap.addAttribute("listGeneratedReports", getPreventTransmissionService().getAllGeneratedReport(false));
+            long count = getPreventTransmissionService().getGeneratedReportCount(false);
+            int pageCount = Math.max(1, (int) ((count + GENERATED_REPORTS_PAGE_SIZE - 1) / GENERATED_REPORTS_PAGE_SIZE));
+            int currentPage = Math.min(Math.max(page != null ? page : 1, 1), pageCount);
+
+            modelMap.addAttribute("listGeneratedReports", getPreventTransmissionService().getGeneratedReportSummaries(false,
+                    (currentPage - 1) * GENERATED_REPORTS_PAGE_SIZE, GENERATED_REPORTS_PAGE_SIZE));
+            modelMap.addAttribute("generatedReportsPage", currentPage);
+            modelMap.addAttribute("generatedReportsPageCount", pageCount);
+            modelMap.addAttribute("generatedReportsCount", count);
         }
 
         modelMap.addAttribute("mode", mode);
 
     }
 
+    private static String getName(Map<String, String> names, String uuid) {
+        String name = names.get(uuid);
+        return name != null ? name : uuid;
+    }
+
     @RequestMapping(value = "/module/ptme/reportGenerate.form", method = RequestMethod.POST)
     public String onRunIndicator(HttpServletRequest request,
                                  ModelMap modelMap,
@@ -220,31 +213,11 @@ public class ReportingController {
         if(!result.hasErrors()) {
             HttpSession session = request.getSession();
 
-            Boolean hasErrors = false;
+            ReportGenerationJob job = getPreventTransmissionService().submitReportGeneration(runReportForm);
 
-            ReportingReportGeneration reportingReportGeneration = null;
-
-            //System.out.println("************************************ Report ID = "+runReportForm.getReportId());
-
-            String generatedReportXmlString = getPreventTransmissionService().getGeneratedReportXmlString(runReportForm.getReportPeriodStartDate(),
-                    runReportForm.getReportPeriodEndDate(), runReportForm.getReportId(), runReportForm.getReportLocation());
-
-            //System.out.println(generatedReportXmlString);
-
-            if (runReportForm.getGenerationId() != null) {
-                reportingReportGeneration = runReportForm.setGeneratedReport(getPreventTransmissionService().getGeneratedReportById(runReportForm.getGenerationId()));
-            } else {
-                reportingReportGeneration = runReportForm.setGeneratedReport(new ReportingReportGeneration());
-            }
+            session.setAttribute(WebConstants.OPENMRS_MSG_ATTR, "Génération du rapport en cours ...");
 
-            reportingReportGeneration.setContentGenerated(generatedReportXmlString.getBytes());
-            //reportingReportGeneration.setReportLocation(Context.getLocationService().getDefaultLocation());
-
-            if (getPreventTransmissionService().saveGenerationReport(reportingReportGeneration) != null) {
-                session.setAttribute(WebConstants.OPENMRS_MSG_ATTR, "Rapport généré avec succès !");
-            }
-
-            return "redirect:/module/ptme/reportGenerate.form";
+            return "redirect:/module/ptme/reportGenerate.form?jobId=" + job.getJobId();
         } else {
             modelMap.addAttribute("mode", "form");
             modelMap.addAttribute("locationList", Context.getLocationService().getAllLocations(false));
@@ -255,117 +228,74 @@ public class ReportingController {
 
     }
 
-    @RequestMapping("/module/ptme/reportExcelView.form")
-    public ModelAndView exportExcel(@RequestParam("reportExcelId") Integer reportExcelId, HttpServletResponse response, HttpServletRequest request) throws IOException, JAXBException {
+    @RequestMapping(value = "/module/ptme/reportGenerationStatus.form", method = RequestMethod.GET)
+    @ResponseBody
+    public String reportGenerationStatus(@RequestParam("jobId") String jobId, HttpServletResponse response) {
 
-        ReportingReportGeneration reportGeneration = getPreventTransmissionService().getGeneratedReportById(reportExcelId);
+        response.setContentType("application/json");
 
-        String xml = new String(reportGeneration.getContentGenerated(), "UTF-8");
+        if (!Context.isAuthenticated()){
+            return "{}";
+        }
 
-        JAXBContext jaxbContext = JAXBContext.newInstance(ReportIndicatorValues.class);
-        Unmarshaller unmarshaller = jaxbContext.createUnmarshaller();
+        ReportGenerationJob job = getPreventTransmissionService().getReportGenerationJob(jobId);
+        if (job == null) {
+            return "{\"jobId\":" + Helpers.toJsonString(jobId) + ",\"status\":\"UNKNOWN\"}";
+        }
 
-        StringReader reader = new StringReader(xml);
+        return "{\"jobId\":" + Helpers.toJsonString(job.getJobId()) + "," +
+                "\"status\":" + Helpers.toJsonString(job.getStatus()) + "," +
+                "\"completed\":" + job.getCompleted() + "," +
+                "\"total\":" + job.getTotal() + "," +
+                "\"generationId\":" + (job.getGenerationId() != null ? job.getGenerationId() : "null") + "," +
+                "\"errorMessage\":" + Helpers.toJsonString(job.getErrorMessage()) + "}";
+    }
 
-        ReportIndicatorValues reportIndicatorValues = (ReportIndicatorValues)unmarshaller.unmarshal(reader);
+    @RequestMapping("/module/ptme/reportExcelView.form")
+    public ModelAndView exportExcel(@RequestParam("reportExcelId") Integer reportExcelId, HttpServletResponse response, HttpServletRequest request) throws IOException, JAXBException {
+
+        ReportingReportGeneration reportGeneration = getPreventTransmissionService().getGeneratedReportById(reportExcelId);
+
+        ReportIndicatorValues reportIndicatorValues = ReportIndicatorValuesReader.read(reportGeneration);
 
 
         try {
 
             InputStream is = new ByteArrayInputStream(reportGeneration.getReport().getTemplate().getContent());
-            Workbook workbook = new XSSFWorkbook(is);
+            XSSFWorkbook workbook = new XSSFWorkbook(is);
             is.close();
 
             Sheet sheet = workbook.getSheetAt(0);
 
-            Boolean hasReportTitle = false;
-            Boolean hasReportLocation = false;
-            Boolean hasReportStartDate = false;
-            Boolean hasReportEndDate = false;
-            Boolean hasReportGenerationDate = false;
-            Boolean hasReportMonth = false;
-
-            int maxColumnLength = 0;
+            ReportTemplateIndex templateIndex = ReportTemplateIndex.getIndex(reportGeneration.getReport().getTemplate(), sheet);
 
             for (ReportDataSetIndicatorRun dataSetIndicatorRun : reportIndicatorValues.getReportDataSetIndicatorRuns()) {
                 for (ReportRunIndicatorValue indicatorValue : dataSetIndicatorRun.getReportRunIndicatorValues()) {
-
-                    Iterator<Row> rowIterator = sheet.rowIterator();
-
-                    while (rowIterator.hasNext()) {
-                        Row row = rowIterator.next();
-                        Iterator<Cell> cellIterator = row.cellIterator();
-                        int cellNum = 0;
-
-                        while (cellIterator.hasNext()) {
-                            Cell cell = cellIterator.next();
-                            cellNum += 1;
-
-                            if (cell.getCellType() == Cell.CELL_TYPE_STRING) {
-
-                                if (cell.getStringCellValue().equals(indicatorValue.getCode())) {
-                                    cell.setCellValue(indicatorValue.getValue());
-                                    break;
-                                }
-
-                                if (!hasReportTitle) {
-                                    if (cell.getStringCellValue().equals("reportTitle")) {
-                                        cell.setCellValue(UsefullFunction.writeAccent(reportGeneration.getReport().getReportLabel()));
-                                        hasReportTitle = true;
-                                    }
-                                }
-                                if (!hasReportLocation) {
-                                    if (cell.getStringCellValue().equals("reportLocation")) {
-                                        cell.setCellValue(reportGeneration.getReportLocation().getName());
-                                        hasReportLocation = true;
-                                    }
-                                }
-                                if (!hasReportGenerationDate) {
-                                    if (cell.getStringCellValue().equals("reportGenerationDate")) {
-                                        cell.setCellValue(dateFormatterDdMmYyyy.format(reportGeneration.getGenerationDate()));
-                                        hasReportGenerationDate = true;
-                                    }
-                                }
-                                if (!hasReportStartDate) {
-                                    if (cell.getStringCellValue().equals("reportStartDate")) {
-                                        cell.setCellValue(dateFormatterDdMmYyyy.format(reportGeneration.getReportPeriodStartDate()));
-                                        hasReportStartDate = true;
-                                    }
-                                }
-                                if (!hasReportEndDate) {
-                                    if (cell.getStringCellValue().equals("reportEndDate")) {
-                                        cell.setCellValue(dateFormatterDdMmYyyy.format(reportGeneration.getReportPeriodEndDate()));
-                                        hasReportEndDate = true;
-                                    }
-                                }
-                                if (!hasReportMonth) {
-                                    if (cell.getStringCellValue().equals("reportMonth")) {
-                                        cell.setCellValue(reportGeneration.getName());
-                                        hasReportMonth = true;
-                                    }
-                                }
-                            }
-                        }
-
-                        if (maxColumnLength < cellNum)
-                            maxColumnLength = cellNum;
-                    }
+                    templateIndex.setValue(sheet, indicatorValue.getCode(), indicatorValue.getValue());
                 }
             }
 
+            templateIndex.setPlaceholder(sheet, "reportTitle", UsefullFunction.writeAccent(reportGeneration.getReport().getReportLabel()));
+            templateIndex.setPlaceholder(sheet, "reportLocation", reportGeneration.getReportLocation().getName());
+            templateIndex.setPlaceholder(sheet, "reportGenerationDate", PtmeDateUtils.format(reportGeneration.getGenerationDate(), PtmeDateUtils.DAY_MONTH_YEAR));
+            templateIndex.setPlaceholder(sheet, "reportStartDate", PtmeDateUtils.format(reportGeneration.getReportPeriodStartDate(), PtmeDateUtils.DAY_MONTH_YEAR));
+            templateIndex.setPlaceholder(sheet, "reportEndDate", PtmeDateUtils.format(reportGeneration.getReportPeriodEndDate(), PtmeDateUtils.DAY_MONTH_YEAR));
+            templateIndex.setPlaceholder(sheet, "reportMonth", reportGeneration.getName());
+
+            // The cached results of the formulas are read by the viewers that do not recalculate
             XSSFFormulaEvaluator.evaluateAllFormulaCells(workbook);
 
             workbook.setPrintArea(
                     0, //sheet index
                     0, //start column
-                    maxColumnLength - 1, //end column
+                    templateIndex.getMaxColumnLength() - 1, //end column
                     sheet.getFirstRowNum(), //start row
                     sheet.getLastRowNum() //end row
             );
 
             String filename = UsefullFunction.writeAccent(reportGeneration.getReport().getReportLabel()).replace(" ", "_") +
                     "_" +  reportGeneration.getName().replace(" ", "_") + "_" +
-                    dateFormatter.format(new Date())+ ".xlsx";
+                    PtmeDateUtils.format(new Date(), PtmeDateUtils.FILE_TIMESTAMP)+ ".xlsx";
 
             sheet.getPrintSetup().setPaperSize(XSSFPrintSetup.A4_PAPERSIZE);
             sheet.setDisplayGridlines(false);
@@ -379,7 +309,9 @@ public class ReportingController {
             response.setHeader("Content-Disposition","attachment; filename=" + filename);
             response.setHeader("Pragma", "no-cache");
 
-            workbook.write(response.getOutputStream());
+            OutputStream outputStream = new BufferedOutputStream(response.getOutputStream());
+            workbook.write(outputStream);
+            outputStream.flush();
             workbook.close();
 
         } catch (Exception e) {
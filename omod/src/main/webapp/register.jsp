@@ -4,17 +4,141 @@
 
 <%@ include file="template/localHeader.jsp"%>
 
+<c:url value="/module/ptme/registerData.form" var="registerDataUrl">
+    <c:param name="register" value="${manageConsultationForm.register}"/>
+    <c:param name="sDate"><fmt:formatDate type="date" value="${manageConsultationForm.sDate}" pattern="dd/MM/yyyy" /></c:param>
+    <c:param name="eDate"><fmt:formatDate type="date" value="${manageConsultationForm.eDate}" pattern="dd/MM/yyyy" /></c:param>
+</c:url>
+<c:url value="/module/ptme/registerExport.form" var="registerExportUrl">
+    <c:param name="register" value="${manageConsultationForm.register}"/>
+    <c:param name="sDate"><fmt:formatDate type="date" value="${manageConsultationForm.sDate}" pattern="dd/MM/yyyy" /></c:param>
+    <c:param name="eDate"><fmt:formatDate type="date" value="${manageConsultationForm.eDate}" pattern="dd/MM/yyyy" /></c:param>
+</c:url>
+<c:url value="/module/ptme/registerList.form" var="registerListUrl" />
+
 <script type="application/javascript">
     if (jQuery) {
         $(document).ready(function () {
+            var register = "${manageConsultationForm.register}";
+            var registerListUrl = "${registerListUrl}";
+            // Key of the last row of each page already read, the following page is read by keyset
+            var pageKeys = {};
+            var lastSearch = "";
+            var lastLength = null;
+
+            function label(value, labels, otherwise) {
+                return labels.hasOwnProperty(value) ? labels[value] : otherwise;
+            }
+
+            var columns = [
+                { data: "consultationDate" },
+                { data: "pregnantNumber" },
+                { data: "hivCareNumber", defaultContent: "" }
+            ];
+            if (register === 'Prenatal') {
+                columns.push(
+                    { data: "rank", defaultContent: "" },
+                    { data: "weekOfAmenorrhea", defaultContent: "", className: "dt-center" },
+                    { data: null, className: "dt-center", render: function (row) {
+                        return row.spousalScreening === 0 ? 'Non' : label(row.spousalScreeningResult, {1: 'Oui', 2: 'Ne sait pas'}, '');
+                    } },
+                    { data: "spousalScreeningResult", className: "dt-center", render: function (value) {
+                        return label(value, {0: 'N&#233;gatif', 1: 'Positif', 2: 'N/A'}, '');
+                    } }
+                );
+            }
+            columns.push(
+                { data: "hivStatusAtReception", className: "dt-center", render: function (value) {
+                    return label(value, {0: 'N&#233;gatif', 1: 'Positif'}, 'Inconnu');
+                } },
+                { data: "testProposal", className: "dt-center", render: function (value) {
+                    return label(value, {0: 'Non', 1: 'Oui'}, 'N/A');
+                } },
+                { data: "testResult", className: "dt-center", render: function (value) {
+                    return label(value, {0: 'N&#233;gatif', 1: 'Positif'}, 'N/A');
+                } },
+                { data: "resultAnnouncement", className: "dt-center", render: function (value) {
+                    return label(value, {0: 'Non', 1: 'Oui'}, 'N/A');
+                } },
+                { data: "arvDiscount", className: "dt-center", render: function (value) {
+                    return label(value, {0: 'Non', 1: 'Oui'}, 'N/A');
+                } }
+            );
+            if (register === 'Birth' || register === 'Postnatal') {
+                columns.push({ data: "childArvProphylaxis", className: "dt-center", render: function (value) {
+                    return label(value, {0: 'Non', 1: 'Oui'}, '');
+                } });
+            }
+            if (register === 'Birth') {
+                columns.push(
+                    { data: "deliveryDate", defaultContent: "", className: "dt-center" },
+                    { data: "homeBirth", className: "dt-center", render: function (value) {
+                        return value ? 'Oui' : 'Non';
+                    } },
+                    { data: "pregnancyIssue", className: "dt-center", render: function (value) {
+                        return label(value, {1: 'A terme', 2: 'Prematur&#233;', 3: 'Post-terme'}, '');
+                    } },
+                    { data: "childState", className: "dt-center", render: function (value) {
+                        return label(value, {1: 'Vivant', 2: 'Mort n&#233; frais', 3: 'Mort n&#233; Mac&#233;r&#233;'}, '');
+                    } }
+                );
+            }
+            columns.push({ data: "consultationId", className: "dt-center", width: "30", render: function (consultationId) {
+                var params = "?register=" + encodeURIComponent(register);
+                return '<table cellspacing="0" cellpadding="0" class="button-table"><tr>' +
+                    '<td><a href="' + registerListUrl + params + '&consultationId=' + consultationId + '"><img src="/openmrs/images/edit.gif" alt="Editer"></a></td>' +
+                    '<td>|</td>' +
+                    '<td><a href="' + registerListUrl + params + '&delId=' + consultationId + '" onclick="return confirm(\'Voulez-vous vraiment supprimer la ligne ?\');">' +
+                    '<img src="/openmrs/images/trash.gif" alt="Supprimer"></a></td>' +
+                    '</tr></table>';
+            } });
+
             $("#list-register").dataTable({
                 dom: 'B<"clear">lfrtip',
+                // The table only holds the current page, all the rows are exported by the server
                 buttons: {
                     name: 'primary',
-                    buttons: [ 'copy', 'excel' ]
+                    buttons: [ {
+                        text: 'Excel',
+                        action: function (e, dt) {
+                            window.location = "${registerExportUrl}" + "&search=" + encodeURIComponent(dt.search());
+                        }
+                    } ]
+                },
+                "serverSide": true,
+                "processing": true,
+                "ordering": false,
+                "searchDelay": 500,
+                "ajax": {
+                    "url": "${registerDataUrl}",
+                    "data": function (data) {
+                        // The keys are only valid for the search and the page length they were read with
+                        if (data.search.value !== lastSearch || data.length !== lastLength) {
+                            pageKeys = {};
+                            lastSearch = data.search.value;
+                            lastLength = data.length;
+                        }
+                        var previousKey = pageKeys[data.start - data.length];
+                        if (previousKey) {
+                            data.afterDate = previousKey.date;
+                            data.afterId = previousKey.id;
+                        }
+                        // Only the parameters read by the server are sent
+                        return {
+                            draw: data.draw, start: data.start, length: data.length,
+                            "search[value]": data.search.value,
+                            afterDate: data.afterDate, afterId: data.afterId
+                        };
+                    },
+                    "dataSrc": function (json) {
+                        if (json.lastKey) {
+                            pageKeys[json.start] = json.lastKey;
+                        }
+                        return json.data;
+                    }
                 },
+                "columns": columns,
                 "pageLength": 20,
-                "order": [[1, "desc"]],
                 "language": {
                     "zeroRecords": "Aucune donn&eacute;e &agrave; afficher",
                     //"emptyTable": "Aucune donn&eacute;e",
@@ -23,7 +147,8 @@
                         next:     'Suivant'
                     },
                     "info":"Affichage de _START_ a _END_ sur _TOTAL_ ",
-                    "search": "Filtrer les consultations"
+                    "processing": "Chargement...",
+                    "search": "Filtrer par num&eacute;ro de gestante"
                 },
                 "lengthChange": false,
                 "stripeClasses": [ 'odd', 'even' ]
@@ -77,21 +202,21 @@
     <%--</div>--%>
     <%--<div class="boxHeader"></div>--%>
     <%--<div class="box">--%>
-    <c:if test="${ empty consultationList && empty manageConsultationForm.sDate && empty manageConsultationForm.eDate}" >
+    <c:if test="${ empty consultationCount && empty manageConsultationForm.sDate && empty manageConsultationForm.eDate}" >
         <table width="100%" border="1" style="border: 1px solid #1aac9b" cellpadding="10">
             <tr>
                 <td align="center">Entrez les param&egrave;tres pour avoir la liste recherch&eacute;e SVP</td>
             </tr>
         </table>
     </c:if>
-    <c:if test="${ empty consultationList && (not empty manageConsultationForm.sDate || not empty manageConsultationForm.eDate)}" >
+    <c:if test="${ (empty consultationCount || consultationCount == 0) && (not empty manageConsultationForm.sDate || not empty manageConsultationForm.eDate)}" >
         <table width="100%" border="1" style="border: 1px solid #1aac9b" cellpadding="10">
             <tr>
                 <td align="center">Aucune consultation trouv&eacute; pour les param&egrave;tres que vous avez renseign&eacute; !!</td>
             </tr>
         </table>
     </c:if>
-    <c:if test="${ not empty consultationList }" >
+    <c:if test="${ consultationCount > 0 }" >
         <h2>
             <b>
                 Liste des
@@ -140,59 +265,7 @@
                 <th></th>
             </tr>
             </thead>
-            <tbody>
-            <c:forEach var="consult" items="${ consultationList }">
-                <tr>
-                    <td><fmt:formatDate type="date" value="${ consult.consultationDate }" pattern="dd/MM/yyyy" /></td>
-                    <td>${consult.pregnantPatient.pregnantNumber}</td>
-                    <td>${consult.pregnantPatient.hivCareNumber}</td>
-                    <%--<td>${consult.pregnantPatient.screeningNumber}</td>--%>
-                    <c:if test="${ manageConsultationForm.register == 'Prenatal' }" >
-                        <td>${consult.rank}</td>
-                        <td align="center">${consult.weekOfAmenorrhea}</td>
-                        <td align="center">${ (consult.spousalScreening == 0) ? 'Non': (consult.spousalScreeningResult == 1 ? "Oui": (consult.spousalScreeningResult == 2 ? 'Ne sait pas' : ""))}</td>
-                        <td align="center">${ (consult.spousalScreeningResult == 0) ? "N&#233;gatif": (consult.spousalScreeningResult == 1 ? "Positif": (consult.spousalScreeningResult == 2 ? 'N/A' : ""))}</td>
-                    </c:if>
-                    <td align="center">${(consult.hivService.hivStatusAtReception == 0) ? "N&#233;gatif": (consult.hivService.hivStatusAtReception == 1 ? 'Positif': 'Inconnu')}</td>
-                    <td align="center">${ (consult.hivService.testProposal == 0) ? 'Non': (consult.hivService.testProposal == 1 ? 'Oui' : 'N/A') }</td>
-                    <td align="center">${ (consult.hivService.testResult == 0) ? 'N&#233;gatif': (consult.hivService.testResult == 1 ? 'Positif' : 'N/A') }</td>
-                    <td align="center">${ (consult.hivService.resultAnnouncement == 0) ? 'Non' : (consult.hivService.resultAnnouncement == 1 ? 'Oui' : 'N/A')}</td>
-                    <td align="center">${ (consult.hivService.arvDiscount == 0) ? 'Non' : (consult.hivService.arvDiscount == 1 ? 'Oui' : 'N/A') }</td>
-                    <c:if test="${ manageConsultationForm.register == 'Birth' ||  manageConsultationForm.register == 'Postnatal' }" >
-                        <td align="center">${ (consult.hivService.childArvProphylaxis == 0) ? 'Non' : (consult.hivService.childArvProphylaxis == 1 ? 'Oui' : '') }</td>
-                    </c:if>
-                    <c:if test="${ manageConsultationForm.register == 'Birth' }" >
-                        <td align="center"><fmt:formatDate type="date" value="${consult.deliveryDate}" pattern="dd/MM/yyyy" /></td>
-                        <td align="center">${consult.homeBirth ? "Oui" : "Non"}</td>
-                        <td align="center">${consult.pregnancyIssue == 1 ? "A terme" : (consult.pregnancyIssue == 2 ? "Prematur&#233;" : (consult.pregnancyIssue == 3 ? "Post-terme" : ""))}</td>
-                        <td align="center">${consult.childState == 1 ? "Vivant" : (consult.childState == 2 ? "Mort n&#233; frais" : (consult.childState == 3 ? "Mort n&#233; Mac&#233;r&#233;" : ""))}</td>
-                    </c:if>
-                    <td align="center" width="30">
-                        <table cellspacing="0" cellpadding="0" class="button-table">
-                            <tr>
-                                <td>
-                                    <c:url value="/module/ptme/registerList.form" var="url">
-                                        <c:param name="consultationId" value="${consult.consultationId}"/>
-                                        <c:param name="register" value="${manageConsultationForm.register}"/>
-                                    </c:url>
-                                    <a href="${ url }"><img src="/openmrs/images/edit.gif" alt="Editer"></a>
-                                </td>
-                                <td>|</td>
-                                <td>
-                                    <c:url value="/module/ptme/registerList.form" var="urlsup">
-                                        <c:param name="delId" value="${consult.consultationId}"/>
-                                        <c:param name="register" value="${manageConsultationForm.register}"/>
-                                    </c:url>
-                                    <a href="${ urlsup }" onclick="return confirm('Voulez-vous vraiment supprimer la ligne ?');">
-                                        <img src="/openmrs/images/trash.gif" alt="Supprimer">
-                                    </a>
-                                </td>
-                            </tr>
-                        </table>
-                    </td>
-                </tr>
-            </c:forEach>
-            </tbody>
+            <tbody></tbody>
         </table>
     </c:if>
 </div>
@@ -87,6 +87,42 @@
 <%@ include file="template/reportHeader.jsp"%>
 
 <c:if test="${mode == 'list' || empty(mode)}">
+    <c:if test="${not empty reportJob}">
+        <div class="box" id="report-job">
+            <h3><b>G&eacute;n&eacute;ration en cours : ${reportJob.name}</b></h3>
+            <div class="line"></div>
+            <div id="report-job-progress" style="width: 400px"></div>
+            <p id="report-job-status">${reportJob.completed} / ${reportJob.total} indicateurs</p>
+        </div>
+        <script type="application/javascript">
+            if (jQuery) {
+                $(document).ready(function () {
+                    $("#report-job-progress").progressbar({ value: false });
+
+                    var checkReportJob = function () {
+                        $.getJSON("${pageContext.request.contextPath}/module/ptme/reportGenerationStatus.form",
+                            { jobId: "${reportJob.jobId}" },
+                            function (job) {
+                                if (job.total > 0) {
+                                    $("#report-job-progress").progressbar("option", "value", Math.round(job.completed * 100 / job.total));
+                                }
+                                $("#report-job-status").html(job.completed + " / " + job.total + " indicateurs");
+
+                                if (job.status === "COMPLETED") {
+                                    document.location.href = "${pageContext.request.contextPath}/module/ptme/reportGenerate.form";
+                                } else if (job.status === "FAILED") {
+                                    $("#report-job-status").html("Erreur lors de la g&eacute;n&eacute;ration du rapport : " + job.errorMessage);
+                                } else if (job.status !== "UNKNOWN") {
+                                    setTimeout(checkReportJob, 2000);
+                                }
+                            });
+                    };
+                    checkReportJob();
+                });
+            }
+        </script>
+    </c:if>
+
     <div class="box">
         <h3><b>Rapports</b></h3>
 
@@ -120,19 +156,14 @@
             <tbody>
             <c:forEach var="generatedReport" items="${ listGeneratedReports }">
                 <tr>
-                    <td>${generatedReport.report.reportLabel}</td>
+                    <td>${generatedReport.reportLabel}</td>
                     <td>${generatedReport.name}</td>
                     <td><fmt:formatDate type="date" value="${generatedReport.generationDate}" pattern="dd/MM/yyyy HH:mm:ss" /></td>
-                    <td>${generatedReport.reportLocation.name}</td>
+                    <td>${generatedReport.locationName}</td>
                     <td><fmt:formatDate type="date" value="${generatedReport.reportPeriodStartDate}" pattern="dd/MM/yyyy" /></td>
                     <td><fmt:formatDate type="date" value="${generatedReport.reportPeriodEndDate}" pattern="dd/MM/yyyy" /></td>
                     <td>
-                        <c:forEach var="person" items="${ generatedReport.creator.person.names }">
-                            <%--<c:if test="${ person.preferred }">
-                                ${person.familyName} ${person.givenName}
-                            </c:if>--%>
-                            ${person.familyName} ${person.middleName} ${person.givenName}
-                        </c:forEach>
+                        ${generatedReport.creatorFamilyName} ${generatedReport.creatorMiddleName} ${generatedReport.creatorGivenName}
                     </td>
                     <td width="30">
                         <table cellpadding="0" cellspacing="0" class="button-table">
@@ -182,6 +213,23 @@
             </c:forEach>
             </tbody>
         </table>
+        <c:if test="${generatedReportsPageCount > 1}">
+            <div style="margin-top: 5px; text-align: right">
+                <c:if test="${generatedReportsPage > 1}">
+                    <c:url value="/module/ptme/reportGenerate.form" var="previousPageUrl">
+                        <c:param name="page" value="${generatedReportsPage - 1}"/>
+                    </c:url>
+                    <a href="${ previousPageUrl }">Pr&eacute;c&eacute;dent</a>
+                </c:if>
+                Page ${generatedReportsPage} / ${generatedReportsPageCount} (${generatedReportsCount} rapports)
+                <c:if test="${generatedReportsPage < generatedReportsPageCount}">
+                    <c:url value="/module/ptme/reportGenerate.form" var="nextPageUrl">
+                        <c:param name="page" value="${generatedReportsPage + 1}"/>
+                    </c:url>
+                    <a href="${ nextPageUrl }">Suivant</a>
+                </c:if>
+            </div>
+        </c:if>
     </div>
 
 </c:if>